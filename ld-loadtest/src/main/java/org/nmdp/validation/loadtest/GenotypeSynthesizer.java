@@ -0,0 +1,147 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.loadtest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.dash.valid.gl.GLStringConstants;
+
+import io.swagger.model.Genotype;
+
+/**
+ * Synthesizes genotypes from a standard frequency file (race,haplotype,frequency[,rank]):  a race is
+ * chosen at random, then two of its haplotypes in proportion to their frequencies, so the genotypes
+ * resemble those of the population rather than being uniformly random.
+ */
+public class GenotypeSynthesizer {
+	private static final String G_GROUP_SUFFIX = "g";
+
+	private final Map<String, Haplotypes> races = new LinkedHashMap<String, Haplotypes>();
+
+	/**
+	 * @param frequencies a frequency file, or the name of one bundled with ld-validation, e.g. frequencies/std/NMDP_2007_FiveLocus_Freqs.csv
+	 */
+	public GenotypeSynthesizer(String frequencies) throws IOException {
+		InputStream stream = GenotypeSynthesizer.class.getClassLoader().getResourceAsStream(frequencies);
+		if (stream == null) {
+			File file = new File(frequencies);
+			if (!file.isFile()) {
+				throw new FileNotFoundException("Couldn't find frequency file: " + frequencies);
+			}
+			stream = new FileInputStream(file);
+		}
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split(GLStringConstants.COMMA);
+				if (parts.length < 3) {
+					continue;
+				}
+
+				Haplotypes haplotypes = races.get(parts[0]);
+				if (haplotypes == null) {
+					haplotypes = new Haplotypes();
+					races.put(parts[0], haplotypes);
+				}
+				haplotypes.add(alleles(parts[1]), Double.parseDouble(parts[2]));
+			}
+		}
+
+		if (races.isEmpty()) {
+			throw new IOException("No haplotypes in frequency file: " + frequencies);
+		}
+	}
+
+	/**
+	 * @return genotypes of the loci of the frequency file, with ids from the prefix
+	 */
+	public List<Genotype> synthesize(int count, String prefix, Random random) {
+		List<Haplotypes> haplotypes = new ArrayList<Haplotypes>(races.values());
+		List<Genotype> genotypes = new ArrayList<Genotype>(count);
+
+		for (int i = 0; i < count; i++) {
+			Haplotypes race = haplotypes.get(random.nextInt(haplotypes.size()));
+			String[] first = race.draw(random);
+			String[] second = race.draw(random);
+
+			StringBuilder glString = new StringBuilder();
+			for (int locus = 0; locus < Math.min(first.length, second.length); locus++) {
+				if (locus > 0) glString.append(GLStringConstants.GENE_DELIMITER);
+				glString.append(first[locus]).append(GLStringConstants.GENE_COPY_DELIMITER).append(second[locus]);
+			}
+
+			genotypes.add(new Genotype().id(prefix + i).glString(glString.toString()));
+		}
+
+		return genotypes;
+	}
+
+	// g groups name the alleles of the frequency file, but aren't valid in GL strings
+	private static String[] alleles(String haplotype) {
+		String[] alleles = haplotype.split(GLStringConstants.GENE_PHASE_DELIMITER);
+		for (int i = 0; i < alleles.length; i++) {
+			if (alleles[i].endsWith(G_GROUP_SUFFIX)) {
+				alleles[i] = alleles[i].substring(0, alleles[i].length() - G_GROUP_SUFFIX.length());
+			}
+		}
+		return alleles;
+	}
+
+	/**
+	 * The haplotypes of a race, drawn by binary search of their cumulative frequencies.
+	 */
+	private static final class Haplotypes {
+		private final List<String[]> alleles = new ArrayList<String[]>();
+		private double[] cumulative = new double[16];
+		private double total = 0;
+
+		void add(String[] haplotype, double frequency) {
+			if (alleles.size() == cumulative.length) {
+				cumulative = Arrays.copyOf(cumulative, cumulative.length * 2);
+			}
+			total += frequency;
+			cumulative[alleles.size()] = total;
+			alleles.add(haplotype);
+		}
+
+		String[] draw(Random random) {
+			int i = Arrays.binarySearch(cumulative, 0, alleles.size(), random.nextDouble() * total);
+			if (i < 0) i = -i - 1;
+
+			return alleles.get(Math.min(i, alleles.size() - 1));
+		}
+	}
+}
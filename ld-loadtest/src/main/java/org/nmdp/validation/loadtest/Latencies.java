@@ -0,0 +1,97 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the requests of one size at one concurrency, and their outcomes.
+ */
+public class Latencies {
+	private long[] nanos = new long[1024];
+	private int count = 0;
+	private int errors = 0;
+	private int rejected = 0;
+
+	public synchronized void add(long latencyNanos) {
+		if (count == nanos.length) {
+			nanos = Arrays.copyOf(nanos, nanos.length * 2);
+		}
+		nanos[count++] = latencyNanos;
+	}
+
+	/**
+	 * A request that failed, other than being turned away.
+	 */
+	public synchronized void error() {
+		errors++;
+	}
+
+	/**
+	 * A request turned away by the service (429).
+	 */
+	public synchronized void rejected() {
+		rejected++;
+	}
+
+	public synchronized void addAll(Latencies other) {
+		for (int i = 0; i < other.count; i++) {
+			add(other.nanos[i]);
+		}
+		errors += other.errors;
+		rejected += other.rejected;
+	}
+
+	/**
+	 * @return requests completed successfully
+	 */
+	public synchronized int getCount() {
+		return count;
+	}
+
+	public synchronized int getErrors() {
+		return errors;
+	}
+
+	public synchronized int getRejected() {
+		return rejected;
+	}
+
+	public synchronized int getRequests() {
+		return count + errors + rejected;
+	}
+
+	/**
+	 * @return the nearest rank percentile of the successful requests in milliseconds, or 0 if there were none
+	 */
+	public synchronized double percentileMillis(double percentile) {
+		if (count == 0) {
+			return 0.0;
+		}
+
+		long[] sorted = Arrays.copyOf(nanos, count);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100.0 * count);
+
+		return sorted[Math.max(0, Math.min(count, rank) - 1)] / 1e6;
+	}
+}
@@ -0,0 +1,345 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dash.valid.freq.Frequencies;
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
+import org.dishevelled.commandline.argument.IntegerListArgument;
+import org.dishevelled.commandline.argument.LongArgument;
+import org.dishevelled.commandline.argument.StringArgument;
+import org.dishevelled.commandline.argument.StringListArgument;
+import org.nmdp.validation.HLAHapVServiceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import io.swagger.model.Genotype;
+import io.swagger.model.Genotypes;
+import io.swagger.model.Samples;
+
+/**
+ * LoadTest
+ *
+ * Starts the service on a random port (or uses one already running), then submits genotypes synthesized
+ * from a frequency file at each level of concurrency, with request sizes drawn from the mix, and reports
+ * the throughput, latency percentiles and errors of each request size and level as CSV.
+ */
+public class LoadTest implements Callable<Integer> {
+	private static final String USAGE = "ld-loadtest [args]";
+	private static final String ALL = "all";
+	private static final long READY_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+	private final String url;
+	private final GenotypeSynthesizer synthesizer;
+	private final int genotypes;
+	private final int[] sizes;
+	private final int[] weights;
+	private final List<Integer> concurrency;
+	private final int requests;
+	private final int warmup;
+	private final long seed;
+	private final File outputFile;
+
+	private List<Genotype> pool;
+	private RestTemplate restTemplate;
+
+	/**
+	 * Run a load test.
+	 *
+	 * @param url url of a service already running, if null the service is started on a random port
+	 * @param synthesizer synthesizes the genotypes submitted
+	 * @param genotypes distinct genotypes submitted
+	 * @param mix request sizes and their weights, as size:weight
+	 * @param concurrency levels of concurrency, run in turn
+	 * @param requests requests submitted at each level
+	 * @param warmup requests submitted before the first level, not reported
+	 * @param seed random seed
+	 * @param outputFile CSV output file, if null stdout
+	 */
+	public LoadTest(String url, GenotypeSynthesizer synthesizer, int genotypes, List<String> mix, List<Integer> concurrency,
+			int requests, int warmup, long seed, File outputFile) {
+		this.url = url;
+		this.synthesizer = synthesizer;
+		this.genotypes = genotypes;
+		this.concurrency = concurrency;
+		this.requests = requests;
+		this.warmup = warmup;
+		this.seed = seed;
+		this.outputFile = outputFile;
+
+		sizes = new int[mix.size()];
+		weights = new int[mix.size()];
+		for (int i = 0; i < mix.size(); i++) {
+			String[] parts = mix.get(i).split(":");
+			sizes[i] = Integer.parseInt(parts[0].trim());
+			weights[i] = (parts.length > 1) ? Integer.parseInt(parts[1].trim()) : 1;
+			if (sizes[i] < 1 || weights[i] < 1) {
+				throw new IllegalArgumentException("Invalid request size: " + mix.get(i));
+			}
+		}
+	}
+
+	@Override
+	public Integer call() throws Exception {
+		pool = synthesizer.synthesize(genotypes, "LT", new Random(seed));
+
+		// connections are kept alive for reuse by the requests of the highest level
+		System.setProperty("http.maxConnections", String.valueOf(Collections.max(concurrency)));
+		restTemplate = new RestTemplate();
+
+		ConfigurableApplicationContext context = null;
+		String baseUrl = url;
+		if (baseUrl == null) {
+			context = SpringApplication.run(HLAHapVServiceApplication.class, "--server.port=0");
+			baseUrl = "http://localhost:" + ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+		}
+
+		try {
+			awaitReady(baseUrl);
+
+			if (warmup > 0) {
+				run(baseUrl, Collections.max(concurrency), warmup, new Random(seed - 1));
+			}
+
+			try (PrintWriter writer = (outputFile != null) ? new PrintWriter(outputFile, StandardCharsets.UTF_8.name())
+					: new PrintWriter(System.out)) {
+				writer.println("concurrency,request_size,requests,errors,rejected,error_rate,elapsed_s,requests_per_s,genotypes_per_s,p50_ms,p95_ms,p99_ms,max_ms");
+
+				for (int level : concurrency) {
+					long start = System.nanoTime();
+					Latencies[] latencies = run(baseUrl, level, requests, new Random(seed + level));
+					double elapsed = (System.nanoTime() - start) / 1e9;
+
+					Latencies all = new Latencies();
+					long genotypesSubmitted = 0;
+					for (int i = 0; i < sizes.length; i++) {
+						print(writer, level, String.valueOf(sizes[i]), latencies[i], elapsed, (long) sizes[i] * latencies[i].getCount());
+						all.addAll(latencies[i]);
+						genotypesSubmitted += (long) sizes[i] * latencies[i].getCount();
+					}
+					print(writer, level, ALL, all, elapsed, genotypesSubmitted);
+					writer.flush();
+				}
+			}
+		}
+		finally {
+			if (context != null) {
+				context.close();
+			}
+		}
+
+		return 0;
+	}
+
+	private void awaitReady(String baseUrl) throws InterruptedException, IOException {
+		long deadline = System.currentTimeMillis() + READY_TIMEOUT;
+		while (System.currentTimeMillis() < deadline) {
+			try {
+				restTemplate.getForEntity(baseUrl + "/health", String.class);
+				return;
+			}
+			catch (RestClientException e) {
+				// not yet loaded
+			}
+			Thread.sleep(500);
+		}
+
+		throw new IOException("Service at " + baseUrl + " not ready after " + READY_TIMEOUT + " ms");
+	}
+
+	/**
+	 * Submits the requests from the specified number of threads at once.
+	 *
+	 * @return the latencies of each request size
+	 */
+	private Latencies[] run(String baseUrl, int threads, int count, Random random) throws Exception {
+		Latencies[] latencies = new Latencies[sizes.length];
+		for (int i = 0; i < sizes.length; i++) {
+			latencies[i] = new Latencies();
+		}
+
+		int totalWeight = 0;
+		for (int weight : weights) {
+			totalWeight += weight;
+		}
+
+		// requests drawn up front, so each level submits the same mix whatever the order they complete in
+		int[] drawn = new int[count];
+		int[] offsets = new int[count];
+		for (int i = 0; i < count; i++) {
+			int draw = random.nextInt(totalWeight);
+			int size = 0;
+			while (draw >= weights[size]) {
+				draw -= weights[size++];
+			}
+			drawn[i] = size;
+			offsets[i] = random.nextInt(pool.size());
+		}
+
+		AtomicInteger next = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> workers = new ArrayList<Future<?>>();
+			for (int t = 0; t < threads; t++) {
+				workers.add(executor.submit(() -> {
+					int i;
+					while ((i = next.getAndIncrement()) < count) {
+						submit(baseUrl, sizes[drawn[i]], offsets[i], latencies[drawn[i]]);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		return latencies;
+	}
+
+	private void submit(String baseUrl, int size, int offset, Latencies latencies) {
+		Genotypes body = new Genotypes();
+		for (int i = 0; i < size; i++) {
+			body.addGenotypeItem(pool.get((offset + i) % pool.size()));
+		}
+
+		long start = System.nanoTime();
+		try {
+			Samples samples = restTemplate.postForObject(baseUrl + "/genotypes", body, Samples.class);
+			long latency = System.nanoTime() - start;
+
+			if (samples == null || samples.getSample() == null || samples.getSample().size() != size) {
+				latencies.error();
+			}
+			else {
+				latencies.add(latency);
+			}
+		}
+		catch (HttpStatusCodeException e) {
+			if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+				latencies.rejected();
+			}
+			else {
+				latencies.error();
+			}
+		}
+		catch (RestClientException e) {
+			latencies.error();
+		}
+	}
+
+	private static void print(PrintWriter writer, int level, String size, Latencies latencies, double elapsed, long genotypesSubmitted) {
+		int total = latencies.getRequests();
+		writer.println(String.format(Locale.ROOT, "%d,%s,%d,%d,%d,%.4f,%.3f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f",
+				level, size, total, latencies.getErrors(), latencies.getRejected(),
+				(total > 0) ? (double) (latencies.getErrors() + latencies.getRejected()) / total : 0.0,
+				elapsed, latencies.getCount() / elapsed, genotypesSubmitted / elapsed,
+				latencies.percentileMillis(50), latencies.percentileMillis(95), latencies.percentileMillis(99),
+				latencies.percentileMillis(100)));
+	}
+
+	/**
+	 * Main.
+	 *
+	 * @param args command line args
+	 */
+	public static void main(final String[] args) {
+		Switch help = new Switch("h", "help", "display help message");
+		StringArgument url = new StringArgument("u", "url", "url of a service already running, default start the service on a random port", false);
+		StringArgument freq = new StringArgument("f", "frequencies", "Frequency Set of the service started (e.g. nmdp, nmdp-2007, wiki), default nmdp-2007-std", false);
+		StringArgument frequencyFile = new StringArgument("q", "frequency-file", "frequency file the genotypes are synthesized from, default frequencies/std/NMDP_2007_FiveLocus_Freqs.csv", false);
+		IntegerArgument genotypes = new IntegerArgument("g", "genotypes", "distinct genotypes submitted, default 1000", false);
+		StringListArgument mix = new StringListArgument("s", "request-sizes", "genotypes per request and their weights (comma separated size:weight), default 1:50,10:30,100:20", false);
+		IntegerListArgument concurrency = new IntegerListArgument("c", "concurrency", "requests submitted at once, run in turn (comma separated), default 1,4,16", false);
+		IntegerArgument requests = new IntegerArgument("n", "requests", "requests submitted at each concurrency, default 200", false);
+		IntegerArgument warmup = new IntegerArgument("w", "warmup", "requests submitted before the first concurrency, not reported, default 50", false);
+		LongArgument seed = new LongArgument("e", "seed", "random seed, default 1", false);
+		FileArgument outputFile = new FileArgument("o", "output-file", "CSV output file, default stdout", false);
+
+		ArgumentList arguments = new ArgumentList(help, url, freq, frequencyFile, genotypes, mix, concurrency, requests, warmup, seed, outputFile);
+		CommandLine commandLine = new CommandLine(args);
+
+		LoadTest loadTest = null;
+		try
+		{
+			CommandLineParser.parse(commandLine, arguments);
+			if (help.wasFound()) {
+				Usage.usage(USAGE, null, commandLine, arguments, System.out);
+				System.exit(0);
+			}
+
+			System.setProperty(Frequencies.FREQUENCIES_PROPERTY, freq.wasFound() ? freq.getValue() : Frequencies.NMDP_2007_STD.getShortName());
+
+			loadTest = new LoadTest(url.getValue(),
+					new GenotypeSynthesizer(frequencyFile.wasFound() ? frequencyFile.getValue() : "frequencies/std/NMDP_2007_FiveLocus_Freqs.csv"),
+					genotypes.getValue(1000),
+					mix.getValue(Arrays.asList("1:50", "10:30", "100:20")),
+					concurrency.getValue(Arrays.asList(1, 4, 16)),
+					requests.getValue(200),
+					warmup.getValue(50),
+					seed.getValue(1L),
+					outputFile.getValue());
+		}
+		catch (CommandLineParseException | IllegalArgumentException | IOException e) {
+			Usage.usage(USAGE, e, commandLine, arguments, System.err);
+			System.exit(-1);
+		}
+		try {
+			System.exit(loadTest.call());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -54,6 +54,7 @@ public class ApiClient {
 
     private String basePath = "https://virtserver.swaggerhub.com/mpresteg/HLAHapV/1.0.0";
     private boolean debugging = false;
+    private boolean gzipRequests = false;
     private Map<String, String> defaultHeaderMap = new HashMap<String, String>();
     private String tempFolderPath = null;
 
@@ -72,6 +73,7 @@ public class ApiClient {
     private JSON json;
 
     private HttpLoggingInterceptor loggingInterceptor;
+    private GzipRequestInterceptor gzipRequestInterceptor;
 
     /*
      * Constructor for ApiClient
@@ -391,6 +393,36 @@ public class ApiClient {
         return this;
     }
 
+    /**
+     * Check whether request bodies are compressed for this API client.
+     *
+     * @return True if request bodies are compressed with gzip, false otherwise.
+     */
+    public boolean isGzipRequests() {
+        return gzipRequests;
+    }
+
+    /**
+     * Enable/disable compressing request bodies with gzip, for servers that accept them (e.g. HLAHapV).
+     * Responses are decompressed regardless, as OkHttp asks for gzip responses itself.
+     *
+     * @param gzipRequests To enable (true) or disable (false) compressing request bodies
+     * @return ApiClient
+     */
+    public ApiClient setGzipRequests(boolean gzipRequests) {
+        if (gzipRequests != this.gzipRequests) {
+            if (gzipRequests) {
+                gzipRequestInterceptor = new GzipRequestInterceptor();
+                httpClient.interceptors().add(gzipRequestInterceptor);
+            } else {
+                httpClient.interceptors().remove(gzipRequestInterceptor);
+                gzipRequestInterceptor = null;
+            }
+        }
+        this.gzipRequests = gzipRequests;
+        return this;
+    }
+
     /**
      * The path of temporary folder used to store downloaded files from endpoints
      * with file response. The default value is <code>null</code>, i.e. using
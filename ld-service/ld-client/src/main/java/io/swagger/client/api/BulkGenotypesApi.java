@@ -0,0 +1,277 @@
+package io.swagger.client.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.swagger.client.ApiCallback;
+import io.swagger.client.ApiException;
+import io.swagger.client.model.Genotype;
+import io.swagger.client.model.Genotypes;
+import io.swagger.client.model.SampleData;
+import io.swagger.client.model.Samples;
+
+/**
+ * Submits large sets of genotypes in chunks, several at once over the API client's connections, and
+ * merges the samples returned in the order of the genotypes.  Chunks the server turns away (429 or
+ * 503, after the seconds in its Retry-After header if any) or that fail to connect are retried with
+ * backoff; any other failure fails the submission.
+ *
+ * Chunks in flight are limited to the concurrency, by default the requests per host allowed by the
+ * client's dispatcher (raise both for servers with more analysis threads).
+ */
+public class BulkGenotypesApi {
+    private static final String RETRY_AFTER = "Retry-After";
+    // the retry delay is doubled at most this many times, so long runs of retries don't overflow it
+    private static final int MAX_BACKOFF_DOUBLINGS = 20;
+
+    private final GenotypesApi genotypesApi;
+
+    private int chunkSize = 500;
+    private int concurrency;
+    private int maxRetries = 3;
+    private long retryDelay = 1000;
+
+    public BulkGenotypesApi(GenotypesApi genotypesApi) {
+        this.genotypesApi = genotypesApi;
+        this.concurrency = genotypesApi.getApiClient().getHttpClient().getDispatcher().getMaxRequestsPerHost();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize Genotypes submitted per request
+     * @return BulkGenotypesApi
+     */
+    public BulkGenotypesApi setChunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be at least 1");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @param concurrency Chunks submitted at once
+     * @return BulkGenotypesApi
+     */
+    public BulkGenotypesApi setConcurrency(int concurrency) {
+        if (concurrency < 1) throw new IllegalArgumentException("concurrency must be at least 1");
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param maxRetries Times a chunk is retried before the submission fails
+     * @return BulkGenotypesApi
+     */
+    public BulkGenotypesApi setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) throw new IllegalArgumentException("maxRetries must not be negative");
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    public long getRetryDelay() {
+        return retryDelay;
+    }
+
+    /**
+     * @param retryDelay Milliseconds before the first retry of a chunk, doubled for each retry after it
+     * @return BulkGenotypesApi
+     */
+    public BulkGenotypesApi setRetryDelay(long retryDelay) {
+        if (retryDelay < 0) throw new IllegalArgumentException("retryDelay must not be negative");
+        this.retryDelay = retryDelay;
+        return this;
+    }
+
+    /**
+     * Submit a set of genotypes for evaluation, in chunks
+     *
+     * @param body Genotypes object that needs to be evaluated (required)
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
+     * @return Samples, one per genotype in the order of the genotypes
+     * @throws ApiException If the body is missing, a chunk fails other than by being turned away, or is turned away more than the retries
+     */
+    public Samples submitGenotypes(Genotypes body, String frequencies, String hladb) throws ApiException {
+        if (body == null) {
+            throw new ApiException("Missing the required parameter 'body' when calling submitGenotypes(Async)");
+        }
+
+        List<Genotype> genotypes = (body.getGenotype() != null) ? body.getGenotype() : new ArrayList<Genotype>();
+        List<Genotypes> chunks = new ArrayList<Genotypes>();
+        for (int i = 0; i < genotypes.size(); i += chunkSize) {
+            chunks.add(new Genotypes().genotype(new ArrayList<Genotype>(genotypes.subList(i, Math.min(i + chunkSize, genotypes.size())))));
+        }
+
+        Samples[] results = new Samples[chunks.size()];
+        List<com.squareup.okhttp.Call> calls = new ArrayList<com.squareup.okhttp.Call>();
+        BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<Outcome>();
+        DelayQueue<Attempt> ready = new DelayQueue<Attempt>();
+        for (int i = 0; i < chunks.size(); i++) {
+            ready.add(new Attempt(i, 0, 0));
+        }
+
+        int inFlight = 0;
+        int completed = 0;
+        try {
+            while (completed < chunks.size()) {
+                Attempt attempt;
+                while (inFlight < concurrency && (attempt = ready.poll()) != null) {
+                    calls.add(genotypesApi.submitGenotypesAsync(chunks.get(attempt.chunk), frequencies, hladb, new ChunkCallback(attempt, outcomes)));
+                    inFlight++;
+                }
+
+                Outcome outcome;
+                if (inFlight > 0) {
+                    Attempt next = ready.peek();
+                    outcome = (next != null && inFlight < concurrency) ? outcomes.poll(next.getDelay(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS) : outcomes.take();
+                    if (outcome == null) {
+                        continue;
+                    }
+                }
+                else {
+                    // only retries waiting for their delay remain
+                    ready.add(ready.take());
+                    continue;
+                }
+                inFlight--;
+
+                if (outcome.exception == null) {
+                    results[outcome.attempt.chunk] = outcome.samples;
+                    completed++;
+                }
+                else if (isRetryable(outcome.exception) && outcome.attempt.retries < maxRetries) {
+                    int retries = outcome.attempt.retries + 1;
+                    ready.add(new Attempt(outcome.attempt.chunk, retries, retryAfter(outcome.exception, retries)));
+                }
+                else {
+                    throw outcome.exception;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(e);
+        }
+        finally {
+            if (completed < chunks.size()) {
+                for (com.squareup.okhttp.Call call : calls) {
+                    call.cancel();
+                }
+            }
+        }
+
+        Samples samples = new Samples();
+        for (Samples result : results) {
+            if (result != null && result.getSample() != null) {
+                for (SampleData sampleData : result.getSample()) {
+                    samples.addSampleItem(sampleData);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private static boolean isRetryable(ApiException e) {
+        // 0 when the request failed to connect or be read
+        int code = e.getCode();
+        return code == 0 || code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    private long retryAfter(ApiException e, int retries) {
+        Map<String, List<String>> headers = e.getResponseHeaders();
+        if (headers != null) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (RETRY_AFTER.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                    try {
+                        return Long.parseLong(header.getValue().get(0).trim()) * 1000;
+                    }
+                    catch (NumberFormatException ignored) {
+                        // an HTTP date, so backed off as if there were none
+                    }
+                }
+            }
+        }
+
+        return retryDelay << Math.min(retries - 1, MAX_BACKOFF_DOUBLINGS);
+    }
+
+    private static final class Attempt implements Delayed {
+        private final int chunk;
+        private final int retries;
+        private final long readyAt;
+
+        Attempt(int chunk, int retries, long delay) {
+            this.chunk = chunk;
+            this.retries = retries;
+            this.readyAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            long diff = getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+    }
+
+    private static final class Outcome {
+        private final Attempt attempt;
+        private final Samples samples;
+        private final ApiException exception;
+
+        Outcome(Attempt attempt, Samples samples, ApiException exception) {
+            this.attempt = attempt;
+            this.samples = samples;
+            this.exception = exception;
+        }
+    }
+
+    // hands the outcome of a chunk to the submitting thread, which does the rest
+    private static final class ChunkCallback implements ApiCallback<Samples> {
+        private final Attempt attempt;
+        private final BlockingQueue<Outcome> outcomes;
+
+        ChunkCallback(Attempt attempt, BlockingQueue<Outcome> outcomes) {
+            this.attempt = attempt;
+            this.outcomes = outcomes;
+        }
+
+        @Override
+        public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+            outcomes.add(new Outcome(attempt, null, e));
+        }
+
+        @Override
+        public void onSuccess(Samples result, int statusCode, Map<String, List<String>> responseHeaders) {
+            outcomes.add(new Outcome(attempt, result, null));
+        }
+
+        @Override
+        public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+        }
+
+        @Override
+        public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.io.IOException;
 
 
 import io.swagger.client.model.Genotypes;
+import io.swagger.client.model.Samples;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
@@ -54,15 +55,151 @@ public class GenotypesApi {
         this.apiClient = apiClient;
     }
 
+    /**
+     * Build call for streamGenotypes
+     * @param body Genotype objects that need to be evaluated, one per line (required)
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
+     * @param progressListener Progress listener
+     * @param progressRequestListener Progress request listener
+     * @return Call to execute
+     * @throws ApiException If fail to serialize the request body object
+     */
+    public com.squareup.okhttp.Call streamGenotypesCall(byte[] body, String frequencies, String hladb, final ProgressResponseBody.ProgressListener progressListener, final ProgressRequestBody.ProgressRequestListener progressRequestListener) throws ApiException {
+        Object localVarPostBody = body;
+
+        // create path and map variables
+        String localVarPath = "/stream/genotypes";
+
+        List<Pair> localVarQueryParams = new ArrayList<Pair>();
+        List<Pair> localVarCollectionQueryParams = new ArrayList<Pair>();
+        if (frequencies != null)
+        localVarQueryParams.addAll(apiClient.parameterToPair("frequencies", frequencies));
+        if (hladb != null)
+        localVarQueryParams.addAll(apiClient.parameterToPair("hladb", hladb));
+
+        Map<String, String> localVarHeaderParams = new HashMap<String, String>();
+
+        Map<String, Object> localVarFormParams = new HashMap<String, Object>();
+
+        final String[] localVarAccepts = {
+            "application/x-ndjson"
+        };
+        final String localVarAccept = apiClient.selectHeaderAccept(localVarAccepts);
+        if (localVarAccept != null) localVarHeaderParams.put("Accept", localVarAccept);
+
+        final String[] localVarContentTypes = {
+            "application/x-ndjson"
+        };
+        final String localVarContentType = apiClient.selectHeaderContentType(localVarContentTypes);
+        localVarHeaderParams.put("Content-Type", localVarContentType);
+
+        if(progressListener != null) {
+            apiClient.getHttpClient().networkInterceptors().add(new com.squareup.okhttp.Interceptor() {
+                @Override
+                public com.squareup.okhttp.Response intercept(com.squareup.okhttp.Interceptor.Chain chain) throws IOException {
+                    com.squareup.okhttp.Response originalResponse = chain.proceed(chain.request());
+                    return originalResponse.newBuilder()
+                    .body(new ProgressResponseBody(originalResponse.body(), progressListener))
+                    .build();
+                }
+            });
+        }
+
+        String[] localVarAuthNames = new String[] {  };
+        return apiClient.buildCall(localVarPath, "POST", localVarQueryParams, localVarCollectionQueryParams, localVarPostBody, localVarHeaderParams, localVarFormParams, localVarAuthNames, progressRequestListener);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private com.squareup.okhttp.Call streamGenotypesValidateBeforeCall(byte[] body, String frequencies, String hladb, final ProgressResponseBody.ProgressListener progressListener, final ProgressRequestBody.ProgressRequestListener progressRequestListener) throws ApiException {
+        
+        // verify the required parameter 'body' is set
+        if (body == null) {
+            throw new ApiException("Missing the required parameter 'body' when calling streamGenotypes(Async)");
+        }
+        
+
+        com.squareup.okhttp.Call call = streamGenotypesCall(body, frequencies, hladb, progressListener, progressRequestListener);
+        return call;
+
+    }
+
+    /**
+     * Stream genotypes for evaluation, one sample returned per genotype as it is evaluated
+     * The request body is newline delimited JSON, one Genotype per line, and is read as it arrives. Each SampleData is written on its own line as soon as it is evaluated, in the order of the genotypes. 
+     * @param body Genotype objects that need to be evaluated, one per line (required)
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
+     * @return byte[]
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public byte[] streamGenotypes(byte[] body, String frequencies, String hladb) throws ApiException {
+        ApiResponse<byte[]> resp = streamGenotypesWithHttpInfo(body, frequencies, hladb);
+        return resp.getData();
+    }
+
+    /**
+     * Stream genotypes for evaluation, one sample returned per genotype as it is evaluated
+     * The request body is newline delimited JSON, one Genotype per line, and is read as it arrives. Each SampleData is written on its own line as soon as it is evaluated, in the order of the genotypes. 
+     * @param body Genotype objects that need to be evaluated, one per line (required)
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
+     * @return ApiResponse&lt;byte[]&gt;
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public ApiResponse<byte[]> streamGenotypesWithHttpInfo(byte[] body, String frequencies, String hladb) throws ApiException {
+        com.squareup.okhttp.Call call = streamGenotypesValidateBeforeCall(body, frequencies, hladb, null, null);
+        Type localVarReturnType = new TypeToken<byte[]>(){}.getType();
+        return apiClient.execute(call, localVarReturnType);
+    }
+
+    /**
+     * Stream genotypes for evaluation, one sample returned per genotype as it is evaluated (asynchronously)
+     * The request body is newline delimited JSON, one Genotype per line, and is read as it arrives. Each SampleData is written on its own line as soon as it is evaluated, in the order of the genotypes. 
+     * @param body Genotype objects that need to be evaluated, one per line (required)
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
+     * @param callback The callback to be executed when the API call finishes
+     * @return The request call
+     * @throws ApiException If fail to process the API call, e.g. serializing the request body object
+     */
+    public com.squareup.okhttp.Call streamGenotypesAsync(byte[] body, String frequencies, String hladb, final ApiCallback<byte[]> callback) throws ApiException {
+
+        ProgressResponseBody.ProgressListener progressListener = null;
+        ProgressRequestBody.ProgressRequestListener progressRequestListener = null;
+
+        if (callback != null) {
+            progressListener = new ProgressResponseBody.ProgressListener() {
+                @Override
+                public void update(long bytesRead, long contentLength, boolean done) {
+                    callback.onDownloadProgress(bytesRead, contentLength, done);
+                }
+            };
+
+            progressRequestListener = new ProgressRequestBody.ProgressRequestListener() {
+                @Override
+                public void onRequestProgress(long bytesWritten, long contentLength, boolean done) {
+                    callback.onUploadProgress(bytesWritten, contentLength, done);
+                }
+            };
+        }
+
+        com.squareup.okhttp.Call call = streamGenotypesValidateBeforeCall(body, frequencies, hladb, progressListener, progressRequestListener);
+        Type localVarReturnType = new TypeToken<byte[]>(){}.getType();
+        apiClient.executeAsync(call, localVarReturnType, callback);
+        return call;
+    }
     /**
      * Build call for submitGenotypes
      * @param body Genotypes object that needs to be evaluated (required)
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
      * @param progressListener Progress listener
      * @param progressRequestListener Progress request listener
      * @return Call to execute
      * @throws ApiException If fail to serialize the request body object
      */
-    public com.squareup.okhttp.Call submitGenotypesCall(Genotypes body, final ProgressResponseBody.ProgressListener progressListener, final ProgressRequestBody.ProgressRequestListener progressRequestListener) throws ApiException {
+    public com.squareup.okhttp.Call submitGenotypesCall(Genotypes body, String frequencies, String hladb, final ProgressResponseBody.ProgressListener progressListener, final ProgressRequestBody.ProgressRequestListener progressRequestListener) throws ApiException {
         Object localVarPostBody = body;
 
         // create path and map variables
@@ -70,6 +207,10 @@ public class GenotypesApi {
 
         List<Pair> localVarQueryParams = new ArrayList<Pair>();
         List<Pair> localVarCollectionQueryParams = new ArrayList<Pair>();
+        if (frequencies != null)
+        localVarQueryParams.addAll(apiClient.parameterToPair("frequencies", frequencies));
+        if (hladb != null)
+        localVarQueryParams.addAll(apiClient.parameterToPair("hladb", hladb));
 
         Map<String, String> localVarHeaderParams = new HashMap<String, String>();
 
@@ -104,7 +245,7 @@ public class GenotypesApi {
     }
 
     @SuppressWarnings("rawtypes")
-    private com.squareup.okhttp.Call submitGenotypesValidateBeforeCall(Genotypes body, final ProgressResponseBody.ProgressListener progressListener, final ProgressRequestBody.ProgressRequestListener progressRequestListener) throws ApiException {
+    private com.squareup.okhttp.Call submitGenotypesValidateBeforeCall(Genotypes body, String frequencies, String hladb, final ProgressResponseBody.ProgressListener progressListener, final ProgressRequestBody.ProgressRequestListener progressRequestListener) throws ApiException {
         
         // verify the required parameter 'body' is set
         if (body == null) {
@@ -112,7 +253,7 @@ public class GenotypesApi {
         }
         
 
-        com.squareup.okhttp.Call call = submitGenotypesCall(body, progressListener, progressRequestListener);
+        com.squareup.okhttp.Call call = submitGenotypesCall(body, frequencies, hladb, progressListener, progressRequestListener);
         return call;
 
     }
@@ -121,33 +262,42 @@ public class GenotypesApi {
      * Submit a set of genotypes for evaluation
      * 
      * @param body Genotypes object that needs to be evaluated (required)
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
+     * @return Samples
      * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
      */
-    public void submitGenotypes(Genotypes body) throws ApiException {
-        submitGenotypesWithHttpInfo(body);
+    public Samples submitGenotypes(Genotypes body, String frequencies, String hladb) throws ApiException {
+        ApiResponse<Samples> resp = submitGenotypesWithHttpInfo(body, frequencies, hladb);
+        return resp.getData();
     }
 
     /**
      * Submit a set of genotypes for evaluation
      * 
      * @param body Genotypes object that needs to be evaluated (required)
-     * @return ApiResponse&lt;Void&gt;
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
+     * @return ApiResponse&lt;Samples&gt;
      * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
      */
-    public ApiResponse<Void> submitGenotypesWithHttpInfo(Genotypes body) throws ApiException {
-        com.squareup.okhttp.Call call = submitGenotypesValidateBeforeCall(body, null, null);
-        return apiClient.execute(call);
+    public ApiResponse<Samples> submitGenotypesWithHttpInfo(Genotypes body, String frequencies, String hladb) throws ApiException {
+        com.squareup.okhttp.Call call = submitGenotypesValidateBeforeCall(body, frequencies, hladb, null, null);
+        Type localVarReturnType = new TypeToken<Samples>(){}.getType();
+        return apiClient.execute(call, localVarReturnType);
     }
 
     /**
      * Submit a set of genotypes for evaluation (asynchronously)
      * 
      * @param body Genotypes object that needs to be evaluated (required)
+     * @param frequencies Frequency set of the analysis engine to use, by default that of the live reference data (optional)
+     * @param hladb hladb version of the analysis engine to use, by default that of the live reference data (optional)
      * @param callback The callback to be executed when the API call finishes
      * @return The request call
      * @throws ApiException If fail to process the API call, e.g. serializing the request body object
      */
-    public com.squareup.okhttp.Call submitGenotypesAsync(Genotypes body, final ApiCallback<Void> callback) throws ApiException {
+    public com.squareup.okhttp.Call submitGenotypesAsync(Genotypes body, String frequencies, String hladb, final ApiCallback<Samples> callback) throws ApiException {
 
         ProgressResponseBody.ProgressListener progressListener = null;
         ProgressRequestBody.ProgressRequestListener progressRequestListener = null;
@@ -168,8 +318,9 @@ public class GenotypesApi {
             };
         }
 
-        com.squareup.okhttp.Call call = submitGenotypesValidateBeforeCall(body, progressListener, progressRequestListener);
-        apiClient.executeAsync(call, callback);
+        com.squareup.okhttp.Call call = submitGenotypesValidateBeforeCall(body, frequencies, hladb, progressListener, progressRequestListener);
+        Type localVarReturnType = new TypeToken<Samples>(){}.getType();
+        apiClient.executeAsync(call, localVarReturnType, callback);
         return call;
     }
 }
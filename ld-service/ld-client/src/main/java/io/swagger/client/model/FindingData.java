@@ -0,0 +1,186 @@
+/*
+ * Swagger HLAHapV
+ * This is a HLAHapV Server.  You can find  out more about HLAHapV at  [http://github.com/nmdp-bioinformatics/ImmunogeneticDataTools](http://github.com/nmdp-bioinformatics/ImmunogeneticDataTools). 
+ *
+ * OpenAPI spec version: 1.0.0
+ * Contact: mpresteg@nmdp.org
+ *
+ * NOTE: This class is auto generated by the swagger code generator program.
+ * https://github.com/swagger-api/swagger-codegen.git
+ * Do not edit the class manually.
+ */
+
+
+package io.swagger.client.model;
+
+import java.util.Objects;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * FindingData
+ */
+@javax.annotation.Generated(value = "io.swagger.codegen.languages.JavaClientCodegen", date = "2026-10-19T09:27:44.946Z")
+public class FindingData {
+  @SerializedName("frequency")
+  private BigDecimal frequency = null;
+
+  @SerializedName("relativeFrequency")
+  private BigDecimal relativeFrequency = null;
+
+  @SerializedName("haplotype1Frequency")
+  private BigDecimal haplotype1Frequency = null;
+
+  @SerializedName("haplotype2Frequency")
+  private BigDecimal haplotype2Frequency = null;
+
+  @SerializedName("race")
+  private String race = null;
+
+  public FindingData frequency(BigDecimal frequency) {
+    this.frequency = frequency;
+    return this;
+  }
+
+   /**
+   * Get frequency
+   * @return frequency
+  **/
+  @ApiModelProperty(value = "")
+  public BigDecimal getFrequency() {
+    return frequency;
+  }
+
+  public void setFrequency(BigDecimal frequency) {
+    this.frequency = frequency;
+  }
+
+  public FindingData relativeFrequency(BigDecimal relativeFrequency) {
+    this.relativeFrequency = relativeFrequency;
+    return this;
+  }
+
+   /**
+   * Get relativeFrequency
+   * @return relativeFrequency
+  **/
+  @ApiModelProperty(value = "")
+  public BigDecimal getRelativeFrequency() {
+    return relativeFrequency;
+  }
+
+  public void setRelativeFrequency(BigDecimal relativeFrequency) {
+    this.relativeFrequency = relativeFrequency;
+  }
+
+  public FindingData haplotype1Frequency(BigDecimal haplotype1Frequency) {
+    this.haplotype1Frequency = haplotype1Frequency;
+    return this;
+  }
+
+   /**
+   * Get haplotype1Frequency
+   * @return haplotype1Frequency
+  **/
+  @ApiModelProperty(value = "")
+  public BigDecimal getHaplotype1Frequency() {
+    return haplotype1Frequency;
+  }
+
+  public void setHaplotype1Frequency(BigDecimal haplotype1Frequency) {
+    this.haplotype1Frequency = haplotype1Frequency;
+  }
+
+  public FindingData haplotype2Frequency(BigDecimal haplotype2Frequency) {
+    this.haplotype2Frequency = haplotype2Frequency;
+    return this;
+  }
+
+   /**
+   * Get haplotype2Frequency
+   * @return haplotype2Frequency
+  **/
+  @ApiModelProperty(value = "")
+  public BigDecimal getHaplotype2Frequency() {
+    return haplotype2Frequency;
+  }
+
+  public void setHaplotype2Frequency(BigDecimal haplotype2Frequency) {
+    this.haplotype2Frequency = haplotype2Frequency;
+  }
+
+  public FindingData race(String race) {
+    this.race = race;
+    return this;
+  }
+
+   /**
+   * Get race
+   * @return race
+  **/
+  @ApiModelProperty(value = "")
+  public String getRace() {
+    return race;
+  }
+
+  public void setRace(String race) {
+    this.race = race;
+  }
+
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FindingData findingData = (FindingData) o;
+    return Objects.equals(this.frequency, findingData.frequency) &&
+        Objects.equals(this.relativeFrequency, findingData.relativeFrequency) &&
+        Objects.equals(this.haplotype1Frequency, findingData.haplotype1Frequency) &&
+        Objects.equals(this.haplotype2Frequency, findingData.haplotype2Frequency) &&
+        Objects.equals(this.race, findingData.race);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(frequency, relativeFrequency, haplotype1Frequency, haplotype2Frequency, race);
+  }
+
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class FindingData {\n");
+    
+    sb.append("    frequency: ").append(toIndentedString(frequency)).append("\n");
+    sb.append("    relativeFrequency: ").append(toIndentedString(relativeFrequency)).append("\n");
+    sb.append("    haplotype1Frequency: ").append(toIndentedString(haplotype1Frequency)).append("\n");
+    sb.append("    haplotype2Frequency: ").append(toIndentedString(haplotype2Frequency)).append("\n");
+    sb.append("    race: ").append(toIndentedString(race)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+
+}
+
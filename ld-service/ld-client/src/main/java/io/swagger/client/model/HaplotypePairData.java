@@ -0,0 +1,150 @@
+/*
+ * Swagger HLAHapV
+ * This is a HLAHapV Server.  You can find  out more about HLAHapV at  [http://github.com/nmdp-bioinformatics/ImmunogeneticDataTools](http://github.com/nmdp-bioinformatics/ImmunogeneticDataTools). 
+ *
+ * OpenAPI spec version: 1.0.0
+ * Contact: mpresteg@nmdp.org
+ *
+ * NOTE: This class is auto generated by the swagger code generator program.
+ * https://github.com/swagger-api/swagger-codegen.git
+ * Do not edit the class manually.
+ */
+
+
+package io.swagger.client.model;
+
+import java.util.Objects;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import io.swagger.client.model.FindingData;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HaplotypePairData
+ */
+@javax.annotation.Generated(value = "io.swagger.codegen.languages.JavaClientCodegen", date = "2026-10-19T09:27:44.946Z")
+public class HaplotypePairData {
+  @SerializedName("haplotype1")
+  private String haplotype1 = null;
+
+  @SerializedName("haplotype2")
+  private String haplotype2 = null;
+
+  @SerializedName("finding")
+  private List<FindingData> finding = null;
+
+  public HaplotypePairData haplotype1(String haplotype1) {
+    this.haplotype1 = haplotype1;
+    return this;
+  }
+
+   /**
+   * Get haplotype1
+   * @return haplotype1
+  **/
+  @ApiModelProperty(value = "")
+  public String getHaplotype1() {
+    return haplotype1;
+  }
+
+  public void setHaplotype1(String haplotype1) {
+    this.haplotype1 = haplotype1;
+  }
+
+  public HaplotypePairData haplotype2(String haplotype2) {
+    this.haplotype2 = haplotype2;
+    return this;
+  }
+
+   /**
+   * Get haplotype2
+   * @return haplotype2
+  **/
+  @ApiModelProperty(value = "")
+  public String getHaplotype2() {
+    return haplotype2;
+  }
+
+  public void setHaplotype2(String haplotype2) {
+    this.haplotype2 = haplotype2;
+  }
+
+  public HaplotypePairData finding(List<FindingData> finding) {
+    this.finding = finding;
+    return this;
+  }
+
+  public HaplotypePairData addFindingItem(FindingData findingItem) {
+    if (this.finding == null) {
+      this.finding = new ArrayList<FindingData>();
+    }
+    this.finding.add(findingItem);
+    return this;
+  }
+
+   /**
+   * Get finding
+   * @return finding
+  **/
+  @ApiModelProperty(value = "")
+  public List<FindingData> getFinding() {
+    return finding;
+  }
+
+  public void setFinding(List<FindingData> finding) {
+    this.finding = finding;
+  }
+
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    HaplotypePairData haplotypePairData = (HaplotypePairData) o;
+    return Objects.equals(this.haplotype1, haplotypePairData.haplotype1) &&
+        Objects.equals(this.haplotype2, haplotypePairData.haplotype2) &&
+        Objects.equals(this.finding, haplotypePairData.finding);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(haplotype1, haplotype2, finding);
+  }
+
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class HaplotypePairData {\n");
+    
+    sb.append("    haplotype1: ").append(toIndentedString(haplotype1)).append("\n");
+    sb.append("    haplotype2: ").append(toIndentedString(haplotype2)).append("\n");
+    sb.append("    finding: ").append(toIndentedString(finding)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+
+}
+
@@ -0,0 +1,173 @@
+/*
+ * Swagger HLAHapV
+ * This is a HLAHapV Server.  You can find  out more about HLAHapV at  [http://github.com/nmdp-bioinformatics/ImmunogeneticDataTools](http://github.com/nmdp-bioinformatics/ImmunogeneticDataTools). 
+ *
+ * OpenAPI spec version: 1.0.0
+ * Contact: mpresteg@nmdp.org
+ *
+ * NOTE: This class is auto generated by the swagger code generator program.
+ * https://github.com/swagger-api/swagger-codegen.git
+ * Do not edit the class manually.
+ */
+
+
+package io.swagger.client.model;
+
+import java.util.Objects;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import io.swagger.client.model.HaplotypePairData;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SampleData
+ */
+@javax.annotation.Generated(value = "io.swagger.codegen.languages.JavaClientCodegen", date = "2026-10-19T09:27:44.946Z")
+public class SampleData {
+  @SerializedName("id")
+  private String id = null;
+
+  @SerializedName("glString")
+  private String glString = null;
+
+  @SerializedName("processedGlString")
+  private String processedGlString = null;
+
+  @SerializedName("haplotypePair")
+  private List<HaplotypePairData> haplotypePair = null;
+
+  public SampleData id(String id) {
+    this.id = id;
+    return this;
+  }
+
+   /**
+   * Get id
+   * @return id
+  **/
+  @ApiModelProperty(required = true, value = "")
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public SampleData glString(String glString) {
+    this.glString = glString;
+    return this;
+  }
+
+   /**
+   * Get glString
+   * @return glString
+  **/
+  @ApiModelProperty(required = true, value = "")
+  public String getGlString() {
+    return glString;
+  }
+
+  public void setGlString(String glString) {
+    this.glString = glString;
+  }
+
+  public SampleData processedGlString(String processedGlString) {
+    this.processedGlString = processedGlString;
+    return this;
+  }
+
+   /**
+   * Get processedGlString
+   * @return processedGlString
+  **/
+  @ApiModelProperty(value = "")
+  public String getProcessedGlString() {
+    return processedGlString;
+  }
+
+  public void setProcessedGlString(String processedGlString) {
+    this.processedGlString = processedGlString;
+  }
+
+  public SampleData haplotypePair(List<HaplotypePairData> haplotypePair) {
+    this.haplotypePair = haplotypePair;
+    return this;
+  }
+
+  public SampleData addHaplotypePairItem(HaplotypePairData haplotypePairItem) {
+    if (this.haplotypePair == null) {
+      this.haplotypePair = new ArrayList<HaplotypePairData>();
+    }
+    this.haplotypePair.add(haplotypePairItem);
+    return this;
+  }
+
+   /**
+   * Get haplotypePair
+   * @return haplotypePair
+  **/
+  @ApiModelProperty(value = "")
+  public List<HaplotypePairData> getHaplotypePair() {
+    return haplotypePair;
+  }
+
+  public void setHaplotypePair(List<HaplotypePairData> haplotypePair) {
+    this.haplotypePair = haplotypePair;
+  }
+
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SampleData sampleData = (SampleData) o;
+    return Objects.equals(this.id, sampleData.id) &&
+        Objects.equals(this.glString, sampleData.glString) &&
+        Objects.equals(this.processedGlString, sampleData.processedGlString) &&
+        Objects.equals(this.haplotypePair, sampleData.haplotypePair);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, glString, processedGlString, haplotypePair);
+  }
+
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class SampleData {\n");
+    
+    sb.append("    id: ").append(toIndentedString(id)).append("\n");
+    sb.append("    glString: ").append(toIndentedString(glString)).append("\n");
+    sb.append("    processedGlString: ").append(toIndentedString(processedGlString)).append("\n");
+    sb.append("    haplotypePair: ").append(toIndentedString(haplotypePair)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+
+}
+
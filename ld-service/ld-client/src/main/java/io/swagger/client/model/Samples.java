@@ -0,0 +1,104 @@
+/*
+ * Swagger HLAHapV
+ * This is a HLAHapV Server.  You can find  out more about HLAHapV at  [http://github.com/nmdp-bioinformatics/ImmunogeneticDataTools](http://github.com/nmdp-bioinformatics/ImmunogeneticDataTools). 
+ *
+ * OpenAPI spec version: 1.0.0
+ * Contact: mpresteg@nmdp.org
+ *
+ * NOTE: This class is auto generated by the swagger code generator program.
+ * https://github.com/swagger-api/swagger-codegen.git
+ * Do not edit the class manually.
+ */
+
+
+package io.swagger.client.model;
+
+import java.util.Objects;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import io.swagger.client.model.SampleData;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Samples
+ */
+@javax.annotation.Generated(value = "io.swagger.codegen.languages.JavaClientCodegen", date = "2026-10-19T09:27:44.946Z")
+public class Samples {
+  @SerializedName("sample")
+  private List<SampleData> sample = null;
+
+  public Samples sample(List<SampleData> sample) {
+    this.sample = sample;
+    return this;
+  }
+
+  public Samples addSampleItem(SampleData sampleItem) {
+    if (this.sample == null) {
+      this.sample = new ArrayList<SampleData>();
+    }
+    this.sample.add(sampleItem);
+    return this;
+  }
+
+   /**
+   * Get sample
+   * @return sample
+  **/
+  @ApiModelProperty(value = "")
+  public List<SampleData> getSample() {
+    return sample;
+  }
+
+  public void setSample(List<SampleData> sample) {
+    this.sample = sample;
+  }
+
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    Samples samples = (Samples) o;
+    return Objects.equals(this.sample, samples.sample);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(sample);
+  }
+
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class Samples {\n");
+    
+    sb.append("    sample: ").append(toIndentedString(sample)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+
+}
+
@@ -0,0 +1,248 @@
+package io.swagger.client.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.squareup.okhttp.Request;
+
+import io.swagger.client.ApiCallback;
+import io.swagger.client.ApiException;
+import io.swagger.client.model.Genotype;
+import io.swagger.client.model.Genotypes;
+import io.swagger.client.model.SampleData;
+import io.swagger.client.model.Samples;
+
+/**
+ * Tests for BulkGenotypesApi, against a GenotypesApi that answers each chunk from a thread of its own
+ * rather than a server
+ */
+public class BulkGenotypesApiTest {
+    private final ExecutorService responders = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() throws InterruptedException {
+        responders.shutdownNow();
+        responders.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void chunksMergedInOrderTest() throws ApiException {
+        StubGenotypesApi api = new StubGenotypesApi() {
+            @Override
+            void respond(Genotypes chunk, int attempt, ApiCallback<Samples> callback) throws InterruptedException {
+                // later chunks answered first
+                Thread.sleep(50 - Integer.parseInt(chunk.getGenotype().get(0).getId()));
+                callback.onSuccess(samples(chunk), 200, null);
+            }
+        };
+
+        Samples samples = new BulkGenotypesApi(api).setChunkSize(3).setConcurrency(4).submitGenotypes(genotypes(10), null, null);
+
+        assertEquals(Arrays.asList(3, 3, 3, 1), api.chunkSizes);
+        assertEquals(ids(10), sampleIds(samples));
+    }
+
+    @Test
+    public void concurrencyTest() throws ApiException {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        StubGenotypesApi api = new StubGenotypesApi() {
+            @Override
+            void respond(Genotypes chunk, int attempt, ApiCallback<Samples> callback) throws InterruptedException {
+                int current = inFlight.incrementAndGet();
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                Thread.sleep(20);
+                inFlight.decrementAndGet();
+                callback.onSuccess(samples(chunk), 200, null);
+            }
+        };
+
+        Samples samples = new BulkGenotypesApi(api).setChunkSize(1).setConcurrency(2).submitGenotypes(genotypes(8), null, null);
+
+        assertEquals(ids(8), sampleIds(samples));
+        assertTrue(maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void retryAfterTest() throws ApiException {
+        StubGenotypesApi api = new StubGenotypesApi() {
+            @Override
+            void respond(Genotypes chunk, int attempt, ApiCallback<Samples> callback) {
+                if (attempt == 0) {
+                    Map<String, List<String>> headers = new HashMap<String, List<String>>();
+                    headers.put("retry-after", Collections.singletonList("1"));
+                    callback.onFailure(new ApiException(429, "Too Many Requests", headers, null), 429, headers);
+                }
+                else {
+                    callback.onSuccess(samples(chunk), 200, null);
+                }
+            }
+        };
+
+        long start = System.nanoTime();
+        // retried after the second the server asked for, not the retry delay
+        Samples samples = new BulkGenotypesApi(api).setChunkSize(2).setRetryDelay(60000).submitGenotypes(genotypes(4), null, null);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ids(4), sampleIds(samples));
+        assertEquals(4, api.chunkSizes.size());
+        assertTrue("Retried after " + elapsed + " ms", elapsed >= 1000 && elapsed < 60000);
+    }
+
+    @Test
+    public void maxRetriesTest() {
+        StubGenotypesApi api = new StubGenotypesApi() {
+            @Override
+            void respond(Genotypes chunk, int attempt, ApiCallback<Samples> callback) {
+                callback.onFailure(new ApiException(503, "Service Unavailable"), 503, null);
+            }
+        };
+
+        try {
+            new BulkGenotypesApi(api).setMaxRetries(2).setRetryDelay(1).submitGenotypes(genotypes(1), null, null);
+            fail("Submitted despite every attempt failing");
+        }
+        catch (ApiException e) {
+            assertEquals(503, e.getCode());
+        }
+        // the first attempt and its retries
+        assertEquals(3, api.chunkSizes.size());
+    }
+
+    @Test
+    public void notRetryableTest() {
+        StubGenotypesApi api = new StubGenotypesApi() {
+            @Override
+            void respond(Genotypes chunk, int attempt, ApiCallback<Samples> callback) {
+                callback.onFailure(new ApiException(400, "Bad Request"), 400, null);
+            }
+        };
+
+        try {
+            new BulkGenotypesApi(api).setRetryDelay(1).submitGenotypes(genotypes(1), null, null);
+            fail("Submitted despite the chunk being rejected");
+        }
+        catch (ApiException e) {
+            assertEquals(400, e.getCode());
+        }
+        assertEquals(1, api.chunkSizes.size());
+    }
+
+    @Test
+    public void noGenotypesTest() throws ApiException {
+        StubGenotypesApi api = new StubGenotypesApi() {
+            @Override
+            void respond(Genotypes chunk, int attempt, ApiCallback<Samples> callback) {
+                callback.onSuccess(samples(chunk), 200, null);
+            }
+        };
+
+        Samples samples = new BulkGenotypesApi(api).submitGenotypes(new Genotypes(), null, null);
+
+        assertEquals(Collections.<String>emptyList(), sampleIds(samples));
+        assertTrue(api.chunkSizes.isEmpty());
+    }
+
+    @Test
+    public void settingsValidatedTest() {
+        BulkGenotypesApi bulkApi = new BulkGenotypesApi(new GenotypesApi());
+        try {
+            bulkApi.setRetryDelay(-1);
+            fail("Negative retry delay accepted");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+        try {
+            bulkApi.setMaxRetries(-1);
+            fail("Negative retries accepted");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+        bulkApi.setRetryDelay(0).setMaxRetries(0);
+    }
+
+    private static Genotypes genotypes(int count) {
+        Genotypes genotypes = new Genotypes();
+        for (String id : ids(count)) {
+            genotypes.addGenotypeItem(new Genotype().id(id).glString("HLA-A*01:01+HLA-A*02:01"));
+        }
+        return genotypes;
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            ids.add(Integer.toString(i));
+        }
+        return ids;
+    }
+
+    private static Samples samples(Genotypes chunk) {
+        Samples samples = new Samples();
+        for (Genotype genotype : chunk.getGenotype()) {
+            samples.addSampleItem(new SampleData().id(genotype.getId()).glString(genotype.getGlString()));
+        }
+        return samples;
+    }
+
+    private static List<String> sampleIds(Samples samples) {
+        List<String> ids = new ArrayList<String>();
+        if (samples.getSample() != null) {
+            for (SampleData sampleData : samples.getSample()) {
+                ids.add(sampleData.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Answers chunks as respond does, counting the attempts at each
+     */
+    private abstract class StubGenotypesApi extends GenotypesApi {
+        final List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        private final Map<String, Integer> attempts = new HashMap<String, Integer>();
+
+        abstract void respond(Genotypes chunk, int attempt, ApiCallback<Samples> callback) throws InterruptedException;
+
+        @Override
+        public com.squareup.okhttp.Call submitGenotypesAsync(final Genotypes body, String frequencies, String hladb, final ApiCallback<Samples> callback) {
+            chunkSizes.add(body.getGenotype().size());
+            String first = body.getGenotype().get(0).getId();
+            Integer attempt = attempts.get(first);
+            final int current = (attempt != null) ? attempt + 1 : 0;
+            attempts.put(first, current);
+
+            responders.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        respond(body, current, callback);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+
+            // never executed, only cancelled
+            return getApiClient().getHttpClient().newCall(new Request.Builder().url("http://localhost/").build());
+        }
+    }
+}
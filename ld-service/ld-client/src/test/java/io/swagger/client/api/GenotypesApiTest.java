@@ -15,6 +15,7 @@ package io.swagger.client.api;
 
 import io.swagger.client.ApiException;
 import io.swagger.client.model.Genotypes;
+import io.swagger.client.model.Samples;
 import org.junit.Test;
 import org.junit.Ignore;
 
@@ -32,6 +33,24 @@ public class GenotypesApiTest {
     private final GenotypesApi api = new GenotypesApi();
 
     
+    /**
+     * Stream genotypes for evaluation, one sample returned per genotype as it is evaluated
+     *
+     * The request body is newline delimited JSON, one Genotype per line, and is read as it arrives. Each SampleData is written on its own line as soon as it is evaluated, in the order of the genotypes. 
+     *
+     * @throws ApiException
+     *          if the Api call fails
+     */
+    @Test
+    public void streamGenotypesTest() throws ApiException {
+        byte[] body = null;
+        String frequencies = null;
+        String hladb = null;
+        byte[] response = api.streamGenotypes(body, frequencies, hladb);
+
+        // TODO: test validations
+    }
+    
     /**
      * Submit a set of genotypes for evaluation
      *
@@ -43,7 +62,9 @@ public class GenotypesApiTest {
     @Test
     public void submitGenotypesTest() throws ApiException {
         Genotypes body = null;
-        api.submitGenotypes(body);
+        String frequencies = null;
+        String hladb = null;
+        Samples response = api.submitGenotypes(body, frequencies, hladb);
 
         // TODO: test validations
     }
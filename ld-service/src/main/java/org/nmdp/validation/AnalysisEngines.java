@@ -0,0 +1,87 @@
+package org.nmdp.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.dash.valid.AnalysisConfig;
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.springframework.stereotype.Component;
+
+/**
+ * The analysis engines available to requests:  the engine of the live reference data, and any
+ * additional engines (e.g. another frequency set or hladb) loaded alongside it.
+ */
+@Component
+public class AnalysisEngines {
+    private final List<AnalysisEngine> engines = new CopyOnWriteArrayList<AnalysisEngine>();
+
+    /**
+     * @return the engine for the specified frequency set and hladb (by default, those of the live
+     * reference data), or null if none is loaded
+     */
+    public AnalysisEngine get(String frequencies, String hladb) {
+        ReferenceDataSnapshot live = ReferenceDataSnapshot.getLive();
+
+        if (live != null) {
+            if (frequencies == null) frequencies = live.getFrequencies().getShortName();
+            if (hladb == null) hladb = live.getHladb();
+
+            if (matches(live.getConfig(), frequencies, hladb)) {
+                return new AnalysisEngine(live);
+            }
+        }
+
+        for (AnalysisEngine engine : engines) {
+            if (matches(engine.getConfig(), frequencies, hladb)) {
+                return engine;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds an engine, replacing any loaded for the same frequency set and hladb.
+     */
+    public synchronized void add(AnalysisEngine engine) {
+        AnalysisConfig config = engine.getConfig();
+        for (AnalysisEngine other : engines) {
+            if (matches(other.getConfig(), config.getFrequencies().getShortName(), config.getHladb())) {
+                engines.remove(other);
+            }
+        }
+
+        engines.add(engine);
+    }
+
+    /**
+     * @return the additional engines, not including that of the live reference data
+     */
+    public List<AnalysisEngine> getEngines() {
+        return new ArrayList<AnalysisEngine>(engines);
+    }
+
+    /**
+     * @return the reference data of the live snapshot and the additional engines, for sharing with a new engine
+     */
+    public List<ReferenceDataSnapshot> getReferenceData() {
+        List<ReferenceDataSnapshot> referenceData = new ArrayList<ReferenceDataSnapshot>();
+
+        ReferenceDataSnapshot live = ReferenceDataSnapshot.getLive();
+        if (live != null) {
+            referenceData.add(live);
+        }
+        for (AnalysisEngine engine : engines) {
+            referenceData.add(engine.getReferenceData());
+        }
+
+        return referenceData;
+    }
+
+    private static boolean matches(AnalysisConfig config, String frequencies, String hladb) {
+        return (frequencies == null || config.getFrequencies().getShortName().equals(frequencies))
+                && (hladb == null || config.getHladb().equals(hladb));
+    }
+}
@@ -0,0 +1,251 @@
+package org.nmdp.validation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.dash.valid.AnalysisEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Threads shared by all requests for analyzing their genotypes.  Each request is analyzed on at most
+ * the per-request parallelism of the threads, so a large request leaves the rest to other requests.
+ *
+ * Requests are admitted up to the queue capacity (those being analyzed and those waiting for threads);
+ * beyond it they are turned away at once, rather than holding a container thread until they time out.
+ */
+@Component
+public class AnalysisExecutor {
+    private static final Logger LOGGER = Logger.getLogger(AnalysisExecutor.class.getName());
+
+    // analysis threads, by default one per processor
+    @Value("${org.dash.analysis.threads:0}")
+    private int threads;
+
+    // threads any one request is analyzed on, by default half of them
+    @Value("${org.dash.analysis.parallelism:0}")
+    private int parallelism;
+
+    // requests admitted at once, by default eight per thread
+    @Value("${org.dash.analysis.queue:0}")
+    private int queueCapacity;
+
+    // seconds a request turned away is asked to wait before retrying
+    @Value("${org.dash.analysis.retry-after:1}")
+    private int retryAfter;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        parallelism = (parallelism > 0) ? Math.min(parallelism, threads) : Math.max(1, threads / 2);
+        if (queueCapacity <= 0) {
+            queueCapacity = threads * 8;
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+            Thread thread = new Thread(runnable, "analysis-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LOGGER.info("Analyzing on " + threads + " threads, at most " + parallelism + " per request and "
+                + queueCapacity + " requests at once");
+    }
+
+    /**
+     * Admits a request if the queue has room for it.  Every request admitted must be released.
+     *
+     * @return false if the queue is full
+     */
+    public boolean admit() {
+        int current;
+        do {
+            current = admitted.get();
+            if (current >= queueCapacity) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        while (!admitted.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    public void release() {
+        admitted.decrementAndGet();
+    }
+
+    /**
+     * Admits a request applying the task to each item against the engine's reference data, completing
+     * with the results in the order of the items.  The first exception thrown by the task stops the
+     * remaining items and completes the result, as does cancelling it.  The request is released once
+     * none of its workers is still applying the task, which may be after the result completes.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T, R> CompletableFuture<List<R>> map(AnalysisEngine engine, List<T> items, Function<T, R> task) {
+        if (!admit()) {
+            throw new RejectedExecutionException("Analysis queue is full");
+        }
+
+        CompletableFuture<List<R>> result = new CompletableFuture<List<R>>();
+
+        int workers = Math.min(parallelism, items.size());
+        if (workers == 0) {
+            release();
+            result.complete(Collections.<R>emptyList());
+            return result;
+        }
+
+        Object[] results = new Object[items.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger(workers);
+        long queuedAt = System.nanoTime();
+
+        // each worker takes the next item until none remain, so the request holds at most its parallelism of the threads
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(() -> {
+                    waited(queuedAt);
+                    try {
+                        engine.call(() -> {
+                            int item;
+                            while (!result.isDone() && (item = next.getAndIncrement()) < items.size()) {
+                                results[item] = task.apply(items.get(item));
+                            }
+                            return null;
+                        });
+                    }
+                    catch (RuntimeException | Error e) {
+                        result.completeExceptionally(e);
+                    }
+
+                    // the last worker to finish has seen the results of the others, and the threads are no longer held
+                    if (running.decrementAndGet() == 0) {
+                        @SuppressWarnings("unchecked")
+                        List<R> list = (List<R>) Arrays.asList(results);
+                        release();
+                        result.complete(list);
+                    }
+                });
+            }
+            catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+                // the workers never started won't finish
+                if (running.addAndGet(i - workers) == 0) {
+                    release();
+                }
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Applies the task to the item against the engine's reference data on one of the threads.  Callers
+     * streaming their items keep at most getParallelism() of them outstanding.
+     */
+    public <T, R> Future<R> submit(AnalysisEngine engine, T item, Function<T, R> task) {
+        long queuedAt = System.nanoTime();
+
+        return executor.submit(() -> {
+            waited(queuedAt);
+            return engine.call(() -> task.apply(item));
+        });
+    }
+
+    private void waited(long queuedAt) {
+        long wait = System.nanoTime() - queuedAt;
+
+        started.incrementAndGet();
+        waitNanos.addAndGet(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return seconds a request turned away is asked to wait before retrying
+     */
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the requests admitted, whether being analyzed or waiting for threads
+     */
+    public int getAdmitted() {
+        return admitted.get();
+    }
+
+    /**
+     * @return the tasks waiting for a thread
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the tasks that have waited for and started on a thread
+     */
+    public long getStarted() {
+        return started.get();
+    }
+
+    public long getWaitNanos() {
+        return waitNanos.get();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,146 @@
+package org.nmdp.validation;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.dash.valid.DisequilibriumElement;
+import org.dash.valid.Locus;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.StageMetrics;
+import org.dash.valid.freq.HLAFrequenciesLoader;
+import org.dash.valid.gl.GLStringConstants;
+import org.dash.valid.gl.GLStringUtilities;
+import org.dash.valid.race.DisequilibriumElementByRace;
+import org.dash.valid.race.FrequencyByRace;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs synthetic genotypes through the analysis and serialization of samples before the first reference
+ * data is published (see ReferenceDataReloader), so they are compiled before the service reports ready
+ * rather than while the first requests are served.  The genotypes are pairs of haplotypes drawn from the
+ * linkages of the reference data itself, whatever the frequency set, so linked pairs are found as they
+ * would be for real genotypes.  The results aren't cached.
+ */
+@Component
+public class AnalysisWarmup {
+    private static final Logger LOGGER = Logger.getLogger(AnalysisWarmup.class.getName());
+
+    private static final String G_GROUP_SUFFIX = "g";
+    private static final String WARMUP_ID = "warmup-";
+
+    // genotypes analyzed before the service reports ready, 0 to disable the warmup
+    @Value("${org.dash.warmup.genotypes:1000}")
+    private int genotypes;
+
+    @Autowired
+    private GenotypeAnalyzer analyzer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Analyzes the warmup genotypes against the reference data, blocking until they are all analyzed.
+     */
+    public void run(ReferenceDataSnapshot referenceData) {
+        if (genotypes <= 0) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<String> glStrings = synthesize(referenceData.getFrequenciesLoader(), genotypes, new Random(0));
+        if (glStrings.isEmpty()) {
+            LOGGER.warning("No linkages to synthesize warmup genotypes from, skipping the warmup");
+            return;
+        }
+
+        int failures = referenceData.call(() -> {
+            int failed = 0;
+            for (int i = 0; i < glStrings.size(); i++) {
+                try {
+                    objectMapper.writeValueAsBytes(analyzer.detectLinkages(GLStringUtilities.inflateGenotypeList(WARMUP_ID + i, glStrings.get(i), null)));
+                }
+                catch (JsonProcessingException | RuntimeException e) {
+                    failed++;
+                }
+            }
+            return failed;
+        });
+
+        // the stage timings report requests, not the warmup
+        StageMetrics.getInstance().reset();
+
+        LOGGER.info("Warmed up with " + glStrings.size() + " genotypes in " + (System.currentTimeMillis() - start) + " ms"
+                + ((failures > 0) ? ", " + failures + " of which failed" : ""));
+    }
+
+    /**
+     * @return GL strings of two haplotypes each, of loci chosen at random from those linked, and of a
+     * race in common where the frequencies are by race (pairs of haplotypes without one aren't found)
+     */
+    static List<String> synthesize(HLAFrequenciesLoader frequencies, int count, Random random) {
+        List<List<DisequilibriumElement>> linkages = new ArrayList<List<DisequilibriumElement>>();
+        List<Map<String, List<DisequilibriumElement>>> linkagesByRace = new ArrayList<Map<String, List<DisequilibriumElement>>>();
+        for (EnumSet<Locus> loci : frequencies.getLoci()) {
+            List<DisequilibriumElement> elements = frequencies.getDisequilibriumElements(loci);
+            if (!elements.isEmpty()) {
+                linkages.add(elements);
+                linkagesByRace.add(byRace(elements));
+            }
+        }
+
+        List<String> glStrings = new ArrayList<String>(count);
+        if (linkages.isEmpty()) {
+            return glStrings;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int linkage = random.nextInt(linkages.size());
+            List<DisequilibriumElement> elements = linkages.get(linkage);
+            DisequilibriumElement first = elements.get(random.nextInt(elements.size()));
+
+            if (first instanceof DisequilibriumElementByRace) {
+                List<FrequencyByRace> races = ((DisequilibriumElementByRace) first).getFrequenciesByRace();
+                elements = linkagesByRace.get(linkage).get(races.get(random.nextInt(races.size())).getRace());
+            }
+            DisequilibriumElement second = elements.get(random.nextInt(elements.size()));
+
+            StringBuilder glString = new StringBuilder();
+            for (Locus locus : EnumSet.copyOf(first.getLoci())) {
+                if (glString.length() > 0) glString.append(GLStringConstants.GENE_DELIMITER);
+                glString.append(allele(first, locus)).append(GLStringConstants.GENE_COPY_DELIMITER).append(allele(second, locus));
+            }
+            glStrings.add(glString.toString());
+        }
+
+        return glStrings;
+    }
+
+    private static Map<String, List<DisequilibriumElement>> byRace(List<DisequilibriumElement> elements) {
+        Map<String, List<DisequilibriumElement>> byRace = new HashMap<String, List<DisequilibriumElement>>();
+        for (DisequilibriumElement element : elements) {
+            if (element instanceof DisequilibriumElementByRace) {
+                for (FrequencyByRace frequency : ((DisequilibriumElementByRace) element).getFrequenciesByRace()) {
+                    byRace.computeIfAbsent(frequency.getRace(), race -> new ArrayList<DisequilibriumElement>()).add(element);
+                }
+            }
+        }
+        return byRace;
+    }
+
+    // g groups name the alleles of the frequencies, but aren't valid in GL strings
+    private static String allele(DisequilibriumElement element, Locus locus) {
+        String allele = element.getHlaElement(locus).get(0);
+
+        return allele.endsWith(G_GROUP_SUFFIX) ? allele.substring(0, allele.length() - G_GROUP_SUFFIX.length()) : allele;
+    }
+}
@@ -0,0 +1,340 @@
+package org.nmdp.validation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.gl.GLStringUtilities;
+import org.dash.valid.gl.LinkageDisequilibriumGenotypeList;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * A file of GL strings analyzed in the background.  The file is spooled to disk as submitted, read
+ * from there a line at a time, and each sample is appended to a results file of newline delimited
+ * JSON, so neither is held in memory.  Results are readable as soon as they are flushed, every
+ * FLUSH_INTERVAL samples; the offset of every CHECKPOINT_INTERVAL samples is kept for reading them
+ * from part way through.  Samples are analyzed without the result cache.
+ *
+ * HML is parsed as a whole document, as GLStringUtilities.readGLStringFile does, so only delimited
+ * files are streamed.
+ */
+public class BatchJob {
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    static final String INPUT_FILE = "input";
+    static final String RESULTS_FILE = "results.ndjson";
+
+    private static final int FLUSH_INTERVAL = 100;
+    private static final int CHECKPOINT_INTERVAL = 1000;
+
+    private final String id;
+    private final String name;
+    private final AnalysisEngine engine;
+    private final File directory;
+    private final int flushInterval;
+    private final int checkpointInterval;
+    private final long submittedAt = System.currentTimeMillis();
+
+    private volatile State state = State.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile long inputBytes;
+    private volatile long bytesRead;
+    private volatile long samplesRead;
+    private volatile long samplesWritten;
+    private volatile String error;
+
+    // byte offsets of the results of every checkpointInterval samples, the first at 0
+    private final List<Long> checkpoints = new ArrayList<Long>();
+
+    BatchJob(String id, String name, AnalysisEngine engine, File directory) {
+        this(id, name, engine, directory, FLUSH_INTERVAL, CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * @param checkpointInterval samples between offsets kept, a multiple of the flush interval
+     */
+    BatchJob(String id, String name, AnalysisEngine engine, File directory, int flushInterval, int checkpointInterval) {
+        this.id = id;
+        this.name = name;
+        this.engine = engine;
+        this.directory = directory;
+        this.flushInterval = flushInterval;
+        this.checkpointInterval = checkpointInterval;
+        checkpoints.add(0L);
+    }
+
+    File getInputFile() {
+        return new File(directory, INPUT_FILE);
+    }
+
+    File getResultsFile() {
+        return new File(directory, RESULTS_FILE);
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    void spooled() {
+        inputBytes = getInputFile().length();
+    }
+
+    /**
+     * Analyzes the spooled file against the engine's reference data, on the current thread.
+     */
+    void run(GenotypeAnalyzer analyzer, ObjectMapper objectMapper) {
+        if (!start()) {
+            return;
+        }
+
+        try {
+            engine.call(() -> {
+                try {
+                    analyze(analyzer, objectMapper);
+                }
+                catch (IOException e) {
+                    throw new BatchJobException(e);
+                }
+                return null;
+            });
+
+            finish(State.COMPLETED, null);
+        }
+        catch (BatchJobException e) {
+            finish(State.FAILED, e.getCause().toString());
+        }
+        catch (RuntimeException e) {
+            finish(State.FAILED, e.toString());
+        }
+    }
+
+    private void analyze(GenotypeAnalyzer analyzer, ObjectMapper objectMapper) throws IOException {
+        try (FileInputStream input = new FileInputStream(getInputFile());
+                BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+                FileOutputStream output = new FileOutputStream(getResultsFile());
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(new BufferedOutputStream(output))) {
+            generator.setRootValueSeparator(null);
+            // the mapper would flush every sample, rather than every flush interval
+            ObjectWriter sampleWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+            if (GLStringUtilities.isXmlFile(name)) {
+                List<LinkageDisequilibriumGenotypeList> linkedGLStrings = GLStringUtilities.readGLStringFile(name, reader);
+                if (linkedGLStrings == null) {
+                    throw new IOException("Couldn't parse " + name);
+                }
+                bytesRead = inputBytes;
+
+                for (LinkageDisequilibriumGenotypeList linkedGLString : linkedGLStrings) {
+                    write(analyzer, sampleWriter, generator, output, linkedGLString);
+                }
+            }
+            else {
+                String line;
+                int lineNumber = 0;
+
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    bytesRead = input.getChannel().position();
+
+                    LinkageDisequilibriumGenotypeList linkedGLString = GLStringUtilities.parseGLStringLine(name, line, lineNumber);
+                    if (linkedGLString != null) {
+                        write(analyzer, sampleWriter, generator, output, linkedGLString);
+                    }
+                }
+            }
+
+            generator.flush();
+            samplesWritten = samplesRead;
+            bytesRead = inputBytes;
+        }
+    }
+
+    private void write(GenotypeAnalyzer analyzer, ObjectWriter sampleWriter, JsonGenerator generator, FileOutputStream output,
+            LinkageDisequilibriumGenotypeList linkedGLString) throws IOException {
+        if (state != State.RUNNING || Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Cancelled");
+        }
+
+        sampleWriter.writeValue(generator, analyzer.detectLinkages(linkedGLString));
+        generator.writeRaw('\n');
+
+        long samples = ++samplesRead;
+        if (samples % flushInterval == 0) {
+            generator.flush();
+            if (samples % checkpointInterval == 0) {
+                synchronized (checkpoints) {
+                    checkpoints.add(output.getChannel().position());
+                }
+            }
+            samplesWritten = samples;
+        }
+    }
+
+    /**
+     * Writes the results from the specified sample on, at most limit of them, as far as they have been flushed.
+     *
+     * @return the samples written
+     */
+    public long writeResults(long offset, long limit, OutputStream out) throws IOException {
+        long available = Math.min(samplesWritten - offset, limit);
+        if (available <= 0) {
+            return 0;
+        }
+
+        int checkpoint = (int) (offset / checkpointInterval);
+        long position;
+        synchronized (checkpoints) {
+            position = checkpoints.get(checkpoint);
+        }
+
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        try (RandomAccessFile results = new RandomAccessFile(getResultsFile(), "r")) {
+            results.seek(position);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(results.getChannel()), StandardCharsets.UTF_8));
+
+            for (long skip = offset - (long) checkpoint * checkpointInterval; skip > 0; skip--) {
+                reader.readLine();
+            }
+            for (long i = 0; i < available; i++) {
+                writer.write(reader.readLine());
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+
+        return available;
+    }
+
+    private synchronized boolean start() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+
+        startedAt = System.currentTimeMillis();
+        state = State.RUNNING;
+
+        return true;
+    }
+
+    /**
+     * Stops the job at the next sample, if it has not finished.
+     *
+     * @return false if it had already finished
+     */
+    synchronized boolean cancel() {
+        if (state == State.QUEUED || state == State.RUNNING) {
+            finish(State.CANCELLED, null);
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void finish(State finalState, String error) {
+        if (state == State.CANCELLED) {
+            return;
+        }
+
+        this.error = error;
+        finishedAt = System.currentTimeMillis();
+        state = finalState;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFrequencies() {
+        return engine.getConfig().getFrequencies().getShortName();
+    }
+
+    public String getHladb() {
+        return engine.getConfig().getHladb();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    /**
+     * @return the bytes of the spooled file read so far, give or take the reader's buffer
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getSamplesRead() {
+        return samplesRead;
+    }
+
+    /**
+     * @return the samples whose results have been flushed, and can be read
+     */
+    public long getSamplesWritten() {
+        return samplesWritten;
+    }
+
+    public double getSamplesPerSecond() {
+        long started = startedAt;
+        if (started == 0) {
+            return 0.0;
+        }
+
+        long elapsed = ((finishedAt != 0) ? finishedAt : System.currentTimeMillis()) - started;
+
+        return (elapsed > 0) ? samplesRead * 1000.0 / elapsed : 0.0;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    // carries an IOException out of the engine's task
+    private static final class BatchJobException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BatchJobException(IOException cause) {
+            super(cause);
+        }
+    }
+}
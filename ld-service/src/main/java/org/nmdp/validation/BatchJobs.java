@@ -0,0 +1,235 @@
+package org.nmdp.validation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.dash.valid.AnalysisEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Batch jobs, run one per thread on threads of their own, so a large file doesn't hold the threads
+ * requests are analyzed on (see AnalysisExecutor).  Each job's files are kept in a directory of its
+ * own under the jobs directory until the job is deleted, or expires some time after it finished.
+ *
+ * Jobs are only kept in memory, so those of an earlier run of the service are lost with it; their
+ * directories are deleted on startup.
+ */
+@Component
+public class BatchJobs {
+    private static final Logger LOGGER = Logger.getLogger(BatchJobs.class.getName());
+
+    // directory the submitted files and results are spooled to, by default in the temporary directory
+    @Value("${org.dash.jobs.directory:}")
+    private String directoryName;
+
+    // jobs run at once
+    @Value("${org.dash.jobs.threads:1}")
+    private int threads;
+
+    // minutes finished jobs are kept, 0 to keep them until deleted
+    @Value("${org.dash.jobs.retention:1440}")
+    private long retention;
+
+    @Autowired
+    private GenotypeAnalyzer analyzer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private File directory;
+    private ExecutorService executor;
+    private ScheduledExecutorService expiry;
+
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<String, BatchJob>();
+    private final Map<String, Future<?>> runs = new ConcurrentHashMap<String, Future<?>>();
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = directoryName.isEmpty() ? new File(System.getProperty("java.io.tmpdir"), "hlahapv-jobs") : new File(directoryName);
+        Files.createDirectories(directory.toPath());
+        deleteOrphans();
+
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "batch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (retention > 0) {
+            expiry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "batch-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            expiry.scheduleWithFixedDelay(() -> expire(System.currentTimeMillis()), 1, 1, TimeUnit.MINUTES);
+        }
+
+        LOGGER.info("Running " + Math.max(1, threads) + " batch jobs at once, spooled to " + directory);
+    }
+
+    /**
+     * Deletes the directories of jobs left by an earlier run of the service.  Only directories named as
+     * jobs are, in case the jobs directory is shared.
+     */
+    private void deleteOrphans() {
+        File[] orphans = directory.listFiles(file -> file.isDirectory() && isJobId(file.getName()));
+        if (orphans == null || orphans.length == 0) {
+            return;
+        }
+
+        for (File orphan : orphans) {
+            delete(orphan);
+        }
+        LOGGER.info("Deleted " + orphans.length + " batch jobs left in " + directory);
+    }
+
+    private static boolean isJobId(String name) {
+        try {
+            return UUID.fromString(name).toString().equals(name);
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the jobs finished more than the retention before the specified time.
+     *
+     * @return the jobs deleted
+     */
+    int expire(long now) {
+        long expiredBefore = now - TimeUnit.MINUTES.toMillis(retention);
+        int expired = 0;
+
+        for (BatchJob job : jobs.values()) {
+            long finishedAt = job.getFinishedAt();
+            if (finishedAt != 0 && finishedAt <= expiredBefore && delete(job.getId())) {
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            LOGGER.info("Expired " + expired + " batch jobs finished more than " + retention + " minutes ago");
+        }
+
+        return expired;
+    }
+
+    /**
+     * Spools the file read from the input stream and queues analyzing it against the engine's reference data.
+     *
+     * @param name name of the file, by which it is read as HML or as delimited GL strings
+     */
+    public BatchJob submit(AnalysisEngine engine, String name, InputStream input) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path jobDirectory = Files.createDirectory(new File(directory, id).toPath());
+
+        BatchJob job = new BatchJob(id, name, engine, jobDirectory.toFile());
+        try {
+            Files.copy(input, job.getInputFile().toPath());
+            job.spooled();
+        }
+        catch (IOException e) {
+            delete(job.getDirectory());
+            throw e;
+        }
+
+        jobs.put(id, job);
+        Future<?> run = executor.submit(() -> {
+            try {
+                job.run(analyzer, objectMapper);
+            }
+            finally {
+                runs.remove(id);
+                LOGGER.info("Batch job " + id + " (" + name + ") " + job.getState() + ", " + job.getSamplesRead() + " samples");
+            }
+        });
+
+        // kept only while running, for cancelling it
+        runs.put(id, run);
+        if (run.isDone()) {
+            runs.remove(id);
+        }
+
+        return job;
+    }
+
+    /**
+     * @return the job, or null if there is none with the id
+     */
+    public BatchJob get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * @return the jobs, in the order submitted
+     */
+    public List<BatchJob> getJobs() {
+        List<BatchJob> list = new ArrayList<BatchJob>(jobs.values());
+        list.sort(Comparator.comparingLong(BatchJob::getSubmittedAt));
+
+        return list;
+    }
+
+    /**
+     * Cancels the job if it has not finished, and deletes it and its files.
+     *
+     * @return false if there is no job with the id
+     */
+    public boolean delete(String id) {
+        BatchJob job = jobs.remove(id);
+        if (job == null) {
+            return false;
+        }
+
+        job.cancel();
+        Future<?> run = runs.get(id);
+        if (run != null) {
+            run.cancel(true);
+        }
+        delete(job.getDirectory());
+
+        return true;
+    }
+
+    private static void delete(File jobDirectory) {
+        File[] files = jobDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        jobDirectory.delete();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        if (expiry != null) {
+            expiry.shutdownNow();
+        }
+    }
+}
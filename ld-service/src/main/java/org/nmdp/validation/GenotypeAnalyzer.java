@@ -0,0 +1,76 @@
+package org.nmdp.validation;
+
+import java.math.BigDecimal;
+
+import org.dash.valid.LinkageDisequilibriumAnalyzer;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.Sample;
+import org.dash.valid.StageMetrics;
+import org.dash.valid.StageMetrics.Stage;
+import org.dash.valid.gl.GLStringUtilities;
+import org.dash.valid.gl.LinkageDisequilibriumGenotypeList;
+import org.dash.valid.gl.haplo.HaplotypePair;
+import org.dash.valid.race.RelativeFrequencyByRace;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.swagger.model.FindingData;
+import io.swagger.model.Genotype;
+import io.swagger.model.HaplotypePairData;
+import io.swagger.model.SampleData;
+
+/**
+ * Analyzes one genotype into the sample returned by the API, from the result cache if analyzed before.
+ * Runs with the reference data of an engine pinned, see AnalysisEngine.call.
+ */
+@Component
+public class GenotypeAnalyzer {
+    @Autowired
+    private ResultCache cache;
+
+    public SampleData analyze(Genotype genotype) {
+        return cache.get(ReferenceDataSnapshot.getCurrent(), genotype.getId(), genotype.getGlString(), () -> {
+            return detectLinkages(GLStringUtilities.inflateGenotypeList(genotype.getId(), genotype.getGlString(), null));
+        });
+    }
+
+    /**
+     * Analyzes a genotype list already read, e.g. from a GL string file, without the result cache, so
+     * large files (see BatchJob) don't evict the results of interactive requests.
+     */
+    public SampleData detectLinkages(LinkageDisequilibriumGenotypeList linkedGLString) {
+        Sample sample = LinkageDisequilibriumAnalyzer.detectLinkages(linkedGLString);
+
+        long start = StageMetrics.start();
+        SampleData sampleData = populateSwaggerObject(sample);
+        StageMetrics.getInstance().record(Stage.SERIALIZATION, start);
+
+        return sampleData;
+    }
+
+    public SampleData populateSwaggerObject(Sample sample) {
+        SampleData sampleData;
+        sampleData = new SampleData();
+        sampleData.setId(sample.getId());
+        sampleData.setGlString(sample.getGlString());
+        sampleData.setProcessedGlString(sample.getProcessedGlString());
+        for (HaplotypePair pair : sample.getFindings().getLinkedPairs()) {
+            HaplotypePairData pairData = new HaplotypePairData();
+            pairData.setHaplotype1(pair.getHaplotypes().get(0).getHaplotypeString());
+            pairData.setHaplotype2(pair.getHaplotypes().get(1).getHaplotypeString());
+            for (RelativeFrequencyByRace freqByRace : pair.getFrequencies()) {
+                FindingData finding = new FindingData();
+                finding.setRace(freqByRace.getRace());
+                // the shortest decimals that read back as the same values, rather than their exact binary expansions
+                finding.setFrequency(BigDecimal.valueOf(freqByRace.getFrequency()));
+                finding.setRelativeFrequency(new BigDecimal(freqByRace.getRelativeFrequency().toString()));
+                finding.setHaplotype1Frequency(BigDecimal.valueOf(freqByRace.getHap1Frequency()));
+                finding.setHaplotype2Frequency(BigDecimal.valueOf(freqByRace.getHap2Frequency()));
+                pairData.addFindingItem(finding);
+
+            }
+            sampleData.addHaplotypePairItem(pairData);
+        }
+        return sampleData;
+    }
+}
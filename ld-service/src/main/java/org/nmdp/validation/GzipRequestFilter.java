@@ -0,0 +1,214 @@
+package org.nmdp.validation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Decompresses request bodies sent with Content-Encoding: gzip as they are read, so large requests
+ * (e.g. from ld-client with gzip requests enabled) are sent compressed without being inflated in
+ * memory first.  Bodies that aren't gzip are rejected as bad requests, and bodies inflating to more
+ * than the maximum size as too large, since a body bound to a request is held in memory (a small body
+ * could otherwise inflate to exhaust the heap).  Responses are compressed by the container, see
+ * server.compression.
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+    private static final String GZIP = "gzip";
+
+    // bytes a request body may inflate to, by default 256 MB
+    @Value("${org.dash.gzip.max-inflated-size:268435456}")
+    private long maxInflatedSize;
+
+    public GzipRequestFilter() {
+    }
+
+    GzipRequestFilter(long maxInflatedSize) {
+        this.maxInflatedSize = maxInflatedSize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (GZIP.equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            try {
+                // reads the gzip header, so a body that isn't gzip is rejected before it is handled
+                request = new GzipRequest(request, maxInflatedSize);
+            }
+            catch (ZipException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Request body isn't gzip: " + e.getMessage());
+                return;
+            }
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        }
+        catch (IOException | ServletException | RuntimeException e) {
+            // corrupt past the header
+            if (hasCause(e, ZipException.class) && !response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Request body isn't valid gzip");
+                return;
+            }
+            if (hasCause(e, InflatedSizeExceededException.class) && !response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+                return;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean hasCause(Throwable e, Class<? extends Throwable> type) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Thrown reading a body past the maximum inflated size.  Mapped to 413 where it causes the handler
+     * to fail, e.g. as the body is bound to a request, and by the filter otherwise.
+     */
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    static final class InflatedSizeExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        InflatedSizeExceededException(long maxInflatedSize) {
+            super("Request body inflates to more than " + maxInflatedSize + " bytes");
+        }
+    }
+
+    /**
+     * The request as decompressed, without its encoding or (compressed) length.
+     */
+    private static final class GzipRequest extends HttpServletRequestWrapper {
+        private final ServletInputStream inputStream;
+
+        GzipRequest(HttpServletRequest request, long maxInflatedSize) throws IOException {
+            super(request);
+
+            ServletInputStream compressed = request.getInputStream();
+            GZIPInputStream gzip = new GZIPInputStream(compressed);
+            inputStream = new ServletInputStream() {
+                private boolean finished;
+                private long inflated;
+
+                @Override
+                public int read() throws IOException {
+                    checkInflated();
+                    int b = gzip.read();
+                    finished = (b == -1);
+                    if (!finished) {
+                        inflated++;
+                    }
+                    checkInflated();
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    checkInflated();
+                    int read = gzip.read(b, off, len);
+                    finished = (read == -1);
+                    if (!finished) {
+                        inflated += read;
+                    }
+                    checkInflated();
+                    return read;
+                }
+
+                // nothing more is inflated once the body is too large
+                private void checkInflated() throws InflatedSizeExceededException {
+                    if (inflated > maxInflatedSize) {
+                        throw new InflatedSizeExceededException(maxInflatedSize);
+                    }
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                // ready as the compressed body is, though a read may need more of it than is available
+                @Override
+                public boolean isReady() {
+                    return finished || compressed.isReady();
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    compressed.setReadListener(readListener);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    gzip.close();
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+
+            return new BufferedReader(new InputStreamReader(getInputStream(), (encoding != null) ? encoding : StandardCharsets.ISO_8859_1.name()));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isEncodingHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isEncodingHeader(name) ? Collections.<String>emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            return isEncodingHeader(name) ? -1 : super.getIntHeader(name);
+        }
+
+        private static boolean isEncodingHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+}
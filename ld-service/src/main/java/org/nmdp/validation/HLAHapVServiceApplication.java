@@ -1,10 +1,19 @@
 package org.nmdp.validation;
 
+import java.util.StringTokenizer;
+
+import org.dash.valid.AnalysisConfig;
+import org.dash.valid.freq.Frequencies;
+import org.dash.valid.gl.GLStringConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
@@ -12,7 +21,32 @@ import springfox.documentation.swagger2.annotations.EnableSwagger2;
 @EnableSwagger2
 @EnableAutoConfiguration(exclude={DataSourceAutoConfiguration.class,HibernateJpaAutoConfiguration.class})
 public class HLAHapVServiceApplication {
+    @Autowired
+    private ReferenceDataReloader reloader;
+
+    // additional analysis engines, as space separated frequencies[@hladb], e.g. "wiki nmdp-2007@3.25.0"
+    @Value("${org.dash.engines:}")
+    private String engines;
+
     public static void main(String[] args) {
         SpringApplication.run(HLAHapVServiceApplication.class, args);
     }
-}
+
+    /**
+     * Loads the reference data selected by the system properties once the service is up (see HealthController),
+     * followed by any additional analysis engines.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmup() {
+        reloader.reload(System.getProperty(Frequencies.FREQUENCIES_PROPERTY), System.getProperty(GLStringConstants.HLADB_PROPERTY));
+
+        StringTokenizer st = new StringTokenizer(engines, GLStringConstants.SPACE);
+        while (st.hasMoreTokens()) {
+            String[] engine = st.nextToken().split("@", 2);
+            reloader.loadEngine(AnalysisConfig.systemPropertiesBuilder()
+                    .frequencies(Frequencies.lookup(engine[0]))
+                    .hladb((engine.length > 1) ? engine[1] : System.getProperty(GLStringConstants.HLADB_PROPERTY))
+                    .build());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package org.nmdp.validation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+
+import org.dash.valid.AnalysisConfig;
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds reference data snapshots in the background, one at a time, and publishes each once it is
+ * fully loaded, the first once the analysis has also been warmed up (see AnalysisWarmup).  Requests
+ * in flight finish on the snapshot they started with; cached results of the snapshot replaced are
+ * removed.
+ */
+@Component
+public class ReferenceDataReloader {
+    private static final Logger LOGGER = Logger.getLogger(ReferenceDataReloader.class.getName());
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reference-data-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private AnalysisEngines engines;
+
+    @Autowired
+    private ResultCache cache;
+
+    @Autowired
+    private AnalysisWarmup warmup;
+
+    private final AtomicBoolean reloading = new AtomicBoolean(false);
+    private volatile Throwable failure = null;
+
+    /**
+     * Starts loading the specified frequency set and hladb, unless a reload is already in progress.
+     *
+     * @return true if the reload was started
+     */
+    public boolean reload(String frequencies, String hladb) {
+        if (!reloading.compareAndSet(false, true)) {
+            return false;
+        }
+
+        executor.execute(() -> {
+            try {
+                ReferenceDataSnapshot snapshot = ReferenceDataSnapshot.load(frequencies, hladb);
+                if (ReferenceDataSnapshot.getLive() == null) {
+                    // nothing is served until the first reference data is published, so compiled by then
+                    warmup.run(snapshot);
+                }
+                ReferenceDataSnapshot.publish(snapshot);
+                cache.retain(engines.getReferenceData());
+                failure = null;
+            }
+            catch (Exception | Error e) {
+                failure = e;
+                LOGGER.severe("Couldn't reload reference data (" + frequencies + ", hladb: " + hladb + "): " + e);
+            }
+            finally {
+                reloading.set(false);
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Queues loading an additional analysis engine, after any reload in progress, sharing the reference
+     * data already loaded where the configurations allow.
+     */
+    public void loadEngine(AnalysisConfig config) {
+        executor.execute(() -> {
+            try {
+                engines.add(new AnalysisEngine(ReferenceDataSnapshot.load(config, engines.getReferenceData())));
+                cache.retain(engines.getReferenceData());
+            }
+            catch (Exception | Error e) {
+                LOGGER.severe("Couldn't load analysis engine (" + config + "): " + e);
+            }
+        });
+    }
+
+    public boolean isReloading() {
+        return reloading.get();
+    }
+
+    /**
+     * @return the reason the last reload failed, or null
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,203 @@
+package org.nmdp.validation;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+
+import org.dash.valid.ReferenceDataSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.swagger.model.SampleData;
+
+/**
+ * Samples already analyzed, by GL string and the version of the reference data they were analyzed
+ * against.  A version identifies the frequency set, hladb and linkages as loaded, so results of
+ * replaced reference data are never returned, and are removed once it is no longer in use.  The least
+ * recently used results are evicted beyond the maximum size.
+ *
+ * GL strings are keyed as submitted:  shorthand GL strings are normalized by the analysis itself, which
+ * may decode allele codes remotely, so normalizing them first could cost as much as analyzing them.
+ */
+@Component
+public class ResultCache {
+    private static final Logger LOGGER = Logger.getLogger(ResultCache.class.getName());
+
+    // samples cached, 0 to disable the cache
+    @Value("${org.dash.cache.size:10000}")
+    private int maximumSize;
+
+    @Autowired
+    private AnalysisEngines engines;
+
+    private Map<Key, SampleData> results;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        results = new LinkedHashMap<Key, SampleData>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SampleData> eldest) {
+                if (size() > maximumSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        LOGGER.info("Caching at most " + maximumSize + " samples");
+    }
+
+    /**
+     * @return the sample for the specified id and GL string, analyzed against the specified reference
+     * data by the analysis if not already cached
+     */
+    public SampleData get(ReferenceDataSnapshot referenceData, String id, String glString, Supplier<SampleData> analysis) {
+        if (maximumSize <= 0 || glString == null) {
+            return analysis.get();
+        }
+
+        Key key = new Key(referenceData.getVersion(), glString);
+        SampleData cached;
+        synchronized (results) {
+            cached = results.get(key);
+        }
+
+        if (cached != null) {
+            hits.incrementAndGet();
+            return copy(cached, id);
+        }
+
+        misses.incrementAndGet();
+
+        // two requests for the same GL string may both analyze it; the results are the same
+        SampleData sampleData = analysis.get();
+        synchronized (results) {
+            // reference data replaced while this was analyzed may already have had its results removed,
+            // and checked under the lock so retain() either sees this result or it isn't put
+            if (isInUse(referenceData.getVersion())) {
+                results.put(key, copy(sampleData, null));
+            }
+        }
+
+        return sampleData;
+    }
+
+    /**
+     * Removes the results of reference data other than that specified, e.g. once it has been replaced.
+     */
+    public void retain(Collection<ReferenceDataSnapshot> referenceData) {
+        Set<Long> versions = new HashSet<Long>();
+        for (ReferenceDataSnapshot snapshot : referenceData) {
+            versions.add(snapshot.getVersion());
+        }
+
+        int removed = 0;
+        synchronized (results) {
+            for (Iterator<Key> keys = results.keySet().iterator(); keys.hasNext();) {
+                if (!versions.contains(keys.next().version)) {
+                    keys.remove();
+                    removed++;
+                }
+            }
+        }
+
+        if (removed > 0) {
+            invalidations.addAndGet(removed);
+            LOGGER.info("Removed " + removed + " cached samples of replaced reference data");
+        }
+    }
+
+    /**
+     * @return whether the version is that of the live reference data or of an additional engine
+     */
+    private boolean isInUse(long version) {
+        for (ReferenceDataSnapshot snapshot : engines.getReferenceData()) {
+            if (snapshot.getVersion() == version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the haplotype pairs are shared, as they are not changed once analyzed
+    private static SampleData copy(SampleData sampleData, String id) {
+        SampleData copy = new SampleData();
+        copy.setId(id);
+        copy.setGlString(sampleData.getGlString());
+        copy.setProcessedGlString(sampleData.getProcessedGlString());
+        copy.setHaplotypePair(sampleData.getHaplotypePair());
+
+        return copy;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public int getSize() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the results removed because their reference data was replaced
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    private static final class Key {
+        private final long version;
+        private final String glString;
+
+        Key(long version, String glString) {
+            this.version = version;
+            this.glString = glString;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(version) + glString.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+
+            return version == other.version && glString.equals(other.glString);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.nmdp.validation.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.dash.valid.StageMetrics;
+import org.dash.valid.StageMetrics.Count;
+import org.dash.valid.StageMetrics.Stage;
+import org.dash.valid.StageMetrics.Tally;
+import org.dash.valid.StageMetrics.Timer;
+import org.nmdp.validation.AnalysisExecutor;
+import org.nmdp.validation.ResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reports the load on the analysis threads: requests admitted and turned away, tasks waiting for a
+ * thread and how long they waited, for sizing the threads and queue, the use of the result cache, and
+ * the time spent in each stage of the analysis (see StageMetrics).
+ */
+@RestController
+@RequestMapping(value = "/analysis", produces = MediaType.APPLICATION_JSON_VALUE)
+public class AnalysisController {
+    @Autowired
+    private AnalysisExecutor executor;
+
+    @Autowired
+    private ResultCache cache;
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> status() {
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+
+        status.put("threads", executor.getThreads());
+        status.put("parallelism", executor.getParallelism());
+        status.put("queueCapacity", executor.getQueueCapacity());
+        status.put("admitted", executor.getAdmitted());
+        status.put("rejected", executor.getRejected());
+        status.put("activeThreads", executor.getActiveThreads());
+        status.put("queueDepth", executor.getQueueDepth());
+
+        long started = executor.getStarted();
+        status.put("started", started);
+        status.put("meanWaitMillis", (started > 0) ? millis((double) executor.getWaitNanos() / started) : 0.0);
+        status.put("maxWaitMillis", millis(executor.getMaxWaitNanos()));
+
+        Map<String, Object> cacheStatus = new LinkedHashMap<String, Object>();
+        cacheStatus.put("maximumSize", cache.getMaximumSize());
+        cacheStatus.put("size", cache.getSize());
+        cacheStatus.put("hits", cache.getHits());
+        cacheStatus.put("misses", cache.getMisses());
+        cacheStatus.put("evictions", cache.getEvictions());
+        cacheStatus.put("invalidations", cache.getInvalidations());
+        status.put("cache", cacheStatus);
+
+        StageMetrics metrics = StageMetrics.getInstance();
+        Map<String, Object> stages = new LinkedHashMap<String, Object>();
+        for (Stage stage : Stage.values()) {
+            Timer timer = metrics.getTimer(stage);
+            Map<String, Object> stageStatus = new LinkedHashMap<String, Object>();
+            stageStatus.put("count", timer.getCount());
+            stageStatus.put("totalMillis", millis(timer.getTotalNanos()));
+            stageStatus.put("meanMillis", millis(timer.getMeanNanos()));
+            stageStatus.put("maxMillis", millis(timer.getMaxNanos()));
+            stages.put(stage.getLabel(), stageStatus);
+        }
+        status.put("stages", stages);
+
+        Map<String, Object> perSample = new LinkedHashMap<String, Object>();
+        for (Count count : Count.values()) {
+            Tally tally = metrics.getTally(count);
+            Map<String, Object> countStatus = new LinkedHashMap<String, Object>();
+            countStatus.put("samples", tally.getSamples());
+            countStatus.put("total", tally.getTotal());
+            countStatus.put("mean", tally.getMean());
+            countStatus.put("max", tally.getMax());
+            perSample.put(count.getLabel(), countStatus);
+        }
+        status.put("perSample", perSample);
+
+        return ResponseEntity.ok(status);
+    }
+
+    // to the microsecond
+    private static double millis(double nanos) {
+        return (double) Math.round(nanos / TimeUnit.MICROSECONDS.toNanos(1)) / 1000;
+    }
+}
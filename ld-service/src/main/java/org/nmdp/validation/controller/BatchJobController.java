@@ -0,0 +1,143 @@
+package org.nmdp.validation.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.nmdp.validation.AnalysisEngines;
+import org.nmdp.validation.BatchJob;
+import org.nmdp.validation.BatchJobs;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Analyzes files of GL strings too large for a request in the background (see BatchJob).  A file is
+ * submitted as the request body, delimited or HML as read by GLStringUtilities.readGLStringFile, and
+ * its job polled for progress until its results, newline delimited samples, are read in chunks.
+ */
+@RestController
+@RequestMapping(value = "/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+public class BatchJobController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private AnalysisEngines engines;
+
+    @Autowired
+    private BatchJobs jobs;
+
+    /**
+     * The body is read as is rather than as a multipart upload, so a file isn't limited to the upload
+     * size or held by the container before it is spooled.
+     */
+    @RequestMapping(method = RequestMethod.POST, consumes = { MediaType.TEXT_PLAIN_VALUE, "text/csv", "text/tab-separated-values",
+            MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    public ResponseEntity<Map<String, Object>> submit(HttpServletRequest request,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "frequencies", required = false) String frequencies,
+            @RequestParam(value = "hladb", required = false) String hladb) throws IOException {
+        if (ReferenceDataSnapshot.getLive() == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+
+        AnalysisEngine engine = engines.get(frequencies, hladb);
+        if (engine == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+
+        if (name == null) {
+            name = request.getContentType().contains("xml") ? "genotypes.hml" : "genotypes";
+        }
+
+        BatchJob job = jobs.submit(engine, name, request.getInputStream());
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(job.getId()).toUri();
+
+        return ResponseEntity.accepted().location(location).body(status(job));
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<List<Map<String, Object>>> list() {
+        List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
+        for (BatchJob job : jobs.getJobs()) {
+            list.add(status(job));
+        }
+
+        return ResponseEntity.ok(list);
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> get(@PathVariable("id") String id) {
+        BatchJob job = jobs.get(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+
+        return ResponseEntity.ok(status(job));
+    }
+
+    /**
+     * Writes the results from the offset-th sample on, at most limit of them, as far as they have been
+     * written.  The samples are in the order of the file; fewer than limit before the job has completed
+     * means the rest aren't written yet.
+     */
+    @RequestMapping(value = "/{id}/results", method = RequestMethod.GET, produces = NDJSON)
+    public void results(HttpServletResponse response, @PathVariable("id") String id,
+            @RequestParam(value = "offset", required = false, defaultValue = "0") long offset,
+            @RequestParam(value = "limit", required = false, defaultValue = "1000") long limit) throws IOException {
+        BatchJob job = jobs.get(id);
+        if (job == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        if (offset < 0 || limit < 0) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        response.setContentType(NDJSON);
+        job.writeResults(offset, limit, response.getOutputStream());
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+    public ResponseEntity<Void> delete(@PathVariable("id") String id) {
+        return ResponseEntity.status(jobs.delete(id) ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND).build();
+    }
+
+    private static Map<String, Object> status(BatchJob job) {
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+
+        status.put("id", job.getId());
+        status.put("name", job.getName());
+        status.put("state", job.getState());
+        status.put("frequencies", job.getFrequencies());
+        status.put("hladb", job.getHladb());
+        status.put("submittedAt", job.getSubmittedAt());
+        if (job.getStartedAt() != 0) status.put("startedAt", job.getStartedAt());
+        if (job.getFinishedAt() != 0) status.put("finishedAt", job.getFinishedAt());
+        status.put("inputBytes", job.getInputBytes());
+        status.put("bytesRead", job.getBytesRead());
+        status.put("samplesRead", job.getSamplesRead());
+        status.put("samplesWritten", job.getSamplesWritten());
+        status.put("samplesPerSecond", job.getSamplesPerSecond());
+        if (job.getError() != null) status.put("error", job.getError());
+
+        return status;
+    }
+}
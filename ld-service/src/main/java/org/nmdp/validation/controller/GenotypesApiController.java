@@ -1,68 +1,189 @@
 package org.nmdp.validation.controller;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
-import org.dash.valid.LinkageDisequilibriumAnalyzer;
-import org.dash.valid.Sample;
-import org.dash.valid.gl.GLStringUtilities;
-import org.dash.valid.gl.LinkageDisequilibriumGenotypeList;
-import org.dash.valid.gl.haplo.HaplotypePair;
-import org.dash.valid.race.RelativeFrequencyByRace;
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.nmdp.validation.AnalysisEngines;
+import org.nmdp.validation.AnalysisExecutor;
+import org.nmdp.validation.GenotypeAnalyzer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.swagger.annotations.ApiParam;
 import io.swagger.api.GenotypesApi;
-import io.swagger.model.FindingData;
 import io.swagger.model.Genotype;
 import io.swagger.model.Genotypes;
-import io.swagger.model.HaplotypePairData;
 import io.swagger.model.SampleData;
 import io.swagger.model.Samples;
 
 @Controller
 public class GenotypesApiController implements GenotypesApi {
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private AnalysisEngines engines;
+
+    @Autowired
+    private AnalysisExecutor executor;
+
+    @Autowired
+    private GenotypeAnalyzer analyzer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Completes on the analysis threads, so requests waiting for them don't hold container threads.
+     */
     @Override
-    public ResponseEntity<Samples> submitGenotypes(@ApiParam(value = "Genotypes" ,required=true )  @Valid @RequestBody Genotypes genotypes) {
-        List<Genotype> genotypeList = genotypes.getGenotype();
-        Samples samples = new Samples();
-        SampleData sampleData = null;
-    	for (Genotype genotype : genotypeList) {
-    		LinkageDisequilibriumGenotypeList linkedGLString = GLStringUtilities.inflateGenotypeList(genotype.getId(), genotype.getGlString(), null);
-    		Sample sample = LinkageDisequilibriumAnalyzer.detectLinkages(linkedGLString);
-    		sampleData = populateSwaggerObject(sample);
-    		samples.addSampleItem(sampleData);
-    	}
-
-        return ResponseEntity.ok(samples);
+    public CompletableFuture<ResponseEntity<Samples>> submitGenotypes(@ApiParam(value = "Genotypes" ,required=true )  @Valid @RequestBody Genotypes genotypes,
+            @ApiParam(value = "Frequency set of the analysis engine to use") @RequestParam(value = "frequencies", required = false) String frequencies,
+            @ApiParam(value = "hladb version of the analysis engine to use") @RequestParam(value = "hladb", required = false) String hladb) {
+        if (ReferenceDataSnapshot.getLive() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null));
+        }
+
+        // the whole request is analyzed against the engine's reference data as it was when the request started
+        AnalysisEngine engine = engines.get(frequencies, hladb);
+        if (engine == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null));
+        }
+
+        CompletableFuture<List<SampleData>> sampleDataList;
+        try {
+            sampleDataList = executor.map(engine, genotypes.getGenotype(), analyzer::analyze);
+        }
+        catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(executor.getRetryAfter())).body(null));
+        }
+
+        return sampleDataList.thenApply(list -> {
+            Samples samples = new Samples();
+            for (SampleData sampleData : list) {
+                samples.addSampleItem(sampleData);
+            }
+
+            return ResponseEntity.ok(samples);
+        });
     }
 
-	public SampleData populateSwaggerObject(Sample sample) {
-		SampleData sampleData;
-		sampleData = new SampleData();
-		sampleData.setId(sample.getId());
-		sampleData.setGlString(sample.getGlString());
-		sampleData.setProcessedGlString(sample.getProcessedGlString());
-		for (HaplotypePair pair : sample.getFindings().getLinkedPairs()) {
-			HaplotypePairData pairData = new HaplotypePairData();
-			pairData.setHaplotype1(pair.getHaplotypes().get(0).getHaplotypeString());
-			pairData.setHaplotype2(pair.getHaplotypes().get(1).getHaplotypeString());
-			for (RelativeFrequencyByRace freqByRace : pair.getFrequencies()) {
-				FindingData finding = new FindingData();
-				finding.setRace(freqByRace.getRace());
-				finding.setFrequency(new BigDecimal(freqByRace.getFrequency()));
-				finding.setRelativeFrequency(new BigDecimal(freqByRace.getRelativeFrequency()));
-				finding.setHaplotype1Frequency(new BigDecimal(freqByRace.getHap1Frequency()));
-				finding.setHaplotype2Frequency(new BigDecimal(freqByRace.getHap2Frequency()));
-				pairData.addFindingItem(finding);
-
-			}
-			sampleData.addHaplotypePairItem(pairData);
-		}
-		return sampleData;
-	}
+    /**
+     * Streams genotypes for evaluation (streamGenotypes in the spec).  Genotypes are read from the request
+     * as they arrive, and each sample is written and flushed as soon as it and those before it have been
+     * analyzed, so neither the request nor the response is held in memory.  Mapped here rather than
+     * through the generated StreamApi, whose byte[] body would be read in full first.
+     */
+    // without produces, which the error page would also have to produce, so errors would be sent as 406
+    @RequestMapping(value = "/stream/genotypes", method = RequestMethod.POST, consumes = NDJSON)
+    public void streamGenotypes(HttpServletRequest request, HttpServletResponse response,
+            @RequestParam(value = "frequencies", required = false) String frequencies,
+            @RequestParam(value = "hladb", required = false) String hladb) throws IOException {
+        if (ReferenceDataSnapshot.getLive() == null) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        AnalysisEngine engine = engines.get(frequencies, hladb);
+        if (engine == null) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        if (!executor.admit()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(executor.getRetryAfter()));
+            return;
+        }
+
+        response.setContentType(NDJSON);
+
+        // samples are written in the order of the genotypes, with at most the per-request parallelism being analyzed
+        Deque<Future<SampleData>> pending = new ArrayDeque<Future<SampleData>>();
+        ServletOutputStream out = response.getOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            // the response is only committed as samples are written, so failing before then can still set its status
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+
+            // the first genotype is parsed as the iterator is created, so it's created here too
+            try (MappingIterator<Genotype> genotypes = objectMapper.readerFor(Genotype.class).readValues(request.getInputStream())) {
+                while (genotypes.hasNextValue()) {
+                    pending.add(executor.submit(engine, genotypes.nextValue(), analyzer::analyze));
+                    if (pending.size() >= executor.getParallelism()) {
+                        writeLine(generator, out, pending.remove());
+                    }
+                }
+            }
+            catch (JsonProcessingException e) {
+                // once samples have been written the status can't change, so the response just ends early
+                if (response.isCommitted()) {
+                    throw e;
+                }
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+                return;
+            }
+
+            while (!pending.isEmpty()) {
+                writeLine(generator, out, pending.remove());
+            }
+        }
+        finally {
+            for (Future<SampleData> sampleData : pending) {
+                sampleData.cancel(true);
+            }
+            executor.release();
+        }
+    }
+
+    private void writeLine(JsonGenerator generator, ServletOutputStream out, Future<SampleData> sampleData) throws IOException {
+        try {
+            objectMapper.writeValue(generator, sampleData.get());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while analyzing genotypes");
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+
+        generator.writeRaw('\n');
+        generator.flush();
+        out.flush();
+    }
 }
@@ -0,0 +1,50 @@
+package org.nmdp.validation.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dash.valid.ReferenceDataSnapshot;
+import org.nmdp.validation.ReferenceDataReloader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Readiness check, UP only once all reference data has been loaded and the analysis warmed up with it
+ * (see AnalysisWarmup), so load balancers don't route requests to an instance still starting.
+ */
+@RestController
+public class HealthController {
+    static final String UP = "UP";
+    static final String STARTING = "STARTING";
+    static final String DOWN = "DOWN";
+
+    @Autowired
+    private ReferenceDataReloader reloader;
+
+    @RequestMapping(value = "/health", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, String>> health() {
+        Map<String, String> health = new LinkedHashMap<String, String>();
+
+        // a failed reload leaves the previous reference data in use
+        if (ReferenceDataSnapshot.getLive() != null) {
+            health.put("status", UP);
+            return ResponseEntity.ok(health);
+        }
+
+        Throwable failure = reloader.getFailure();
+        if (failure != null) {
+            health.put("status", DOWN);
+            health.put("error", failure.toString());
+        }
+        else {
+            health.put("status", STARTING);
+        }
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(health);
+    }
+}
@@ -0,0 +1,106 @@
+package org.nmdp.validation.controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.freq.Frequencies;
+import org.nmdp.validation.AnalysisEngines;
+import org.nmdp.validation.ReferenceDataReloader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reports the reference data in use (including that of any additional analysis engines), and reloads
+ * it without a restart.
+ */
+@RestController
+@RequestMapping(value = "/reference-data", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ReferenceDataController {
+    @Autowired
+    private ReferenceDataReloader reloader;
+
+    @Autowired
+    private AnalysisEngines engines;
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(describe());
+    }
+
+    /**
+     * Starts loading a new snapshot of the specified frequency set and hladb (by default, those in use),
+     * which replaces the one in use once loaded.  Unknown frequency sets are rejected rather than loaded
+     * as the default (see Frequencies.lookup), which would replace the reference data in use with another.
+     */
+    @RequestMapping(method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Object>> reload(@RequestParam(value = "frequencies", required = false) String frequencies,
+            @RequestParam(value = "hladb", required = false) String hladb) {
+        if (frequencies != null && !isFrequencies(frequencies)) {
+            Map<String, Object> description = describe();
+            description.put("error", "Unknown frequencies: " + frequencies);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(description);
+        }
+
+        ReferenceDataSnapshot live = ReferenceDataSnapshot.getLive();
+        if (frequencies == null && live != null) {
+            frequencies = live.getFrequencies().getShortName();
+        }
+        if (hladb == null && live != null) {
+            hladb = live.getHladb();
+        }
+
+        HttpStatus status = reloader.reload(frequencies, hladb) ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+
+        return ResponseEntity.status(status).body(describe());
+    }
+
+    private static boolean isFrequencies(String shortName) {
+        for (Frequencies frequencies : Frequencies.values()) {
+            if (frequencies.getShortName().equals(shortName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<String, Object>();
+        ReferenceDataSnapshot live = ReferenceDataSnapshot.getLive();
+
+        if (live != null) {
+            description.put("version", live.getVersion());
+            description.put("frequencies", live.getFrequencies().getShortName());
+            description.put("hladb", live.getHladb());
+            description.put("loadedAt", live.getLoadedAt());
+        }
+        description.put("reloading", reloader.isReloading());
+
+        List<Map<String, Object>> engineDescriptions = new ArrayList<Map<String, Object>>();
+        for (AnalysisEngine engine : engines.getEngines()) {
+            Map<String, Object> engineDescription = new LinkedHashMap<String, Object>();
+            engineDescription.put("version", engine.getReferenceData().getVersion());
+            engineDescription.put("frequencies", engine.getConfig().getFrequencies().getShortName());
+            engineDescription.put("hladb", engine.getConfig().getHladb());
+            engineDescriptions.add(engineDescription);
+        }
+        description.put("engines", engineDescriptions);
+
+        Throwable failure = reloader.getFailure();
+        if (failure != null) {
+            description.put("error", failure.toString());
+        }
+
+        return description;
+    }
+}
@@ -0,0 +1,159 @@
+package org.nmdp.validation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+
+import junit.framework.TestCase;
+
+public class AnalysisExecutorTest extends TestCase {
+    @Test
+    public void testAdmit() {
+        try (AnnotationConfigApplicationContext context = context(1, 1, 2)) {
+            AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+
+            assertTrue(executor.admit());
+            assertTrue(executor.admit());
+            assertFalse(executor.admit());
+            assertEquals(2, executor.getAdmitted());
+            assertEquals(1, executor.getRejected());
+
+            executor.release();
+            assertTrue(executor.admit());
+            assertEquals(2, executor.getAdmitted());
+            assertEquals(1, executor.getRejected());
+        }
+    }
+
+    @Test
+    public void testMapRejectedWhenFull() throws Exception {
+        try (AnnotationConfigApplicationContext context = context(1, 1, 1)) {
+            AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+            List<Integer> items = new ArrayList<Integer>();
+            items.add(1);
+
+            assertTrue(executor.admit());
+            try {
+                executor.map(BatchJobsTest.engine(), items, item -> item);
+                fail("Mapped despite the queue being full");
+            }
+            catch (RejectedExecutionException expected) {
+            }
+            assertEquals(1, executor.getRejected());
+
+            executor.release();
+            assertEquals(items, executor.map(BatchJobsTest.engine(), items, item -> item).get(10, TimeUnit.SECONDS));
+            assertEquals(0, executor.getAdmitted());
+        }
+    }
+
+    @Test
+    public void testOrderedResults() throws Exception {
+        try (AnnotationConfigApplicationContext context = context(4, 2, 8)) {
+            AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+            AtomicInteger applying = new AtomicInteger();
+            AtomicInteger maxApplying = new AtomicInteger();
+
+            List<Integer> items = new ArrayList<Integer>();
+            for (int i = 0; i < 20; i++) {
+                items.add(i);
+            }
+
+            // earlier items take longer, so they finish out of order
+            List<String> results = executor.map(BatchJobsTest.engine(), items, item -> {
+                maxApplying.accumulateAndGet(applying.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20 - item);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                applying.decrementAndGet();
+                return "item-" + item;
+            }).get(10, TimeUnit.SECONDS);
+
+            List<String> expected = new ArrayList<String>();
+            for (Integer item : items) {
+                expected.add("item-" + item);
+            }
+            assertEquals(expected, results);
+            assertTrue("Applied on " + maxApplying.get() + " threads", maxApplying.get() <= executor.getParallelism());
+            assertEquals(0, executor.getAdmitted());
+        }
+    }
+
+    @Test
+    public void testReleasedOnceWorkersFinish() throws Exception {
+        try (AnnotationConfigApplicationContext context = context(2, 2, 8)) {
+            AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+            CountDownLatch applying = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+
+            List<Integer> items = new ArrayList<Integer>();
+            items.add(0);
+            items.add(1);
+            CompletableFuture<List<Integer>> result = executor.map(BatchJobsTest.engine(), items, item -> {
+                if (item == 0) {
+                    applying.countDown();
+                    await(finish);
+                    return item;
+                }
+                await(applying);
+                throw new IllegalStateException("failed");
+            });
+
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                fail("Completed despite the task failing");
+            }
+            catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+
+            // still held by the worker applying the first item
+            assertEquals(1, executor.getAdmitted());
+
+            finish.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (executor.getAdmitted() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, executor.getAdmitted());
+        }
+    }
+
+    static AnnotationConfigApplicationContext context(int threads, int parallelism, int queue) {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("org.dash.analysis.threads", threads);
+        properties.put("org.dash.analysis.parallelism", parallelism);
+        properties.put("org.dash.analysis.queue", queue);
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+        context.register(PropertySourcesPlaceholderConfigurer.class, AnalysisExecutor.class);
+        context.refresh();
+
+        return context;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
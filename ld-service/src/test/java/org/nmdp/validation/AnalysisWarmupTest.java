@@ -0,0 +1,53 @@
+package org.nmdp.validation;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.dash.valid.LinkageDisequilibriumAnalyzer;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.Sample;
+import org.dash.valid.freq.Frequencies;
+import org.dash.valid.gl.GLStringUtilities;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class AnalysisWarmupTest extends TestCase {
+    private static final int GENOTYPES = 50;
+    // the five locus analysis by race takes a fraction of a second per genotype
+    private static final int GENOTYPES_BY_RACE = 10;
+
+    @Test
+    public void testSynthesizedLinked() throws IOException {
+        assertSynthesizedLinked(Frequencies.NMDP_2007_STD, GENOTYPES);
+    }
+
+    @Test
+    public void testSynthesizedLinkedByRace() throws IOException {
+        assertSynthesizedLinked(Frequencies.NMDP_2007, GENOTYPES_BY_RACE);
+    }
+
+    @Test
+    public void testSynthesizedRepeatable() throws IOException {
+        ReferenceDataSnapshot referenceData = ReferenceDataSnapshot.load(Frequencies.NMDP_2007_STD.getShortName(), null);
+
+        assertEquals(AnalysisWarmup.synthesize(referenceData.getFrequenciesLoader(), GENOTYPES, new Random(0)),
+                AnalysisWarmup.synthesize(referenceData.getFrequenciesLoader(), GENOTYPES, new Random(0)));
+    }
+
+    private static void assertSynthesizedLinked(Frequencies frequencies, int genotypes) throws IOException {
+        ReferenceDataSnapshot referenceData = ReferenceDataSnapshot.load(frequencies.getShortName(), null);
+        List<String> glStrings = AnalysisWarmup.synthesize(referenceData.getFrequenciesLoader(), genotypes, new Random(0));
+
+        assertEquals(genotypes, glStrings.size());
+        for (String glString : glStrings) {
+            assertTrue(glString, GLStringUtilities.validateGLStringFormat(glString));
+
+            // the haplotypes drawn are linked, so at least their pair is found
+            Sample sample = referenceData.call(() -> LinkageDisequilibriumAnalyzer.detectLinkages(
+                    GLStringUtilities.inflateGenotypeList("warmup", glString, null)));
+            assertFalse(glString, sample.getFindings().getLinkedPairs().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.nmdp.validation;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.freq.Frequencies;
+import org.dash.valid.gl.LinkageDisequilibriumGenotypeList;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.model.SampleData;
+import junit.framework.TestCase;
+
+public class BatchJobsTest extends TestCase {
+    static final String GL_STRING = "HLA-A*01:01:01:01+HLA-A*26:01:01^HLA-B*38:01:01+HLA-B*44:03:01^HLA-C*12:03:01:01+HLA-C*07:01:01:01"
+            + "^HLA-DRB1*07:01:02+HLA-DRB1*01:01:01^HLA-DQB1*02:01:01+HLA-DQB1*05:01:02";
+
+    private static AnalysisEngine engine;
+
+    private File directory;
+
+    static synchronized AnalysisEngine engine() throws IOException {
+        if (engine == null) {
+            engine = new AnalysisEngine(ReferenceDataSnapshot.load(Frequencies.NMDP_2007_STD.getShortName(), null));
+        }
+        return engine;
+    }
+
+    static String input(int samples) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < samples; i++) {
+            input.append("sample-").append(i).append(',').append(GL_STRING).append('\n');
+        }
+        return input.toString();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("jobs").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(directory);
+    }
+
+    @Test
+    public void testResultsFromOffsets() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File jobDirectory = new File(directory, "job");
+        jobDirectory.mkdir();
+
+        // flushed every 2 samples, offsets kept every 4
+        BatchJob job = new BatchJob("job", "genotypes.csv", engine(), jobDirectory, 2, 4);
+        Files.write(job.getInputFile().toPath(), input(11).getBytes(StandardCharsets.UTF_8));
+        job.spooled();
+        job.run(new GenotypeAnalyzer(), objectMapper);
+
+        assertEquals(BatchJob.State.COMPLETED, job.getState());
+        assertEquals(11, job.getSamplesRead());
+        assertEquals(11, job.getSamplesWritten());
+        assertEquals(job.getInputBytes(), job.getBytesRead());
+
+        List<String> all = results(job, 0, 100);
+        assertEquals(11, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals("sample-" + i, objectMapper.readTree(all.get(i)).get("id").asText());
+        }
+
+        // from either side of every kept offset
+        for (int offset = 0; offset <= 11; offset++) {
+            assertEquals("offset " + offset, all.subList(offset, Math.min(offset + 3, 11)), results(job, offset, 3));
+        }
+        assertEquals(Collections.emptyList(), results(job, 5, 0));
+    }
+
+    @Test
+    public void testFlushedEveryInterval() throws Exception {
+        File jobDirectory = new File(directory, "job");
+        jobDirectory.mkdir();
+        BatchJob job = new BatchJob("job", "genotypes.csv", engine(), jobDirectory, 3, 3);
+        Files.write(job.getInputFile().toPath(), input(7).getBytes(StandardCharsets.UTF_8));
+        job.spooled();
+
+        // the length of the results as each sample is analyzed
+        List<Long> lengths = new ArrayList<Long>();
+        job.run(new GenotypeAnalyzer() {
+            @Override
+            public SampleData detectLinkages(LinkageDisequilibriumGenotypeList linkedGLString) {
+                lengths.add(job.getResultsFile().length());
+                return super.detectLinkages(linkedGLString);
+            }
+        }, new ObjectMapper());
+
+        assertEquals(BatchJob.State.COMPLETED, job.getState());
+        // written out only once the third and the sixth samples have been written
+        assertEquals(Arrays.asList(0L, 0L, 0L), lengths.subList(0, 3));
+        assertTrue(lengths.get(3) > 0);
+        assertEquals(Arrays.asList(lengths.get(3), lengths.get(3)), lengths.subList(4, 6));
+        assertTrue(lengths.get(6) > lengths.get(5));
+    }
+
+    @Test
+    public void testCancelQueued() throws Exception {
+        File jobDirectory = new File(directory, "job");
+        jobDirectory.mkdir();
+        BatchJob job = new BatchJob("job", "genotypes.csv", engine(), jobDirectory);
+        Files.write(job.getInputFile().toPath(), input(2).getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(job.cancel());
+        assertFalse(job.cancel());
+        job.run(new GenotypeAnalyzer(), new ObjectMapper());
+
+        assertEquals(BatchJob.State.CANCELLED, job.getState());
+        assertEquals(0, job.getSamplesRead());
+        assertFalse(job.getResultsFile().exists());
+    }
+
+    @Test
+    public void testSubmitAndDelete() throws Exception {
+        try (AnnotationConfigApplicationContext context = context(60)) {
+            BatchJobs jobs = context.getBean(BatchJobs.class);
+            String input = input(3);
+
+            BatchJob job = jobs.submit(engine(), "genotypes.csv", new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+            assertSame(job, jobs.get(job.getId()));
+            assertEquals(new File(directory, job.getId()), job.getDirectory());
+            assertEquals(input, new String(Files.readAllBytes(job.getInputFile().toPath()), StandardCharsets.UTF_8));
+            assertEquals(input.length(), job.getInputBytes());
+
+            awaitFinished(job);
+            assertEquals(BatchJob.State.COMPLETED, job.getState());
+            assertEquals(3, results(job, 0, 100).size());
+            assertEquals(Collections.singletonList(job), jobs.getJobs());
+
+            assertTrue(jobs.delete(job.getId()));
+            assertNull(jobs.get(job.getId()));
+            assertFalse(job.getDirectory().exists());
+            assertFalse(jobs.delete(job.getId()));
+        }
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        try (AnnotationConfigApplicationContext context = context(60)) {
+            BatchJobs jobs = context.getBean(BatchJobs.class);
+            BatchJob job = jobs.submit(engine(), "genotypes.csv", new ByteArrayInputStream(input(1).getBytes(StandardCharsets.UTF_8)));
+            awaitFinished(job);
+
+            assertEquals(0, jobs.expire(job.getFinishedAt() + TimeUnit.MINUTES.toMillis(59)));
+            assertSame(job, jobs.get(job.getId()));
+
+            assertEquals(1, jobs.expire(job.getFinishedAt() + TimeUnit.MINUTES.toMillis(60)));
+            assertNull(jobs.get(job.getId()));
+            assertFalse(job.getDirectory().exists());
+        }
+    }
+
+    @Test
+    public void testOrphansDeletedOnStartup() throws Exception {
+        File orphan = new File(directory, UUID.randomUUID().toString());
+        orphan.mkdir();
+        Files.write(new File(orphan, BatchJob.INPUT_FILE).toPath(), input(1).getBytes(StandardCharsets.UTF_8));
+        File other = new File(directory, "other");
+        other.mkdir();
+
+        try (AnnotationConfigApplicationContext context = context(60)) {
+            assertFalse(orphan.exists());
+            assertTrue(other.isDirectory());
+        }
+    }
+
+    private AnnotationConfigApplicationContext context(long retention) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Collections.<String, Object>singletonMap(
+                "org.dash.jobs.directory", directory.getPath())));
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("retention", Collections.<String, Object>singletonMap(
+                "org.dash.jobs.retention", Long.toString(retention))));
+        context.register(PropertySourcesPlaceholderConfigurer.class, ObjectMapper.class, AnalysisEngines.class, ResultCache.class, GenotypeAnalyzer.class, BatchJobs.class);
+        context.refresh();
+
+        return context;
+    }
+
+    private static List<String> results(BatchJob job, long offset, long limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = job.writeResults(offset, limit, out);
+
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new StringReader(new String(out.toByteArray(), StandardCharsets.UTF_8)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        assertEquals(written, lines.size());
+
+        return lines;
+    }
+
+    private static void awaitFinished(BatchJob job) throws InterruptedException {
+        for (int i = 0; i < 600 && job.getFinishedAt() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertTrue("Job didn't finish", job.getFinishedAt() != 0);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,249 @@
+package org.nmdp.validation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.servlet.mvc.annotation.ResponseStatusExceptionResolver;
+
+import junit.framework.TestCase;
+
+public class GzipRequestFilterTest extends TestCase {
+    private static final String BODY = "{\"genotype\":[{\"id\":\"1\",\"glString\":\"HLA-A*01:01+HLA-A*02:01\"}]}";
+    private static final long MAX_INFLATED_SIZE = 1024;
+
+    @Test
+    public void testGzipBody() throws Exception {
+        byte[] gzipped = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+        AtomicInteger status = new AtomicInteger(200);
+        AtomicReference<String> read = new AtomicReference<String>();
+        AtomicReference<HttpServletRequest> filtered = new AtomicReference<HttpServletRequest>();
+
+        new GzipRequestFilter(MAX_INFLATED_SIZE).doFilterInternal(request("gzip", gzipped), response(status), (request, response) -> {
+            filtered.set((HttpServletRequest) request);
+            read.set(new String(readAll(request.getInputStream()), StandardCharsets.UTF_8));
+        });
+
+        assertEquals(BODY, read.get());
+        assertEquals(200, status.get());
+        assertNull(filtered.get().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertFalse(filtered.get().getHeaders(HttpHeaders.CONTENT_ENCODING).hasMoreElements());
+        assertEquals(-1, filtered.get().getContentLength());
+        assertTrue(filtered.get().getInputStream().isFinished());
+    }
+
+    @Test
+    public void testUncompressedBody() throws Exception {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        HttpServletRequest original = request(null, body);
+        AtomicReference<HttpServletRequest> filtered = new AtomicReference<HttpServletRequest>();
+
+        new GzipRequestFilter(MAX_INFLATED_SIZE).doFilterInternal(original, response(new AtomicInteger(200)),
+                (request, response) -> filtered.set((HttpServletRequest) request));
+
+        assertSame(original, filtered.get());
+    }
+
+    @Test
+    public void testInvalidGzipBody() throws Exception {
+        AtomicInteger status = new AtomicInteger(200);
+        AtomicReference<Boolean> handled = new AtomicReference<Boolean>(false);
+
+        new GzipRequestFilter(MAX_INFLATED_SIZE).doFilterInternal(request("gzip", BODY.getBytes(StandardCharsets.UTF_8)), response(status),
+                (request, response) -> handled.set(true));
+
+        assertEquals(400, status.get());
+        assertFalse(handled.get());
+    }
+
+    @Test
+    public void testCorruptGzipBody() throws Exception {
+        byte[] gzipped = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+        // the header intact, the deflated data not
+        for (int i = 10; i < gzipped.length - 8; i++) {
+            gzipped[i] = (byte) 0xff;
+        }
+        AtomicInteger status = new AtomicInteger(200);
+
+        new GzipRequestFilter(MAX_INFLATED_SIZE).doFilterInternal(request("gzip", gzipped), response(status),
+                (request, response) -> readAll(request.getInputStream()));
+
+        assertEquals(400, status.get());
+    }
+
+    @Test
+    public void testInflatedSizeExceeded() throws Exception {
+        // a megabyte of zeros compresses to about a kilobyte
+        byte[] gzipped = gzip(new byte[1024 * 1024]);
+        AtomicInteger status = new AtomicInteger(200);
+        AtomicLong read = new AtomicLong();
+
+        new GzipRequestFilter(MAX_INFLATED_SIZE).doFilterInternal(request("gzip", gzipped), response(status), (request, response) -> {
+            InputStream in = request.getInputStream();
+            byte[] buffer = new byte[64];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                read.addAndGet(count);
+            }
+        });
+
+        assertEquals(413, status.get());
+        assertTrue(read.get() <= MAX_INFLATED_SIZE);
+    }
+
+    @Test
+    public void testInflatedSizeAtMaximum() throws Exception {
+        AtomicInteger status = new AtomicInteger(200);
+        AtomicInteger read = new AtomicInteger();
+
+        new GzipRequestFilter(MAX_INFLATED_SIZE).doFilterInternal(request("gzip", gzip(new byte[(int) MAX_INFLATED_SIZE])), response(status),
+                (request, response) -> read.set(readAll(request.getInputStream()).length));
+
+        assertEquals(200, status.get());
+        assertEquals(MAX_INFLATED_SIZE, read.get());
+    }
+
+    @Test
+    public void testInflatedSizeExceededBindingBody() throws Exception {
+        AtomicInteger status = new AtomicInteger(200);
+        AtomicReference<IOException> exceeded = new AtomicReference<IOException>();
+
+        // as the body is bound to a request, its exception becomes the cause of one the converter throws
+        new GzipRequestFilter(MAX_INFLATED_SIZE).doFilterInternal(request("gzip", gzip(new byte[1024 * 1024])), response(status), (request, response) -> {
+            try {
+                readAll(request.getInputStream());
+            }
+            catch (IOException e) {
+                exceeded.set(e);
+                new ResponseStatusExceptionResolver().resolveException((HttpServletRequest) request, (HttpServletResponse) response, null,
+                        new HttpMessageNotReadableException("Could not read document: " + e.getMessage(), e));
+            }
+        });
+
+        assertNotNull(exceeded.get());
+        assertEquals(413, status.get());
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A request with the body and content encoding, if any.
+     */
+    private static HttpServletRequest request(String contentEncoding, byte[] body) {
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put(HttpHeaders.CONTENT_TYPE.toLowerCase(), "application/json");
+        headers.put(HttpHeaders.CONTENT_LENGTH.toLowerCase(), Integer.toString(body.length));
+        if (contentEncoding != null) {
+            headers.put(HttpHeaders.CONTENT_ENCODING.toLowerCase(), contentEncoding);
+        }
+        ServletInputStream inputStream = new BodyInputStream(new ByteArrayInputStream(body));
+
+        return (HttpServletRequest) Proxy.newProxyInstance(GzipRequestFilterTest.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getInputStream":
+                        return inputStream;
+                    case "getHeader":
+                        return headers.get(((String) args[0]).toLowerCase());
+                    case "getHeaders":
+                        String header = headers.get(((String) args[0]).toLowerCase());
+                        return Collections.enumeration((header != null) ? Arrays.asList(header) : Collections.<String>emptyList());
+                    case "getContentLength":
+                        return body.length;
+                    case "getContentLengthLong":
+                        return (long) body.length;
+                    default:
+                        return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * A response recording its status.
+     */
+    private static HttpServletResponse response(AtomicInteger status) {
+        return (HttpServletResponse) Proxy.newProxyInstance(GzipRequestFilterTest.class.getClassLoader(), new Class<?>[] { HttpServletResponse.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "sendError":
+                    case "setStatus":
+                        status.set((Integer) args[0]);
+                        return null;
+                    case "getStatus":
+                        return status.get();
+                    default:
+                        return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+
+    private static final class BodyInputStream extends ServletInputStream {
+        private final ByteArrayInputStream body;
+
+        BodyInputStream(ByteArrayInputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public int read() {
+            return body.read();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return body.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new IllegalStateException("Not an asynchronous request");
+        }
+    }
+}
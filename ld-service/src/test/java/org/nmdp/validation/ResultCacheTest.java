@@ -0,0 +1,79 @@
+package org.nmdp.validation;
+
+import java.util.Collections;
+
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.freq.Frequencies;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+
+import io.swagger.model.SampleData;
+import junit.framework.TestCase;
+
+public class ResultCacheTest extends TestCase {
+    private static final String GL_STRING = "HLA-A*01:01:01:01+HLA-A*26:01:01";
+
+    private AnnotationConfigApplicationContext context;
+
+    @Override
+    protected void setUp() throws Exception {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Collections.<String, Object>singletonMap(
+                "org.dash.cache.size", 10)));
+        context.register(PropertySourcesPlaceholderConfigurer.class, AnalysisEngines.class, ResultCache.class);
+        context.refresh();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        context.close();
+        ReferenceDataSnapshot.withdraw();
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        ResultCache cache = context.getBean(ResultCache.class);
+        ReferenceDataSnapshot snapshot = load();
+        ReferenceDataSnapshot.publish(snapshot);
+
+        assertEquals("first", cache.get(snapshot, "first", GL_STRING, () -> sampleData("first")).getId());
+        // the cached sample under the id requested
+        assertEquals("second", cache.get(snapshot, "second", GL_STRING, () -> {
+            throw new AssertionError("Analyzed despite being cached");
+        }).getId());
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testReplacedWhileAnalyzing() throws Exception {
+        ResultCache cache = context.getBean(ResultCache.class);
+        AnalysisEngines engines = context.getBean(AnalysisEngines.class);
+        ReferenceDataSnapshot replaced = load();
+        ReferenceDataSnapshot.publish(replaced);
+        ReferenceDataSnapshot replacement = load();
+
+        // reloaded as ReferenceDataReloader does, while the sample is analyzed against the replaced reference data
+        SampleData sampleData = cache.get(replaced, "sample", GL_STRING, () -> {
+            ReferenceDataSnapshot.publish(replacement);
+            cache.retain(engines.getReferenceData());
+            return sampleData("sample");
+        });
+
+        assertEquals("sample", sampleData.getId());
+        assertEquals(0, cache.getSize());
+    }
+
+    private static ReferenceDataSnapshot load() throws Exception {
+        return ReferenceDataSnapshot.load(Frequencies.NMDP_2007_STD.getShortName(), null);
+    }
+
+    private static SampleData sampleData(String id) {
+        SampleData sampleData = new SampleData();
+        sampleData.setId(id);
+        sampleData.setGlString(GL_STRING);
+        return sampleData;
+    }
+}
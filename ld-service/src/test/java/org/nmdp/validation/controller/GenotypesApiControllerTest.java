@@ -0,0 +1,309 @@
+package org.nmdp.validation.controller;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.freq.Frequencies;
+import org.junit.Test;
+import org.nmdp.validation.AnalysisEngines;
+import org.nmdp.validation.AnalysisExecutor;
+import org.nmdp.validation.GenotypeAnalyzer;
+import org.nmdp.validation.ResultCache;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.model.Genotype;
+import io.swagger.model.Genotypes;
+import io.swagger.model.Samples;
+import junit.framework.TestCase;
+
+public class GenotypesApiControllerTest extends TestCase {
+    private static final String GL_STRING = "HLA-A*01:01:01:01+HLA-A*26:01:01^HLA-B*38:01:01+HLA-B*44:03:01";
+
+    private AnnotationConfigApplicationContext context;
+
+    @Override
+    protected void setUp() throws Exception {
+        ReferenceDataSnapshot.publish(ReferenceDataSnapshot.load(Frequencies.NMDP_2007_STD.getShortName(), null));
+
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("org.dash.analysis.threads", 2);
+        properties.put("org.dash.analysis.parallelism", 2);
+        properties.put("org.dash.analysis.queue", 1);
+        properties.put("org.dash.analysis.retry-after", 7);
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+        context.register(PropertySourcesPlaceholderConfigurer.class, ObjectMapper.class, ResultCache.class, GenotypeAnalyzer.class,
+                AnalysisEngines.class, AnalysisExecutor.class, GenotypesApiController.class);
+        context.refresh();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        context.close();
+        ReferenceDataSnapshot.withdraw();
+    }
+
+    @Test
+    public void testTooManyRequests() throws Exception {
+        AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+        GenotypesApiController controller = context.getBean(GenotypesApiController.class);
+
+        // the one place in the queue taken
+        assertTrue(executor.admit());
+        ResponseEntity<Samples> response = controller.submitGenotypes(genotypes(), null, null).get(10, TimeUnit.SECONDS);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("7", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNull(response.getBody());
+        assertEquals(1, executor.getRejected());
+
+        executor.release();
+        response = controller.submitGenotypes(genotypes(), null, null).get(10, TimeUnit.SECONDS);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getSample().size());
+        assertEquals("sample", response.getBody().getSample().get(0).getId());
+        assertEquals(1, executor.getRejected());
+        assertEquals(0, executor.getAdmitted());
+    }
+
+    @Test
+    public void testStreamInOrder() throws Exception {
+        AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+        StreamResponse response = new StreamResponse();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            body.append(line("sample-" + i)).append('\n');
+        }
+
+        context.getBean(GenotypesApiController.class).streamGenotypes(request(body.toString()), response.proxy(), null, null);
+
+        assertEquals(200, response.status);
+        assertEquals("application/x-ndjson", response.contentType);
+        List<String> lines = response.lines();
+        assertEquals(10, lines.size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int i = 0; i < 10; i++) {
+            JsonNode sample = objectMapper.readTree(lines.get(i));
+            assertEquals("sample-" + i, sample.get("id").asText());
+        }
+        assertEquals(0, executor.getAdmitted());
+    }
+
+    @Test
+    public void testStreamMalformedFirstLine() throws Exception {
+        AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+        StreamResponse response = new StreamResponse();
+
+        context.getBean(GenotypesApiController.class).streamGenotypes(request("not a genotype\n" + line("sample-1") + "\n"), response.proxy(), null, null);
+
+        assertEquals(400, response.status);
+        assertTrue(response.lines().isEmpty());
+        assertEquals(0, executor.getAdmitted());
+    }
+
+    @Test
+    public void testStreamMalformedLaterLine() throws Exception {
+        AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+        StreamResponse response = new StreamResponse();
+        // with two genotypes analyzed at once, the first sample is written before the third line is read
+        String body = line("sample-0") + "\n" + line("sample-1") + "\n{\"id\":\n";
+
+        try {
+            context.getBean(GenotypesApiController.class).streamGenotypes(request(body), response.proxy(), null, null);
+            fail("Stream didn't fail");
+        }
+        catch (JsonProcessingException expected) {
+        }
+
+        assertEquals(200, response.status);
+        assertEquals(1, response.lines().size());
+        assertEquals(0, executor.getAdmitted());
+    }
+
+    @Test
+    public void testStreamTooManyRequests() throws Exception {
+        AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+        StreamResponse response = new StreamResponse();
+
+        assertTrue(executor.admit());
+        context.getBean(GenotypesApiController.class).streamGenotypes(request(line("sample") + "\n"), response.proxy(), null, null);
+
+        assertEquals(429, response.status);
+        assertEquals("7", response.headers.get(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.lines().isEmpty());
+        assertEquals(1, executor.getRejected());
+        // only the request admitted above still holds its place
+        assertEquals(1, executor.getAdmitted());
+        executor.release();
+    }
+
+    private static Genotypes genotypes() {
+        return new Genotypes().addGenotypeItem(new Genotype().id("sample").glString(GL_STRING));
+    }
+
+    private static String line(String id) {
+        return "{\"id\":\"" + id + "\",\"glString\":\"" + GL_STRING + "\"}";
+    }
+
+    @Test
+    public void testStreamReadFailureUncommitted() throws Exception {
+        AnalysisExecutor executor = context.getBean(AnalysisExecutor.class);
+        StreamResponse response = new StreamResponse();
+
+        // e.g. a gzip body inflating past its maximum size, for which an error status is still to be sent
+        try {
+            context.getBean(GenotypesApiController.class).streamGenotypes(request(null), response.proxy(), null, null);
+            fail("Stream didn't fail");
+        }
+        catch (IOException expected) {
+        }
+
+        assertFalse(response.committed);
+        assertEquals(0, executor.getAdmitted());
+    }
+
+    /**
+     * A request with the body, or whose body fails to be read if null.
+     */
+    private static HttpServletRequest request(String body) {
+        ByteArrayInputStream in = new ByteArrayInputStream((body != null) ? body.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+        ServletInputStream inputStream = new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+                return read(new byte[1], 0, 1);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (body == null) {
+                    throw new IOException("Body unreadable");
+                }
+                return in.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new IllegalStateException("Not an asynchronous request");
+            }
+        };
+
+        return (HttpServletRequest) Proxy.newProxyInstance(GenotypesApiControllerTest.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getInputStream")) {
+                        return inputStream;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * A response recording its status, headers and body, committed once its body is flushed or closed.
+     */
+    private static final class StreamResponse {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final Map<String, String> headers = new HashMap<String, String>();
+        private int status = 200;
+        private String contentType;
+        private boolean committed;
+
+        HttpServletResponse proxy() {
+            ServletOutputStream outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void flush() {
+                    committed = true;
+                }
+
+                @Override
+                public void close() {
+                    committed = true;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new IllegalStateException("Not an asynchronous request");
+                }
+            };
+
+            return (HttpServletResponse) Proxy.newProxyInstance(GenotypesApiControllerTest.class.getClassLoader(), new Class<?>[] { HttpServletResponse.class },
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                        case "setStatus":
+                            status = (Integer) args[0];
+                            return null;
+                        case "setHeader":
+                            headers.put((String) args[0], (String) args[1]);
+                            return null;
+                        case "setContentType":
+                            contentType = (String) args[0];
+                            return null;
+                        case "getOutputStream":
+                            return outputStream;
+                        case "isCommitted":
+                            return committed;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        List<String> lines() throws IOException {
+            List<String> lines = new ArrayList<String>();
+            try (BufferedReader reader = new BufferedReader(new StringReader(new String(body.toByteArray(), StandardCharsets.UTF_8)))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        }
+    }
+}
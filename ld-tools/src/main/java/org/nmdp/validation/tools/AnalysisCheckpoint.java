@@ -0,0 +1,198 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Progress of an analysis run writing to an output directory.  The checkpoint records the number of
+ * input records consumed, the number of samples written and the length of every output file, so that
+ * a resumed run can truncate partially written output back to the last checkpoint boundary.  Delimited
+ * input resumes by the number of records; for XML input, which is resumed by sample id, the ids of the
+ * samples completed are also recorded, and only read back when resuming.
+ */
+class AnalysisCheckpoint {
+	static final String CHECKPOINT_FILE = "analysis.checkpoint";
+	static final String COMPLETED_SAMPLES_FILE = "completedSamples.txt";
+
+	private static final String RECORDS_PROPERTY = "records";
+	private static final String SAMPLES_PROPERTY = "samples";
+	private static final String COMPLETE_PROPERTY = "complete";
+	private static final String LENGTH_PREFIX = "length.";
+
+	private final File directory;
+	private final File completedSamplesFile;
+	private final Properties properties = new Properties();
+	private final boolean byId;
+	private final Set<String> completedIds = new HashSet<String>();
+	private final List<String> pendingIds = new ArrayList<String>();
+	private boolean found = false;
+
+	private AnalysisCheckpoint(File directory, boolean byId) {
+		this.directory = directory;
+		this.byId = byId;
+		this.completedSamplesFile = new File(directory, COMPLETED_SAMPLES_FILE);
+	}
+
+	/**
+	 * Starts a new checkpoint for the specified directory, discarding the completed sample ids
+	 * of any earlier run.
+	 * 
+	 * @param byId whether the ids of the samples completed are recorded
+	 */
+	static AnalysisCheckpoint create(File directory, boolean byId) throws IOException {
+		AnalysisCheckpoint checkpoint = new AnalysisCheckpoint(directory, byId);
+		Files.deleteIfExists(checkpoint.completedSamplesFile.toPath());
+
+		return checkpoint;
+	}
+
+	/**
+	 * Reads the checkpoint for the specified directory, truncating the completed sample ids
+	 * back to the checkpoint boundary.  A new checkpoint is started if there is none.
+	 * 
+	 * @param byId whether the ids of the samples completed are read back and recorded
+	 */
+	static AnalysisCheckpoint load(File directory, boolean byId) throws IOException {
+		File checkpointFile = new File(directory, CHECKPOINT_FILE);
+
+		if (!checkpointFile.exists()) {
+			return create(directory, byId);
+		}
+
+		AnalysisCheckpoint checkpoint = new AnalysisCheckpoint(directory, byId);
+
+		try (Reader reader = new FileReader(checkpointFile)) {
+			checkpoint.properties.load(reader);
+		}
+		checkpoint.found = true;
+
+		checkpoint.truncate(checkpoint.completedSamplesFile);
+
+		if (byId && checkpoint.completedSamplesFile.exists()) {
+			try (BufferedReader reader = new BufferedReader(new FileReader(checkpoint.completedSamplesFile))) {
+				String id;
+				while ((id = reader.readLine()) != null) {
+					checkpoint.completedIds.add(id);
+				}
+			}
+		}
+
+		return checkpoint;
+	}
+
+	boolean isFound() {
+		return found;
+	}
+
+	boolean isComplete() {
+		return Boolean.parseBoolean(properties.getProperty(COMPLETE_PROPERTY));
+	}
+
+	long getRecords() {
+		return Long.parseLong(properties.getProperty(RECORDS_PROPERTY, "0"));
+	}
+
+	long getSamples() {
+		return Long.parseLong(properties.getProperty(SAMPLES_PROPERTY, "0"));
+	}
+
+	boolean isCompleted(String id) {
+		return completedIds.contains(id);
+	}
+
+	void sampleCompleted(String id) {
+		if (byId) {
+			pendingIds.add(id);
+		}
+	}
+
+	/**
+	 * Truncates output files back to the length recorded at the checkpoint.  Files the
+	 * checkpoint does not know about were created after it, and are emptied.
+	 */
+	void truncate(Collection<File> outputFiles) throws IOException {
+		for (File outputFile : outputFiles) {
+			truncate(outputFile);
+		}
+	}
+
+	private void truncate(File outputFile) throws IOException {
+		String length = properties.getProperty(LENGTH_PREFIX + outputFile.getName());
+
+		if (!outputFile.exists()) {
+			return;
+		}
+
+		try (RandomAccessFile file = new RandomAccessFile(outputFile, "rw")) {
+			file.setLength(length == null ? 0 : Long.parseLong(length));
+		}
+	}
+
+	/**
+	 * Records a checkpoint.  Output writers must be flushed before calling.  Lengths recorded for
+	 * files no longer being written (e.g. closed partitions) are retained.
+	 */
+	void save(long records, long samples, Collection<File> outputFiles, boolean complete) throws IOException {
+		// the ids are only needed to resume a later run, so aren't kept in memory
+		if (byId) {
+			try (PrintWriter writer = new PrintWriter(new FileWriter(completedSamplesFile, true))) {
+				for (String id : pendingIds) {
+					writer.println(id);
+				}
+			}
+			pendingIds.clear();
+			properties.setProperty(LENGTH_PREFIX + completedSamplesFile.getName(), Long.toString(completedSamplesFile.length()));
+		}
+
+		properties.setProperty(RECORDS_PROPERTY, Long.toString(records));
+		properties.setProperty(SAMPLES_PROPERTY, Long.toString(samples));
+		properties.setProperty(COMPLETE_PROPERTY, Boolean.toString(complete));
+		for (File outputFile : outputFiles) {
+			properties.setProperty(LENGTH_PREFIX + outputFile.getName(), Long.toString(outputFile.length()));
+		}
+
+		File checkpointFile = new File(directory, CHECKPOINT_FILE);
+		File tempFile = new File(directory, CHECKPOINT_FILE + ".tmp");
+		try (Writer writer = new FileWriter(tempFile)) {
+			properties.store(writer, null);
+		}
+		Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		found = true;
+	}
+}
@@ -0,0 +1,455 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.dash.valid.AnalysisConfig;
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.freq.Frequencies;
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+import org.dishevelled.commandline.argument.IntegerArgument;
+import org.dishevelled.commandline.argument.StringArgument;
+
+/**
+ * Long-lived process keeping reference data loaded (and the analysis JIT compiled) for jobs submitted
+ * by DaemonClient over a localhost port.  Each job runs one of the analyze-gl-strings, validate-gl-ld
+ * or normalize-frequency-file tools, in the client's working directory and with its standard streams.
+ * Reference data is held in an AnalysisEngine per frequency set and hladb, loaded by the first job to
+ * use it; the remaining configuration is specified by the daemon's system properties.
+ *
+ * Any local user can connect to the port, so the daemon only runs jobs for clients that first send the
+ * token it generates on startup, written to a file only the user running it can read (see tokenFile).
+ * A job is requested as the token, tool name, working directory and arguments.  The daemon replies with
+ * frames of the tool's standard output and error, then its exit status; standard input is requested
+ * from the client only if the tool reads it, and is sent as length prefixed chunks ending with an empty
+ * chunk.
+ */
+public class AnalysisDaemon implements Callable<Integer> {
+	static final int DEFAULT_PORT = 7411;
+
+	static final byte STDOUT = 'o';
+	static final byte STDERR = 'e';
+	static final byte STDIN = 'i';
+	static final byte EXIT = 'x';
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int TOKEN_BYTES = 32;
+	private static final int AUTHENTICATION_TIMEOUT = 10000;
+	private static final String POSIX = "posix";
+	private static final String USAGE = "ld-daemon [args]";
+	private static final Logger LOGGER = Logger.getLogger(AnalysisDaemon.class.getName());
+
+	private static final Map<String, BiFunction<String[], ToolContext, Integer>> TOOLS = new HashMap<String, BiFunction<String[], ToolContext, Integer>>();
+
+	static {
+		TOOLS.put("analyze-gl-strings", AnalyzeGLStrings::run);
+		TOOLS.put("validate-gl-ld", ValidateLdGlstrings::run);
+		TOOLS.put("normalize-frequency-file", NormalizeFrequencyFile::run);
+	}
+
+	private final int port;
+	private final String freq;
+	private final String hladb;
+	private final int threads;
+	private final Map<String, BiFunction<String[], ToolContext, Integer>> tools;
+	private final String token;
+	private final Map<AnalysisConfig, AnalysisEngine> engines = new ConcurrentHashMap<AnalysisConfig, AnalysisEngine>();
+
+	/**
+	 * Analysis daemon
+	 *
+	 * @param port localhost port to listen on, if any
+	 * @param freq frequency set to load on startup, if any
+	 * @param hladb hladb to load on startup, if any
+	 * @param threads number of jobs run concurrently, if any
+	 */
+	public AnalysisDaemon(Integer port, String freq, String hladb, Integer threads) {
+		this(port, freq, hladb, threads, TOOLS);
+	}
+
+	AnalysisDaemon(Integer port, String freq, String hladb, Integer threads, Map<String, BiFunction<String[], ToolContext, Integer>> tools) {
+		this.port = (port != null) ? port : DEFAULT_PORT;
+		this.freq = freq;
+		this.hladb = hladb;
+		this.threads = (threads != null) ? threads : Runtime.getRuntime().availableProcessors();
+		this.tools = tools;
+
+		byte[] random = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(random);
+		StringBuilder token = new StringBuilder();
+		for (byte b : random) {
+			token.append(String.format("%02x", b));
+		}
+		this.token = token.toString();
+	}
+
+	@Override
+	public Integer call() throws Exception {
+		getEngine(freq, hladb);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+			File tokenFile = tokenFile(serverSocket.getLocalPort());
+			writeToken(tokenFile.toPath(), token);
+			LOGGER.info("Listening for jobs on " + serverSocket.getLocalSocketAddress() + ", token in " + tokenFile);
+
+			while (true) {
+				Socket socket = serverSocket.accept();
+				executor.execute(() -> runJob(socket));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the file holding the token of the daemon listening on the port, in the user's home directory
+	 */
+	static File tokenFile(int port) {
+		return new File(new File(System.getProperty("user.home"), ".ld-daemon"), port + ".token");
+	}
+
+	/**
+	 * Writes the token to a file readable and writable only by its owner, replacing any left by an
+	 * earlier daemon on the same port.
+	 */
+	static void writeToken(Path path, String token) throws IOException {
+		boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains(POSIX);
+		Path directory = Files.createDirectories(path.getParent());
+		if (posix) {
+			Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+		}
+
+		// created 0600 on POSIX file systems, before the token is written to it
+		Path temp = Files.createTempFile(directory, path.getFileName().toString(), null);
+		try {
+			if (posix) {
+				Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+			}
+			else {
+				File file = temp.toFile();
+				file.setReadable(false, false);
+				file.setReadable(true, true);
+				file.setWritable(false, false);
+				file.setWritable(true, true);
+			}
+			Files.write(temp, token.getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	String getToken() {
+		return token;
+	}
+
+	/**
+	 * @return the engine for the specified frequency set and hladb (by default, those of the system
+	 * properties), loading it if this is the first job to use them
+	 */
+	AnalysisEngine getEngine(String frequencies, String hladb) throws IOException {
+		AnalysisConfig.Builder builder = AnalysisConfig.systemPropertiesBuilder();
+		if (frequencies != null) {
+			builder.frequencies(Frequencies.lookup(frequencies));
+		}
+		if (hladb != null) {
+			builder.hladb(hladb);
+		}
+		AnalysisConfig config = builder.build();
+
+		AnalysisEngine engine = engines.get(config);
+		if (engine == null) {
+			synchronized (engines) {
+				engine = engines.get(config);
+				if (engine == null) {
+					engine = AnalysisEngine.create(config, engines.values());
+					engines.put(config, engine);
+				}
+			}
+		}
+
+		return engine;
+	}
+
+	private void runJob(Socket socket) {
+		try (Socket closing = socket) {
+			// a connection that never sends its token doesn't hold a thread for long
+			socket.setSoTimeout(AUTHENTICATION_TIMEOUT);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			if (!authenticate(in)) {
+				LOGGER.warning("Closed a connection from " + socket.getRemoteSocketAddress() + " without the daemon's token");
+				return;
+			}
+			socket.setSoTimeout(0);
+
+			runJob(in, out);
+		}
+		catch (IOException | RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Job failed", e);
+		}
+	}
+
+	/**
+	 * @return true if the client sent the daemon's token
+	 */
+	boolean authenticate(DataInputStream in) throws IOException {
+		return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), in.readUTF().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Runs the job requested, replying with its output and exit status.
+	 */
+	void runJob(DataInputStream in, DataOutputStream out) throws IOException {
+		long start = System.currentTimeMillis();
+
+		String tool = in.readUTF();
+		File workingDirectory = new File(in.readUTF());
+		String[] args = new String[in.readInt()];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = in.readUTF();
+		}
+
+		PrintStream stdout = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, STDOUT), BUFFER_SIZE));
+		PrintStream stderr = new PrintStream(new FrameOutputStream(out, STDERR), true);
+		JobContext context = new JobContext(workingDirectory, new JobInputStream(in, out), stdout, stderr);
+
+		int status;
+		BiFunction<String[], ToolContext, Integer> run = tools.get(tool);
+		if (run == null) {
+			stderr.println("Unknown tool: " + tool + ", expected one of " + tools.keySet());
+			status = -1;
+		}
+		else {
+			status = run.apply(args, context);
+		}
+
+		stdout.flush();
+		stderr.flush();
+		synchronized (out) {
+			out.writeByte(EXIT);
+			out.writeInt(status);
+			out.flush();
+		}
+
+		LOGGER.info("Job " + tool + " exited with status " + status + " in " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+	/**
+	 * Context of a job:  the client's working directory and streams, and the daemon's engines.
+	 */
+	private final class JobContext extends ToolContext {
+		JobContext(File workingDirectory, InputStream in, PrintStream out, PrintStream err) {
+			super(workingDirectory, in, out, err);
+		}
+
+		@Override
+		boolean isShared() {
+			return true;
+		}
+
+		@Override
+		AnalysisEngine getEngine(String frequencies, String hladb) throws IOException {
+			return AnalysisDaemon.this.getEngine(frequencies, hladb);
+		}
+	}
+
+	/**
+	 * Writes to the client as frames of the specified type.  Closing it (as tools do with their output)
+	 * leaves the connection open.
+	 */
+	private static final class FrameOutputStream extends OutputStream {
+		private final DataOutputStream out;
+		private final byte type;
+
+		FrameOutputStream(DataOutputStream out, byte type) {
+			this.out = out;
+			this.type = type;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return;
+			}
+
+			synchronized (out) {
+				out.writeByte(type);
+				out.writeInt(len);
+				out.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			synchronized (out) {
+				out.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+
+	/**
+	 * Reads the client's standard input, requesting it on first read.
+	 */
+	private static final class JobInputStream extends InputStream {
+		private final DataInputStream in;
+		private final DataOutputStream out;
+		private boolean requested = false;
+		private int remaining = 0;
+		private boolean eof = false;
+
+		JobInputStream(DataInputStream in, DataOutputStream out) {
+			this.in = in;
+			this.out = out;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return (read(b, 0, 1) == -1) ? -1 : (b[0] & 0xff);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (!requested) {
+				synchronized (out) {
+					out.writeByte(STDIN);
+					out.flush();
+				}
+				requested = true;
+			}
+
+			if (len == 0) {
+				return 0;
+			}
+
+			while (remaining == 0 && !eof) {
+				remaining = in.readInt();
+				eof = remaining == 0;
+			}
+
+			if (eof) {
+				return -1;
+			}
+
+			int read = in.read(b, off, Math.min(len, remaining));
+			if (read == -1) {
+				throw new IOException("Client closed standard input mid chunk");
+			}
+			remaining -= read;
+
+			return read;
+		}
+	}
+
+	/**
+	 * Main.
+	 *
+	 * @param args command line args
+	 */
+	public static void main(final String[] args) {
+		Switch about = new Switch("a", "about", "display about message");
+		Switch help = new Switch("h", "help", "display help message");
+		IntegerArgument port = new IntegerArgument("p", "port", "localhost port to listen on, default " + DEFAULT_PORT, false);
+		StringArgument freq = new StringArgument("f", "frequencies", "Frequency Set to load on startup (e.g. nmdp, nmdp-2007, wiki), default nmdp-2007", false);
+		StringArgument hladb = new StringArgument("v", "hladb-version", "HLA DB version to load on startup (e.g. 3.19.0), default latest", false);
+		IntegerArgument threads = new IntegerArgument("t", "threads", "number of jobs run concurrently, default number of processors", false);
+
+		ArgumentList arguments = new ArgumentList(about, help, port, freq, hladb, threads);
+		CommandLine commandLine = new CommandLine(args);
+
+		AnalysisDaemon analysisDaemon = null;
+		try
+		{
+			CommandLineParser.parse(commandLine, arguments);
+			if (about.wasFound()) {
+				About.about(System.out);
+				System.exit(0);
+			}
+			if (help.wasFound()) {
+				Usage.usage(USAGE, null, commandLine, arguments, System.out);
+				System.exit(0);
+			}
+
+			analysisDaemon = new AnalysisDaemon(port.getValue(), freq.getValue(), hladb.getValue(), threads.getValue());
+		}
+		catch (CommandLineParseException | IllegalArgumentException e) {
+			Usage.usage(USAGE, e, commandLine, arguments, System.err);
+			System.exit(-1);
+		}
+		try {
+			System.exit(analysisDaemon.call());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dash.valid.Sample;
+import org.dash.valid.handler.CommonWellDocumentedFileHandler;
+import org.dash.valid.handler.HaplotypePairFileHandler;
+import org.dash.valid.handler.HaplotypePairWarningFileHandler;
+import org.dash.valid.handler.LinkageDisequilibriumFileHandler;
+import org.dash.valid.handler.LinkageWarningFileHandler;
+import org.dash.valid.report.CommonWellDocumentedWriter;
+import org.dash.valid.report.DetectedFindingsWriter;
+import org.dash.valid.report.DetectedLinkageFindings;
+import org.dash.valid.report.HaplotypePairWriter;
+import org.dash.valid.report.LinkageDisequilibriumWriter;
+import org.dash.valid.report.SummaryWriter;
+
+/**
+ * The set of output streams written for a single output file, or for an output directory
+ * (optionally one numbered partition of it).
+ */
+class AnalysisOutput {
+	static final String[] DIRECTORY_STREAMS = new String[] { SummaryWriter.SUMMARY_XML_FILE,
+			HaplotypePairFileHandler.HAPLOTYPE_PAIRS_LOG,
+			HaplotypePairWarningFileHandler.HAPLOTYPE_PAIRS_WARNING_LOG,
+			LinkageDisequilibriumFileHandler.LINKAGES_LOG,
+			LinkageWarningFileHandler.LINKAGE_WARNINGS_LOG,
+			CommonWellDocumentedFileHandler.NON_CWD_WARNINGS_LOG,
+			DetectedFindingsWriter.DETECTED_FINDINGS_CSV };
+
+	private static final String PART_FORMAT = ".part-%05d";
+
+	private final ToolContext context;
+	private final boolean directory;
+	private final List<File> files = new ArrayList<File>();
+	private PrintWriter summaryWriter;
+	private PrintWriter pairWriter;
+	private PrintWriter pairWarningsWriter;
+	private PrintWriter linkageWriter;
+	private PrintWriter linkageWarningsWriter;
+	private PrintWriter nonCwdWriter;
+	private PrintWriter detectedFindingsWriter;
+
+	/**
+	 * Output to a single summary file, or stdout if null.
+	 */
+	AnalysisOutput(ToolContext context, File summaryFile) {
+		this.context = context;
+		this.directory = false;
+		if (summaryFile != null) {
+			files.add(summaryFile);
+		}
+	}
+
+	/**
+	 * Output to an output directory.
+	 *
+	 * @param part partition number, or null if the output is not partitioned
+	 */
+	AnalysisOutput(ToolContext context, File outputDirectory, Integer part) {
+		this.context = context;
+		this.directory = true;
+		for (String stream : DIRECTORY_STREAMS) {
+			files.add(new File(outputDirectory, partFileName(stream, part)));
+		}
+	}
+
+	static String partFileName(String name, Integer part) {
+		if (part == null) {
+			return name;
+		}
+
+		int extension = name.lastIndexOf('.');
+		String suffix = String.format(PART_FORMAT, part);
+		return extension < 0 ? name + suffix : name.substring(0, extension) + suffix + name.substring(extension);
+	}
+
+	List<File> getFiles() {
+		return files;
+	}
+
+	/**
+	 * Opens all writers for appending.  When resuming from a checkpoint the files are first truncated
+	 * back to the checkpoint boundary, and the summary is continued rather than restarted.
+	 */
+	void open(AnalysisCheckpoint checkpoint) throws IOException {
+		boolean resuming = checkpoint != null && checkpoint.isFound();
+		if (resuming) {
+			checkpoint.truncate(files);
+		}
+
+		if (!directory) {
+			summaryWriter = context.writer(files.isEmpty() ? null : files.get(0), true);
+		}
+		else {
+			summaryWriter = context.writer(files.get(0), true);
+			pairWriter = context.writer(files.get(1), true);
+			pairWarningsWriter = context.writer(files.get(2), true);
+			linkageWriter = context.writer(files.get(3), true);
+			linkageWarningsWriter = context.writer(files.get(4), true);
+			nonCwdWriter = context.writer(files.get(5), true);
+			detectedFindingsWriter = context.writer(files.get(6), true);
+		}
+
+		if (!resuming || files.get(0).length() == 0) {
+			SummaryWriter.writeSamplesStart(summaryWriter);
+		}
+	}
+
+	void write(Sample sample, Boolean warnings) throws IOException {
+		SummaryWriter.writeSample(sample, summaryWriter);
+
+		if (!directory) {
+			return;
+		}
+
+		DetectedLinkageFindings findings = sample.getFindings();
+		if (warnings != null && warnings == Boolean.TRUE && !findings.hasAnomalies()) {
+			return;
+		}
+
+		if (findings.hasAnomalies()) {
+			HaplotypePairWriter.formatDetectedLinkages(findings, pairWarningsWriter);
+			LinkageDisequilibriumWriter.formatDetectedLinkages(findings, linkageWarningsWriter);
+		}
+		else {
+			HaplotypePairWriter.formatDetectedLinkages(findings, pairWriter);
+			LinkageDisequilibriumWriter.formatDetectedLinkages(findings, linkageWriter);
+			CommonWellDocumentedWriter.formatCommonWellDocumented(findings, nonCwdWriter);
+			DetectedFindingsWriter.formatDetectedFindings(findings, detectedFindingsWriter);
+		}
+	}
+
+	void flush() {
+		for (PrintWriter writer : writers()) {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * @param complete whether to close off the summary document
+	 */
+	void close(boolean complete) throws IOException {
+		if (complete) {
+			SummaryWriter.writeSamplesEnd(summaryWriter);
+		}
+
+		for (PrintWriter writer : writers()) {
+			writer.close();
+		}
+	}
+
+	private List<PrintWriter> writers() {
+		if (!directory) {
+			return Arrays.asList(summaryWriter);
+		}
+
+		return Arrays.asList(summaryWriter, pairWriter, pairWarningsWriter, linkageWriter, linkageWarningsWriter, nonCwdWriter, detectedFindingsWriter);
+	}
+}
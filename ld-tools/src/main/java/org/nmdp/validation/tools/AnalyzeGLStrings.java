@@ -21,34 +21,31 @@
 */
 package org.nmdp.validation.tools;
 
-import static org.dishevelled.compress.Readers.reader;
 import static org.dishevelled.compress.Writers.writer;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.logging.Logger;
 
+import org.dash.valid.AnalysisEngine;
 import org.dash.valid.LinkageDisequilibriumAnalyzer;
+import org.dash.valid.ReferenceDataWarmup;
 import org.dash.valid.Sample;
+import org.dash.valid.StageMetrics;
+import org.dash.valid.StageMetrics.Stage;
 import org.dash.valid.freq.Frequencies;
 import org.dash.valid.freq.HLAFrequenciesLoader;
 import org.dash.valid.gl.GLStringConstants;
-import org.dash.valid.handler.CommonWellDocumentedFileHandler;
-import org.dash.valid.handler.HaplotypePairFileHandler;
-import org.dash.valid.handler.HaplotypePairWarningFileHandler;
-import org.dash.valid.handler.LinkageDisequilibriumFileHandler;
-import org.dash.valid.handler.LinkageWarningFileHandler;
-import org.dash.valid.report.CommonWellDocumentedWriter;
-import org.dash.valid.report.DetectedFindingsWriter;
-import org.dash.valid.report.DetectedLinkageFindings;
-import org.dash.valid.report.HaplotypePairWriter;
-import org.dash.valid.report.LinkageDisequilibriumWriter;
-import org.dash.valid.report.SamplesList;
-import org.dash.valid.report.SummaryWriter;
+import org.dash.valid.gl.GLStringUtilities;
+import org.dash.valid.gl.LinkageDisequilibriumGenotypeList;
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
 import org.dishevelled.commandline.CommandLineParseException;
@@ -58,6 +55,7 @@ import org.dishevelled.commandline.Usage;
 import org.dishevelled.commandline.argument.BooleanArgument;
 import org.dishevelled.commandline.argument.FileArgument;
 import org.dishevelled.commandline.argument.FileSetArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
 import org.dishevelled.commandline.argument.StringArgument;
 
 /**
@@ -73,7 +71,23 @@ public class AnalyzeGLStrings implements Callable<Integer> {
     private final Boolean warnings;
     private final Set<File> frequencyFiles;
     private final File allelesFile;
+    private final Integer checkpointInterval;
+    private final boolean resume;
+    private final Integer partitions;
+    private final Integer partitionSize;
     private static final String USAGE = "analyze-gl-strings [args]";
+    private static final int FLUSH_INTERVAL = 100;
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+    static final String PARTITION_MANIFEST = "manifest.txt";
+    private static final Logger LOGGER = Logger.getLogger(AnalyzeGLStrings.class.getName());
+    
+    private int samplesProcessed = 0;
+    private long samplesWritten = 0;
+    private long recordsRead = 0;
+    private AnalysisCheckpoint checkpoint;
+    private AnalysisOutput output;
+    private ToolContext context = ToolContext.system();
+    private final Map<Integer, AnalysisOutput> partitionOutputs = new TreeMap<Integer, AnalysisOutput>();
 
 
     /**
@@ -83,6 +97,32 @@ public class AnalyzeGLStrings implements Callable<Integer> {
      * @param outputFile output interpretation file, if any
      */
     public AnalyzeGLStrings(File inputFile, File outputFile, String hladb, String freq, Boolean warnings, Set<File> frequencyFiles, File allelesFile) {
+        this(inputFile, outputFile, hladb, freq, warnings, frequencyFiles, allelesFile, null, false, null, null);
+    }
+
+    /**
+     * Analyze gl string using linkage disequilibrium frequencies, checkpointing progress
+     * and partitioning output when writing to an output directory
+     *
+     * @param checkpointInterval number of records between checkpoints, at least 1, if any
+     * @param resume resume from the checkpoint in the output directory
+     * @param partitions number of output partitions to assign samples to by id, at least 1, if any
+     * @param partitionSize number of samples written to each output partition, at least 1, if any
+     */
+    public AnalyzeGLStrings(File inputFile, File outputFile, String hladb, String freq, Boolean warnings, Set<File> frequencyFiles, File allelesFile, Integer checkpointInterval, boolean resume, Integer partitions, Integer partitionSize) {
+        if (checkpointInterval != null && checkpointInterval < 1) {
+            throw new IllegalArgumentException("The checkpoint interval must be at least 1");
+        }
+        if (partitions != null && partitionSize != null) {
+            throw new IllegalArgumentException("Specify either a number of partitions or a partition size, not both");
+        }
+        if (partitions != null && partitions < 1) {
+            throw new IllegalArgumentException("The number of partitions must be at least 1");
+        }
+        if (partitionSize != null && partitionSize < 1) {
+            throw new IllegalArgumentException("The partition size must be at least 1");
+        }
+
         this.inputFile = inputFile;
         this.outputFile   = outputFile;
         this.hladb = hladb;
@@ -90,27 +130,95 @@ public class AnalyzeGLStrings implements Callable<Integer> {
         this.warnings = warnings;
         this.frequencyFiles = frequencyFiles;
         this.allelesFile = allelesFile;
+        this.checkpointInterval = (resume && checkpointInterval == null) ? Integer.valueOf(DEFAULT_CHECKPOINT_INTERVAL) : checkpointInterval;
+        this.resume = resume;
+        this.partitions = partitions;
+        this.partitionSize = partitionSize;
+    }
+    
+    void setContext(ToolContext context) {
+    	this.context = context;
     }
     
     @Override
     public Integer call() throws Exception {
-    	BufferedReader reader = reader(inputFile);
+    	BufferedReader reader = context.reader(inputFile);
     	
-    	runAnalysis(reader);
+    	AnalysisEngine engine = context.getEngine(freq, hladb);
+    	if (engine != null) {
+    		ToolContext.call(engine, () -> {
+    			analyze(reader);
+    			return null;
+    		});
+    	}
+    	else {
+    		runAnalysis(reader);
+    	}
     	return 0;
     }
 
 	public void runAnalysis(BufferedReader reader) throws IOException {
-		List<Sample> samplesList;
+		configureAnalysis();
+		analyze(reader);
+	}
+
+	private void analyze(BufferedReader reader) throws IOException {
+		String name = inputFile == null ? "STDIN" : inputFile.getName();
 		
-	    	samplesList = performAnalysis(reader);
-	    	
-	    	writeOutput(samplesList);
+		boolean xml = GLStringUtilities.isXmlFile(name);
+		
+		if (!openWriters(xml)) {
+			LOGGER.info("Checkpoint in " + outputFile + " is complete.  Nothing to resume.");
+			return;
+		}
+		
+		boolean complete = false;
+		
+		try {
+			if (xml) {
+				for (LinkageDisequilibriumGenotypeList linkedGLString : GLStringUtilities.readGLStringFile(name, reader)) {
+					recordsRead++;
+					
+					if (checkpoint != null && checkpoint.isCompleted(linkedGLString.getId())) {
+						continue;
+					}
+					
+					analyzeAndWrite(linkedGLString);
+				}
+			}
+			else {
+				String line;
+				long resumeAfter = checkpoint != null ? checkpoint.getRecords() : 0;
+				
+				while ((line = reader.readLine()) != null) {
+					recordsRead++;
+					
+					if (recordsRead <= resumeAfter) {
+						continue;
+					}
+					
+					LinkageDisequilibriumGenotypeList linkedGLString = GLStringUtilities.parseGLStringLine(name, line, (int) recordsRead);
+					
+					if (linkedGLString != null) {
+						analyzeAndWrite(linkedGLString);
+					}
+				}
+			}
+			
+			complete = true;
+		}
+		finally {
+			closeWriters(complete);
+		}
 	}
 
 	public List<Sample> performAnalysis(BufferedReader reader) throws IOException {
-		List<Sample> samplesList;
-    	    	
+		configureAnalysis();
+    	 
+		return LinkageDisequilibriumAnalyzer.analyzeGLStringFile(inputFile == null ? "STDIN" : inputFile.getName(), reader);
+	}
+
+	private void configureAnalysis() throws IOException {
     	if (frequencyFiles !=  null) {
     		HLAFrequenciesLoader.getInstance(frequencyFiles, allelesFile);
     	}
@@ -119,75 +227,180 @@ public class AnalyzeGLStrings implements Callable<Integer> {
     	
     	if (hladb == null) hladb = GLStringConstants.LATEST_HLADB;
     	System.setProperty(GLStringConstants.HLADB_PROPERTY, hladb);
-    	 
-    	samplesList = LinkageDisequilibriumAnalyzer.analyzeGLStringFile(inputFile == null ? "STDIN" : inputFile.getName(), reader);
-		return samplesList;
+    	
+    	ReferenceDataWarmup.warmup();
+	}
+	
+	private void analyzeAndWrite(LinkageDisequilibriumGenotypeList linkedGLString) throws IOException {
+		samplesProcessed++;
+		LOGGER.info("Processing gl string " + samplesProcessed);
+		
+		Sample sample = LinkageDisequilibriumAnalyzer.analyzeGenotypeList(linkedGLString);
+		
+		if (sample != null) {
+			long start = StageMetrics.start();
+			writeSample(sample);
+			StageMetrics.getInstance().record(Stage.SERIALIZATION, start);
+		}
+		
+		if (checkpoint != null) {
+			checkpoint.sampleCompleted(linkedGLString.getId());
+			
+			if (samplesProcessed % checkpointInterval == 0) {
+				flushWriters();
+				checkpoint.save(recordsRead, samplesWritten, getOutputFiles(), false);
+				return;
+			}
+		}
+		
+		if (samplesProcessed % FLUSH_INTERVAL == 0) {
+			flushWriters();
+		}
 	}
 
-	private void writeOutput(List<Sample> samplesList) throws IOException {
-		PrintWriter writer = null;
-	    	PrintWriter summaryWriter = null;
-	    	PrintWriter pairWriter = null;
-	    	PrintWriter pairWarningsWriter = null;
-	    	PrintWriter linkageWriter = null;
-	    	PrintWriter linkageWarningsWriter = null;
-	    	PrintWriter nonCwdWriter = null;
-	    	PrintWriter detectedFindingsWriter = null;
-	    	
-	    	boolean writeToDir = false;
-	    	
-	    	if (outputFile != null && outputFile.isDirectory()) {
-	    		writeToDir = true;
-	    		
-	    		summaryWriter = writer(new File(outputFile + "/" + SummaryWriter.SUMMARY_XML_FILE), true);
-	    		pairWriter = writer(new File(outputFile + "/" + HaplotypePairFileHandler.HAPLOTYPE_PAIRS_LOG), true);
-	    		pairWarningsWriter = writer(new File(outputFile + "/" + HaplotypePairWarningFileHandler.HAPLOTYPE_PAIRS_WARNING_LOG), true);
-	    		linkageWriter = writer(new File(outputFile + "/" + LinkageDisequilibriumFileHandler.LINKAGES_LOG), true);
-	    		linkageWarningsWriter = writer(new File(outputFile + "/" + LinkageWarningFileHandler.LINKAGE_WARNINGS_LOG), true);
-	    		nonCwdWriter = writer(new File(outputFile + "/" + CommonWellDocumentedFileHandler.NON_CWD_WARNINGS_LOG), true);
-	    		detectedFindingsWriter = writer(new File(outputFile + "/" + DetectedFindingsWriter.DETECTED_FINDINGS_CSV), true);
-	    	}
-	    	else {
-	    		writer = writer(outputFile, true);
-	    	}
-	    	
-	    	SamplesList allSamples = new SamplesList();
-	    	allSamples.setSamples(samplesList);
-	    	String summaryFindings = SummaryWriter.formatDetectedLinkages(allSamples);
-    	
-		for (Sample sample : samplesList) {
-			DetectedLinkageFindings findings = sample.getFindings();
-    		if (warnings != null && warnings == Boolean.TRUE && !findings.hasAnomalies()) {
-    			continue;
-    		}
-    		
-        	if (writeToDir) {        		
-        		if (sample.getFindings().hasAnomalies()) {
-        			pairWarningsWriter.write(HaplotypePairWriter.formatDetectedLinkages(findings));
-        			linkageWarningsWriter.write(LinkageDisequilibriumWriter.formatDetectedLinkages(findings));
-        		}
-        		else {
-        			pairWriter.write(HaplotypePairWriter.formatDetectedLinkages(findings));
-        			linkageWriter.write(LinkageDisequilibriumWriter.formatDetectedLinkages(findings));
-        			nonCwdWriter.write(CommonWellDocumentedWriter.formatCommonWellDocumented(findings));
-        			detectedFindingsWriter.write(DetectedFindingsWriter.formatDetectedFindings(findings));
-        		}
-        	}       		
+	/**
+	 * Opens all output writers, truncating them to the last checkpoint when resuming.
+	 * 
+	 * @param xml whether the input is XML, which is resumed by sample id rather than record count
+	 * @return false if resuming a run that has already completed
+	 */
+	private boolean openWriters(boolean xml) throws IOException {
+		if (outputFile == null || !outputFile.isDirectory()) {
+			if (resume || partitions != null || partitionSize != null) {
+				throw new IllegalArgumentException("Resuming and partitioning require an existing output directory");
+			}
+			
+			output = new AnalysisOutput(context, outputFile);
+			output.open(null);
+			
+			return true;
 		}
-    	
-		if (writeToDir) {
-			summaryWriter.write(summaryFindings);
-			summaryWriter.close();
-			pairWriter.close();
-			pairWarningsWriter.close();
-			linkageWriter.close();
-			linkageWarningsWriter.close();
-			nonCwdWriter.close();
-			detectedFindingsWriter.close();
+		
+		if (resume) {
+			checkpoint = AnalysisCheckpoint.load(outputFile, xml);
+			
+			if (checkpoint.isComplete()) {
+				return false;
+			}
+			
+			if (checkpoint.isFound()) {
+				samplesWritten = checkpoint.getSamples();
+				LOGGER.info("Resuming after record " + checkpoint.getRecords() + " from checkpoint in " + outputFile);
+			}
+		}
+		else if (checkpointInterval != null) {
+			checkpoint = AnalysisCheckpoint.create(outputFile, xml);
+		}
+		
+		if (partitions != null) {
+			for (int part = 0; part < partitions; part++) {
+				openPartition(part);
+			}
+		}
+		else if (partitionSize == null) {
+			output = new AnalysisOutput(context, outputFile, null);
+			output.open(checkpoint);
+		}
+		
+		if (checkpoint != null) {
+			flushWriters();
+			checkpoint.save(checkpoint.getRecords(), samplesWritten, getOutputFiles(), false);
+		}
+		
+		return true;
+	}
+	
+	private AnalysisOutput openPartition(int part) throws IOException {
+		AnalysisOutput partitionOutput = new AnalysisOutput(context, outputFile, part);
+		partitionOutput.open(checkpoint);
+		partitionOutputs.put(part, partitionOutput);
+		
+		return partitionOutput;
+	}
+	
+	private void writeSample(Sample sample) throws IOException {
+		if (partitions != null) {
+			int part = (sample.getId().hashCode() & Integer.MAX_VALUE) % partitions;
+			partitionOutputs.get(part).write(sample, warnings);
+		}
+		else if (partitionSize != null) {
+			int part = (int) (samplesWritten / partitionSize);
+			AnalysisOutput partitionOutput = partitionOutputs.get(part);
+			
+			if (partitionOutput == null) {
+				partitionOutput = openPartition(part);
+			}
+			
+			partitionOutput.write(sample, warnings);
+			
+			if ((samplesWritten + 1) % partitionSize == 0) {
+				partitionOutput.close(true);
+				partitionOutputs.remove(part);
+			}
 		}
 		else {
-			writer.write(summaryFindings);
-			writer.close();
+			output.write(sample, warnings);
+		}
+		
+		samplesWritten++;
+	}
+	
+	private List<File> getOutputFiles() {
+		List<File> outputFiles = new ArrayList<File>();
+		
+		if (output != null) {
+			outputFiles.addAll(output.getFiles());
+		}
+		
+		for (AnalysisOutput partitionOutput : partitionOutputs.values()) {
+			outputFiles.addAll(partitionOutput.getFiles());
+		}
+		
+		return outputFiles;
+	}
+	
+	private void flushWriters() {
+		if (output != null) {
+			output.flush();
+		}
+		
+		for (AnalysisOutput partitionOutput : partitionOutputs.values()) {
+			partitionOutput.flush();
+		}
+	}
+	
+	private void closeWriters(boolean complete) throws IOException {
+		boolean closeSummary = complete || checkpoint == null;
+		
+		if (output != null) {
+			output.close(closeSummary);
+		}
+		
+		for (AnalysisOutput partitionOutput : partitionOutputs.values()) {
+			partitionOutput.close(closeSummary);
+		}
+		
+		if (complete && (partitions != null || partitionSize != null)) {
+			writeManifest();
+		}
+		
+		if (checkpoint != null && complete) {
+			checkpoint.save(recordsRead, samplesWritten, getOutputFiles(), true);
+		}
+	}
+	
+	/**
+	 * Lists the output file of every stream in every partition, one per line as part, stream and file name.
+	 */
+	private void writeManifest() throws IOException {
+		int partCount = partitions != null ? partitions : (int) ((samplesWritten + partitionSize - 1) / partitionSize);
+		
+		try (PrintWriter manifestWriter = writer(new File(outputFile, PARTITION_MANIFEST))) {
+			for (int part = 0; part < partCount; part++) {
+				for (String stream : AnalysisOutput.DIRECTORY_STREAMS) {
+					manifestWriter.println(part + GLStringConstants.TAB + stream + GLStringConstants.TAB + AnalysisOutput.partFileName(stream, part));
+				}
+			}
 		}
 	}
 
@@ -197,6 +410,15 @@ public class AnalyzeGLStrings implements Callable<Integer> {
      * @param args command line args
      */
     public static void main(final String[] args) {
+        System.exit(run(args, ToolContext.system()));
+    }
+
+    /**
+     * Runs with the specified command line args and context.
+     *
+     * @return the exit status
+     */
+    static int run(final String[] args, final ToolContext context) {
         Switch about = new Switch("a", "about", "display about message");
         Switch help  = new Switch("h", "help", "display help message");
         FileArgument inputFile = new FileArgument("i", "input-file", "input file, default stdin", false);
@@ -206,8 +428,13 @@ public class AnalyzeGLStrings implements Callable<Integer> {
         BooleanArgument warnings = new BooleanArgument("w", "warnings-only", "Only log warnings, default all GL String output", false);
         FileSetArgument frequencyFiles = new FileSetArgument("q", "frequency-file(s)", "frequency input files (comma separated), default nmdp-2007 five locus", false);
         FileArgument allelesFile = new FileArgument("l", "allele-file", "alleles known to have frequencies, default none", false);
+        IntegerArgument checkpointInterval = new IntegerArgument("k", "checkpoint-interval", "records between checkpoints when writing to an output directory, default none", false);
+        Switch resume = new Switch("r", "resume", "resume from the checkpoint in the output directory");
+        IntegerArgument partitions = new IntegerArgument("n", "partitions", "number of output partitions to assign samples to by id when writing to an output directory, default none", false);
+        IntegerArgument partitionSize = new IntegerArgument("s", "partition-size", "number of samples per output partition when writing to an output directory, default none", false);
+        Switch metrics = new Switch("m", "metrics", "print the time spent in each stage of the analysis to stderr at the end of the run");
 
-        ArgumentList arguments  = new ArgumentList(about, help, inputFile, outputFile, hladb, freq, warnings, frequencyFiles, allelesFile);
+        ArgumentList arguments  = new ArgumentList(about, help, inputFile, outputFile, hladb, freq, warnings, frequencyFiles, allelesFile, checkpointInterval, resume, partitions, partitionSize, metrics);
         CommandLine commandLine = new CommandLine(args);
 
         AnalyzeGLStrings analyzeGLStrings = null;
@@ -215,27 +442,35 @@ public class AnalyzeGLStrings implements Callable<Integer> {
         {
             CommandLineParser.parse(commandLine, arguments);
             if (about.wasFound()) {
-                About.about(System.out);
-                System.exit(0);
+                About.about(context.out());
+                return 0;
             }
             if (help.wasFound()) {
-                Usage.usage(USAGE, null, commandLine, arguments, System.out);
-                System.exit(0);
+                Usage.usage(USAGE, null, commandLine, arguments, context.out());
+                return 0;
+            }
+            if (context.isShared() && (frequencyFiles.getValue() != null || allelesFile.getValue() != null)) {
+                throw new IllegalArgumentException("Frequency and allele files can't be used with the analysis daemon");
             }
             
-            analyzeGLStrings = new AnalyzeGLStrings(inputFile.getValue(), outputFile.getValue(), hladb.getValue(), freq.getValue(), warnings.getValue(), frequencyFiles.getValue(), allelesFile.getValue());
+            analyzeGLStrings = new AnalyzeGLStrings(context.resolve(inputFile.getValue()), context.resolve(outputFile.getValue()), hladb.getValue(), freq.getValue(), warnings.getValue(), context.resolve(frequencyFiles.getValue()), context.resolve(allelesFile.getValue()), checkpointInterval.getValue(), resume.wasFound(), partitions.getValue(), partitionSize.getValue());
+            analyzeGLStrings.setContext(context);
         }
         catch (CommandLineParseException | IllegalArgumentException e) {
-            Usage.usage(USAGE, e, commandLine, arguments, System.err);
-            System.exit(-1);
+            Usage.usage(USAGE, e, commandLine, arguments, context.err());
+            return -1;
         }
         try {
-            System.exit(analyzeGLStrings.call());
+            int status = analyzeGLStrings.call();
+            if (metrics.wasFound()) {
+                context.printMetrics();
+            }
+            return status;
         }
         catch (Exception e) {
-            e.printStackTrace();
-            System.exit(1);
+            e.printStackTrace(context.err());
+            return 1;
         }
     }
     
-}
+}
\ No newline at end of file
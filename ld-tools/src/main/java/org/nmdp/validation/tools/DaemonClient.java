@@ -0,0 +1,194 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * Thin client submitting a job to the analysis daemon, see AnalysisDaemon.  The tool's output and exit
+ * status are those it would have had if run directly, e.g.
+ *
+ * ld-daemon-client [-p port] analyze-gl-strings -i input.txt -o output
+ */
+public class DaemonClient implements Callable<Integer> {
+	private static final int BUFFER_SIZE = 8192;
+	private static final String USAGE = "usage: ld-daemon-client [-p port] (analyze-gl-strings | validate-gl-ld | normalize-frequency-file) [args]";
+
+	private final int port;
+	private final String tool;
+	private final String[] args;
+
+	/**
+	 * Submit a job to the analysis daemon
+	 *
+	 * @param port localhost port the daemon listens on, if any
+	 * @param tool tool to run
+	 * @param args tool command line args
+	 */
+	public DaemonClient(Integer port, String tool, String[] args) {
+		this.port = (port != null) ? port : AnalysisDaemon.DEFAULT_PORT;
+		this.tool = tool;
+		this.args = args;
+	}
+
+	@Override
+	public Integer call() throws Exception {
+		File tokenFile = AnalysisDaemon.tokenFile(port);
+		if (!tokenFile.isFile()) {
+			System.err.println("No analysis daemon has been started on port " + port + " by this user, start one with ld-daemon");
+			return 1;
+		}
+		String token = new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			return submit(in, out, token, System.getProperty("user.dir"), System.in, System.out, System.err);
+		}
+		catch (ConnectException e) {
+			System.err.println("No analysis daemon is listening on port " + port + ", start one with ld-daemon");
+			return 1;
+		}
+	}
+
+	/**
+	 * Requests the job, writing its output to the specified streams and sending standard input when the
+	 * daemon requests it.
+	 *
+	 * @return the job's exit status
+	 */
+	int submit(DataInputStream in, DataOutputStream out, String token, String workingDirectory, InputStream stdin, PrintStream stdout, PrintStream stderr) throws IOException {
+		out.writeUTF(token);
+		out.writeUTF(tool);
+		out.writeUTF(workingDirectory);
+		out.writeInt(args.length);
+		for (String arg : args) {
+			out.writeUTF(arg);
+		}
+		out.flush();
+
+		byte[] buffer = new byte[BUFFER_SIZE];
+		while (true) {
+			byte type;
+			try {
+				type = in.readByte();
+			}
+			catch (EOFException e) {
+				throw new IOException("The analysis daemon closed the connection before the job completed");
+			}
+
+			if (type == AnalysisDaemon.EXIT) {
+				stdout.flush();
+				return in.readInt();
+			}
+			else if (type == AnalysisDaemon.STDIN) {
+				Thread thread = new Thread(() -> sendStandardInput(stdin, out), "stdin");
+				thread.setDaemon(true);
+				thread.start();
+			}
+			else {
+				PrintStream stream = (type == AnalysisDaemon.STDERR) ? stderr : stdout;
+				int length = in.readInt();
+				while (length > 0) {
+					int read = in.read(buffer, 0, Math.min(length, buffer.length));
+					if (read == -1) {
+						throw new EOFException();
+					}
+					stream.write(buffer, 0, read);
+					length -= read;
+				}
+				if (type == AnalysisDaemon.STDERR) {
+					stream.flush();
+				}
+			}
+		}
+	}
+
+	private static void sendStandardInput(InputStream in, DataOutputStream out) {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				if (read > 0) {
+					out.writeInt(read);
+					out.write(buffer, 0, read);
+					out.flush();
+				}
+			}
+			out.writeInt(0);
+			out.flush();
+		}
+		catch (IOException e) {
+			// the job has completed, or the daemon reports the failure
+		}
+	}
+
+	/**
+	 * Main.
+	 *
+	 * @param args command line args
+	 */
+	public static void main(final String[] args) {
+		Integer port = null;
+		int first = 0;
+
+		try {
+			if (args.length > 1 && ("-p".equals(args[0]) || "--port".equals(args[0]))) {
+				port = Integer.valueOf(args[1]);
+				first = 2;
+			}
+		}
+		catch (NumberFormatException e) {
+			System.err.println("Invalid port: " + args[1]);
+			System.exit(-1);
+		}
+
+		if (args.length <= first || args[first].startsWith("-")) {
+			System.err.println(USAGE);
+			System.exit(-1);
+		}
+
+		try {
+			System.exit(new DaemonClient(port, args[first], Arrays.copyOfRange(args, first + 1, args.length)).call());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
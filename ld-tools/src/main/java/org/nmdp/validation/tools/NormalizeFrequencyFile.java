@@ -23,6 +23,7 @@ package org.nmdp.validation.tools;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -73,6 +74,7 @@ public class NormalizeFrequencyFile implements Callable<Integer> {
     }
 
     private static final String USAGE = "normalize-frequency-file [args]";
+    private ToolContext context = ToolContext.system();
 
 
     /**
@@ -87,12 +89,17 @@ public class NormalizeFrequencyFile implements Callable<Integer> {
         this.outputFile   = outputFile;
     }
     
+    void setContext(ToolContext context) {
+    	this.context = context;
+    }
+    
     @Override
     public Integer call() throws Exception {
-    	PrintWriter writer = new PrintWriter(outputFile);
+    	PrintWriter writer = context.writer(outputFile);
+    	InputStream inputStream = (inputFile != null) ? new FileInputStream(inputFile) : context.in();
     	
     	if (SINGLE.equals(frequencies)) {
-    		List<String> singleLocusFrequencies = HLAFrequenciesLoader.loadIndividualLocusFrequency(new FileInputStream(inputFile));
+    		List<String> singleLocusFrequencies = HLAFrequenciesLoader.loadIndividualLocusFrequency(inputStream);
     		
     		for (String allele : singleLocusFrequencies) {
     			writer.write(allele + GLStringConstants.NEWLINE);
@@ -104,7 +111,7 @@ public class NormalizeFrequencyFile implements Callable<Integer> {
 			Set<Linkages> linkagesSet = Linkages.lookup(linkageNames);
 			LinkagesLoader.getInstance(linkagesSet);
 									
-			List<DisequilibriumElement> disequilibriumElements = HLAFrequenciesLoader.loadNMDPLinkageReferenceData(new FileInputStream(inputFile), LOCUS_POSITION_MAP.get(Linkages.lookup(frequencies).getLoci()));
+			List<DisequilibriumElement> disequilibriumElements = HLAFrequenciesLoader.loadNMDPLinkageReferenceData(inputStream, LOCUS_POSITION_MAP.get(Linkages.lookup(frequencies).getLoci()));
 					
 			for (DisequilibriumElement element : disequilibriumElements) {
 				StringBuffer sb = new StringBuffer();
@@ -136,6 +143,15 @@ public class NormalizeFrequencyFile implements Callable<Integer> {
      * @param args command line args
      */
     public static void main(final String[] args) {
+        System.exit(run(args, ToolContext.system()));
+    }
+
+    /**
+     * Runs with the specified command line args and context.
+     *
+     * @return the exit status
+     */
+    static int run(final String[] args, final ToolContext context) {
         Switch about = new Switch("a", "about", "display about message");
         Switch help  = new Switch("h", "help", "display help message");
         FileArgument inputFile = new FileArgument("i", "input-file", "input file, default stdin", false);
@@ -150,26 +166,27 @@ public class NormalizeFrequencyFile implements Callable<Integer> {
         {
             CommandLineParser.parse(commandLine, arguments);
             if (about.wasFound()) {
-                About.about(System.out);
-                System.exit(0);
+                About.about(context.out());
+                return 0;
             }
             if (help.wasFound()) {
-                Usage.usage(USAGE, null, commandLine, arguments, System.out);
-                System.exit(0);
+                Usage.usage(USAGE, null, commandLine, arguments, context.out());
+                return 0;
             }
-            normalizeFrequencyFile = new NormalizeFrequencyFile(inputFile.getValue(), frequencies.getValue(), outputFile.getValue());
+            normalizeFrequencyFile = new NormalizeFrequencyFile(context.resolve(inputFile.getValue()), frequencies.getValue(), context.resolve(outputFile.getValue()));
+            normalizeFrequencyFile.setContext(context);
         }
         catch (CommandLineParseException | IllegalArgumentException e) {
-            Usage.usage(USAGE, e, commandLine, arguments, System.err);
-            System.exit(-1);
+            Usage.usage(USAGE, e, commandLine, arguments, context.err());
+            return -1;
         }
         try {
-            System.exit(normalizeFrequencyFile.call());
+            return normalizeFrequencyFile.call();
         }
         catch (Exception e) {
-            e.printStackTrace();
-            System.exit(1);
+            e.printStackTrace(context.err());
+            return 1;
         }
     }
     
-}
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.tools;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+import org.dash.valid.ars.AntigenRecognitionSiteLoader;
+import org.dash.valid.cwd.CommonWellDocumentedLoader;
+import org.dash.valid.gl.GLStringConstants;
+import org.dash.valid.imgt.IMGTDataCache;
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.StringArgument;
+
+/**
+ * SeedIMGTCache
+ *
+ */
+public class SeedIMGTCache implements Callable<Integer> {
+	
+    private final String hladb;
+    private final File ambigsZip;
+    private final File hlaZip;
+
+    private static final String USAGE = "seed-imgt-cache [args]";
+
+
+    /**
+     * Seed the IMGT data cache from local copies of the IMGT/HLA release files, for hosts without
+     * access to IMGT.
+     *
+     * @param hladb hladb version of the release files
+     * @param ambigsZip hla_ambigs.xml.zip from the release, if any
+     * @param hlaZip hla.xml.zip from the release, if any
+     */
+    public SeedIMGTCache(String hladb, File ambigsZip, File hlaZip) {
+        this.hladb = hladb;
+        this.ambigsZip = ambigsZip;
+        this.hlaZip = hlaZip;
+    }
+    
+    @Override
+    public Integer call() throws Exception {
+    	if (ambigsZip != null) {
+    		int gGroups = AntigenRecognitionSiteLoader.seedGGroups(hladb, ambigsZip).size();
+    		System.out.println("Cached " + gGroups + " g groups for hladb: " + hladb);
+    	}
+    	
+    	if (hlaZip != null) {
+    		int accessions = CommonWellDocumentedLoader.seedAccessions(hladb, hlaZip).size();
+    		System.out.println("Cached " + accessions + " accessions for hladb: " + hladb);
+    	}
+    	
+    	System.out.println("IMGT data cache: " + IMGTDataCache.getInstance().getDirectory(hladb));
+    	
+    	return 0;
+	}    	
+
+    /**
+     * Main.
+     *
+     * @param args command line args
+     */
+    public static void main(final String[] args) {
+        Switch about = new Switch("a", "about", "display about message");
+        Switch help  = new Switch("h", "help", "display help message");
+        StringArgument hladb = new StringArgument("v", "hladb", "hladb version of the release files, e.g. 3.25.0", true);
+        FileArgument ambigsZip = new FileArgument("g", "ambigs-zip", "hla_ambigs.xml.zip from the IMGT/HLA release", false);
+        FileArgument hlaZip = new FileArgument("x", "hla-zip", "hla.xml.zip from the IMGT/HLA release", false);
+        FileArgument cacheDirectory = new FileArgument("c", "cache-directory", "IMGT data cache directory, default ~/.hlahapv/imgt", false);
+
+        ArgumentList arguments  = new ArgumentList(about, help, hladb, ambigsZip, hlaZip, cacheDirectory);
+        CommandLine commandLine = new CommandLine(args);
+
+        SeedIMGTCache seedIMGTCache = null;
+        try
+        {
+            CommandLineParser.parse(commandLine, arguments);
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            if (cacheDirectory.wasFound()) {
+            	System.setProperty(GLStringConstants.IMGT_CACHE_PROPERTY, cacheDirectory.getValue().getPath());
+            }
+            seedIMGTCache = new SeedIMGTCache(hladb.getValue(), ambigsZip.getValue(), hlaZip.getValue());
+        }
+        catch (CommandLineParseException | IllegalArgumentException e) {
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        try {
+            System.exit(seedIMGTCache.call());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+}
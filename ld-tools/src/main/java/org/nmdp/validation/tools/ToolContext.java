@@ -0,0 +1,174 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.nmdp.validation.tools;
+
+import static org.dishevelled.compress.Readers.compressedInputStreamReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.dash.valid.AnalysisEngine;
+import org.dash.valid.StageMetrics;
+import org.dishevelled.compress.Readers;
+import org.dishevelled.compress.Writers;
+
+/**
+ * The working directory, standard streams and reference data a tool runs with:  those of the process,
+ * or those of a job submitted to the analysis daemon, see AnalysisDaemon.
+ */
+class ToolContext {
+	private final File workingDirectory;
+	private final InputStream in;
+	private final PrintStream out;
+	private final PrintStream err;
+
+	ToolContext(File workingDirectory, InputStream in, PrintStream out, PrintStream err) {
+		this.workingDirectory = workingDirectory;
+		this.in = in;
+		this.out = out;
+		this.err = err;
+	}
+
+	/**
+	 * @return the context of the process
+	 */
+	static ToolContext system() {
+		return new ToolContext(null, System.in, System.out, System.err);
+	}
+
+	PrintStream out() {
+		return out;
+	}
+
+	PrintStream err() {
+		return err;
+	}
+
+	InputStream in() {
+		return in;
+	}
+
+	/**
+	 * @return the file, relative to the working directory if not absolute
+	 */
+	File resolve(File file) {
+		if (file == null || workingDirectory == null || file.isAbsolute()) {
+			return file;
+		}
+
+		return new File(workingDirectory, file.getPath());
+	}
+
+	Set<File> resolve(Set<File> files) {
+		if (files == null) {
+			return null;
+		}
+
+		Set<File> resolved = new LinkedHashSet<File>();
+		for (File file : files) {
+			resolved.add(resolve(file));
+		}
+
+		return resolved;
+	}
+
+	/**
+	 * @return a reader for the file, or standard input if null
+	 */
+	BufferedReader reader(File file) throws IOException {
+		return (file == null) ? compressedInputStreamReader(in) : Readers.reader(file);
+	}
+
+	/**
+	 * @return a writer for the file, or standard output if null
+	 */
+	PrintWriter writer(File file, boolean append) throws IOException {
+		return (file == null) ? new PrintWriter(new BufferedWriter(new OutputStreamWriter(out)), true) : Writers.writer(file, append);
+	}
+
+	PrintWriter writer(File file) throws IOException {
+		return writer(file, false);
+	}
+
+	/**
+	 * Prints the time spent in each stage of the analysis to standard error, for the process (i.e. for all
+	 * jobs of the analysis daemon).
+	 */
+	void printMetrics() {
+		StageMetrics.getInstance().print(new PrintWriter(err));
+	}
+
+	/**
+	 * @return true if the tool shares the process with other jobs, so must not change the process-wide
+	 * reference data or system properties
+	 */
+	boolean isShared() {
+		return false;
+	}
+
+	/**
+	 * @return the engine to analyze with for the specified frequency set and hladb (the defaults, if null),
+	 * or null if the tool configures the process-wide reference data itself
+	 */
+	AnalysisEngine getEngine(String frequencies, String hladb) throws IOException {
+		return null;
+	}
+
+	/**
+	 * Runs the task against the engine's reference data, see AnalysisEngine.call().
+	 */
+	static <T> T call(AnalysisEngine engine, Callable<T> task) throws Exception {
+		try {
+			return engine.call(() -> {
+				try {
+					return task.call();
+				}
+				catch (RuntimeException e) {
+					throw e;
+				}
+				catch (Exception e) {
+					throw new TaskException(e);
+				}
+			});
+		}
+		catch (TaskException e) {
+			throw (Exception) e.getCause();
+		}
+	}
+
+	private static final class TaskException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		TaskException(Exception cause) {
+			super(cause);
+		}
+	}
+}
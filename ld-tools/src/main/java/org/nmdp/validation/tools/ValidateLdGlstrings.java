@@ -21,18 +21,18 @@
 */
 package org.nmdp.validation.tools;
 
-import static org.dishevelled.compress.Readers.reader;
-import static org.dishevelled.compress.Writers.writer;
-
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.concurrent.Callable;
 
+import org.dash.valid.AnalysisEngine;
 import org.dash.valid.LinkageDisequilibriumAnalyzer;
 import org.dash.valid.Locus;
 import org.dash.valid.Sample;
+import org.dash.valid.StageMetrics;
+import org.dash.valid.StageMetrics.Stage;
 import org.dash.valid.gl.GLStringUtilities;
 import org.dash.valid.report.DetectedLinkageFindings;
 import org.dishevelled.commandline.ArgumentList;
@@ -58,6 +58,7 @@ public class ValidateLdGlstrings implements Callable<Integer> {
     private final File inputHmlFile;
     private final File outputFile;
     private static final String USAGE = "validate-gl-ld [args]";
+    private ToolContext context = ToolContext.system();
 
 
     /**
@@ -71,16 +72,24 @@ public class ValidateLdGlstrings implements Callable<Integer> {
         this.outputFile   = outputFile;
     }
     
+    void setContext(ToolContext context) {
+        this.context = context;
+    }
+
     @Override
     public Integer call() throws Exception {
         BufferedReader reader = null;
         PrintWriter writer    = null;
         try {
-            ListMultimap<String, SubjectMug> validationResults = read(inputHmlFile);
-            writer = writer(outputFile);
+            AnalysisEngine engine = context.getEngine(null, null);
+            ListMultimap<String, SubjectMug> validationResults = (engine != null)
+                ? ToolContext.call(engine, () -> read(context.reader(inputHmlFile))) : read(context.reader(inputHmlFile));
+            writer = context.writer(outputFile);
             for (String sample : validationResults.keySet()) {
             	for (SubjectMug subjectResults : validationResults.get(sample)) {
+            		long start = StageMetrics.start();
             		writer.println(sample + "\t" + subjectResults.minimumDifference());
+            		StageMetrics.getInstance().record(Stage.SERIALIZATION, start);
             	}
             }
             return 0;
@@ -101,12 +110,10 @@ public class ValidateLdGlstrings implements Callable<Integer> {
         }
     }
 
-   static ListMultimap<String, SubjectMug> read(final File file) throws IOException {
-       BufferedReader reader = null;
+   static ListMultimap<String, SubjectMug> read(final BufferedReader reader) throws IOException {
        final ListMultimap<String, SubjectMug> subjectmugs = ArrayListMultimap.create();
        final SubjectMug.Builder builder = SubjectMug.builder();
        try {
-           reader = reader(file);
            CharStreams.readLines(reader, new LineProcessor<Void>() {
                    private int count = 0;
 
@@ -117,8 +124,12 @@ public class ValidateLdGlstrings implements Callable<Integer> {
                            throw new IOException("illegal format, expected at least 2 columns, found " + tokens.length + "\nline=" + line);
                        }
                       
+                      long start = StageMetrics.start();
                       String fullyQualified            = GLStringUtilities.fullyQualifyGLString(tokens[1]);
+                      StageMetrics.getInstance().record(Stage.PARSE, start);
+                      start = StageMetrics.start();
          			  MultilocusUnphasedGenotype mug   = GLStringUtilities.convertToMug(fullyQualified);
+                      StageMetrics.getInstance().record(Stage.MUG, start);
         			  Sample sample = LinkageDisequilibriumAnalyzer.detectLinkages(mug);
         			  DetectedLinkageFindings findings = sample.getFindings();
         			  Float minimumDifference          = findings.getMinimumDifference(Locus.FIVE_LOCUS);
@@ -255,12 +266,22 @@ public class ValidateLdGlstrings implements Callable<Integer> {
      * @param args command line args
      */
     public static void main(final String[] args) {
+        System.exit(run(args, ToolContext.system()));
+    }
+
+    /**
+     * Runs with the specified command line args and context.
+     *
+     * @return the exit status
+     */
+    static int run(final String[] args, final ToolContext context) {
         Switch about = new Switch("a", "about", "display about message");
         Switch help  = new Switch("h", "help", "display help message");
         FileArgument inputHmlFile = new FileArgument("i", "input-file", "input file, default stdin", false);
         FileArgument outputFile   = new FileArgument("o", "output-file", "output allele assignment file, default stdout", false);
+        Switch metrics = new Switch("m", "metrics", "print the time spent in each stage of the analysis to stderr at the end of the run");
 
-        ArgumentList arguments  = new ArgumentList(about, help, inputHmlFile, outputFile);
+        ArgumentList arguments  = new ArgumentList(about, help, inputHmlFile, outputFile, metrics);
         CommandLine commandLine = new CommandLine(args);
 
         ValidateLdGlstrings validateLdGlstrings = null;
@@ -268,26 +289,31 @@ public class ValidateLdGlstrings implements Callable<Integer> {
         {
             CommandLineParser.parse(commandLine, arguments);
             if (about.wasFound()) {
-                About.about(System.out);
-                System.exit(0);
+                About.about(context.out());
+                return 0;
             }
             if (help.wasFound()) {
-                Usage.usage(USAGE, null, commandLine, arguments, System.out);
-                System.exit(0);
+                Usage.usage(USAGE, null, commandLine, arguments, context.out());
+                return 0;
             }
-            validateLdGlstrings = new ValidateLdGlstrings(inputHmlFile.getValue(), outputFile.getValue());
+            validateLdGlstrings = new ValidateLdGlstrings(context.resolve(inputHmlFile.getValue()), context.resolve(outputFile.getValue()));
+            validateLdGlstrings.setContext(context);
         }
         catch (CommandLineParseException | IllegalArgumentException e) {
-            Usage.usage(USAGE, e, commandLine, arguments, System.err);
-            System.exit(-1);
+            Usage.usage(USAGE, e, commandLine, arguments, context.err());
+            return -1;
         }
         try {
-            System.exit(validateLdGlstrings.call());
+            int status = validateLdGlstrings.call();
+            if (metrics.wasFound()) {
+                context.printMetrics();
+            }
+            return status;
         }
         catch (Exception e) {
-            e.printStackTrace();
-            System.exit(1);
+            e.printStackTrace(context.err());
+            return 1;
         }
     }
     
-}
+}
\ No newline at end of file
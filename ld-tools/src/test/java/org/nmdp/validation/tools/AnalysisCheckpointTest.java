@@ -0,0 +1,74 @@
+package org.nmdp.validation.tools;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class AnalysisCheckpointTest extends TestCase {
+
+	@Test
+	public void testResumeById() throws Exception {
+		File directory = Files.createTempDirectory("checkpoint").toFile();
+		try {
+			AnalysisCheckpoint checkpoint = AnalysisCheckpoint.create(directory, true);
+			checkpoint.sampleCompleted("sample-0");
+			checkpoint.sampleCompleted("sample-1");
+			checkpoint.save(2, 2, Collections.<File>emptyList(), false);
+
+			// completed after the checkpoint, so truncated away on resuming
+			Files.write(new File(directory, AnalysisCheckpoint.COMPLETED_SAMPLES_FILE).toPath(), Arrays.asList("sample-2"), StandardOpenOption.APPEND);
+
+			AnalysisCheckpoint resumed = AnalysisCheckpoint.load(directory, true);
+			assertTrue(resumed.isCompleted("sample-0"));
+			assertTrue(resumed.isCompleted("sample-1"));
+			assertFalse(resumed.isCompleted("sample-2"));
+		}
+		finally {
+			AnalyzeGLStringsTest.delete(directory);
+		}
+	}
+
+	@Test
+	public void testNoIdsByRecordCount() throws Exception {
+		File directory = Files.createTempDirectory("checkpoint").toFile();
+		try {
+			AnalysisCheckpoint checkpoint = AnalysisCheckpoint.create(directory, false);
+			checkpoint.sampleCompleted("sample-0");
+			checkpoint.save(1, 1, Collections.<File>emptyList(), false);
+
+			assertFalse(new File(directory, AnalysisCheckpoint.COMPLETED_SAMPLES_FILE).exists());
+			assertEquals(1, AnalysisCheckpoint.load(directory, false).getRecords());
+			assertFalse(AnalysisCheckpoint.load(directory, false).isCompleted("sample-0"));
+		}
+		finally {
+			AnalyzeGLStringsTest.delete(directory);
+		}
+	}
+
+	@Test
+	public void testCreateDiscardsEarlierIds() throws Exception {
+		File directory = Files.createTempDirectory("checkpoint").toFile();
+		try {
+			AnalysisCheckpoint earlier = AnalysisCheckpoint.create(directory, true);
+			earlier.sampleCompleted("sample-0");
+			earlier.save(1, 1, Collections.<File>emptyList(), false);
+
+			AnalysisCheckpoint checkpoint = AnalysisCheckpoint.create(directory, true);
+			checkpoint.sampleCompleted("sample-1");
+			checkpoint.save(1, 1, Collections.<File>emptyList(), false);
+
+			AnalysisCheckpoint resumed = AnalysisCheckpoint.load(directory, true);
+			assertFalse(resumed.isCompleted("sample-0"));
+			assertTrue(resumed.isCompleted("sample-1"));
+		}
+		finally {
+			AnalyzeGLStringsTest.delete(directory);
+		}
+	}
+}
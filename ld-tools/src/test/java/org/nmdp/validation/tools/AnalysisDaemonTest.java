@@ -0,0 +1,149 @@
+package org.nmdp.validation.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class AnalysisDaemonTest extends TestCase {
+	private static final String STDIN = "HLA-A*01:01+HLA-A*02:01\n";
+
+	// echoes its standard input upper cased to standard output, its arguments to standard error
+	private static final Map<String, BiFunction<String[], ToolContext, Integer>> TOOLS = Collections.singletonMap("echo", (args, context) -> {
+		try {
+			ByteArrayOutputStream read = new ByteArrayOutputStream();
+			InputStream in = context.in();
+			int b;
+			while ((b = in.read()) != -1) {
+				read.write(b);
+			}
+			context.out().print(new String(read.toByteArray(), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT));
+			context.err().println(String.join(" ", args));
+			return 3;
+		}
+		catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	});
+
+	@Test
+	public void testJobFrames() throws Exception {
+		AnalysisDaemon daemon = new AnalysisDaemon(0, null, null, 1, TOOLS);
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+		int status = submit(daemon, daemon.getToken(), "echo", stdout, stderr);
+
+		assertEquals(3, status);
+		assertEquals(STDIN.toUpperCase(Locale.ROOT), new String(stdout.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals("-i input.txt" + System.lineSeparator(), new String(stderr.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testUnknownTool() throws Exception {
+		AnalysisDaemon daemon = new AnalysisDaemon(0, null, null, 1, TOOLS);
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+		assertEquals(-1, submit(daemon, daemon.getToken(), "unknown", stdout, stderr));
+		assertEquals(0, stdout.size());
+		assertTrue(new String(stderr.toByteArray(), StandardCharsets.UTF_8).startsWith("Unknown tool: unknown"));
+	}
+
+	@Test
+	public void testWithoutToken() throws Exception {
+		AnalysisDaemon daemon = new AnalysisDaemon(0, null, null, 1, TOOLS);
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+		try {
+			submit(daemon, "guessed", "echo", stdout, stdout);
+			fail("Job run without the daemon's token");
+		}
+		catch (IOException e) {
+			assertEquals(0, stdout.size());
+		}
+	}
+
+	@Test
+	public void testTokenFile() throws Exception {
+		File directory = Files.createTempDirectory("ld-daemon").toFile();
+		File tokenFile = new File(new File(directory, ".ld-daemon"), "7411.token");
+		try {
+			AnalysisDaemon.writeToken(tokenFile.toPath(), "first");
+			AnalysisDaemon.writeToken(tokenFile.toPath(), "second");
+
+			assertEquals("second", new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8));
+			if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+				assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile.toPath())));
+				assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile.getParentFile().toPath())));
+			}
+			assertEquals(1, tokenFile.getParentFile().list().length);
+		}
+		finally {
+			tokenFile.delete();
+			tokenFile.getParentFile().delete();
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Submits a job to the daemon over pipes, as DaemonClient does over the daemon's socket.
+	 */
+	private static int submit(AnalysisDaemon daemon, String token, String tool, ByteArrayOutputStream stdout, ByteArrayOutputStream stderr) throws Exception {
+		PipedOutputStream toDaemon = new PipedOutputStream();
+		DataInputStream daemonIn = new DataInputStream(new PipedInputStream(toDaemon, 65536));
+		PipedOutputStream toClient = new PipedOutputStream();
+		DataInputStream clientIn = new DataInputStream(new PipedInputStream(toClient, 65536));
+		DataOutputStream daemonOut = new DataOutputStream(toClient);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Void> job = executor.submit((Callable<Void>) () -> {
+				try {
+					if (daemon.authenticate(daemonIn)) {
+						daemon.runJob(daemonIn, daemonOut);
+					}
+				}
+				finally {
+					// as the daemon closes the connection
+					daemonOut.close();
+				}
+				return null;
+			});
+
+			DaemonClient client = new DaemonClient(0, tool, new String[] { "-i", "input.txt" });
+			int status = client.submit(clientIn, new DataOutputStream(toDaemon), token, ".",
+					new ByteArrayInputStream(STDIN.getBytes(StandardCharsets.UTF_8)),
+					new PrintStream(stdout, true), new PrintStream(stderr, true));
+
+			job.get(10, TimeUnit.SECONDS);
+			return status;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -1,9 +1,15 @@
 package org.nmdp.validation.tools;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -34,4 +40,167 @@ public class AnalyzeGLStringsTest extends TestCase {
 		assertNotNull(samplesList);
 		assertTrue(samplesList.size() > 0);
 	}
+
+	@Test
+	public void testResumeMatchesUninterruptedRun() throws Exception {
+		String input = input(12);
+		File interrupted = Files.createTempDirectory("interrupted").toFile();
+		File uninterrupted = Files.createTempDirectory("uninterrupted").toFile();
+		try {
+			new AnalyzeGLStrings(null, uninterrupted, null, null, null, null, null, 3, false, null, null).runAnalysis(new BufferedReader(new StringReader(input)));
+
+			// fails after the checkpoint at 6 samples, with a seventh sample written
+			try {
+				new AnalyzeGLStrings(null, interrupted, null, null, null, null, null, 3, false, null, null).runAnalysis(failingAfter(input, 7));
+				fail("Run wasn't interrupted");
+			}
+			catch (IOException e) {
+				// expected
+			}
+			assertTrue(new File(interrupted, AnalysisCheckpoint.CHECKPOINT_FILE).isFile());
+			assertFalse(AnalysisCheckpoint.load(interrupted, false).isComplete());
+
+			new AnalyzeGLStrings(null, interrupted, null, null, null, null, null, 3, true, null, null).runAnalysis(new BufferedReader(new StringReader(input)));
+
+			assertTrue(AnalysisCheckpoint.load(interrupted, false).isComplete());
+			assertEquals(12, AnalysisCheckpoint.load(interrupted, false).getSamples());
+			for (String stream : AnalysisOutput.DIRECTORY_STREAMS) {
+				assertSameContents(new File(uninterrupted, stream), new File(interrupted, stream));
+			}
+			// delimited input resumes by record count, so no ids are recorded
+			assertFalse(new File(interrupted, AnalysisCheckpoint.COMPLETED_SAMPLES_FILE).exists());
+		}
+		finally {
+			delete(interrupted);
+			delete(uninterrupted);
+		}
+	}
+
+	@Test
+	public void testCheckpointIntervalBelowOne() throws Exception {
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		ToolContext context = new ToolContext(null, System.in, System.out, new PrintStream(err, true));
+
+		assertEquals(-1, AnalyzeGLStrings.run(new String[] { "-k", "0" }, context));
+		assertEquals(-1, AnalyzeGLStrings.run(new String[] { "-k", "-5" }, context));
+		assertTrue(err.toString().contains("The checkpoint interval must be at least 1"));
+	}
+
+	@Test
+	public void testPartitionsById() throws Exception {
+		File directory = Files.createTempDirectory("partitions").toFile();
+		try {
+			new AnalyzeGLStrings(null, directory, null, null, null, null, null, null, false, 3, null).runAnalysis(new BufferedReader(new StringReader(input(12))));
+
+			for (int i = 0; i < 12; i++) {
+				String id = "sample-" + i;
+				int expected = (id.hashCode() & Integer.MAX_VALUE) % 3;
+				for (int part = 0; part < 3; part++) {
+					assertEquals(id + " in part " + part, part == expected, summary(directory, part).contains("\"" + id + "\""));
+				}
+			}
+			assertEquals(manifest(3), Files.readAllLines(new File(directory, AnalyzeGLStrings.PARTITION_MANIFEST).toPath()));
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testPartitionSize() throws Exception {
+		File directory = Files.createTempDirectory("partitions").toFile();
+		try {
+			new AnalyzeGLStrings(null, directory, null, null, null, null, null, null, false, null, 5).runAnalysis(new BufferedReader(new StringReader(input(12))));
+
+			// parts of 5, 5 and 2 samples, in the order of the input
+			for (int i = 0; i < 12; i++) {
+				String id = "sample-" + i;
+				for (int part = 0; part < 3; part++) {
+					assertEquals(id + " in part " + part, part == i / 5, summary(directory, part).contains("\"" + id + "\""));
+				}
+			}
+			assertFalse(new File(directory, AnalysisOutput.partFileName(AnalysisOutput.DIRECTORY_STREAMS[0], 3)).exists());
+			assertEquals(manifest(3), Files.readAllLines(new File(directory, AnalyzeGLStrings.PARTITION_MANIFEST).toPath()));
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testInvalidPartitions() throws Exception {
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		ToolContext context = new ToolContext(null, System.in, System.out, new PrintStream(err, true));
+
+		assertEquals(-1, AnalyzeGLStrings.run(new String[] { "-n", "0" }, context));
+		assertEquals(-1, AnalyzeGLStrings.run(new String[] { "-n", "-2" }, context));
+		assertEquals(-1, AnalyzeGLStrings.run(new String[] { "-s", "0" }, context));
+		assertEquals(-1, AnalyzeGLStrings.run(new String[] { "-n", "2", "-s", "10" }, context));
+		assertTrue(err.toString().contains("The number of partitions must be at least 1"));
+		assertTrue(err.toString().contains("The partition size must be at least 1"));
+		assertTrue(err.toString().contains("Specify either a number of partitions or a partition size, not both"));
+	}
+
+	private static String summary(File directory, int part) throws IOException {
+		return new String(Files.readAllBytes(new File(directory, AnalysisOutput.partFileName(AnalysisOutput.DIRECTORY_STREAMS[0], part)).toPath()));
+	}
+
+	private static List<String> manifest(int parts) {
+		List<String> manifest = new ArrayList<String>();
+		for (int part = 0; part < parts; part++) {
+			for (String stream : AnalysisOutput.DIRECTORY_STREAMS) {
+				manifest.add(part + "\t" + stream + "\t" + AnalysisOutput.partFileName(stream, part));
+			}
+		}
+		return manifest;
+	}
+
+	/**
+	 * @return lines of ids and GL strings, of genotypes whose haplotype pairs are reported in the same order every run
+	 */
+	static String input(int samples) throws IOException {
+		String[] glStrings = new String[] {
+				readLine("strictExample.txt"),
+				readLine("fullyQualifiedExample.txt") };
+
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < samples; i++) {
+			input.append("sample-").append(i).append(',').append(glStrings[i % glStrings.length]).append('\n');
+		}
+		return input.toString();
+	}
+
+	private static String readLine(String resource) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(AnalyzeGLStringsTest.class.getClassLoader().getResourceAsStream(resource)))) {
+			return reader.readLine();
+		}
+	}
+
+	private static BufferedReader failingAfter(String input, int lines) {
+		return new BufferedReader(new StringReader(input)) {
+			private int read = 0;
+
+			@Override
+			public String readLine() throws IOException {
+				if (read++ == lines) {
+					throw new IOException("Interrupted");
+				}
+				return super.readLine();
+			}
+		};
+	}
+
+	private static void assertSameContents(File expected, File actual) throws IOException {
+		assertEquals(expected.getName(), new String(Files.readAllBytes(expected.toPath())), new String(Files.readAllBytes(actual.toPath())));
+	}
+
+	static void delete(File directory) {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
 }
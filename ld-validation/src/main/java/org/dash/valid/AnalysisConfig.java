@@ -0,0 +1,259 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+import org.dash.valid.freq.Frequencies;
+import org.dash.valid.gl.GLStringConstants;
+
+/**
+ * Immutable configuration of an analysis:  the frequency set, hladb and linkages of the reference data,
+ * and the options applied to each genotype list.  Replaces reading the org.dash.* system properties
+ * during analysis, see fromSystemProperties().
+ */
+public final class AnalysisConfig {
+	public static final int DEFAULT_ALLELE_AMBIGUITY_THRESHOLD = 20;
+	public static final int DEFAULT_PROTEIN_THRESHOLD = 10;
+
+	private static volatile AnalysisConfig systemConfig = null;
+
+	private final Frequencies frequencies;
+	private final String hladb;
+	private final Set<Linkages> linkages;
+	private final boolean defaultArs;
+	private final boolean homozygousOnly;
+	private final int alleleAmbiguityThreshold;
+	private final int proteinThreshold;
+
+	private AnalysisConfig(Builder builder) {
+		this.frequencies = (builder.frequencies != null) ? builder.frequencies : Frequencies.lookup(null);
+		this.hladb = (builder.hladb != null) ? builder.hladb : GLStringConstants.LATEST_HLADB;
+		this.linkages = Collections.unmodifiableSet((builder.linkages != null && !builder.linkages.isEmpty()) 
+				? EnumSet.copyOf(builder.linkages) : EnumSet.copyOf(Linkages.getDefault(this.frequencies)));
+		this.defaultArs = builder.defaultArs;
+		this.homozygousOnly = builder.homozygousOnly;
+		this.alleleAmbiguityThreshold = builder.alleleAmbiguityThreshold;
+		this.proteinThreshold = builder.proteinThreshold;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the configuration specified by the org.dash.* system properties
+	 */
+	public static AnalysisConfig fromSystemProperties() {
+		return systemPropertiesBuilder().build();
+	}
+
+	/**
+	 * @return a builder initialized from the org.dash.* system properties.  The linkages are only set if
+	 * specified by the linkages property, so they otherwise follow the frequency set.
+	 */
+	public static Builder systemPropertiesBuilder() {
+		Builder builder = builder()
+				.frequencies(Frequencies.lookup(System.getProperty(Frequencies.FREQUENCIES_PROPERTY)))
+				.hladb(System.getProperty(GLStringConstants.HLADB_PROPERTY))
+				.defaultArs(GLStringConstants.ARS_DEFAULT.equals(System.getProperty(GLStringConstants.ARS_PROPERTY)))
+				.homozygousOnly(Boolean.parseBoolean(System.getProperty(GLStringConstants.HOMOZYGOUS_PROPERTY)));
+
+		String linkageProperties = System.getProperty(Linkages.LINKAGES_PROPERTY);
+		if (linkageProperties != null) {
+			Set<String> linkageNames = new HashSet<String>();
+			StringTokenizer st = new StringTokenizer(linkageProperties, GLStringConstants.SPACE);
+			while (st.hasMoreTokens()) {
+				linkageNames.add(st.nextToken());
+			}
+			builder.linkages(Linkages.lookup(linkageNames, builder.frequencies));
+		}
+
+		String alleleAmbiguityThreshold = System.getProperty(GLStringConstants.AMBIGUITY_THRESHOLD_PROPERTY);
+		if (alleleAmbiguityThreshold != null) {
+			builder.alleleAmbiguityThreshold(Integer.parseInt(alleleAmbiguityThreshold));
+		}
+
+		String proteinThreshold = System.getProperty(GLStringConstants.PROTEIN_THRESHOLD_PROPERTY);
+		if (proteinThreshold != null) {
+			builder.proteinThreshold(Integer.parseInt(proteinThreshold));
+		}
+
+		return builder;
+	}
+
+	/**
+	 * @return the configuration of the reference data in use by the current thread, otherwise the
+	 * configuration specified by the system properties when first used (as the loaders' instances are)
+	 */
+	public static AnalysisConfig current() {
+		ReferenceDataSnapshot snapshot = ReferenceDataSnapshot.getCurrent();
+		if (snapshot != null) {
+			return snapshot.getConfig();
+		}
+
+		AnalysisConfig config = systemConfig;
+		if (config == null) {
+			synchronized (AnalysisConfig.class) {
+				if (systemConfig == null) {
+					systemConfig = fromSystemProperties();
+				}
+				config = systemConfig;
+			}
+		}
+
+		return config;
+	}
+
+	/**
+	 * @return a builder initialized with this configuration
+	 */
+	public Builder toBuilder() {
+		return builder()
+				.frequencies(frequencies)
+				.hladb(hladb)
+				.linkages(linkages)
+				.defaultArs(defaultArs)
+				.homozygousOnly(homozygousOnly)
+				.alleleAmbiguityThreshold(alleleAmbiguityThreshold)
+				.proteinThreshold(proteinThreshold);
+	}
+
+	public Frequencies getFrequencies() {
+		return frequencies;
+	}
+
+	public String getHladb() {
+		return hladb;
+	}
+
+	public Set<Linkages> getLinkages() {
+		return linkages;
+	}
+
+	/**
+	 * @return true if the default ARS file is used rather than the hladb's g groups
+	 */
+	public boolean isDefaultArs() {
+		return defaultArs;
+	}
+
+	public boolean isHomozygousOnly() {
+		return homozygousOnly;
+	}
+
+	public int getAlleleAmbiguityThreshold() {
+		return alleleAmbiguityThreshold;
+	}
+
+	public int getProteinThreshold() {
+		return proteinThreshold;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof AnalysisConfig)) {
+			return false;
+		}
+
+		AnalysisConfig other = (AnalysisConfig) o;
+		return frequencies == other.frequencies && hladb.equals(other.hladb) && linkages.equals(other.linkages)
+				&& defaultArs == other.defaultArs && homozygousOnly == other.homozygousOnly
+				&& alleleAmbiguityThreshold == other.alleleAmbiguityThreshold && proteinThreshold == other.proteinThreshold;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(frequencies, hladb, linkages, defaultArs, homozygousOnly, alleleAmbiguityThreshold, proteinThreshold);
+	}
+
+	@Override
+	public String toString() {
+		return frequencies + ", hladb: " + hladb + ", linkages: " + linkages;
+	}
+
+	public static final class Builder {
+		private Frequencies frequencies;
+		private String hladb;
+		private Set<Linkages> linkages;
+		private boolean defaultArs = false;
+		private boolean homozygousOnly = false;
+		private int alleleAmbiguityThreshold = DEFAULT_ALLELE_AMBIGUITY_THRESHOLD;
+		private int proteinThreshold = DEFAULT_PROTEIN_THRESHOLD;
+
+		private Builder() {
+		}
+
+		public Builder frequencies(Frequencies frequencies) {
+			this.frequencies = frequencies;
+			return this;
+		}
+
+		/**
+		 * @param hladb the hladb version, latest if null
+		 */
+		public Builder hladb(String hladb) {
+			this.hladb = hladb;
+			return this;
+		}
+
+		/**
+		 * @param linkages the linkages to analyze, the frequency set's defaults if null or empty
+		 */
+		public Builder linkages(Set<Linkages> linkages) {
+			this.linkages = linkages;
+			return this;
+		}
+
+		public Builder defaultArs(boolean defaultArs) {
+			this.defaultArs = defaultArs;
+			return this;
+		}
+
+		public Builder homozygousOnly(boolean homozygousOnly) {
+			this.homozygousOnly = homozygousOnly;
+			return this;
+		}
+
+		public Builder alleleAmbiguityThreshold(int alleleAmbiguityThreshold) {
+			this.alleleAmbiguityThreshold = alleleAmbiguityThreshold;
+			return this;
+		}
+
+		public Builder proteinThreshold(int proteinThreshold) {
+			this.proteinThreshold = proteinThreshold;
+			return this;
+		}
+
+		public AnalysisConfig build() {
+			return new AnalysisConfig(this);
+		}
+	}
+}
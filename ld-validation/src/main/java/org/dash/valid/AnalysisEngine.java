@@ -0,0 +1,104 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.dash.valid.gl.GLStringUtilities;
+import org.dash.valid.gl.LinkageDisequilibriumGenotypeList;
+
+/**
+ * Analyzes genotype lists against the reference data it owns, as specified by its configuration, rather
+ * than that selected by the system properties.  Any number of engines may be used side by side; the
+ * reference data is pinned to the calling thread for the duration of each call.
+ */
+public class AnalysisEngine {
+	private final ReferenceDataSnapshot referenceData;
+
+	public AnalysisEngine(ReferenceDataSnapshot referenceData) {
+		this.referenceData = referenceData;
+	}
+
+	/**
+	 * Creates an engine, loading the reference data for the specified configuration.
+	 */
+	public static AnalysisEngine create(AnalysisConfig config) throws IOException {
+		return new AnalysisEngine(ReferenceDataSnapshot.load(config));
+	}
+
+	/**
+	 * Creates an engine, sharing the reference data of the specified engines where their configurations
+	 * allow, see ReferenceDataSnapshot.load(AnalysisConfig, Collection).
+	 */
+	public static AnalysisEngine create(AnalysisConfig config, Collection<AnalysisEngine> engines) throws IOException {
+		List<ReferenceDataSnapshot> loaded = new ArrayList<ReferenceDataSnapshot>();
+		for (AnalysisEngine engine : engines) {
+			loaded.add(engine.getReferenceData());
+		}
+
+		return new AnalysisEngine(ReferenceDataSnapshot.load(config, loaded));
+	}
+
+	public AnalysisConfig getConfig() {
+		return referenceData.getConfig();
+	}
+
+	public ReferenceDataSnapshot getReferenceData() {
+		return referenceData;
+	}
+
+	public LinkageDisequilibriumGenotypeList inflate(String id, String glString) {
+		return call(() -> GLStringUtilities.inflateGenotypeList(id, glString, null));
+	}
+
+	/**
+	 * Analyzes the genotype list as LinkageDisequilibriumAnalyzer.analyzeGenotypeList does, returning null
+	 * if the record is bypassed.
+	 */
+	public Sample analyze(LinkageDisequilibriumGenotypeList linkedGLString) {
+		return call(() -> LinkageDisequilibriumAnalyzer.analyzeGenotypeList(linkedGLString));
+	}
+
+	public Sample detectLinkages(LinkageDisequilibriumGenotypeList linkedGLString) {
+		return call(() -> LinkageDisequilibriumAnalyzer.detectLinkages(linkedGLString));
+	}
+
+	public Sample detectLinkages(String id, String glString) {
+		return call(() -> LinkageDisequilibriumAnalyzer.detectLinkages(GLStringUtilities.inflateGenotypeList(id, glString, null)));
+	}
+
+	/**
+	 * Runs the specified task against this engine's reference data.
+	 */
+	public <T> T call(Supplier<T> task) {
+		return referenceData.call(task);
+	}
+
+	@Override
+	public String toString() {
+		return "AnalysisEngine (" + getConfig() + ")";
+	}
+}
@@ -7,7 +7,7 @@ import org.dash.valid.gl.haplo.Haplotype;
 
 public class CoreDisequilibriumElement extends DisequilibriumElement {	
 	public CoreDisequilibriumElement(HashMap<Locus, List<String>> hlaElementMap, Haplotype haplotype) {
-		setHlaElementMap(hlaElementMap);
+		super(hlaElementMap);
 		setHaplotype(haplotype);
 	}
 	
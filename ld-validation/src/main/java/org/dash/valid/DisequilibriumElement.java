@@ -35,6 +35,7 @@ public abstract class DisequilibriumElement {
 	private Haplotype haplotype;
 	public DisequilibriumElement() {
 		super();
+		this.hlaElementMap = new HashMap<Locus, List<String>>();
 	}
 	
 	public Haplotype getHaplotype() {
@@ -47,7 +48,7 @@ public abstract class DisequilibriumElement {
 
 	public abstract String getFrequencyInfo();
 		
-	private HashMap<Locus, List<String>> hlaElementMap = new HashMap<Locus, List<String>>();
+	private HashMap<Locus, List<String>> hlaElementMap;
 
 	public Collection<List<String>> getHlaElements() {
 		return hlaElementMap.values();
@@ -37,8 +37,8 @@ public class DisequilibriumElementComparator implements Comparator<DetectedDiseq
 		}
 		else if (element1.getDisequilibriumElement() instanceof DisequilibriumElementByRace && element2.getDisequilibriumElement() instanceof DisequilibriumElementByRace) {
 			// those with more linkages should sort first
-			ret = ((DisequilibriumElementByRace) element2.getDisequilibriumElement()).getFrequenciesByRace().size() - 
-					((DisequilibriumElementByRace) element1.getDisequilibriumElement()).getFrequenciesByRace().size();
+			ret = ((DisequilibriumElementByRace) element2.getDisequilibriumElement()).getFrequencyCount() - 
+					((DisequilibriumElementByRace) element1.getDisequilibriumElement()).getFrequencyCount();
 			if (ret != 0) {
 				return ret;
 			}
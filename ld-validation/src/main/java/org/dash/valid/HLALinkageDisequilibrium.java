@@ -30,9 +30,10 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
-import org.dash.valid.freq.Frequencies;
+import org.dash.valid.StageMetrics.Count;
+import org.dash.valid.StageMetrics.SampleCounts;
+import org.dash.valid.StageMetrics.Stage;
 import org.dash.valid.freq.HLAFrequenciesLoader;
-import org.dash.valid.gl.GLStringConstants;
 import org.dash.valid.gl.GLStringUtilities;
 import org.dash.valid.gl.LinkageDisequilibriumGenotypeList;
 import org.dash.valid.gl.haplo.Haplotype;
@@ -65,54 +66,59 @@ public class HLALinkageDisequilibrium {
 		
 		Set<HaplotypePair> linkedPairs = new HaplotypePairSet(new HaplotypePairComparator());
 		
-		Set<String> notCommon = GLStringUtilities.checkCommonWellDocumented(glString.getGLString());
+		Set<String> notCommon = GLStringUtilities.checkCommonWellDocumented(glString);
 				
-		DetectedLinkageFindings findings = new DetectedLinkageFindings(System.getProperty(Frequencies.FREQUENCIES_PROPERTY));
+		DetectedLinkageFindings findings = new DetectedLinkageFindings(ReferenceDataSnapshot.currentFrequencies());
 		Set<Linkages> linkages = LinkagesLoader.getInstance().getLinkages();
 		if (linkages == null) {
-			sample.setFindings(findings);
+			sample.setFindings(findings.finish());
 			return sample;
 		}
 						
+		SampleCounts counts = new SampleCounts();
 		for (Linkages linkage : linkages) {
 			EnumSet<Locus> loci = linkage.getLoci();
 			findings.addFindingSought(loci);
 			List<DisequilibriumElement> disequilibriumElements = HLAFrequenciesLoader.getInstance().getDisequilibriumElements(loci);
 			
-			linkedPairs.addAll(findLinkedPairs(glString, loci, disequilibriumElements, findings));
+			linkedPairs.addAll(findLinkedPairs(glString, loci, disequilibriumElements, findings, counts));
 		}		
 		
 		LOGGER.info(linkedPairs.size() + " linkedPairs");
 		
 		findings.setGenotypeList(glString);
-		findings.setLinkedPairs(linkedPairs);
+		setLinkedPairs(findings, linkedPairs, counts);
 		findings.setNonCWDAlleles(notCommon);
-		findings.setHladb(System.getProperty(GLStringConstants.HLADB_PROPERTY));
+		findings.setHladb(ReferenceDataSnapshot.currentHladb());
 		
-		sample.setFindings(findings);
+		sample.setFindings(findings.finish());
 		return sample;
 	}
 	
 	public static Sample hasLinkageDisequilibrium(LinkageDisequilibriumGenotypeList glString, List<Haplotype> knownHaplotypes) {		
 		Set<HaplotypePair> linkedPairs = new HaplotypePairSet(new HaplotypePairComparator());
 
-		Set<String> notCommon = GLStringUtilities.checkCommonWellDocumented(glString.getGLString());
+		Set<String> notCommon = GLStringUtilities.checkCommonWellDocumented(glString);
 						
 		Sample sample = new Sample(glString);
 		
-		DetectedLinkageFindings findings = new DetectedLinkageFindings(System.getProperty(Frequencies.FREQUENCIES_PROPERTY));
+		DetectedLinkageFindings findings = new DetectedLinkageFindings(ReferenceDataSnapshot.currentFrequencies());
 		Set<Linkages> linkages = LinkagesLoader.getInstance().getLinkages();
 		if (linkages == null) {
-			sample.setFindings(findings);
+			sample.setFindings(findings.finish());
 			return sample;
 		}
 						
+		StageMetrics metrics = StageMetrics.getInstance();
+		SampleCounts counts = new SampleCounts();
 		for (Linkages linkage : linkages) {
 			EnumSet<Locus> loci = linkage.getLoci();
 			findings.addFindingSought(loci);
 			List<DisequilibriumElement> disequilibriumElements = HLAFrequenciesLoader.getInstance().getDisequilibriumElements(loci);
 			List<Haplotype> enrichedHaplotypes = new ArrayList<Haplotype>();
-									
+			
+			// the known haplotypes are the only candidates
+			long start = StageMetrics.start();
 			for (Haplotype haplotype : knownHaplotypes) {
 				Haplotype enrichedHaplotype = enrichHaplotype(loci, disequilibriumElements, haplotype);
 
@@ -121,6 +127,9 @@ public class HLALinkageDisequilibrium {
 					enrichedHaplotypes.add(enrichedHaplotype);
 				}
 			}
+			metrics.record(Stage.MATCHING, start);
+			counts.add(Count.CANDIDATES, knownHaplotypes.size());
+			counts.add(Count.MATCHED_ELEMENTS, enrichedHaplotypes.size());
 			
 			if (enrichedHaplotypes.size() == 2) {
 				linkedPairs.add(new HaplotypePair(enrichedHaplotypes.get(0), enrichedHaplotypes.get(1)));
@@ -130,11 +139,11 @@ public class HLALinkageDisequilibrium {
 		LOGGER.info(linkedPairs.size() + " linkedPairs");
 		
 		findings.setGenotypeList(glString);
-		findings.setLinkedPairs(linkedPairs);
+		setLinkedPairs(findings, linkedPairs, counts);
 		findings.setNonCWDAlleles(notCommon);
-		findings.setHladb(System.getProperty(GLStringConstants.HLADB_PROPERTY));
+		findings.setHladb(ReferenceDataSnapshot.currentHladb());
 		
-		sample.setFindings(findings);
+		sample.setFindings(findings.finish());
 		return sample;
 	}
 
@@ -170,11 +179,24 @@ public class HLALinkageDisequilibrium {
 		return enrichedHaplotype;
 	}
 	
+	private static void setLinkedPairs(DetectedLinkageFindings findings, Set<HaplotypePair> linkedPairs, SampleCounts counts) {
+		StageMetrics metrics = StageMetrics.getInstance();
+		
+		long start = StageMetrics.start();
+		findings.setLinkedPairs(linkedPairs);
+		metrics.record(Stage.LINKED_PAIRS, start);
+		
+		counts.add(Count.PAIRS, linkedPairs.size());
+		metrics.record(counts);
+	}
+	
 	private static Set<HaplotypePair> findLinkedPairs(
 			LinkageDisequilibriumGenotypeList glString,
 			EnumSet<Locus> loci,
 			List<DisequilibriumElement> disequilibriumElements,
-			DetectedLinkageFindings findings) {
+			DetectedLinkageFindings findings,
+			SampleCounts counts) {
+		StageMetrics metrics = StageMetrics.getInstance();
 		Set<HaplotypePair> linkedPairs = new HaplotypePairSet(new HaplotypePairComparator());
 
 		Set<MultiLocusHaplotype> linkedHaplotypes = new HashSet<MultiLocusHaplotype>();
@@ -182,8 +204,14 @@ public class HLALinkageDisequilibrium {
 		Set<DetectedDisequilibriumElement> detectedDisequilibriumElements = new HashSet<DetectedDisequilibriumElement>();
 		
 		MultiLocusHaplotype clonedHaplotype = null;
-				
-		for (MultiLocusHaplotype possibleHaplotype : glString.getPossibleHaplotypes(loci)) {
+		
+		long start = StageMetrics.start();
+		Set<MultiLocusHaplotype> possibleHaplotypes = glString.getPossibleHaplotypes(loci);
+		metrics.record(Stage.CANDIDATES, start);
+		counts.add(Count.CANDIDATES, possibleHaplotypes.size());
+		
+		start = StageMetrics.start();
+		for (MultiLocusHaplotype possibleHaplotype : possibleHaplotypes) {
 			List<DisequilibriumElement> shortenedList = new ArrayList<DisequilibriumElement>(disequilibriumElements);
 
 			HashMap<Locus, List<String>> hlaElementMap = new HashMap<Locus, List<String>>();
@@ -212,7 +240,10 @@ public class HLALinkageDisequilibrium {
 		}
 		
 		findings.addLinkages(detectedDisequilibriumElements);
+		metrics.record(Stage.MATCHING, start);
+		counts.add(Count.MATCHED_ELEMENTS, detectedDisequilibriumElements.size());
 		
+		start = StageMetrics.start();
 		for (Haplotype haplotype1 : linkedHaplotypes) {	
 			for (Haplotype haplotype2 : linkedHaplotypes) {
 				int idx = 0;
@@ -230,6 +261,7 @@ public class HLALinkageDisequilibrium {
 				}
 			}
 		}
+		metrics.record(Stage.PAIRS, start);
 		
 		return linkedPairs;
 	}
@@ -124,39 +124,50 @@ public class LinkageDisequilibriumAnalyzer {
 	 */
 	private static List<Sample> detectLinkages(List<LinkageDisequilibriumGenotypeList> glStrings) {
 		List<Sample> samplesList = new ArrayList<Sample>();
+		Sample sample;
 		
 		int idx = 1;
 		for (LinkageDisequilibriumGenotypeList linkedGLString : glStrings) {
-			
-			List<Haplotype> knownHaplotypes = GLStringUtilities.buildHaplotypes(linkedGLString);
-			
 			LOGGER.info("Processing gl string " + idx + " of " + glStrings.size() + " (" + (idx*100)/glStrings.size() + "%)");
 			idx++;
-
-			if (knownHaplotypes.size() > 0) {
-				samplesList.add(HLALinkageDisequilibrium.hasLinkageDisequilibrium(linkedGLString, knownHaplotypes));
-
-			}
-			else {	
-				boolean homozygousOnly = Boolean.TRUE.equals(new Boolean(System.getProperty("org.dash.homozygous"))) ? Boolean.TRUE : Boolean.FALSE;
-				
-				// TODO:  Actually implement by skipping the record
-				if (!linkedGLString.checkAmbiguitiesThresholds()) {
-					LOGGER.info("GL String contains an unusual number of ambiguities, proteins and/or uncommon alleles");
-				}
-				
-				if (homozygousOnly && !linkedGLString.hasHomozygous(LinkagesLoader.getInstance().getLoci())) {
-					LOGGER.info("Only checking for homozygous.  GL String contains no homozygous typings for the loci in question.  Bypassing record.");
-					continue;
-				}
-	
-				samplesList.add(detectLinkages(linkedGLString));
+			
+			sample = analyzeGenotypeList(linkedGLString);
+			
+			if (sample != null) {
+				samplesList.add(sample);
 			}
 		}
 		
 		return samplesList;
 	}
 	
+	/**
+	 * Analyzes a single genotype list, returning null if the record is bypassed.
+	 * 
+	 * @param linkedGLString
+	 */
+	public static Sample analyzeGenotypeList(LinkageDisequilibriumGenotypeList linkedGLString) {
+		List<Haplotype> knownHaplotypes = GLStringUtilities.buildHaplotypes(linkedGLString);
+
+		if (knownHaplotypes.size() > 0) {
+			return HLALinkageDisequilibrium.hasLinkageDisequilibrium(linkedGLString, knownHaplotypes);
+		}
+		
+		boolean homozygousOnly = AnalysisConfig.current().isHomozygousOnly();
+		
+		// TODO:  Actually implement by skipping the record
+		if (!linkedGLString.checkAmbiguitiesThresholds()) {
+			LOGGER.info("GL String contains an unusual number of ambiguities, proteins and/or uncommon alleles");
+		}
+		
+		if (homozygousOnly && !linkedGLString.hasHomozygous(LinkagesLoader.getInstance().getLoci())) {
+			LOGGER.info("Only checking for homozygous.  GL String contains no homozygous typings for the loci in question.  Bypassing record.");
+			return null;
+		}
+
+		return detectLinkages(linkedGLString);
+	}
+	
 	public static Sample detectLinkages(MultilocusUnphasedGenotype mug) {
 		LinkageDisequilibriumGenotypeList linkedGLString = new LinkageDisequilibriumGenotypeList(mug.getId(), mug);
 		Sample sample = detectLinkages(linkedGLString);
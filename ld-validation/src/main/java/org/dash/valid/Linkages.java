@@ -57,14 +57,14 @@ public enum Linkages {
 		return this.shortName;
 	}
 	
-	private static EnumSet<Linkages> getDefault() {
-		if (Frequencies.lookup(System.getProperty(Frequencies.FREQUENCIES_PROPERTY)).equals(Frequencies.NMDP)) {
+	static EnumSet<Linkages> getDefault(Frequencies freq) {
+		if (freq.equals(Frequencies.NMDP)) {
 			return EnumSet.of(Linkages.FIVE_LOCUS);
 		}
-		else if (Frequencies.lookup(System.getProperty(Frequencies.FREQUENCIES_PROPERTY)).equals(Frequencies.NMDP_2007)) {
+		else if (freq.equals(Frequencies.NMDP_2007)) {
 			return EnumSet.of(Linkages.FIVE_LOCUS);
 		}
-		else if (Frequencies.lookup(System.getProperty(Frequencies.FREQUENCIES_PROPERTY)).equals(Frequencies.NMDP_STD)) {
+		else if (freq.equals(Frequencies.NMDP_STD)) {
 			return EnumSet.of(Linkages.FIVE_LOCUS);
 		}
 		else {
@@ -88,6 +88,14 @@ public enum Linkages {
 	}
 	
 	public static Set<Linkages> lookup(Set<String> shortNames) {
+		return lookup(shortNames, null);
+	}
+	
+	/**
+	 * Looks up the specified linkages, defaulting to those of the specified frequencies (or the frequencies
+	 * property, if null) if none are supported.
+	 */
+	public static Set<Linkages> lookup(Set<String> shortNames, Frequencies freq) {
 		Set<Linkages> set = new HashSet<Linkages>();
 		for (Linkages linkages : values()) {
 			if (shortNames.contains(linkages.getShortName())) {
@@ -96,9 +104,10 @@ public enum Linkages {
 		}
 		
 		if (set.size() == 0) {
-			LOGGER.warning("None of the specified linkages: " + shortNames + " are supported.  Defaulting to : " + getDefault());
+			if (freq == null) freq = Frequencies.lookup(System.getProperty(Frequencies.FREQUENCIES_PROPERTY));
+			set = Linkages.getDefault(freq);
 
-			set = Linkages.getDefault();
+			LOGGER.warning("None of the specified linkages: " + shortNames + " are supported.  Defaulting to : " + set);
 		}
 		
 		return set;
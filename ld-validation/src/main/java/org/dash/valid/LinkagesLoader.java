@@ -23,27 +23,14 @@ package org.dash.valid;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.StringTokenizer;
-
-import org.dash.valid.gl.GLStringConstants;
 
 // TODO:  Write tests
 public class LinkagesLoader {
-	private static LinkagesLoader instance = null;
+	private static volatile LinkagesLoader instance = null;
 	private Set<Linkages> linkages = null;
 	
 	private LinkagesLoader() {
-		Set<String> linkageNames = new HashSet<String>();
-		String linkageProperties = System.getProperty(Linkages.LINKAGES_PROPERTY);
-		
-		if (linkageProperties != null) {
-			StringTokenizer st = new StringTokenizer(linkageProperties, GLStringConstants.SPACE);
-			while (st.hasMoreTokens()) {
-				linkageNames.add(st.nextToken());
-			}
-		}
-		
-		setLinkages(Linkages.lookup(linkageNames));
+		this(AnalysisConfig.current().getLinkages());
 	}
 	
 	private LinkagesLoader(Set<Linkages> linkages) {
@@ -51,14 +38,25 @@ public class LinkagesLoader {
 	}
 	
 	public static LinkagesLoader getInstance() {
-		if (instance == null) {
-			instance = new LinkagesLoader();
+		ReferenceDataSnapshot snapshot = ReferenceDataSnapshot.getCurrent();
+		if (snapshot != null) {
+			return snapshot.getLinkagesLoader();
 		}
 		
-		return instance;
+		LinkagesLoader loader = instance;
+		if (loader == null) {
+			synchronized (LinkagesLoader.class) {
+				if (instance == null) {
+					instance = new LinkagesLoader();
+				}
+				loader = instance;
+			}
+		}
+		
+		return loader;
 	}
 	
-	public static LinkagesLoader getInstance(Set<Linkages> linkages) {
+	public static synchronized LinkagesLoader getInstance(Set<Linkages> linkages) {
 
 		if (instance == null) {
 			instance = new LinkagesLoader(linkages);
@@ -67,6 +65,13 @@ public class LinkagesLoader {
 		return instance;
 	}
 	
+	/**
+	 * Creates a loader for the specified linkages, without replacing the instance.
+	 */
+	public static LinkagesLoader load(Set<Linkages> linkages) {
+		return new LinkagesLoader(linkages);
+	}
+	
 	private void setLinkages(Set<Linkages> linkages) {
 		this.linkages = linkages;
 	}
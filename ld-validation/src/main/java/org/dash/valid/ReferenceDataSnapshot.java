@@ -0,0 +1,297 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.dash.valid.ars.AntigenRecognitionSiteLoader;
+import org.dash.valid.cwd.CommonWellDocumentedLoader;
+import org.dash.valid.freq.Frequencies;
+import org.dash.valid.freq.HLAFrequenciesLoader;
+import org.dash.valid.gl.GLStringConstants;
+
+/**
+ * An immutable, versioned set of the reference data for one analysis configuration.  A snapshot is
+ * built in full (alongside the one in use) before it is published, and publishing replaces the live
+ * snapshot atomically.  A thread that pins the live snapshot keeps using it until unpinned, so work
+ * in progress is never split across two versions of the reference data.
+ *
+ * While a snapshot is pinned or live, the loaders' getInstance() methods return its data rather than
+ * their own instances.  Snapshots that are never published (e.g. those of an AnalysisEngine) are
+ * only used by threads that pin them.
+ */
+public final class ReferenceDataSnapshot {
+	private static final Logger LOGGER = Logger.getLogger(ReferenceDataSnapshot.class.getName());
+
+	private static final AtomicLong VERSIONS = new AtomicLong();
+	private static final ThreadLocal<ReferenceDataSnapshot> PINNED = new ThreadLocal<ReferenceDataSnapshot>();
+
+	private static volatile ReferenceDataSnapshot live = null;
+
+	private final long version;
+	private final AnalysisConfig config;
+	private final long loadedAt;
+	private final LinkagesLoader linkagesLoader;
+	private final HLAFrequenciesLoader frequenciesLoader;
+	private final AntigenRecognitionSiteLoader arsLoader;
+	private final CommonWellDocumentedLoader cwdLoader;
+
+	private ReferenceDataSnapshot(AnalysisConfig config, LinkagesLoader linkagesLoader, HLAFrequenciesLoader frequenciesLoader,
+			AntigenRecognitionSiteLoader arsLoader, CommonWellDocumentedLoader cwdLoader) {
+		this.version = VERSIONS.incrementAndGet();
+		this.config = config;
+		this.loadedAt = System.currentTimeMillis();
+		this.linkagesLoader = linkagesLoader;
+		this.frequenciesLoader = frequenciesLoader;
+		this.arsLoader = arsLoader;
+		this.cwdLoader = cwdLoader;
+	}
+
+	/**
+	 * Loads all reference data for the specified frequency set and hladb (latest, if null), without
+	 * publishing it.  The remaining configuration is specified by the system properties; the linkages
+	 * default to those of the frequency set.
+	 */
+	public static ReferenceDataSnapshot load(String frequencies, String hladb) throws IOException {
+		return load(AnalysisConfig.systemPropertiesBuilder()
+				.frequencies(Frequencies.lookup(frequencies))
+				.hladb(hladb)
+				.build());
+	}
+
+	/**
+	 * Loads all reference data for the specified configuration, without publishing it.
+	 */
+	public static ReferenceDataSnapshot load(AnalysisConfig config) throws IOException {
+		return load(config, Collections.<ReferenceDataSnapshot>emptyList());
+	}
+
+	/**
+	 * Loads the reference data for the specified configuration, without publishing it.  Frequencies,
+	 * ARS and CWD data already loaded by one of the specified snapshots for the same frequency set and
+	 * linkages, or hladb, is shared rather than loaded again.
+	 */
+	public static ReferenceDataSnapshot load(AnalysisConfig config, Collection<ReferenceDataSnapshot> loaded) throws IOException {
+		long start = System.currentTimeMillis();
+
+		HLAFrequenciesLoader sharedFrequencies = null;
+		AntigenRecognitionSiteLoader sharedArs = null;
+		CommonWellDocumentedLoader sharedCwd = null;
+
+		for (ReferenceDataSnapshot snapshot : loaded) {
+			AnalysisConfig other = snapshot.getConfig();
+			if (sharedFrequencies == null && other.getFrequencies() == config.getFrequencies()
+					&& other.getLinkages().equals(config.getLinkages())) {
+				sharedFrequencies = snapshot.getFrequenciesLoader();
+			}
+			if (sharedArs == null && other.getHladb().equals(config.getHladb()) && other.isDefaultArs() == config.isDefaultArs()) {
+				sharedArs = snapshot.getArsLoader();
+			}
+			if (sharedCwd == null && other.getHladb().equals(config.getHladb())) {
+				sharedCwd = snapshot.getCwdLoader();
+			}
+		}
+
+		LinkagesLoader linkagesLoader = LinkagesLoader.load(config.getLinkages());
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Future<HLAFrequenciesLoader> frequenciesLoader = (sharedFrequencies != null) ? CompletableFuture.completedFuture(sharedFrequencies)
+					: executor.submit(() -> HLAFrequenciesLoader.load(config.getFrequencies(), config.getLinkages()));
+			Future<AntigenRecognitionSiteLoader> arsLoader = (sharedArs != null) ? CompletableFuture.completedFuture(sharedArs)
+					: executor.submit(() -> AntigenRecognitionSiteLoader.load(config.getHladb(), config.isDefaultArs()));
+			Future<CommonWellDocumentedLoader> cwdLoader = (sharedCwd != null) ? CompletableFuture.completedFuture(sharedCwd)
+					: executor.submit(() -> CommonWellDocumentedLoader.load(config.getHladb()));
+
+			ReferenceDataSnapshot snapshot = new ReferenceDataSnapshot(config, linkagesLoader,
+					frequenciesLoader.get(), arsLoader.get(), cwdLoader.get());
+
+			LOGGER.info("Reference data version " + snapshot.getVersion() + " (" + config + ") loaded in "
+					+ (System.currentTimeMillis() - start) + " ms");
+
+			return snapshot;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading reference data");
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof InvalidFormatException) {
+				throw new IOException("Couldn't load reference data", cause);
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Makes the specified snapshot the live snapshot.  Threads with the previous snapshot pinned continue
+	 * to use it; it is released once they unpin it.
+	 */
+	public static void publish(ReferenceDataSnapshot snapshot) {
+		ReferenceDataSnapshot previous = live;
+		live = snapshot;
+
+		LOGGER.info("Published reference data version " + snapshot.getVersion()
+				+ ((previous != null) ? ", replacing version " + previous.getVersion() : ""));
+	}
+
+	/**
+	 * Withdraws the live snapshot, e.g. between tests, leaving none published.
+	 */
+	public static void withdraw() {
+		live = null;
+	}
+
+	/**
+	 * @return the live snapshot, or null if none has been published
+	 */
+	public static ReferenceDataSnapshot getLive() {
+		return live;
+	}
+
+	/**
+	 * @return the snapshot pinned by the current thread, otherwise the live snapshot, or null if none has
+	 * been published
+	 */
+	public static ReferenceDataSnapshot getCurrent() {
+		ReferenceDataSnapshot snapshot = PINNED.get();
+
+		return (snapshot != null) ? snapshot : live;
+	}
+
+	/**
+	 * Pins the live snapshot to the current thread, until unpin() is called.
+	 *
+	 * @return the pinned snapshot, or null if none has been published
+	 */
+	public static ReferenceDataSnapshot pin() {
+		ReferenceDataSnapshot snapshot = live;
+		if (snapshot != null) {
+			PINNED.set(snapshot);
+		}
+
+		return snapshot;
+	}
+
+	public static void unpin() {
+		PINNED.remove();
+	}
+
+	/**
+	 * Runs the specified task with this snapshot pinned to the current thread, then restores the
+	 * snapshot previously pinned, if any.
+	 */
+	public <T> T call(Supplier<T> task) {
+		ReferenceDataSnapshot previous = PINNED.get();
+		PINNED.set(this);
+		try {
+			return task.get();
+		}
+		finally {
+			if (previous != null) {
+				PINNED.set(previous);
+			}
+			else {
+				PINNED.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return the frequency set of the current snapshot, otherwise the frequencies property
+	 */
+	public static String currentFrequencies() {
+		ReferenceDataSnapshot snapshot = getCurrent();
+
+		return (snapshot != null) ? snapshot.getFrequencies().getShortName() : System.getProperty(Frequencies.FREQUENCIES_PROPERTY);
+	}
+
+	/**
+	 * @return the hladb of the current snapshot, otherwise the hladb property
+	 */
+	public static String currentHladb() {
+		ReferenceDataSnapshot snapshot = getCurrent();
+
+		return (snapshot != null) ? snapshot.getHladb() : System.getProperty(GLStringConstants.HLADB_PROPERTY);
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public AnalysisConfig getConfig() {
+		return config;
+	}
+
+	public Frequencies getFrequencies() {
+		return config.getFrequencies();
+	}
+
+	public String getHladb() {
+		return config.getHladb();
+	}
+
+	public long getLoadedAt() {
+		return loadedAt;
+	}
+
+	public LinkagesLoader getLinkagesLoader() {
+		return linkagesLoader;
+	}
+
+	public HLAFrequenciesLoader getFrequenciesLoader() {
+		return frequenciesLoader;
+	}
+
+	public AntigenRecognitionSiteLoader getArsLoader() {
+		return arsLoader;
+	}
+
+	public CommonWellDocumentedLoader getCwdLoader() {
+		return cwdLoader;
+	}
+}
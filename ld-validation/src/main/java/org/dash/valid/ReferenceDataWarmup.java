@@ -0,0 +1,133 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import org.dash.valid.ars.AntigenRecognitionSiteLoader;
+import org.dash.valid.cwd.CommonWellDocumentedLoader;
+import org.dash.valid.freq.HLAFrequenciesLoader;
+
+/**
+ * Loads all reference data required for analysis (linkage and individual locus frequencies,
+ * antigen recognition sites and common well documented alleles) concurrently, ahead of the first
+ * sample, and records when it is all resident.  Reference data is selected by the same system
+ * properties the loaders read, so they must be set before warming up.
+ */
+public final class ReferenceDataWarmup {
+	private static final Logger LOGGER = Logger.getLogger(ReferenceDataWarmup.class.getName());
+
+	private static volatile boolean ready = false;
+	private static volatile Throwable failure = null;
+
+	private ReferenceDataWarmup() {
+	}
+
+	/**
+	 * Loads all reference data, blocking until it is resident.  Returns immediately if already ready.
+	 */
+	public static synchronized void warmup() throws IOException {
+		if (ready) {
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+		failure = null;
+
+		// resolves the linkages for the loaders
+		LinkagesLoader.getInstance();
+
+		List<Callable<Object>> loaders = new ArrayList<Callable<Object>>();
+		loaders.add(() -> HLAFrequenciesLoader.getInstance());
+		loaders.add(() -> AntigenRecognitionSiteLoader.getInstance());
+		loaders.add(() -> CommonWellDocumentedLoader.getInstance());
+
+		ExecutorService executor = Executors.newFixedThreadPool(loaders.size());
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (Callable<Object> loader : loaders) {
+				futures.add(executor.submit(loader));
+			}
+
+			for (Future<Object> future : futures) {
+				future.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure = e;
+			throw new InterruptedIOException("Interrupted while loading reference data");
+		}
+		catch (ExecutionException e) {
+			failure = e.getCause();
+			LOGGER.severe("Couldn't load reference data: " + failure);
+			throw new IOException("Couldn't load reference data", failure);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		ready = true;
+		LOGGER.info("Reference data loaded in " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+	/**
+	 * Starts loading reference data on a background thread, see isReady().
+	 */
+	public static Thread warmupInBackground() {
+		Thread thread = new Thread(() -> {
+			try {
+				warmup();
+			}
+			catch (IOException e) {
+				// recorded in failure
+			}
+		}, "reference-data-warmup");
+		thread.setDaemon(true);
+		thread.start();
+
+		return thread;
+	}
+
+	/**
+	 * @return true once all reference data is resident
+	 */
+	public static boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * @return the reason the last warmup failed, or null
+	 */
+	public static Throwable getFailure() {
+		return failure;
+	}
+}
@@ -0,0 +1,238 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers for the stages of analyzing a genotype list, and counts of what each sample was matched
+ * against, accumulated across all threads since started (or reset).  Recording a stage costs a clock
+ * read and a few uncontended adds, so the metrics are always kept.
+ */
+public final class StageMetrics {
+	public enum Stage {
+		PARSE("parse"),                   // qualifying the GL string, including decoding allele codes
+		MUG("mug"),                       // building the multilocus unphased genotype
+		CANDIDATES("candidates"),         // enumerating the possible haplotypes of each linkage
+		MATCHING("matching"),             // matching possible haplotypes to disequilibrium elements
+		PAIRS("pairs"),                   // forming pairs of linked haplotypes
+		LINKED_PAIRS("linked pairs"),     // frequencies of the linked pairs, see DetectedLinkageFindings.setLinkedPairs
+		SERIALIZATION("serialization");   // writing the sample
+
+		private final String label;
+
+		Stage(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	public enum Count {
+		CANDIDATES("candidate haplotypes"),
+		MATCHED_ELEMENTS("matched elements"),
+		PAIRS("linked pairs");
+
+		private final String label;
+
+		Count(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private static final StageMetrics INSTANCE = new StageMetrics();
+
+	private final Timer[] timers = new Timer[Stage.values().length];
+	private final Tally[] tallies = new Tally[Count.values().length];
+	private StageMetrics() {
+		for (int i = 0; i < timers.length; i++) {
+			timers[i] = new Timer();
+		}
+		for (int i = 0; i < tallies.length; i++) {
+			tallies[i] = new Tally();
+		}
+	}
+
+	public static StageMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the start time of a stage, for record(Stage, long)
+	 */
+	public static long start() {
+		return System.nanoTime();
+	}
+
+	public void record(Stage stage, long start) {
+		timers[stage.ordinal()].add(System.nanoTime() - start);
+	}
+
+	/**
+	 * Records the counts of one sample.
+	 */
+	public void record(SampleCounts counts) {
+		for (int i = 0; i < tallies.length; i++) {
+			tallies[i].add(counts.counts[i]);
+		}
+	}
+
+	public Timer getTimer(Stage stage) {
+		return timers[stage.ordinal()];
+	}
+
+	public Tally getTally(Count count) {
+		return tallies[count.ordinal()];
+	}
+
+	/**
+	 * @return the samples whose counts have been recorded
+	 */
+	public long getSamples() {
+		return tallies[0].getSamples();
+	}
+
+	public void reset() {
+		for (Timer timer : timers) {
+			timer.reset();
+		}
+		for (Tally tally : tallies) {
+			tally.reset();
+		}
+	}
+
+	/**
+	 * Prints the timers and counts as a table, e.g. at the end of a run.
+	 */
+	public void print(PrintWriter writer) {
+		writer.println(String.format("%-22s %10s %12s %10s %10s", "stage", "count", "total ms", "mean ms", "max ms"));
+		for (Stage stage : Stage.values()) {
+			Timer timer = getTimer(stage);
+			writer.println(String.format("%-22s %10d %12.1f %10.3f %10.3f", stage.getLabel(), timer.getCount(),
+					millis(timer.getTotalNanos()), millis(timer.getMeanNanos()), millis(timer.getMaxNanos())));
+		}
+
+		writer.println();
+		writer.println(String.format("%-22s %10s %12s %10s %10s", "per sample", "samples", "total", "mean", "max"));
+		for (Count count : Count.values()) {
+			Tally tally = getTally(count);
+			writer.println(String.format("%-22s %10d %12d %10.1f %10d", count.getLabel(), tally.getSamples(),
+					tally.getTotal(), tally.getMean(), tally.getMax()));
+		}
+
+		writer.flush();
+	}
+
+	private static double millis(double nanos) {
+		return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	public static final class Timer {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+		void add(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+		}
+
+		void reset() {
+			count.reset();
+			totalNanos.reset();
+			maxNanos.reset();
+		}
+
+		public long getCount() {
+			return count.sum();
+		}
+
+		public long getTotalNanos() {
+			return totalNanos.sum();
+		}
+
+		public double getMeanNanos() {
+			long n = getCount();
+			return (n > 0) ? (double) getTotalNanos() / n : 0;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos.get();
+		}
+	}
+
+	public static final class Tally {
+		private final LongAdder samples = new LongAdder();
+		private final LongAdder total = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		void add(long value) {
+			samples.increment();
+			total.add(value);
+			max.accumulate(value);
+		}
+
+		void reset() {
+			samples.reset();
+			total.reset();
+			max.reset();
+		}
+
+		public long getSamples() {
+			return samples.sum();
+		}
+
+		public long getTotal() {
+			return total.sum();
+		}
+
+		public double getMean() {
+			long n = getSamples();
+			return (n > 0) ? (double) getTotal() / n : 0;
+		}
+
+		public long getMax() {
+			return max.get();
+		}
+	}
+
+	/**
+	 * Counts of one sample, added to as its linkages are analyzed.
+	 */
+	public static final class SampleCounts {
+		private final long[] counts = new long[Count.values().length];
+
+		public void add(Count count, long value) {
+			counts[count.ordinal()] += value;
+		}
+	}
+}
@@ -21,42 +21,41 @@
 */
 package org.dash.valid.ars;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
-import java.util.zip.ZipInputStream;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.dash.valid.ReferenceDataSnapshot;
 import org.dash.valid.gl.GLStringConstants;
 import org.dash.valid.gl.GLStringUtilities;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+import org.dash.valid.imgt.IMGTDataCache;
 
 public class AntigenRecognitionSiteLoader {
-	private static AntigenRecognitionSiteLoader instance = null;
+	private static volatile AntigenRecognitionSiteLoader instance = null;
 	HashMap<String, HashSet<String>> arsMap = new HashMap<String, HashSet<String>>();
 
     private static final Logger LOGGER = Logger.getLogger(AntigenRecognitionSiteLoader.class.getName());
     
     private static final String DEFAULT_ARS_FILE = "reference/mmc1.xls";
+    private static final String G_GROUPS = "gGroups";
+    private static final String G_GROUP_ELEMENT = "gGroup";
+    private static final String G_GROUP_ALLELE_ELEMENT = "gGroupAllele";
+    private static final String NAME_ATTRIBUTE = "name";
 	
 	private AntigenRecognitionSiteLoader() {
 	}
@@ -66,34 +65,58 @@ public class AntigenRecognitionSiteLoader {
 	}
 	
 	public static AntigenRecognitionSiteLoader getInstance() throws IOException, InvalidFormatException {
-		String hladb = null;
-		if (instance == null) {
-			try {
-				String ars = System.getProperty(GLStringConstants.ARS_PROPERTY);
-				if (ars != null && ars.equals(GLStringConstants.ARS_DEFAULT)) {
-					instance = new AntigenRecognitionSiteLoader();
-					instance.init();
+		ReferenceDataSnapshot snapshot = ReferenceDataSnapshot.getCurrent();
+		if (snapshot != null) {
+			return snapshot.getArsLoader();
+		}
+		
+		AntigenRecognitionSiteLoader loader = instance;
+		if (loader == null) {
+			synchronized (AntigenRecognitionSiteLoader.class) {
+				loader = instance;
+				if (loader == null) {
+					loader = load(System.getProperty(GLStringConstants.HLADB_PROPERTY));
+					instance = loader;
 				}
-				else {
-					instance = new AntigenRecognitionSiteLoader();
-					hladb = System.getProperty(GLStringConstants.HLADB_PROPERTY);
+			}
+		}
+
+		return loader;
+	}
 	
-					instance.init(hladb);
-				}
+	/**
+	 * Loads the ARS data for the specified hladb, without replacing the instance.  The default ARS data
+	 * is used instead if specified by the ARS property.
+	 */
+	public static AntigenRecognitionSiteLoader load(String hladb) throws IOException, InvalidFormatException {
+		return load(hladb, GLStringConstants.ARS_DEFAULT.equals(System.getProperty(GLStringConstants.ARS_PROPERTY)));
+	}
+	
+	/**
+	 * Loads the ARS data for the specified hladb, or the default ARS data, without replacing the instance.
+	 */
+	public static AntigenRecognitionSiteLoader load(String hladb, boolean defaultArs) throws IOException, InvalidFormatException {
+		AntigenRecognitionSiteLoader loader = new AntigenRecognitionSiteLoader();
+		try {
+			if (defaultArs) {
+				loader.init();
 			}
-			catch (IOException | ParserConfigurationException | SAXException e) {
-				LOGGER.info("Couldn't find IMGT file in the correct format for hladb: " + hladb);
-				instance.init();
-				
-				// TODO:  Make final determination - commenting this in messes up the CWD logic currently
-				//System.setProperty(GLStringConstants.HLADB_PROPERTY, "Default");
+			else {
+				loader.init(hladb);
 			}
 		}
-
-		return instance;
+		catch (IOException e) {
+			LOGGER.info("Couldn't find IMGT file in the correct format for hladb: " + hladb);
+			loader.init();
+			
+			// TODO:  Make final determination - commenting this in messes up the CWD logic currently
+			//System.setProperty(GLStringConstants.HLADB_PROPERTY, "Default");
+		}
+		
+		return loader;
 	}
 	
-	private void init(String hladb) throws IOException, ParserConfigurationException, SAXException {
+	private void init(String hladb) throws IOException {
 		this.arsMap.putAll(loadGGroups(hladb));
 	}
 	
@@ -101,43 +124,90 @@ public class AntigenRecognitionSiteLoader {
 		this.arsMap = loadARSData();
 	}
 	
-	public static HashMap<String, HashSet<String>> loadGGroups(String hladb) throws MalformedURLException, IOException, ParserConfigurationException, SAXException {
+	/**
+	 * Loads the g groups for the specified hladb from the IMGT data cache, extracting them from the
+	 * IMGT release (seeded or downloaded) on first use.
+	 */
+	public static HashMap<String, HashSet<String>> loadGGroups(String hladb) throws IOException {
 		if (hladb == null) hladb = GLStringConstants.LATEST_HLADB;
-		URL url = new URL("https://raw.githubusercontent.com/ANHIG/IMGTHLA/" + hladb.replace(GLStringConstants.PERIOD, GLStringConstants.EMPTY_STRING) + "/xml/hla_ambigs.xml.zip");
-			
-		System.out.println(url.toString());
-		ZipInputStream zipStream = new ZipInputStream(url.openStream());
-		zipStream.getNextEntry();
-		BufferedReader reader = new BufferedReader(new InputStreamReader(zipStream));
-	    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-	    DocumentBuilder builder = factory.newDocumentBuilder();
-	    InputSource is = new InputSource(reader);
-	    Document doc = builder.parse(is);
-	    
+		IMGTDataCache cache = IMGTDataCache.getInstance();
+		
+		HashMap<String, HashSet<String>> gAlleleListMap = cache.readSetMap(hladb, G_GROUPS);
+		
+		if (gAlleleListMap == null) {
+			gAlleleListMap = extractGGroups(cache, hladb);
+		}
+		
+		return gAlleleListMap;
+	}
+	
+	/**
+	 * Seeds the IMGT data cache with a local copy of the release's hla_ambigs.xml.zip, and extracts 
+	 * the g groups from it.
+	 */
+	public static HashMap<String, HashSet<String>> seedGGroups(String hladb, File ambigsZip) throws IOException {
+		IMGTDataCache cache = IMGTDataCache.getInstance();
+		cache.seed(hladb, ambigsZip, IMGTDataCache.AMBIGS_ZIP);
+		
+		return extractGGroups(cache, hladb);
+	}
+	
+	private static HashMap<String, HashSet<String>> extractGGroups(IMGTDataCache cache, String hladb) throws IOException {
+		HashMap<String, HashSet<String>> gAlleleListMap;
+		
+		try (InputStream inputStream = cache.openXml(hladb, IMGTDataCache.AMBIGS_ZIP)) {
+			gAlleleListMap = parseGGroups(inputStream);
+		}
+		
+		try {
+			cache.writeSetMap(hladb, G_GROUPS, gAlleleListMap);
+		}
+		catch (IOException e) {
+			LOGGER.warning("Couldn't cache g groups for hladb: " + hladb + " in " + cache.getDirectory() + ": " + e.getMessage());
+		}
+		
+		return gAlleleListMap;
+	}
+	
+	/**
+	 * Streams the g groups out of hla_ambigs.xml.
+	 */
+	public static HashMap<String, HashSet<String>> parseGGroups(InputStream inputStream) throws IOException {
 	    HashMap<String, HashSet<String>> gAlleleListMap = new HashMap<String, HashSet<String>>();
 	    String[] parts;
 	    String arsCode;
-
-	    NodeList nList = doc.getElementsByTagName("tns:gene");
-	    for (int i=0;i<nList.getLength();i++) {
-	    	NodeList gGroups = ((Element) nList.item(i)).getElementsByTagName("tns:gGroup");
+	    HashSet<String> gAlleleList = null;
+	    
+	    try {
+	    	XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(inputStream);
 	    	
-	    	for (int j=0;j<gGroups.getLength();j++) {
-	    		String gGroup = gGroups.item(j).getAttributes().getNamedItem("name").getNodeValue();
-	    		parts = gGroup.split(GLStringUtilities.COLON);
-	    		
-	    		if (parts.length < 2) continue;
-	    		arsCode = (gGroup.startsWith(GLStringConstants.HLA_DASH)) ? parts[0] + GLStringUtilities.COLON + parts[1] + "g" : GLStringConstants.HLA_DASH + parts[0] + GLStringUtilities.COLON + parts[1] + "g";
-	    		
-	    		// TODO:  decide on g group logic
-	    		// currently implementing NMDP 'hack' to deal with historical typings associated with re-named allele - consistent with HaploStats
-	    		if (arsCode.equals("HLA-C*02:10g")) arsCode = "HLA-C*02:02g";
-	    		
-	    		HashSet<String> gAlleleList = gAlleleListMap.containsKey(arsCode) ? gAlleleListMap.get(arsCode) : new HashSet<String>();
+	    	while (reader.hasNext()) {
+	    		if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+	    			continue;
+	    		}
 	    		
-	    		NodeList gGroupAlleles = ((Element) gGroups.item(j)).getElementsByTagName("tns:gGroupAllele");
-	    		for (int k=0;k<gGroupAlleles.getLength();k++) {
-	    			String fullAllele = gGroupAlleles.item(k).getAttributes().getNamedItem("name").getNodeValue();
+	    		if (G_GROUP_ELEMENT.equals(reader.getLocalName())) {
+		    		String gGroup = reader.getAttributeValue(null, NAME_ATTRIBUTE);
+		    		parts = gGroup.split(GLStringUtilities.COLON);
+		    		
+		    		if (parts.length < 2) {
+		    			gAlleleList = null;
+		    			continue;
+		    		}
+		    		arsCode = (gGroup.startsWith(GLStringConstants.HLA_DASH)) ? parts[0] + GLStringUtilities.COLON + parts[1] + "g" : GLStringConstants.HLA_DASH + parts[0] + GLStringUtilities.COLON + parts[1] + "g";
+		    		
+		    		// TODO:  decide on g group logic
+		    		// currently implementing NMDP 'hack' to deal with historical typings associated with re-named allele - consistent with HaploStats
+		    		if (arsCode.equals("HLA-C*02:10g")) arsCode = "HLA-C*02:02g";
+		    		
+		    		gAlleleList = gAlleleListMap.get(arsCode);
+		    		if (gAlleleList == null) {
+		    			gAlleleList = new HashSet<String>();
+		    			gAlleleListMap.put(arsCode, gAlleleList);
+		    		}
+	    		}
+	    		else if (G_GROUP_ALLELE_ELEMENT.equals(reader.getLocalName()) && gAlleleList != null) {
+	    			String fullAllele = reader.getAttributeValue(null, NAME_ATTRIBUTE);
 	    			parts = fullAllele.split(GLStringUtilities.COLON);
 	    			String allele = (fullAllele.startsWith(GLStringConstants.HLA_DASH)) ? parts[0] + GLStringUtilities.COLON + parts[1] : GLStringConstants.HLA_DASH + parts[0] + GLStringUtilities.COLON + parts[1];
 	    			
@@ -147,10 +217,13 @@ public class AntigenRecognitionSiteLoader {
 	    				allele += fullAllele.charAt(fullAllele.length()-1);
 	    			}
 	    			gAlleleList.add(allele);
-	    		}	
-		    	gAlleleListMap.put(arsCode, gAlleleList);
-
+	    		}
 	    	}
+	    	
+	    	reader.close();
+	    }
+	    catch (XMLStreamException e) {
+	    	throw new IOException("Couldn't parse g groups", e);
 	    }
 	    
 	    return gAlleleListMap;
@@ -33,7 +33,7 @@ public class BaseDisequilibriumElement extends CoreDisequilibriumElement {
 	private String note;
 	
 	public BaseDisequilibriumElement(HashMap<Locus, List<String>> hlaElementMap, String frequency, String note) {
-		setHlaElementMap(hlaElementMap);
+		super(hlaElementMap, null);
 		setFrequency(frequency);
 		setNote(note);
 	}
@@ -22,51 +22,86 @@
 package org.dash.valid.cwd;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.URL;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
-import java.util.zip.ZipInputStream;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
+import org.dash.valid.ReferenceDataSnapshot;
 import org.dash.valid.gl.GLStringConstants;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+import org.dash.valid.imgt.IMGTDataCache;
 
 public class CommonWellDocumentedLoader {
     private static final Logger LOGGER = Logger.getLogger(CommonWellDocumentedLoader.class.getName());
+    
+    private static final String ACCESSIONS = "accessions";
+    private static final String ALLELE_ELEMENT = "allele";
+    private static final String NAME_ATTRIBUTE = "name";
+    private static final String ID_ATTRIBUTE = "id";
+    private static final String CWD_FILE = "reference/CWD.txt";
 
-	private static CommonWellDocumentedLoader instance = null;
+	private static volatile CommonWellDocumentedLoader instance = null;
 	
 	private Set<String> cwdAlleles = new HashSet<String>();
 	private HashMap<String, String> accessionMap = new HashMap<String, String>();
-	private static String instanceHladb;
+	private Set<String> cwdAlleleNames = new HashSet<String>();
+	private final String hladb;
 
 	private CommonWellDocumentedLoader(String hladb) {
-		init(hladb);
+		this.hladb = hladb;
 	}
 	
 	public static CommonWellDocumentedLoader getInstance() {
+		ReferenceDataSnapshot snapshot = ReferenceDataSnapshot.getCurrent();
+		if (snapshot != null) {
+			return snapshot.getCwdLoader();
+		}
+		
 		String hladb = System.getProperty(GLStringConstants.HLADB_PROPERTY);
 		if (hladb == null) hladb = GLStringConstants.LATEST_HLADB;
 
-		if (instance == null || !hladb.equals(instanceHladb)) {
-			instanceHladb = hladb;
-			instance = new CommonWellDocumentedLoader(hladb);
+		CommonWellDocumentedLoader loader = instance;
+		if (loader == null || !hladb.equals(loader.hladb)) {
+			synchronized (CommonWellDocumentedLoader.class) {
+				loader = instance;
+				if (loader == null || !hladb.equals(loader.hladb)) {
+					loader = new CommonWellDocumentedLoader(hladb);
+					loader.init(hladb);
+					instance = loader;
+				}
+			}
 		}
 		
-		return instance;
+		return loader;
+	}
+	
+	/**
+	 * Loads the CWD alleles for the specified hladb, without replacing the instance.  Unlike getInstance(),
+	 * fails rather than leaving the alleles empty or partly read, so reference data loaded with them
+	 * isn't published.
+	 */
+	public static CommonWellDocumentedLoader load(String hladb) throws IOException {
+		return load(hladb, CWD_FILE);
+	}
+	
+	static CommonWellDocumentedLoader load(String hladb, String filename) throws IOException {
+		CommonWellDocumentedLoader loader = new CommonWellDocumentedLoader(hladb);
+		loader.loadCommonWellDocumentedAlleles(hladb, filename);
+		
+		return loader;
 	}
 	
 	private void init(String hladb) {
@@ -79,33 +114,79 @@ public class CommonWellDocumentedLoader {
 
 	}
 	
-	public HashMap<String, String> loadFromIMGT(String hladb) throws IOException, ParserConfigurationException, SAXException {
+	/**
+	 * Loads the allele accessions for the specified hladb from the IMGT data cache, extracting them
+	 * from the IMGT release (seeded or downloaded) on first use.
+	 */
+	public HashMap<String, String> loadFromIMGT(String hladb) throws IOException {
+		IMGTDataCache cache = IMGTDataCache.getInstance();
+		
+		HashMap<String, String> accessionMap = cache.readMap(hladb, ACCESSIONS);
+		
+		if (accessionMap == null) {
+			accessionMap = extractAccessions(cache, hladb);
+		}
+		
+		return accessionMap;
+	}
+	
+	/**
+	 * Seeds the IMGT data cache with a local copy of the release's hla.xml.zip, and extracts the 
+	 * allele accessions from it.
+	 */
+	public static HashMap<String, String> seedAccessions(String hladb, File hlaZip) throws IOException {
+		IMGTDataCache cache = IMGTDataCache.getInstance();
+		cache.seed(hladb, hlaZip, IMGTDataCache.HLA_ZIP);
+		
+		return extractAccessions(cache, hladb);
+	}
+	
+	private static HashMap<String, String> extractAccessions(IMGTDataCache cache, String hladb) throws IOException {
+		HashMap<String, String> accessionMap;
+		
+		try (InputStream inputStream = cache.openXml(hladb, IMGTDataCache.HLA_ZIP)) {
+			accessionMap = parseAccessions(inputStream);
+		}
+		
+		try {
+			cache.writeMap(hladb, ACCESSIONS, accessionMap);
+		}
+		catch (IOException e) {
+			LOGGER.warning("Couldn't cache accessions for hladb: " + hladb + " in " + cache.getDirectory() + ": " + e.getMessage());
+		}
+		
+		return accessionMap;
+	}
+	
+	/**
+	 * Streams the allele names and accessions out of hla.xml, skipping the sequence data.
+	 */
+	public static HashMap<String, String> parseAccessions(InputStream inputStream) throws IOException {
 		HashMap<String, String> accessionMap = new HashMap<String, String>();
-
-		URL url = new URL("https://raw.githubusercontent.com/ANHIG/IMGTHLA/" + hladb.replace(GLStringConstants.PERIOD, GLStringConstants.EMPTY_STRING) + "/xml/hla.xml.zip");
-				
-		ZipInputStream zipStream = new ZipInputStream(url.openStream());
-		zipStream.getNextEntry();
-		BufferedReader reader = new BufferedReader(new InputStreamReader(zipStream));
-	    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-	    DocumentBuilder builder = factory.newDocumentBuilder();
-	    InputSource is = new InputSource(reader);
-	    Document doc = builder.parse(is);
-	    
-	    String name;
-	    String accession;
-
-	    NodeList nList = doc.getElementsByTagName("allele");
-	    for (int i=0;i<nList.getLength();i++) {
-	    	name = nList.item(i).getAttributes().getNamedItem("name").getNodeValue();
-	    	accession = nList.item(i).getAttributes().getNamedItem("id").getNodeValue();
-	    	accessionMap.put(name,  accession);
-	    }
-	    
-	    return accessionMap;
+		
+		try {
+			XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(inputStream);
+			
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && ALLELE_ELEMENT.equals(reader.getLocalName())) {
+					accessionMap.put(reader.getAttributeValue(null, NAME_ATTRIBUTE), reader.getAttributeValue(null, ID_ATTRIBUTE));
+				}
+			}
+			
+			reader.close();
+		}
+		catch (XMLStreamException e) {
+			throw new IOException("Couldn't parse accessions", e);
+		}
+		
+		return accessionMap;
 	}
 	
 	public void loadCommonWellDocumentedAlleles(String hladb) throws IOException, FileNotFoundException {
+		loadCommonWellDocumentedAlleles(hladb, CWD_FILE);
+	}
+	
+	private void loadCommonWellDocumentedAlleles(String hladb, String filename) throws IOException, FileNotFoundException {
 		Set<String> cwdSet = new HashSet<String>();
 		HashMap<String, String> accessionMap = null;
 		boolean accessionLoaded = false;
@@ -117,7 +198,7 @@ public class CommonWellDocumentedLoader {
 		try {
 			accessionMap = loadFromIMGT(hladb);
 		}
-		catch (IOException | ParserConfigurationException | SAXException e) {
+		catch (IOException e) {
 			LOGGER.info("Could not load file from IMGT for hladb: " + hladb);	
 		}	
 		
@@ -128,44 +209,51 @@ public class CommonWellDocumentedLoader {
 			accessionMap = new HashMap<String, String>();
 		}
 		
-		String filename = "reference/CWD.txt";
-				
-		BufferedReader reader = new BufferedReader(new InputStreamReader(CommonWellDocumentedLoader.class.getClassLoader().getResourceAsStream(filename)));
-		String row;
-		String[] columns;
-		int idx = 0;
+		InputStream inputStream = CommonWellDocumentedLoader.class.getClassLoader().getResourceAsStream(filename);
+		if (inputStream == null) {
+			throw new FileNotFoundException("Couldn't find CWD reference file: " + filename);
+		}
 		
-		int hladbIdx = -1;
-		List<String> headers = null;
-						
-		while ((row = reader.readLine()) != null) {
-			columns = row.split(GLStringConstants.TAB);
-
-			if (idx < 1) {
-				headers = Arrays.asList(columns);
-
-				hladbIdx = headers.indexOf(hladb.replace(GLStringConstants.PERIOD, GLStringConstants.EMPTY_STRING));	
-				
-				if (hladbIdx == -1) {
-					hladbIdx = 1;
-					LOGGER.warning("CWD reference file is not updated with the specified HLADB.  Defaulting to the latest HLADB specified in the reference file: " + columns[hladbIdx]);
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+			String row;
+			String[] columns;
+			int idx = 0;
+			
+			int hladbIdx = -1;
+			List<String> headers = null;
+							
+			while ((row = reader.readLine()) != null) {
+				columns = row.split(GLStringConstants.TAB);
+	
+				if (idx < 1) {
+					headers = Arrays.asList(columns);
+	
+					hladbIdx = headers.indexOf(hladb.replace(GLStringConstants.PERIOD, GLStringConstants.EMPTY_STRING));	
+					
+					if (hladbIdx == -1) {
+						hladbIdx = 1;
+						LOGGER.warning("CWD reference file is not updated with the specified HLADB.  Defaulting to the latest HLADB specified in the reference file: " + columns[hladbIdx]);
+					}
 				}
-			}
-			else {
-				cwdSet.add(columns[0]);
-				// TODO:  if (accessionLoaded) continue??
-				if (!accessionLoaded) {
-					accessionMap.put(GLStringConstants.HLA_DASH + columns[hladbIdx], columns[0]);
+				else {
+					cwdSet.add(columns[0]);
+					// TODO:  if (accessionLoaded) continue??
+					if (!accessionLoaded) {
+						accessionMap.put(GLStringConstants.HLA_DASH + columns[hladbIdx], columns[0]);
+					}
 				}
+				
+				idx++;
 			}
-			
-			idx++;
+		}
+		
+		if (cwdSet.isEmpty()) {
+			throw new IOException("No CWD alleles in reference file: " + filename);
 		}
 		
 		setCwdAlleles(cwdSet);
 		setAccessionMap(accessionMap);
-				
-		reader.close();
+		setCwdAlleleNames(cwdSet, accessionMap);
 	}
 	
 	public Set<String> getCwdAlleles() {
@@ -183,4 +271,23 @@ public class CommonWellDocumentedLoader {
 	private void setAccessionMap(HashMap<String, String> accessionMap) {
 		this.accessionMap = accessionMap;
 	}
+	
+	/**
+	 * Resolves the CWD status of every allele name up front, so checking an allele is a single lookup.
+	 */
+	private void setCwdAlleleNames(Set<String> cwdAlleles, HashMap<String, String> accessionMap) {
+		Set<String> cwdAlleleNames = new HashSet<String>();
+		
+		for (Map.Entry<String, String> entry : accessionMap.entrySet()) {
+			if (cwdAlleles.contains(entry.getValue())) {
+				cwdAlleleNames.add(entry.getKey());
+			}
+		}
+		
+		this.cwdAlleleNames = cwdAlleleNames;
+	}
+	
+	public boolean isCommonWellDocumented(String allele) {
+		return this.cwdAlleleNames.contains(allele);
+	}
 }
@@ -28,27 +28,35 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.dash.valid.DisequilibriumElement;
 import org.dash.valid.Linkages;
 import org.dash.valid.LinkagesLoader;
 import org.dash.valid.Locus;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.ars.AntigenRecognitionSiteLoader;
 import org.dash.valid.base.BaseDisequilibriumElement;
+import org.dash.valid.freq.StreamingWorkbookReader.SheetRow;
 import org.dash.valid.gl.GLStringConstants;
 import org.dash.valid.gl.GLStringUtilities;
 import org.dash.valid.race.DisequilibriumElementByRace;
@@ -56,8 +64,10 @@ import org.dash.valid.race.FrequencyByRace;
 import org.dash.valid.race.FrequencyByRaceComparator;
 
 public class HLAFrequenciesLoader {	
-	private HashMap<EnumSet<Locus>, List<DisequilibriumElement>> disequilibriumElementsMap = new HashMap<EnumSet<Locus>, List<DisequilibriumElement>>();
+	private final HashMap<EnumSet<Locus>, List<DisequilibriumElement>> disequilibriumElementsMap = new HashMap<EnumSet<Locus>, List<DisequilibriumElement>>();
 	private final HashMap<Locus, List<String>> individualLocusFrequencies = new HashMap<Locus, List<String>>();
+	private volatile Map<Locus, IndividualFrequencyIndex> individualFrequencyIndexes = null;
+	private final Frequencies frequencies;
 	
 	private static final String UNDERSCORE = "_";
 	
@@ -95,30 +105,43 @@ public class HLAFrequenciesLoader {
 	public static final Locus[] NMDP_FIVE_LOCUS_POS = new Locus[] {Locus.HLA_A, Locus.HLA_C, Locus.HLA_B, Locus.HLA_DRB1, Locus.HLA_DQB1};
 	public static final Locus[] NMDP_SIX_LOCUS_POS = new Locus[] {Locus.HLA_A, Locus.HLA_C, Locus.HLA_B, Locus.HLA_DRB345, Locus.HLA_DRB1, Locus.HLA_DQB1};
 	
-	private static HLAFrequenciesLoader instance = null;
+	private static volatile HLAFrequenciesLoader instance = null;
 
 	private static final Logger LOGGER = Logger.getLogger(HLAFrequenciesLoader.class.getName());
     
-    private HLAFrequenciesLoader() {
-    	
+    private HLAFrequenciesLoader(Frequencies frequencies) {
+    	this.frequencies = frequencies;
     }
     
-    public static HLAFrequenciesLoader getInstance(Set<File> frequencyFiles, File allelesFile) {
-    	instance = new HLAFrequenciesLoader();
-    	instance.init(frequencyFiles, allelesFile);
+    public static synchronized HLAFrequenciesLoader getInstance(Set<File> frequencyFiles, File allelesFile) {
+    	HLAFrequenciesLoader loader = new HLAFrequenciesLoader(null);
+    	loader.init(frequencyFiles, allelesFile);
+    	instance = loader;
     	
     	return instance;
     }
     
 	public static HLAFrequenciesLoader getInstance() {
-		if (instance == null) {
-			instance = new HLAFrequenciesLoader();
-			Frequencies freq = Frequencies.lookup(System.getProperty(Frequencies.FREQUENCIES_PROPERTY));
-						
-			instance.init(freq);
+		ReferenceDataSnapshot snapshot = ReferenceDataSnapshot.getCurrent();
+		if (snapshot != null) {
+			return snapshot.getFrequenciesLoader();
 		}
 		
-		return instance;
+		HLAFrequenciesLoader loader = instance;
+		if (loader == null) {
+			synchronized (HLAFrequenciesLoader.class) {
+				loader = instance;
+				if (loader == null) {
+					Frequencies freq = Frequencies.lookup(System.getProperty(Frequencies.FREQUENCIES_PROPERTY));
+					loader = new HLAFrequenciesLoader(freq);
+								
+					loader.init(freq, LinkagesLoader.getInstance().getLinkages());
+					instance = loader;
+				}
+			}
+		}
+		
+		return loader;
 	}
 	
 	public boolean hasIndividualFrequency(Locus locus) {
@@ -131,31 +154,53 @@ public class HLAFrequenciesLoader {
 		return false;
 	}
 	
+	/**
+	 * @return the first frequency bearing allele at the locus matching the specified allele by field level
+	 * comparison or antigen recognition site, or null
+	 */
 	public String hasFrequency(Locus locus, String allele) {
-		HashMap<Locus, List<String>> individualFrequencies = getIndividualLocusFrequencies();
-		if (individualFrequencies == null || individualFrequencies.get(locus) == null) {
+		IndividualFrequencyIndex index = getIndividualFrequencyIndexes().get(locus);
+		if (index == null) {
 			return null;
 		}
 		
-		for (String alleleWithFrequency : individualFrequencies.get(locus)) {
-			if (GLStringUtilities.fieldLevelComparison(allele, alleleWithFrequency) || 
-					GLStringUtilities.checkAntigenRecognitionSite(allele, alleleWithFrequency)) {
-				return alleleWithFrequency;
+		AntigenRecognitionSiteLoader arsLoader = null;
+		try {
+			arsLoader = AntigenRecognitionSiteLoader.getInstance();
+		}
+		catch (IOException | InvalidFormatException e) {
+			LOGGER.warning("Could not load ars data.");
+		}
+		
+		return index.lookup(allele, arsLoader);
+	}
+	
+	/**
+	 * Indexes the individual locus frequencies on first use, once they are all loaded.
+	 */
+	private Map<Locus, IndividualFrequencyIndex> getIndividualFrequencyIndexes() {
+		Map<Locus, IndividualFrequencyIndex> indexes = individualFrequencyIndexes;
+		if (indexes == null) {
+			synchronized (this) {
+				indexes = individualFrequencyIndexes;
+				if (indexes == null) {
+					indexes = new EnumMap<Locus, IndividualFrequencyIndex>(Locus.class);
+					for (Map.Entry<Locus, List<String>> entry : individualLocusFrequencies.entrySet()) {
+						indexes.put(entry.getKey(), new IndividualFrequencyIndex(entry.getValue()));
+					}
+					individualFrequencyIndexes = indexes;
+				}
 			}
 		}
 		
-		return null;
+		return indexes;
 	}
 	
 	private void init(Set<File> frequencyFiles, File allelesFile) {
 		Set<Linkages> linkages = new HashSet<Linkages>();
 		try {
 			for (File frequencyFile : frequencyFiles) {
-				InputStream is = new FileInputStream(frequencyFile);
-				InputStreamReader isr = new InputStreamReader(is);
-				BufferedReader reader = new BufferedReader(isr);
-				
-				List<DisequilibriumElement> elements = loadStandardReferenceData(reader);
+				List<DisequilibriumElement> elements = loadStandardReferenceData(new FileInputStream(frequencyFile));
 				
 				//List<DisequilibriumElement> elements = loadPhycusData();
 				
@@ -179,117 +224,26 @@ public class HLAFrequenciesLoader {
 		}
 	}
 	
-	private void init(Frequencies freq) {
+	/**
+	 * Loads the specified frequencies for the specified linkages, without replacing the instance.  The loaded
+	 * frequencies are not modified afterwards, so may be shared between threads.
+	 */
+	public static HLAFrequenciesLoader load(Frequencies freq, Set<Linkages> linkages) throws IOException {
+		HLAFrequenciesLoader loader = new HLAFrequenciesLoader(freq);
+		
 		try {
-			switch(freq) {
-			case NMDP_2007:
-				for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
-					switch (linkage) {
-					case A_B_C:
-						this.disequilibriumElementsMap.put(Locus.A_C_B_LOCI, loadNMDPLinkageReferenceData(NMDP_2007_ABC_FREQUENCIES, NMDP_ABC_LOCI_POS));
-						break;
-					case B_C:
-						this.disequilibriumElementsMap.put(Locus.C_B_LOCI, loadNMDPLinkageReferenceData(NMDP_2007_BC_FREQUENCIES, NMDP_BC_LOCI_POS));
-						break;
-					case DRB1_DQB1:
-						this.disequilibriumElementsMap.put(Locus.DRB1_DQB1_LOCI, loadNMDPLinkageReferenceData(NMDP_2007_DRB1DQB1_FREQUENCIES, NMDP_DRB1DQB1_LOCI_POS));
-						break;
-					case FIVE_LOCUS:
-						this.disequilibriumElementsMap.put(Locus.FIVE_LOCUS, loadNMDPLinkageReferenceData(NMDP_2007_FIVE_LOCUS_FREQUENCIES, NMDP_FIVE_LOCUS_POS));
-						break;
-					default:
-						break;
-					}
-				}
-				loadIndividualLocusFrequencies(freq);
-				break;
-			case NMDP:
-				for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
-					switch (linkage) {
-					case A_B_C:
-						this.disequilibriumElementsMap.put(Locus.A_C_B_LOCI, loadNMDPLinkageReferenceData(NMDP_ABC_FREQUENCIES, NMDP_ABC_LOCI_POS));
-						break;
-					case B_C:
-						this.disequilibriumElementsMap.put(Locus.C_B_LOCI, loadNMDPLinkageReferenceData(NMDP_BC_FREQUENCIES, NMDP_BC_LOCI_POS));
-						break;
-					case DRB_DQB:
-						this.disequilibriumElementsMap.put(Locus.DRB_DQB_LOCI, loadNMDPLinkageReferenceData(NMDP_DRDQ_FREQUENCIES, NMDP_DRDQB1_LOCI_POS));
-						break;
-					case FIVE_LOCUS:
-						this.disequilibriumElementsMap.put(Locus.FIVE_LOCUS,  loadNMDPLinkageReferenceData(NMDP_FIVE_LOCUS_FREQUENCIES, NMDP_FIVE_LOCUS_POS));
-						break;
-					case SIX_LOCUS:
-						this.disequilibriumElementsMap.put(Locus.SIX_LOCUS, loadNMDPLinkageReferenceData(NMDP_SIX_LOCUS_FREQUENCIES, NMDP_SIX_LOCUS_POS));
-						break;
-					default:
-						break;
-					}
-				}
-				loadIndividualLocusFrequencies(freq);
-				break;
-			case NMDP_2007_STD:
-				for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
-					switch (linkage) {
-					case A_B_C:
-						this.disequilibriumElementsMap.put(Locus.A_C_B_LOCI, loadStandardReferenceData(NMDP_2007_STD_ABC_FREQUENCIES));
-						break;
-					case B_C:
-						this.disequilibriumElementsMap.put(Locus.C_B_LOCI, loadStandardReferenceData(NMDP_2007_STD_BC_FREQUENCIES));
-						break;
-					case DRB_DQB:
-						this.disequilibriumElementsMap.put(Locus.DRB_DQB_LOCI, loadStandardReferenceData(NMDP_2007_STD_DRB1DQB1_FREQUENCIES));
-						break;
-					case FIVE_LOCUS:
-						this.disequilibriumElementsMap.put(Locus.FIVE_LOCUS, loadStandardReferenceData(NMDP_2007_STD_FIVELOCUS_FREQUENCIES));
-						//this.disequilibriumElementsMap.put(Locus.FIVE_LOCUS, loadPhycusData());
-						break;
-					default:
-						break;
-					}
-				}
-				loadIndividualLocusFrequencies(freq);
-				break;
-			case NMDP_STD:
-				for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
-					switch (linkage) {
-					case A_B_C:
-						this.disequilibriumElementsMap.put(Locus.A_C_B_LOCI, loadStandardReferenceData(NMDP_STD_ABC_FREQUENCIES));
-						break;
-					case B_C:
-						this.disequilibriumElementsMap.put(Locus.C_B_LOCI, loadStandardReferenceData(NMDP_STD_BC_FREQUENCIES));
-						break;
-					case DRB_DQB:
-						this.disequilibriumElementsMap.put(Locus.DRB_DQB_LOCI, loadStandardReferenceData(NMDP_STD_DRB1DQB1_FREQUENCIES));
-						break;
-					case FIVE_LOCUS:
-						this.disequilibriumElementsMap.put(Locus.FIVE_LOCUS, loadStandardReferenceData(NMDP_STD_FIVELOCUS_FREQUENCIES));
-						break;
-					case SIX_LOCUS:
-						this.disequilibriumElementsMap.put(Locus.SIX_LOCUS, loadStandardReferenceData(NMDP_STD_SIXLOCUS_FREQUENCIES));
-						break;
-					default:
-						break;
-					}
-				}
-				loadIndividualLocusFrequencies(freq);
-				break;
-			case WIKIVERSITY:
-				for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
-					switch (linkage) {
-					case B_C:
-						this.disequilibriumElementsMap.put(Locus.C_B_LOCI, loadLinkageReferenceData(WIKIVERSITY_BC_FREQUENCIES, BASE_BC_LOCI_POS));
-						break;
-					case DRB_DQ:
-						this.disequilibriumElementsMap.put(Locus.DRB_DQ_LOCI, loadLinkageReferenceData(WIKIVERSITY_DRDQ_FREQUENCIES, BASE_DRDQ_LOCI_POS));
-						break;
-					default:
-						break;
-					}
-				}
-				break;
-			default:
-				break;
-			}			
+			loader.loadFrequencies(freq, linkages);
+		}
+		catch (InvalidFormatException e) {
+			throw new IOException("Couldn't load frequencies: " + freq, e);
+		}
+		
+		return loader;
+	}
+	
+	private void init(Frequencies freq, Set<Linkages> linkages) {
+		try {
+			loadFrequencies(freq, linkages);
 		}
 		catch (IOException | InvalidFormatException ioe) { // | ApiException ioe) {
 			if (Frequencies.NMDP.equals(freq)) {
@@ -302,6 +256,191 @@ public class HLAFrequenciesLoader {
 		}
 	}
 	
+	private void loadFrequencies(Frequencies freq, Set<Linkages> linkages) throws IOException, InvalidFormatException {
+		Map<EnumSet<Locus>, Callable<List<DisequilibriumElement>>> linkageLoaders = new LinkedHashMap<EnumSet<Locus>, Callable<List<DisequilibriumElement>>>();
+		Map<Locus, Callable<List<String>>> locusLoaders = new LinkedHashMap<Locus, Callable<List<String>>>();
+		
+		switch(freq) {
+		case NMDP_2007:
+			for (Linkages linkage : linkages) {
+				switch (linkage) {
+				case A_B_C:
+					linkageLoaders.put(Locus.A_C_B_LOCI, () -> loadNMDPLinkageReferenceData(NMDP_2007_ABC_FREQUENCIES, NMDP_ABC_LOCI_POS));
+					break;
+				case B_C:
+					linkageLoaders.put(Locus.C_B_LOCI, () -> loadNMDPLinkageReferenceData(NMDP_2007_BC_FREQUENCIES, NMDP_BC_LOCI_POS));
+					break;
+				case DRB1_DQB1:
+					linkageLoaders.put(Locus.DRB1_DQB1_LOCI, () -> loadNMDPLinkageReferenceData(NMDP_2007_DRB1DQB1_FREQUENCIES, NMDP_DRB1DQB1_LOCI_POS));
+					break;
+				case FIVE_LOCUS:
+					linkageLoaders.put(Locus.FIVE_LOCUS, () -> loadNMDPLinkageReferenceData(NMDP_2007_FIVE_LOCUS_FREQUENCIES, NMDP_FIVE_LOCUS_POS));
+					break;
+				default:
+					break;
+				}
+			}
+			addIndividualLocusFrequencyLoaders(freq, linkages, locusLoaders);
+			break;
+		case NMDP:
+			for (Linkages linkage : linkages) {
+				switch (linkage) {
+				case A_B_C:
+					linkageLoaders.put(Locus.A_C_B_LOCI, () -> loadNMDPLinkageReferenceData(NMDP_ABC_FREQUENCIES, NMDP_ABC_LOCI_POS));
+					break;
+				case B_C:
+					linkageLoaders.put(Locus.C_B_LOCI, () -> loadNMDPLinkageReferenceData(NMDP_BC_FREQUENCIES, NMDP_BC_LOCI_POS));
+					break;
+				case DRB_DQB:
+					linkageLoaders.put(Locus.DRB_DQB_LOCI, () -> loadNMDPLinkageReferenceData(NMDP_DRDQ_FREQUENCIES, NMDP_DRDQB1_LOCI_POS));
+					break;
+				case FIVE_LOCUS:
+					linkageLoaders.put(Locus.FIVE_LOCUS, () -> loadNMDPLinkageReferenceData(NMDP_FIVE_LOCUS_FREQUENCIES, NMDP_FIVE_LOCUS_POS));
+					break;
+				case SIX_LOCUS:
+					linkageLoaders.put(Locus.SIX_LOCUS, () -> loadNMDPLinkageReferenceData(NMDP_SIX_LOCUS_FREQUENCIES, NMDP_SIX_LOCUS_POS));
+					break;
+				default:
+					break;
+				}
+			}
+			addIndividualLocusFrequencyLoaders(freq, linkages, locusLoaders);
+			break;
+		case NMDP_2007_STD:
+			for (Linkages linkage : linkages) {
+				switch (linkage) {
+				case A_B_C:
+					linkageLoaders.put(Locus.A_C_B_LOCI, () -> loadStandardReferenceData(NMDP_2007_STD_ABC_FREQUENCIES));
+					break;
+				case B_C:
+					linkageLoaders.put(Locus.C_B_LOCI, () -> loadStandardReferenceData(NMDP_2007_STD_BC_FREQUENCIES));
+					break;
+				case DRB_DQB:
+					linkageLoaders.put(Locus.DRB_DQB_LOCI, () -> loadStandardReferenceData(NMDP_2007_STD_DRB1DQB1_FREQUENCIES));
+					break;
+				case FIVE_LOCUS:
+					linkageLoaders.put(Locus.FIVE_LOCUS, () -> loadStandardReferenceData(NMDP_2007_STD_FIVELOCUS_FREQUENCIES));
+					//this.disequilibriumElementsMap.put(Locus.FIVE_LOCUS, loadPhycusData());
+					break;
+				default:
+					break;
+				}
+			}
+			addIndividualLocusFrequencyLoaders(freq, linkages, locusLoaders);
+			break;
+		case NMDP_STD:
+			for (Linkages linkage : linkages) {
+				switch (linkage) {
+				case A_B_C:
+					linkageLoaders.put(Locus.A_C_B_LOCI, () -> loadStandardReferenceData(NMDP_STD_ABC_FREQUENCIES));
+					break;
+				case B_C:
+					linkageLoaders.put(Locus.C_B_LOCI, () -> loadStandardReferenceData(NMDP_STD_BC_FREQUENCIES));
+					break;
+				case DRB_DQB:
+					linkageLoaders.put(Locus.DRB_DQB_LOCI, () -> loadStandardReferenceData(NMDP_STD_DRB1DQB1_FREQUENCIES));
+					break;
+				case FIVE_LOCUS:
+					linkageLoaders.put(Locus.FIVE_LOCUS, () -> loadStandardReferenceData(NMDP_STD_FIVELOCUS_FREQUENCIES));
+					break;
+				case SIX_LOCUS:
+					linkageLoaders.put(Locus.SIX_LOCUS, () -> loadStandardReferenceData(NMDP_STD_SIXLOCUS_FREQUENCIES));
+					break;
+				default:
+					break;
+				}
+			}
+			addIndividualLocusFrequencyLoaders(freq, linkages, locusLoaders);
+			break;
+		case WIKIVERSITY:
+			for (Linkages linkage : linkages) {
+				switch (linkage) {
+				case B_C:
+					linkageLoaders.put(Locus.C_B_LOCI, () -> loadLinkageReferenceData(WIKIVERSITY_BC_FREQUENCIES, BASE_BC_LOCI_POS));
+					break;
+				case DRB_DQ:
+					linkageLoaders.put(Locus.DRB_DQ_LOCI, () -> loadLinkageReferenceData(WIKIVERSITY_DRDQ_FREQUENCIES, BASE_DRDQ_LOCI_POS));
+					break;
+				default:
+					break;
+				}
+			}
+			break;
+		default:
+			break;
+		}			
+		
+		ExecutorService executor = newLoaderExecutor(linkageLoaders.size() + locusLoaders.size());
+		try {
+			Map<EnumSet<Locus>, Future<List<DisequilibriumElement>>> linkageFutures = submitAll(executor, linkageLoaders);
+			Map<Locus, Future<List<String>>> locusFutures = submitAll(executor, locusLoaders);
+			
+			for (Map.Entry<EnumSet<Locus>, Future<List<DisequilibriumElement>>> entry : linkageFutures.entrySet()) {
+				this.disequilibriumElementsMap.put(entry.getKey(), getLoaded(entry.getValue()));
+			}
+			
+			for (Map.Entry<Locus, Future<List<String>>> entry : locusFutures.entrySet()) {
+				List<String> singleLocusFrequencies = getLoaded(entry.getValue());
+				if (singleLocusFrequencies != null) {
+					this.individualLocusFrequencies.put(entry.getKey(), singleLocusFrequencies);
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private static ExecutorService newLoaderExecutor(int tasks) {
+		int threads = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors()));
+		
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "frequency-loader-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	private static <K, V> Map<K, Future<V>> submitAll(ExecutorService executor, Map<K, Callable<V>> loaders) {
+		Map<K, Future<V>> futures = new LinkedHashMap<K, Future<V>>();
+		for (Map.Entry<K, Callable<V>> entry : loaders.entrySet()) {
+			futures.put(entry.getKey(), executor.submit(entry.getValue()));
+		}
+		
+		return futures;
+	}
+	
+	private static <V> V getLoaded(Future<V> future) throws IOException, InvalidFormatException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading reference data");
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof InvalidFormatException) {
+				throw (InvalidFormatException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+	
 	public List<DisequilibriumElement> getDisequilibriumElements(EnumSet<Locus> loci) {
 		if (this.disequilibriumElementsMap.containsKey(loci)) {
 			return this.disequilibriumElementsMap.get(loci);
@@ -310,6 +449,13 @@ public class HLAFrequenciesLoader {
 		return new ArrayList<DisequilibriumElement>();
 	}
 	
+	/**
+	 * @return the frequencies loaded, or null if loaded from frequency files
+	 */
+	public Frequencies getFrequencies() {
+		return this.frequencies;
+	}
+	
 	public Set<EnumSet<Locus>> getLoci() {
 		return this.disequilibriumElementsMap.keySet();
 	}
@@ -391,12 +537,25 @@ public class HLAFrequenciesLoader {
 			throw new FileNotFoundException();
 		}
 		
-		InputStreamReader isr = new InputStreamReader(inStream);
-		BufferedReader reader = new BufferedReader(isr);
+		return loadStandardReferenceData(inStream);
+	}
 
-		return loadStandardReferenceData(reader);
+	/**
+	 * Loads frequencies in the standard format (race,haplotype,frequency[,rank]), closing the stream.
+	 */
+	public static List<DisequilibriumElement> loadStandardReferenceData(InputStream inStream) throws IOException {
+		try {
+			return new StandardFrequencyParser().parse(inStream).getRows();
+		}
+		finally {
+			inStream.close();
+		}
 	}
 
+	/**
+	 * @deprecated use loadStandardReferenceData(InputStream), which parses in a single pass
+	 */
+	@Deprecated
 	public static List<DisequilibriumElement> loadStandardReferenceData(
 			BufferedReader reader) throws IOException {
 		String row;
@@ -473,36 +632,26 @@ public class HLAFrequenciesLoader {
 
 	public static List<DisequilibriumElement> loadNMDPLinkageReferenceData(
 			InputStream inStream,
-			Locus[] locusPositions) throws IOException, InvalidFormatException {
-		List<DisequilibriumElement> disequilibriumElements = new ArrayList<DisequilibriumElement>();
+			final Locus[] locusPositions) throws IOException, InvalidFormatException {
+		final ReferenceTable.Builder table = new ReferenceTable.Builder();
+		final List<String> raceHeaders = new ArrayList<String>();
 
-		Workbook workbook = WorkbookFactory.create(inStream);
-       
-        // Return first sheet from the XLSX workbook
-        Sheet mySheet = workbook.getSheetAt(0);
-       
-        // Get iterator to all the rows in current sheet
-        Iterator<Row> rowIterator = mySheet.iterator();
-        
-        int firstRow = mySheet.getFirstRowNum();
-        
-        List<String> raceHeaders = null;
-
-        // Traversing over each row of XLSX file
-        while (rowIterator.hasNext()) {
-            Row row = rowIterator.next();
-
-            if (row.getRowNum() == firstRow) {
-            	raceHeaders = readHeaderElementsByRace(row);
-            }
-            else {
-	            disequilibriumElements.add(readDiseqilibriumElementsByRace(row, raceHeaders, locusPositions));
-            }            
-        }
-        
-        workbook.close();
+		try {
+			// Streams the rows of the first sheet, the first of which holds the race headers
+			StreamingWorkbookReader.readFirstSheet(inStream, row -> {
+				if (row.isFirstRow()) {
+					readHeaderElementsByRace(row, raceHeaders);
+				}
+				else {
+					readDiseqilibriumElementsByRace(row, raceHeaders, locusPositions, table);
+				}
+			});
+		}
+		finally {
+			inStream.close();
+		}
         
-        return disequilibriumElements;
+        return table.build().getRows();
 	}
 	
 	private void loadIndividualLocusFrequencies(File allelesFile) throws IOException {
@@ -541,17 +690,17 @@ public class HLAFrequenciesLoader {
 		reader.close();
 	}
 	
-	private void loadIndividualLocusFrequencies(Frequencies freq) throws IOException, InvalidFormatException {
-		for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
-			for (Locus locus : linkage.getLoci()) {
-				if (locus.hasIndividualFrequencies()) {
-					loadIndividualLocusFrequency(freq, locus);
+	private void addIndividualLocusFrequencyLoaders(Frequencies freq, Set<Linkages> linkages, Map<Locus, Callable<List<String>>> locusLoaders) {
+		for (Linkages linkage : linkages) {
+			for (final Locus locus : linkage.getLoci()) {
+				if (locus.hasIndividualFrequencies() && !locusLoaders.containsKey(locus)) {
+					locusLoaders.put(locus, () -> loadIndividualLocusFrequency(freq, locus));
 				}
 			}
 		}
 	}
 
-	private void loadIndividualLocusFrequency(Frequencies freq, Locus locus)
+	private List<String> loadIndividualLocusFrequency(Frequencies freq, Locus locus)
 			throws IOException, InvalidFormatException {
 		String extension = freq.equals(Frequencies.NMDP) || freq.equals(Frequencies.NMDP_STD) ? ".xlsx" : ".xls";
 		String shortName = freq.getShortName();
@@ -559,123 +708,96 @@ public class HLAFrequenciesLoader {
 		if (freq.equals(Frequencies.NMDP_2007_STD)) shortName = Frequencies.NMDP_2007_STD.getShortName();
 		InputStream inputStream = HLAFrequenciesLoader.class.getClassLoader().getResourceAsStream("frequencies/" + shortName + "/" + locus.getFrequencyName() + extension);
       
-		if (inputStream == null) return;
+		if (inputStream == null) return null;
 		
-		List<String> singleLocusFrequencies = loadIndividualLocusFrequency(inputStream);
-		
-		individualLocusFrequencies.put(locus,  singleLocusFrequencies);
+		return loadIndividualLocusFrequency(inputStream);
 	}
 
 	public static List<String> loadIndividualLocusFrequency(InputStream inputStream)
 			throws IOException, InvalidFormatException {
-		String detectedLocus = null;
-		String locusShortName = null;
-		List<String> singleLocusFrequencies = new ArrayList<String>();
+		final List<String> singleLocusFrequencies = new ArrayList<String>();
+		final String[] locusShortName = new String[1];
 
-		Workbook workbook = WorkbookFactory.create(inputStream);
-		
-		// Return first sheet from the XLSX workbook
-		Sheet mySheet = workbook.getSheetAt(0);
-      
-		// Get iterator to all the rows in current sheet
-		Iterator<Row> rowIterator = mySheet.iterator();
-		
-		int firstRow = mySheet.getFirstRowNum();
-			
-		String cellValue = null;
-		
-		// Traversing over each row of XLSX file
-		while (rowIterator.hasNext()) {
-		    Row row = rowIterator.next();
-
-		    if (row.getRowNum() == firstRow) {
-		    	detectedLocus = row.getCell(0).getStringCellValue();
-		    	locusShortName = Locus.lookup(detectedLocus).getShortName();
-		    	continue;
-		    }
-		    else {
-			    cellValue = row.getCell(0).getStringCellValue();
-			    if (!cellValue.contains(GLStringConstants.ASTERISK)) {
-			    	cellValue = locusShortName + GLStringConstants.ASTERISK + cellValue.substring(0, 2) + GLStringUtilities.COLON + cellValue.substring(2);
+		try {
+			StreamingWorkbookReader.readFirstSheet(inputStream, row -> {
+				String cellValue = row.getString(row.indexOf(0));
+				
+			    if (row.isFirstRow()) {
+			    	locusShortName[0] = Locus.lookup(cellValue).getShortName();
+			    }
+			    else {
+				    if (!cellValue.contains(GLStringConstants.ASTERISK)) {
+				    	cellValue = locusShortName[0] + GLStringConstants.ASTERISK + cellValue.substring(0, 2) + GLStringUtilities.COLON + cellValue.substring(2);
+				    }
+					singleLocusFrequencies.add(GLStringConstants.HLA_DASH + cellValue);
 			    }
-				singleLocusFrequencies.add(GLStringConstants.HLA_DASH + cellValue);
-		    }            
+			});
+		}
+		finally {
+			inputStream.close();
 		}
 		
-		workbook.close();
 		return singleLocusFrequencies;
 	}
 	
-	private static List<String> readHeaderElementsByRace(Row row) {		
-		List<String> raceHeaders = new ArrayList<String>();
-		
-		Iterator<Cell> cellIterator = row.cellIterator();
-
-		while (cellIterator.hasNext()) {
-			Cell cell = cellIterator.next();
-			
-			String[] race = cell.getStringCellValue().split(UNDERSCORE);
-			raceHeaders.add(cell.getColumnIndex(), race[0]);
+	private static void readHeaderElementsByRace(SheetRow row, List<String> raceHeaders) {		
+		for (int i=0;i<row.size();i++) {
+			String[] race = row.getString(i).split(UNDERSCORE);
+			raceHeaders.add(row.getColumn(i), race[0]);
 		}
-		
-		return raceHeaders;
 	}
 
 	/**
 	 * @param row
 	 */
-	private static DisequilibriumElement readDiseqilibriumElementsByRace(Row row, List<String> raceHeaders, Locus[] locusPositions) {		
-		// For each row, iterate through each columns
-		Iterator<Cell> cellIterator = row.cellIterator();
-		
+	private static void readDiseqilibriumElementsByRace(SheetRow row, List<String> raceHeaders, Locus[] locusPositions, ReferenceTable.Builder table) {		
 		List<FrequencyByRace> frequenciesByRace  = new ArrayList<FrequencyByRace>();
-		DisequilibriumElementByRace disElement = new DisequilibriumElementByRace();
+		int tableRow = table.addRow();
 		
 		int columnIndex;
 		String cellValue = null;
 		
-		while (cellIterator.hasNext()) {
-		    Cell cell = cellIterator.next();
-
-		    columnIndex = cell.getColumnIndex();
+		// For each row, iterate through each columns
+		for (int i=0;i<row.size();i++) {
+		    columnIndex = row.getColumn(i);
 		    
 		    if (columnIndex < locusPositions.length) {
-			    cellValue = cell.getStringCellValue();
+			    cellValue = row.getString(i);
 			    if (!cellValue.contains(GLStringConstants.ASTERISK)) {
 			    	cellValue = locusPositions[columnIndex].getShortName() + GLStringConstants.ASTERISK + cellValue.substring(0, 2) + GLStringUtilities.COLON + cellValue.substring(2);
 			    }
-			    List<String> val = new ArrayList<String>();
-			    val.add(GLStringConstants.HLA_DASH + cellValue);
-		    	disElement.setHlaElement(locusPositions[columnIndex], val);
+		    	table.setAllele(tableRow, locusPositions[columnIndex], GLStringConstants.HLA_DASH + cellValue);
 		    }
 		    else {
 		    	if ((locusPositions.length % 2 == 0 && columnIndex % 2 == 0) || (locusPositions.length % 2 != 0 && columnIndex % 2 != 0)) {
-		    		disElement.setFrequenciesByRace(loadFrequencyAndRank(row, cell, frequenciesByRace, raceHeaders));
+		    		loadFrequencyAndRank(row, i, frequenciesByRace, raceHeaders);
 		    	}
 		    }
 		}
 		
-	    return disElement;
+		// sorted once per row, rather than after each frequency
+		Collections.sort(frequenciesByRace, new FrequencyByRaceComparator());
+		for (FrequencyByRace frequencyByRace : frequenciesByRace) {
+			table.addFrequency(tableRow, frequencyByRace.getRace(), frequencyByRace.getFrequency(), frequencyByRace.getRank());
+		}
 	}
 
 	/**
 	 * @param row
-	 * @param frequenciesByRace
 	 * @param cell
-	 * @param idx
+	 * @param frequenciesByRace
+	 * @param raceHeaders
 	 */
-	private static List<FrequencyByRace> loadFrequencyAndRank(Row row, Cell cell, 
+	private static void loadFrequencyAndRank(SheetRow row, int cell, 
 			List<FrequencyByRace> frequenciesByRace, List<String> raceHeaders) {
-		Double freq = cell.getNumericCellValue();
+		double freq = row.getNumber(cell);
 		
 		if (freq != 0) {
-			FrequencyByRace frequencyByRace = new FrequencyByRace(freq, ((Double) row.getCell(cell.getColumnIndex() + 1).getNumericCellValue()).toString(), raceHeaders.get(cell.getColumnIndex()));
+			int columnIndex = row.getColumn(cell);
+			double rank = row.getNumber(row.indexOf(columnIndex + 1));
+			FrequencyByRace frequencyByRace = new FrequencyByRace(freq, Double.toString(rank), raceHeaders.get(columnIndex));
 			frequenciesByRace.add(frequencyByRace);
 		}
-		
-		Collections.sort(frequenciesByRace, new FrequencyByRaceComparator());
-		
-		return frequenciesByRace;
 	}
 	
 	public List<DisequilibriumElement> loadLinkageReferenceData(String filename, Locus[] locusPositions) throws FileNotFoundException, IOException {
@@ -0,0 +1,126 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid.freq;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.dash.valid.ars.AntigenRecognitionSiteLoader;
+import org.dash.valid.gl.GLStringUtilities;
+
+/**
+ * Index of the frequency bearing alleles of one locus, answering which is the first (in file order) to
+ * match an allele by field level comparison or antigen recognition site, as a scan of the list with
+ * GLStringUtilities.fieldLevelComparison() and checkAntigenRecognitionSite() would.
+ *
+ * An allele of n fields matches, by field level comparison, those of at least n fields sharing its n
+ * fields, and those of fewer fields equal to the same number of its leading fields.  Each is looked up
+ * by key, keeping the lowest position; the antigen recognition site matches are indexed by protein
+ * level allele, once for each ARS data set in use.
+ */
+class IndividualFrequencyIndex {
+	private final List<String> alleles;
+
+	// leading fields -> position of the first allele with at least that many fields
+	private final HashMap<String, Integer> prefixPositions = new HashMap<String, Integer>();
+
+	// allele -> position of its first occurrence
+	private final HashMap<String, Integer> positions = new HashMap<String, Integer>();
+
+	// ARS data -> protein level allele -> position of the first allele whose g group includes it
+	private final Map<AntigenRecognitionSiteLoader, HashMap<String, Integer>> arsPositions = 
+			Collections.synchronizedMap(new WeakHashMap<AntigenRecognitionSiteLoader, HashMap<String, Integer>>());
+
+	IndividualFrequencyIndex(List<String> alleles) {
+		this.alleles = alleles;
+
+		for (int i = 0; i < alleles.size(); i++) {
+			String allele = alleles.get(i);
+			positions.putIfAbsent(allele, i);
+
+			String[] fields = allele.split(GLStringUtilities.COLON);
+			StringBuilder prefix = new StringBuilder();
+			for (int j = 0; j < fields.length; j++) {
+				if (j > 0) prefix.append(GLStringUtilities.COLON);
+				prefix.append(fields[j]);
+				prefixPositions.putIfAbsent(prefix.toString(), i);
+			}
+		}
+	}
+
+	/**
+	 * @return the first frequency bearing allele matching the specified allele, or null
+	 */
+	String lookup(String allele, AntigenRecognitionSiteLoader arsLoader) {
+		int first = Integer.MAX_VALUE;
+
+		String[] fields = allele.split(GLStringUtilities.COLON);
+		StringBuilder prefix = new StringBuilder();
+		for (int j = 0; j < fields.length; j++) {
+			if (j > 0) prefix.append(GLStringUtilities.COLON);
+			prefix.append(fields[j]);
+
+			Integer position = (j < fields.length - 1) ? positions.get(prefix.toString()) : prefixPositions.get(prefix.toString());
+			if (position != null && position < first) {
+				first = position;
+			}
+		}
+
+		// only an earlier allele could match by antigen recognition site instead
+		if (first > 0 && arsLoader != null) {
+			String proteinAllele = GLStringUtilities.convertToProteinLevel(allele);
+			if (proteinAllele != null) {
+				Integer position = getArsPositions(arsLoader).get(proteinAllele);
+				if (position != null && position < first) {
+					first = position;
+				}
+			}
+		}
+
+		return (first < Integer.MAX_VALUE) ? alleles.get(first) : null;
+	}
+
+	private HashMap<String, Integer> getArsPositions(AntigenRecognitionSiteLoader arsLoader) {
+		HashMap<String, Integer> proteinPositions = arsPositions.get(arsLoader);
+		if (proteinPositions == null) {
+			HashMap<String, HashSet<String>> arsMap = arsLoader.getArsMap();
+			proteinPositions = new HashMap<String, Integer>();
+
+			for (int i = 0; i < alleles.size(); i++) {
+				HashSet<String> proteinAlleles = arsMap.get(alleles.get(i));
+				if (proteinAlleles != null) {
+					for (String proteinAllele : proteinAlleles) {
+						proteinPositions.putIfAbsent(proteinAllele, i);
+					}
+				}
+			}
+
+			arsPositions.put(arsLoader, proteinPositions);
+		}
+
+		return proteinPositions;
+	}
+}
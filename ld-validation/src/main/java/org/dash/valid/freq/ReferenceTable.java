@@ -0,0 +1,369 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid.freq;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.dash.valid.DisequilibriumElement;
+import org.dash.valid.Locus;
+import org.dash.valid.race.DisequilibriumElementByRace;
+import org.dash.valid.race.FrequencyByRace;
+
+/**
+ * Columnar store of the reference rows (haplotypes and their frequencies by race) for one linkage.
+ * Alleles are held as int ids into a per table dictionary, one column per locus, and each row's
+ * frequencies as a range of the race, frequency and rank columns.  Rows are exposed as lightweight
+ * DisequilibriumElement views holding only a row index.
+ */
+public final class ReferenceTable {
+	private static final int NONE = -1;
+
+	private final Locus[] loci;
+	private final int[] columnByLocus;
+	private final int[][] alleleIds;
+	private final List<String>[] alleles;
+	private final String[] races;
+	private final String[] ranks;
+	private final int[] frequencyOffsets;
+	private final int[] raceIds;
+	private final double[] frequencies;
+	private final int[] rankIds;
+	private final Set<Locus> allLoci;
+	private final List<DisequilibriumElement> rows;
+
+	private ReferenceTable(Builder builder, int[] order) {
+		int rowCount = order.length;
+		int columns = builder.loci.size();
+
+		this.loci = builder.loci.toArray(new Locus[columns]);
+		this.columnByLocus = builder.columnByLocus.clone();
+		this.alleles = builder.alleleLists.toArray(newListArray(builder.alleleLists.size()));
+		this.races = builder.races.toArray(new String[builder.races.size()]);
+		this.ranks = builder.ranks.toArray(new String[builder.ranks.size()]);
+
+		this.alleleIds = new int[columns][rowCount];
+		for (int column = 0; column < columns; column++) {
+			for (int row = 0; row < rowCount; row++) {
+				alleleIds[column][row] = builder.alleleIds[column][order[row]];
+			}
+		}
+
+		// counting sort of the frequencies by row, keeping the order they were added in within each row
+		int[] rowOf = new int[builder.rows];
+		for (int row = 0; row < rowCount; row++) {
+			rowOf[order[row]] = row;
+		}
+
+		this.frequencyOffsets = new int[rowCount + 1];
+		for (int i = 0; i < builder.entries; i++) {
+			frequencyOffsets[rowOf[builder.entryRows[i]] + 1]++;
+		}
+		for (int row = 0; row < rowCount; row++) {
+			frequencyOffsets[row + 1] += frequencyOffsets[row];
+		}
+
+		this.raceIds = new int[builder.entries];
+		this.frequencies = new double[builder.entries];
+		this.rankIds = new int[builder.entries];
+		int[] next = Arrays.copyOf(frequencyOffsets, rowCount);
+		for (int i = 0; i < builder.entries; i++) {
+			int position = next[rowOf[builder.entryRows[i]]]++;
+			raceIds[position] = builder.entryRaces[i];
+			frequencies[position] = builder.entryFrequencies[i];
+			rankIds[position] = builder.entryRanks[i];
+		}
+
+		this.allLoci = Collections.unmodifiableSet(columns > 0 ? EnumSet.copyOf(builder.loci) : EnumSet.noneOf(Locus.class));
+
+		DisequilibriumElement[] views = new DisequilibriumElement[rowCount];
+		for (int row = 0; row < rowCount; row++) {
+			views[row] = new Row(this, row);
+		}
+		this.rows = Collections.unmodifiableList(Arrays.asList(views));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String>[] newListArray(int size) {
+		return new List[size];
+	}
+
+	/**
+	 * @return a view of each row, in order
+	 */
+	public List<DisequilibriumElement> getRows() {
+		return rows;
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	public Set<Locus> getLoci() {
+		return allLoci;
+	}
+
+	/**
+	 * @return the allele at the specified locus of the specified row, as a single element list, or null
+	 */
+	public List<String> getAllele(int row, Locus locus) {
+		int column = columnByLocus[locus.ordinal()];
+		if (column == NONE) {
+			return null;
+		}
+
+		int alleleId = alleleIds[column][row];
+		return (alleleId != NONE) ? alleles[alleleId] : null;
+	}
+
+	public Set<Locus> getLoci(int row) {
+		for (int column = 0; column < loci.length; column++) {
+			if (alleleIds[column][row] == NONE) {
+				Set<Locus> rowLoci = EnumSet.noneOf(Locus.class);
+				for (Locus locus : loci) {
+					if (getAllele(row, locus) != null) {
+						rowLoci.add(locus);
+					}
+				}
+				return rowLoci;
+			}
+		}
+
+		return allLoci;
+	}
+
+	public int getFrequencyCount(int row) {
+		return frequencyOffsets[row + 1] - frequencyOffsets[row];
+	}
+
+	/**
+	 * @return the frequencies of the specified row, created on each call
+	 */
+	public List<FrequencyByRace> getFrequenciesByRace(int row) {
+		List<FrequencyByRace> frequenciesByRace = new ArrayList<FrequencyByRace>(getFrequencyCount(row));
+		for (int i = frequencyOffsets[row]; i < frequencyOffsets[row + 1]; i++) {
+			frequenciesByRace.add(new FrequencyByRace(frequencies[i], (rankIds[i] != NONE) ? ranks[rankIds[i]] : null, races[raceIds[i]]));
+		}
+
+		return frequenciesByRace;
+	}
+
+	/**
+	 * A row of the table.  Its alleles and frequencies are read from the table, and may not be modified.
+	 */
+	public static final class Row extends DisequilibriumElementByRace {
+		private final ReferenceTable table;
+		private final int row;
+
+		private Row(ReferenceTable table, int row) {
+			super(null, null);
+			this.table = table;
+			this.row = row;
+		}
+
+		public ReferenceTable getTable() {
+			return table;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		@Override
+		public List<String> getHlaElement(Locus locus) {
+			return table.getAllele(row, locus);
+		}
+
+		@Override
+		public Collection<List<String>> getHlaElements() {
+			List<List<String>> hlaElements = new ArrayList<List<String>>();
+			for (Locus locus : getLoci()) {
+				hlaElements.add(getHlaElement(locus));
+			}
+
+			return hlaElements;
+		}
+
+		@Override
+		public Set<Locus> getLoci() {
+			return table.getLoci(row);
+		}
+
+		@Override
+		public void setHlaElement(Locus locus, List<String> hlaElement) {
+			throw new UnsupportedOperationException("Reference rows may not be modified");
+		}
+
+		@Override
+		public void setHlaElementMap(HashMap<Locus, List<String>> hlaElementMap) {
+			throw new UnsupportedOperationException("Reference rows may not be modified");
+		}
+
+		@Override
+		public List<FrequencyByRace> getFrequenciesByRace() {
+			return table.getFrequenciesByRace(row);
+		}
+
+		@Override
+		public int getFrequencyCount() {
+			return table.getFrequencyCount(row);
+		}
+
+		@Override
+		public void setFrequenciesByRace(List<FrequencyByRace> frequenciesByRace) {
+			throw new UnsupportedOperationException("Reference rows may not be modified");
+		}
+	}
+
+	/**
+	 * Accumulates rows, in any order and with their frequencies added in any order, before building the
+	 * table.  Not thread safe.
+	 */
+	public static final class Builder {
+		private final List<Locus> loci = new ArrayList<Locus>();
+		private final int[] columnByLocus = new int[Locus.values().length];
+		private int[][] alleleIds = new int[0][];
+
+		private final HashMap<String, Integer> alleleIndex = new HashMap<String, Integer>();
+		private final List<List<String>> alleleLists = new ArrayList<List<String>>();
+		private final HashMap<String, Integer> raceIndex = new HashMap<String, Integer>();
+		private final List<String> races = new ArrayList<String>();
+		private final HashMap<String, Integer> rankIndex = new HashMap<String, Integer>();
+		private final List<String> ranks = new ArrayList<String>();
+
+		private int rows = 0;
+		private int capacity = 16;
+
+		private int entries = 0;
+		private int[] entryRows = new int[64];
+		private int[] entryRaces = new int[64];
+		private int[] entryRanks = new int[64];
+		private double[] entryFrequencies = new double[64];
+
+		public Builder() {
+			Arrays.fill(columnByLocus, NONE);
+		}
+
+		/**
+		 * @return the index of the new row, with no alleles or frequencies
+		 */
+		public int addRow() {
+			if (rows == capacity) {
+				capacity *= 2;
+				for (int column = 0; column < alleleIds.length; column++) {
+					alleleIds[column] = grow(alleleIds[column], capacity);
+				}
+			}
+
+			return rows++;
+		}
+
+		public void setAllele(int row, Locus locus, String allele) {
+			int column = columnByLocus[locus.ordinal()];
+			if (column == NONE) {
+				column = loci.size();
+				loci.add(locus);
+				columnByLocus[locus.ordinal()] = column;
+
+				alleleIds = Arrays.copyOf(alleleIds, column + 1);
+				alleleIds[column] = new int[capacity];
+				Arrays.fill(alleleIds[column], NONE);
+			}
+
+			Integer alleleId = alleleIndex.get(allele);
+			if (alleleId == null) {
+				alleleId = alleleLists.size();
+				alleleIndex.put(allele, alleleId);
+				alleleLists.add(Collections.singletonList(allele));
+			}
+
+			alleleIds[column][row] = alleleId;
+		}
+
+		/**
+		 * @param rank the rank, or null
+		 */
+		public void addFrequency(int row, String race, double frequency, String rank) {
+			if (entries == entryRows.length) {
+				int length = entries * 2;
+				entryRows = Arrays.copyOf(entryRows, length);
+				entryRaces = Arrays.copyOf(entryRaces, length);
+				entryRanks = Arrays.copyOf(entryRanks, length);
+				entryFrequencies = Arrays.copyOf(entryFrequencies, length);
+			}
+
+			entryRows[entries] = row;
+			entryRaces[entries] = id(race, raceIndex, races);
+			entryRanks[entries] = (rank != null) ? id(rank, rankIndex, ranks) : NONE;
+			entryFrequencies[entries] = frequency;
+			entries++;
+		}
+
+		public int getRowCount() {
+			return rows;
+		}
+
+		/**
+		 * @return the table, with the rows in the order added
+		 */
+		public ReferenceTable build() {
+			int[] order = new int[rows];
+			for (int row = 0; row < rows; row++) {
+				order[row] = row;
+			}
+
+			return new ReferenceTable(this, order);
+		}
+
+		/**
+		 * @param order the rows, by index, in the order they are to appear in the table
+		 */
+		public ReferenceTable build(int[] order) {
+			return new ReferenceTable(this, order);
+		}
+
+		private static int id(String value, HashMap<String, Integer> index, List<String> values) {
+			Integer id = index.get(value);
+			if (id == null) {
+				id = values.size();
+				index.put(value, id);
+				values.add(value);
+			}
+
+			return id;
+		}
+
+		private static int[] grow(int[] column, int length) {
+			int size = column.length;
+			column = Arrays.copyOf(column, length);
+			Arrays.fill(column, size, length, NONE);
+
+			return column;
+		}
+	}
+}
@@ -0,0 +1,336 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid.freq;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.dash.valid.Locus;
+
+/**
+ * Single pass parser for the standard frequency format (race,haplotype,frequency[,rank]).  Rows are
+ * tokenized in place in a byte buffer; races, ranks, haplotypes and alleles are shared through a
+ * dictionary so each distinct value is decoded once, and each haplotype's alleles are added to the
+ * reference table the first time it is seen.
+ */
+class StandardFrequencyParser {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_COLUMNS = 5;
+	private static final int RANK_COLUMNS = 4;
+	private static final int MAX_EXACT_DIGITS = 15;
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private static final byte COMMA = ',';
+	private static final byte GENE_PHASE_DELIMITER = '~';
+	private static final byte ASTERISK = '*';
+
+	private final TokenDictionary tokens = new TokenDictionary();
+	private final ReferenceTable.Builder table = new ReferenceTable.Builder();
+	private final HashMap<String, Integer> rows = new HashMap<String, Integer>();
+	private final HashMap<String, Locus> locusMap = new HashMap<String, Locus>();
+	private final int[] starts = new int[MAX_COLUMNS];
+	private final int[] ends = new int[MAX_COLUMNS];
+
+	ReferenceTable parse(InputStream inputStream) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int length = 0;
+		int scanned = 0;
+		int read;
+
+		while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+
+			int lineStart = 0;
+			for (int i = scanned; i < length; i++) {
+				if (buffer[i] == '\n') {
+					parseLine(buffer, lineStart, i);
+					lineStart = i + 1;
+				}
+			}
+
+			// carry the partial line over, growing the buffer for lines longer than it
+			length -= lineStart;
+			System.arraycopy(buffer, lineStart, buffer, 0, length);
+			scanned = length;
+			if (length == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+		}
+
+		if (length > 0) {
+			parseLine(buffer, 0, length);
+		}
+
+		// rows in the order of the haplotype map, as the elements were before being held in a table
+		int[] order = new int[rows.size()];
+		int i = 0;
+		for (Integer row : rows.values()) {
+			order[i++] = row;
+		}
+
+		return table.build(order);
+	}
+
+	private void parseLine(byte[] buffer, int start, int end) throws IOException {
+		if (end > start && buffer[end - 1] == '\r') {
+			end--;
+		}
+
+		if (end == start) {
+			return;
+		}
+
+		int columns = 0;
+		starts[0] = start;
+		for (int i = start; i < end && columns < MAX_COLUMNS - 1; i++) {
+			if (buffer[i] == COMMA) {
+				ends[columns] = i;
+				starts[++columns] = i + 1;
+			}
+		}
+		ends[columns++] = end;
+
+		// trailing empty columns are ignored, as String.split does
+		while (columns > 0 && starts[columns - 1] == ends[columns - 1]) {
+			columns--;
+		}
+
+		if (columns < 3) {
+			throw new IOException("Invalid frequency row: " + new String(buffer, start, end - start, StandardCharsets.UTF_8));
+		}
+
+		String race = token(buffer, 0);
+		String haplotype = token(buffer, 1);
+		double frequency = parseFrequency(buffer, starts[2], ends[2]);
+		String rank = columns == RANK_COLUMNS ? token(buffer, 3) : null;
+
+		Integer row = rows.get(haplotype);
+
+		if (row == null) {
+			row = table.addRow();
+			parseHaplotype(buffer, starts[1], ends[1], row);
+			rows.put(haplotype, row);
+		}
+
+		table.addFrequency(row, race, frequency, rank);
+	}
+
+	private void parseHaplotype(byte[] buffer, int start, int end, int row) {
+		int alleleStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i == end || buffer[i] == GENE_PHASE_DELIMITER) {
+				int locusEnd = alleleStart;
+				while (locusEnd < i && buffer[locusEnd] != ASTERISK) {
+					locusEnd++;
+				}
+
+				String locusName = tokens.get(buffer, alleleStart, locusEnd - alleleStart);
+				Locus locus;
+				if (locusMap.containsKey(locusName)) {
+					locus = locusMap.get(locusName);
+				}
+				else {
+					locus = Locus.normalizeLocus(Locus.lookup(locusName));
+					locusMap.put(locusName, locus);
+				}
+
+				table.setAllele(row, locus, tokens.get(buffer, alleleStart, i - alleleStart));
+				alleleStart = i + 1;
+			}
+		}
+	}
+
+	private String token(byte[] buffer, int column) {
+		return tokens.get(buffer, starts[column], ends[column] - starts[column]);
+	}
+
+	/**
+	 * Parses decimal frequencies exactly when the significant digits and exponent are small enough
+	 * for a single correctly rounded multiplication or division, falling back to Double.valueOf.
+	 */
+	static Double parseFrequency(byte[] buffer, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+			negative = buffer[i] == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean point = false;
+		boolean any = false;
+
+		for (; i < end; i++) {
+			byte b = buffer[i];
+			if (b >= '0' && b <= '9') {
+				any = true;
+				if (mantissa != 0 || b != '0') {
+					if (++digits > MAX_EXACT_DIGITS) {
+						return slowParseFrequency(buffer, start, end);
+					}
+					mantissa = mantissa * 10 + (b - '0');
+				}
+				if (point) {
+					scale--;
+				}
+			}
+			else if (b == '.' && !point) {
+				point = true;
+			}
+			else {
+				break;
+			}
+		}
+
+		if (!any) {
+			return slowParseFrequency(buffer, start, end);
+		}
+
+		if (i < end) {
+			if (buffer[i] != 'E' && buffer[i] != 'e') {
+				return slowParseFrequency(buffer, start, end);
+			}
+			i++;
+
+			boolean negativeExponent = false;
+			if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+				negativeExponent = buffer[i] == '-';
+				i++;
+			}
+
+			if (i == end || end - i > 3) {
+				return slowParseFrequency(buffer, start, end);
+			}
+
+			int exponent = 0;
+			for (; i < end; i++) {
+				byte b = buffer[i];
+				if (b < '0' || b > '9') {
+					return slowParseFrequency(buffer, start, end);
+				}
+				exponent = exponent * 10 + (b - '0');
+			}
+			scale += negativeExponent ? -exponent : exponent;
+		}
+
+		double value = mantissa;
+		if (mantissa != 0) {
+			if (scale > 0 && scale < POWERS_OF_TEN.length) {
+				value *= POWERS_OF_TEN[scale];
+			}
+			else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+				value /= POWERS_OF_TEN[-scale];
+			}
+			else if (scale != 0) {
+				return slowParseFrequency(buffer, start, end);
+			}
+		}
+
+		return negative ? -value : value;
+	}
+
+	private static Double slowParseFrequency(byte[] buffer, int start, int end) {
+		return Double.valueOf(new String(buffer, start, end - start, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Open addressing table from byte ranges to the strings they decode to.
+	 */
+	private static final class TokenDictionary {
+		private byte[][] keys = new byte[1024][];
+		private String[] values = new String[1024];
+		private int[] hashes = new int[1024];
+		private int size = 0;
+
+		String get(byte[] buffer, int offset, int length) {
+			int hash = hash(buffer, offset, length);
+			int mask = values.length - 1;
+
+			for (int i = hash & mask; ; i = (i + 1) & mask) {
+				if (values[i] == null) {
+					String value = new String(buffer, offset, length, StandardCharsets.UTF_8);
+					keys[i] = Arrays.copyOfRange(buffer, offset, offset + length);
+					values[i] = value;
+					hashes[i] = hash;
+
+					if (++size * 2 > values.length) {
+						resize();
+					}
+					return value;
+				}
+
+				if (hashes[i] == hash && matches(keys[i], buffer, offset, length)) {
+					return values[i];
+				}
+			}
+		}
+
+		private static int hash(byte[] buffer, int offset, int length) {
+			int hash = 1;
+			for (int i = offset; i < offset + length; i++) {
+				hash = 31 * hash + buffer[i];
+			}
+			return hash ^ (hash >>> 16);
+		}
+
+		private static boolean matches(byte[] key, byte[] buffer, int offset, int length) {
+			if (key.length != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (key[i] != buffer[offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void resize() {
+			byte[][] oldKeys = keys;
+			String[] oldValues = values;
+			int[] oldHashes = hashes;
+
+			keys = new byte[oldValues.length * 2][];
+			values = new String[oldValues.length * 2];
+			hashes = new int[oldValues.length * 2];
+			int mask = values.length - 1;
+
+			for (int j = 0; j < oldValues.length; j++) {
+				if (oldValues[j] != null) {
+					int i = oldHashes[j] & mask;
+					while (values[i] != null) {
+						i = (i + 1) & mask;
+					}
+					keys[i] = oldKeys[j];
+					values[i] = oldValues[j];
+					hashes[i] = oldHashes[j];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,481 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid.freq;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.POIXMLDocument;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Streams the rows of the first sheet of an .xls (HSSF event model) or .xlsx (XSSF SAX) workbook,
+ * without building the workbook object model.  Rows without cells are skipped.  An .xls container
+ * is read into memory as is, but an .xlsx package is read from a file, since a package opened from a
+ * stream is held in memory with every part inflated.
+ */
+class StreamingWorkbookReader {
+	interface RowHandler {
+		/**
+		 * @param row the current row, only valid for the duration of the call
+		 */
+		void handleRow(SheetRow row);
+	}
+
+	private static final short ABORT = 1;
+	private static final String SPOOL_PREFIX = "workbook";
+	private static final String SPOOL_SUFFIX = ".xlsx";
+
+	private StreamingWorkbookReader() {
+	}
+
+	static void readFirstSheet(InputStream inputStream, RowHandler handler) throws IOException, InvalidFormatException {
+		InputStream in = inputStream.markSupported() ? inputStream : new PushbackInputStream(inputStream, 8);
+
+		if (POIFSFileSystem.hasPOIFSHeader(in)) {
+			readHSSF(new POIFSFileSystem(in), handler);
+		}
+		else if (POIXMLDocument.hasOOXMLHeader(in)) {
+			Path spool = Files.createTempFile(SPOOL_PREFIX, SPOOL_SUFFIX);
+			try {
+				Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+				readXSSF(spool.toFile(), handler);
+			}
+			finally {
+				Files.deleteIfExists(spool);
+			}
+		}
+		else {
+			throw new InvalidFormatException("Input is neither an .xls nor an .xlsx workbook");
+		}
+	}
+
+	/**
+	 * Reads an .xlsx workbook, only inflating the parts of the package as they are read.
+	 */
+	static void readXSSF(File file, RowHandler handler) throws IOException, InvalidFormatException {
+		readXSSF(OPCPackage.open(file, PackageAccess.READ), handler);
+	}
+
+	private static void readHSSF(POIFSFileSystem fileSystem, RowHandler handler) throws IOException {
+		HSSFRequest request = new HSSFRequest();
+		request.addListenerForAllRecords(new HSSFRowListener(handler));
+
+		try {
+			new HSSFEventFactory().abortableProcessWorkbookEvents(request, fileSystem);
+		}
+		catch (HSSFUserException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static void readXSSF(OPCPackage pkg, RowHandler handler) throws IOException, InvalidFormatException {
+		try {
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+			Iterator<InputStream> sheets = reader.getSheetsData();
+
+			if (!sheets.hasNext()) {
+				return;
+			}
+
+			try (InputStream sheet = sheets.next()) {
+				SAXParserFactory factory = SAXParserFactory.newInstance();
+				factory.setNamespaceAware(true);
+				XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+				xmlReader.setContentHandler(new XSSFRowHandler(strings, handler));
+				xmlReader.parse(new InputSource(sheet));
+			}
+		}
+		catch (InvalidFormatException e) {
+			throw e;
+		}
+		catch (OpenXML4JException e) {
+			throw new InvalidFormatException(e.getMessage());
+		}
+		catch (SAXException | ParserConfigurationException e) {
+			throw new IOException(e);
+		}
+		finally {
+			pkg.revert();
+		}
+	}
+
+	/**
+	 * Cells of a single row, reused from row to row.
+	 */
+	static final class SheetRow {
+		private static final byte BLANK = 0;
+		private static final byte STRING = 1;
+		private static final byte NUMERIC = 2;
+
+		private int rowNum = -1;
+		private boolean firstRow = true;
+		private int size = 0;
+		private int[] columns = new int[16];
+		private byte[] types = new byte[16];
+		private String[] strings = new String[16];
+		private double[] numbers = new double[16];
+
+		int getRowNum() {
+			return rowNum;
+		}
+
+		/**
+		 * @return true if this is the first row of the sheet with any cells
+		 */
+		boolean isFirstRow() {
+			return firstRow;
+		}
+
+		int size() {
+			return size;
+		}
+
+		int getColumn(int cell) {
+			return columns[cell];
+		}
+
+		String getString(int cell) {
+			switch (types[cell]) {
+			case STRING:
+				return strings[cell];
+			case NUMERIC:
+				return NumberToTextConverter.toText(numbers[cell]);
+			default:
+				return "";
+			}
+		}
+
+		double getNumber(int cell) {
+			if (types[cell] == STRING) {
+				throw new IllegalStateException("Cell " + columns[cell] + " of row " + rowNum + " is not numeric: " + strings[cell]);
+			}
+			return numbers[cell];
+		}
+
+		/**
+		 * @return the index of the cell in the specified column, or -1
+		 */
+		int indexOf(int column) {
+			for (int i = 0; i < size; i++) {
+				if (columns[i] == column) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private void start(int rowNum) {
+			this.rowNum = rowNum;
+			size = 0;
+		}
+
+		private void end(RowHandler handler) {
+			if (size > 0) {
+				handler.handleRow(this);
+				firstRow = false;
+			}
+			Arrays.fill(strings, 0, size, null);
+			size = 0;
+		}
+
+		private void add(int column, byte type, String string, double number) {
+			if (size == columns.length) {
+				columns = Arrays.copyOf(columns, size * 2);
+				types = Arrays.copyOf(types, size * 2);
+				strings = Arrays.copyOf(strings, size * 2);
+				numbers = Arrays.copyOf(numbers, size * 2);
+			}
+			columns[size] = column;
+			types[size] = type;
+			strings[size] = string;
+			numbers[size] = number;
+			size++;
+		}
+
+		private void addString(int column, String value) {
+			add(column, STRING, value, 0);
+		}
+
+		private void addNumber(int column, double value) {
+			add(column, NUMERIC, null, value);
+		}
+
+		private void addBlank(int column) {
+			add(column, BLANK, null, 0);
+		}
+	}
+
+	/**
+	 * Collects cell records of the first worksheet into rows; cell records are stored in row order.
+	 */
+	private static final class HSSFRowListener extends AbortableHSSFListener {
+		private final RowHandler handler;
+		private final SheetRow row = new SheetRow();
+		private SSTRecord sst;
+		private int depth = 0;
+		private int worksheets = 0;
+		private boolean firstSheet = false;
+		private int formulaRow = -1;
+		private int formulaColumn = -1;
+
+		HSSFRowListener(RowHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public short abortableProcessRecord(Record record) {
+			switch (record.getSid()) {
+			case BOFRecord.sid:
+				depth++;
+				if (depth == 1 && ((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+					firstSheet = ++worksheets == 1;
+				}
+				break;
+			case EOFRecord.sid:
+				depth--;
+				if (depth == 0 && firstSheet) {
+					row.end(handler);
+					return ABORT;
+				}
+				break;
+			case SSTRecord.sid:
+				sst = (SSTRecord) record;
+				break;
+			default:
+				if (firstSheet && depth == 1) {
+					processCellRecord(record);
+				}
+				break;
+			}
+
+			return 0;
+		}
+
+		private void processCellRecord(Record record) {
+			switch (record.getSid()) {
+			case LabelSSTRecord.sid:
+				LabelSSTRecord label = (LabelSSTRecord) record;
+				moveTo(label.getRow()).addString(label.getColumn(), sst.getString(label.getSSTIndex()).getString());
+				break;
+			case LabelRecord.sid:
+				LabelRecord inlineLabel = (LabelRecord) record;
+				moveTo(inlineLabel.getRow()).addString(inlineLabel.getColumn(), inlineLabel.getValue());
+				break;
+			case NumberRecord.sid:
+				NumberRecord number = (NumberRecord) record;
+				moveTo(number.getRow()).addNumber(number.getColumn(), number.getValue());
+				break;
+			case FormulaRecord.sid:
+				FormulaRecord formula = (FormulaRecord) record;
+				if (formula.getCachedResultType() == Cell.CELL_TYPE_STRING) {
+					// value follows in a string record
+					formulaRow = formula.getRow();
+					formulaColumn = formula.getColumn();
+				}
+				else if (formula.getCachedResultType() == Cell.CELL_TYPE_NUMERIC) {
+					moveTo(formula.getRow()).addNumber(formula.getColumn(), formula.getValue());
+				}
+				break;
+			case StringRecord.sid:
+				if (formulaRow >= 0) {
+					moveTo(formulaRow).addString(formulaColumn, ((StringRecord) record).getString());
+					formulaRow = -1;
+				}
+				break;
+			case BlankRecord.sid:
+				BlankRecord blank = (BlankRecord) record;
+				moveTo(blank.getRow()).addBlank(blank.getColumn());
+				break;
+			case MulBlankRecord.sid:
+				MulBlankRecord blanks = (MulBlankRecord) record;
+				moveTo(blanks.getRow());
+				for (int column = blanks.getFirstColumn(); column <= blanks.getLastColumn(); column++) {
+					row.addBlank(column);
+				}
+				break;
+			default:
+				break;
+			}
+		}
+
+		private SheetRow moveTo(int rowNum) {
+			if (rowNum != row.getRowNum()) {
+				row.end(handler);
+				row.start(rowNum);
+			}
+			return row;
+		}
+	}
+
+	/**
+	 * Reads cell values directly from the sheet XML, numeric values unformatted.
+	 */
+	private static final class XSSFRowHandler extends DefaultHandler {
+		private final ReadOnlySharedStringsTable strings;
+		private final RowHandler handler;
+		private final SheetRow row = new SheetRow();
+		private final StringBuilder value = new StringBuilder();
+		private int rowNum = -1;
+		private int column = -1;
+		private String type;
+		private boolean hasValue = false;
+		private boolean capturing = false;
+		private boolean inlineString = false;
+
+		XSSFRowHandler(ReadOnlySharedStringsTable strings, RowHandler handler) {
+			this.strings = strings;
+			this.handler = handler;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			switch (localName) {
+			case "row":
+				String r = attributes.getValue("r");
+				rowNum = r != null ? Integer.parseInt(r) - 1 : rowNum + 1;
+				column = -1;
+				row.start(rowNum);
+				break;
+			case "c":
+				String reference = attributes.getValue("r");
+				column = reference != null ? columnIndex(reference) : column + 1;
+				type = attributes.getValue("t");
+				value.setLength(0);
+				hasValue = false;
+				break;
+			case "v":
+				capturing = true;
+				hasValue = true;
+				break;
+			case "is":
+				inlineString = true;
+				break;
+			case "t":
+				if (inlineString) {
+					capturing = true;
+					hasValue = true;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			switch (localName) {
+			case "v":
+			case "t":
+				capturing = false;
+				break;
+			case "is":
+				inlineString = false;
+				break;
+			case "c":
+				addCell();
+				break;
+			case "row":
+				row.end(handler);
+				break;
+			default:
+				break;
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			if (capturing) {
+				value.append(ch, start, length);
+			}
+		}
+
+		private void addCell() {
+			if (!hasValue) {
+				row.addBlank(column);
+			}
+			else if ("s".equals(type)) {
+				row.addString(column, strings.getEntryAt(Integer.parseInt(value.toString().trim())));
+			}
+			else if ("inlineStr".equals(type) || "str".equals(type) || "e".equals(type)) {
+				row.addString(column, value.toString());
+			}
+			else if ("b".equals(type)) {
+				row.addString(column, "1".equals(value.toString().trim()) ? "TRUE" : "FALSE");
+			}
+			else {
+				row.addNumber(column, Double.parseDouble(value.toString()));
+			}
+		}
+
+		private static int columnIndex(String reference) {
+			int column = 0;
+			for (int i = 0; i < reference.length(); i++) {
+				char c = reference.charAt(i);
+				if (c < 'A' || c > 'Z') {
+					break;
+				}
+				column = column * 26 + (c - 'A' + 1);
+			}
+			return column - 1;
+		}
+	}
+}
@@ -50,4 +50,8 @@ public class GLStringConstants {
 	public static final String ARS_PROPERTY = "org.dash.ars";
 	public static final String ARS_DEFAULT = "Default";
 	public static final String LATEST_HLADB = "Latest";
+	public static final String IMGT_CACHE_PROPERTY = "org.dash.imgt.cache";
+	public static final String HOMOZYGOUS_PROPERTY = "org.dash.homozygous";
+	public static final String AMBIGUITY_THRESHOLD_PROPERTY = "org.dash.ambThreshold";
+	public static final String PROTEIN_THRESHOLD_PROPERTY = "org.dash.proteinThreshold";
 }
@@ -30,6 +30,7 @@ import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -46,6 +47,9 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.dash.valid.Locus;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.StageMetrics;
+import org.dash.valid.StageMetrics.Stage;
 import org.dash.valid.ars.AntigenRecognitionSiteLoader;
 import org.dash.valid.cwd.CommonWellDocumentedLoader;
 import org.dash.valid.gl.haplo.Haplotype;
@@ -114,7 +118,7 @@ public class GLStringUtilities {
 		
 		try {
 			String uri = "https://hml.nmdp.org/mac/api/decode/?";
-			String imgtRelease = System.getProperty(GLStringConstants.HLADB_PROPERTY);
+			String imgtRelease = ReferenceDataSnapshot.currentHladb();
 			if (imgtRelease == null || GLStringConstants.LATEST_HLADB.equals(imgtRelease)) {
 				imgtRelease = getLatestImgtRelease();
 				//System.setProperty(GLStringConstants.HLADB_PROPERTY, imgtRelease);
@@ -228,24 +232,26 @@ public class GLStringUtilities {
 	}
 
 	public static Set<String> checkCommonWellDocumented(String glString) {
+		return checkCommonWellDocumented(parse(glString, GL_STRING_DELIMITER_REGEX));
+	}
+	
+	/**
+	 * Checks the alleles already parsed into the genotype list, rather than re-parsing its GL String.
+	 */
+	public static Set<String> checkCommonWellDocumented(LinkageDisequilibriumGenotypeList glString) {
+		return checkCommonWellDocumented(glString.getParsedAlleles());
+	}
+	
+	private static Set<String> checkCommonWellDocumented(Collection<String> alleles) {
 		Set<String> notCommon = new HashSet<String>();
 		
 		CommonWellDocumentedLoader loader = CommonWellDocumentedLoader.getInstance();
 		
-		Set<String> cwdAlleles = loader.getCwdAlleles();
-
-		if (cwdAlleles.size() == 0) return new HashSet<String>();
+		if (loader.getCwdAlleles().size() == 0) return notCommon;
 		
-		HashMap<String, String> accessionMap = loader.getAccessionMap();
-
-		StringTokenizer st = new StringTokenizer(glString,
-				GL_STRING_DELIMITER_REGEX);
-		String token;
-		while (st.hasMoreTokens()) {
-			token = st.nextToken();
-			
-			if (!cwdAlleles.contains(accessionMap.get(token))) {
-				notCommon.add(token);
+		for (String allele : alleles) {
+			if (!loader.isCommonWellDocumented(allele)) {
+				notCommon.add(allele);
 			}
 		}
 
@@ -474,7 +480,7 @@ public class GLStringUtilities {
 		List<LinkageDisequilibriumGenotypeList> linkedGLStrings = new ArrayList<LinkageDisequilibriumGenotypeList>();
 
 
-		if (filename.endsWith(GLStringConstants.XML) || filename.endsWith(GLStringConstants.HML)) {
+		if (isXmlFile(filename)) {
 		    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		    DocumentBuilder builder = factory.newDocumentBuilder();
 		    InputSource is = new InputSource(reader);
@@ -499,52 +505,71 @@ public class GLStringUtilities {
 		}
 		else {
 			String line;
-			String[] parts = null;
 			int lineNumber = 0;
-			String glString;
-			String id;
-			String note = null;			
+			LinkageDisequilibriumGenotypeList linkedGLString;
 			
 			while ((line = reader.readLine()) != null) {
 				lineNumber++;
 
-				parts = line.split(FILE_DELIMITER_REGEX);
+				linkedGLString = parseGLStringLine(filename, line, lineNumber);
 				
-				if (parts.length == 1) {
-					id = filename + "-" + (lineNumber - 1);
-					glString = parts[0];
-				} else if (parts.length >= 2) {
-					id = parts[0];
-					glString = parts[1];
-					
-					if (parts.length == 3) note = parts[2];
-				}
-				else {
-					LOGGER.warning("Unexpected line format at line "
-							+ (lineNumber - 1) + ": " + filename);
-					
-					continue;
+				if (linkedGLString != null) {
+					linkedGLStrings.add(linkedGLString);
 				}
-				
-				linkedGLStrings.add(inflateGenotypeList(id, glString, note));
-					
 			}
 		}
 				
 		return linkedGLStrings;
 	}
 	
+	public static boolean isXmlFile(String filename) {
+		return filename.endsWith(GLStringConstants.XML) || filename.endsWith(GLStringConstants.HML);
+	}
+	
+	/**
+	 * Parses a single line of a delimited GL String file, returning null if the line is malformed.
+	 */
+	public static LinkageDisequilibriumGenotypeList parseGLStringLine(String filename, String line, int lineNumber) {
+		String[] parts = line.split(FILE_DELIMITER_REGEX);
+		String glString;
+		String id;
+		String note = null;
+		
+		if (parts.length == 1) {
+			id = filename + "-" + (lineNumber - 1);
+			glString = parts[0];
+		} else if (parts.length >= 2) {
+			id = parts[0];
+			glString = parts[1];
+			
+			if (parts.length == 3) note = parts[2];
+		}
+		else {
+			LOGGER.warning("Unexpected line format at line "
+					+ (lineNumber - 1) + ": " + filename);
+			
+			return null;
+		}
+		
+		return inflateGenotypeList(id, glString, note);
+	}
+	
 	public static LinkageDisequilibriumGenotypeList inflateGenotypeList(String id, String glString, String note) {
 		LinkageDisequilibriumGenotypeList linkedGLString;
 		
 		String submittedGlString = glString;
+		StageMetrics metrics = StageMetrics.getInstance();
 		
+		long start = StageMetrics.start();
 		if (!GLStringUtilities.validateGLStringFormat(glString)) {
 			glString = GLStringUtilities.fullyQualifyGLString(glString);
 		}
+		metrics.record(Stage.PARSE, start);
 		
+		start = StageMetrics.start();
 		MultilocusUnphasedGenotype mug = GLStringUtilities.convertToMug(glString);
 		linkedGLString = new LinkageDisequilibriumGenotypeList(id, mug);
+		metrics.record(Stage.MUG, start);
 		
 		linkedGLString.setSubmittedGlString(submittedGlString);
 		linkedGLString.setNote(note);
@@ -22,6 +22,7 @@
 package org.dash.valid.gl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,6 +30,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 
+import org.dash.valid.AnalysisConfig;
 import org.dash.valid.Linkages;
 import org.dash.valid.LinkagesLoader;
 import org.dash.valid.Locus;
@@ -51,6 +53,8 @@ public class LinkageDisequilibriumGenotypeList {
 
 	private MultilocusUnphasedGenotype mug;
 	
+	// alleles as parsed from the GL String, before substitution of alleles with frequencies
+	private Set<String> parsedAlleles = new HashSet<String>();
 	private HashMap<Locus, List<List<String>>> allelesMap = new HashMap<Locus, List<List<String>>>();
 	private HashMap<EnumSet<Locus>, Set<MultiLocusHaplotype>> possibleHaplotypeMap = new HashMap<EnumSet<Locus>, Set<MultiLocusHaplotype>>();
 	
@@ -63,20 +67,11 @@ public class LinkageDisequilibriumGenotypeList {
 	private static final Logger LOGGER = Logger
 			.getLogger(LinkageDisequilibriumGenotypeList.class.getName());
 
-	private static Integer ALLELE_AMBIGUITY_THRESHOLD = 20;
-	private static Integer PROTEIN_THRESHOLD = 10;
-
-	static {		
-		String alleleAmbiguityThreshold;
-		if ((alleleAmbiguityThreshold = System
-				.getProperty("org.dash.ambThreshold")) != null) {
-			ALLELE_AMBIGUITY_THRESHOLD = new Integer(alleleAmbiguityThreshold);
-		}
-
-		String proteinThreshold;
-		if ((proteinThreshold = System.getProperty("org.dash.proteinThreshold")) != null) {
-			PROTEIN_THRESHOLD = new Integer(proteinThreshold);
-		}
+	/**
+	 * @return the alleles as parsed from the GL String, before substitution of alleles with frequencies
+	 */
+	public Set<String> getParsedAlleles() {
+		return Collections.unmodifiableSet(parsedAlleles);
 	}
 	
 	public Set<Locus> getLoci() {
@@ -177,18 +172,20 @@ public class LinkageDisequilibriumGenotypeList {
 
 	// TODO: Write unit tests
 	public boolean checkAmbiguitiesThresholds() {
+		AnalysisConfig config = AnalysisConfig.current();
+		
 		for (Linkages linkages : LinkagesLoader.getInstance().getLinkages()) {
 			for (Locus locus : linkages.getLoci()) {
-				if (getAlleleCount(locus) > ALLELE_AMBIGUITY_THRESHOLD) {
+				if (getAlleleCount(locus) > config.getAlleleAmbiguityThreshold()) {
 					LOGGER.warning("Exceeded the allele ambiguity threshold of : "
-							+ ALLELE_AMBIGUITY_THRESHOLD + " at locus: "
+							+ config.getAlleleAmbiguityThreshold() + " at locus: "
 							+ locus.getFullName());
 					return false;
 				}
 	
-				if (getProteinCount(locus) > PROTEIN_THRESHOLD) {
+				if (getProteinCount(locus) > config.getProteinThreshold()) {
 					LOGGER.warning("Exceeded the protein threshold of : "
-							+ PROTEIN_THRESHOLD + " at locus: "
+							+ config.getProteinThreshold() + " at locus: "
 							+ locus.getFullName());
 					return false;
 				}
@@ -252,6 +249,7 @@ public class LinkageDisequilibriumGenotypeList {
 							locus = Locus.normalizeLocus(Locus.lookup(locusVal));
 							locusMap.put(locusVal, locus);
 						}
+						parsedAlleles.addAll(alleleAmbiguities);
 						setAlleles(locus, alleleAmbiguities);
 					}
 				}
@@ -286,6 +284,7 @@ public class LinkageDisequilibriumGenotypeList {
 							locus = Locus.normalizeLocus(Locus.lookup(locusVal));
 							locusMap.put(locusVal, locus);
 						}
+						parsedAlleles.addAll(alleleStrings);
 						setAlleles(locus, alleleStrings);
 					}
 				}
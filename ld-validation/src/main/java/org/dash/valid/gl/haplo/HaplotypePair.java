@@ -21,6 +21,7 @@
 */
 package org.dash.valid.gl.haplo;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.LinkedHashSet;
@@ -38,6 +39,7 @@ import org.dash.valid.gl.GLStringConstants;
 import org.dash.valid.race.DisequilibriumElementByRace;
 import org.dash.valid.race.FrequencyByRace;
 import org.dash.valid.race.RelativeFrequencyByRace;
+import org.dash.valid.report.ReportBuffer;
 
 @XmlRootElement(name="haplo-pair")
 @XmlType(propOrder={"haplotypes", "frequencies", "frequency"})
@@ -163,20 +165,26 @@ public class HaplotypePair {
 		return false;
 	}
 	
-	@Override
-	public String toString() {
-		StringBuffer sb = new StringBuffer(haplotypes.get(0).getHaplotypeString() + GLStringConstants.NEWLINE +
-				haplotypes.get(1).getHaplotypeString() + GLStringConstants.NEWLINE);
+	/**
+	 * Writes the same representation as toString() directly to the appendable.
+	 */
+	public void appendTo(Appendable appendable) throws IOException {
+		appendable.append(haplotypes.get(0).getHaplotypeString()).append(GLStringConstants.NEWLINE);
+		appendable.append(haplotypes.get(1).getHaplotypeString()).append(GLStringConstants.NEWLINE);
 		
 		if (getFrequencies() != null && getFrequencies().size() > 0) {
 			for (RelativeFrequencyByRace relativeFrequency : getFrequencies()) {
-				sb.append(relativeFrequency + GLStringConstants.NEWLINE);
+				relativeFrequency.appendTo(appendable);
+				appendable.append(GLStringConstants.NEWLINE);
 			}
 		}
 		else {
-			sb.append(frequency);
+			appendable.append(frequency);
 		}
-		
-		return sb.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return ReportBuffer.toString(this::appendTo);
 	}
 }
@@ -32,12 +32,14 @@ import org.dash.valid.Locus;
 import org.dash.valid.LocusComparator;
 import org.dash.valid.LocusSet;
 import org.dash.valid.gl.GLStringConstants;
+import org.dash.valid.report.DetectedDisequilibriumElement;
 
 public class MultiLocusHaplotype extends Haplotype {
 	private Map<Locus, List<String>> alleleMap = new ConcurrentHashMap<Locus, List<String>>();
 	private HashMap<Locus, Integer> haplotypeInstanceMap = new HashMap<Locus, Integer>();
 	
 	private Integer sequence;
+	private String linkedHaplotypeString;
 	
 	@Override
 	public Integer getSequence() {
@@ -113,6 +115,13 @@ public class MultiLocusHaplotype extends Haplotype {
 	
 	public void removeAlleles(Locus locus) {
 		alleleMap.remove(locus);
+		linkedHaplotypeString = null;
+	}
+	
+	@Override
+	public void setLinkage(DetectedDisequilibriumElement linkage) {
+		super.setLinkage(linkage);
+		linkedHaplotypeString = null;
 	}
 
 	public MultiLocusHaplotype(ConcurrentHashMap<Locus, List<String>> alleleMap, HashMap<Locus, Integer> haplotypeInstanceMap,
@@ -130,9 +139,17 @@ public class MultiLocusHaplotype extends Haplotype {
 		setDRB345Homozygous(drb345Homozygous);
 	}
 
+	/**
+	 * Once linked, the haplotype string depends only on the linkage and the loci, so it is
+	 * computed once and reused by comparisons and reporting.
+	 */
 	@Override
 	public String getHaplotypeString() {
-		StringBuffer sb = new StringBuffer();
+		if (this.linkage != null && linkedHaplotypeString != null) {
+			return linkedHaplotypeString;
+		}
+		
+		StringBuilder sb = new StringBuilder();
 
 		Set<Locus> keySet = getAlleleMap().keySet();
 		Set<Locus> loci = new LocusSet(new LocusComparator());
@@ -148,6 +165,8 @@ public class MultiLocusHaplotype extends Haplotype {
 				}
 				sb.append(GLStringConstants.GENE_PHASE_DELIMITER);
 			}
+			linkedHaplotypeString = sb.substring(0, sb.length() - 1);
+			return linkedHaplotypeString;
 		} else {
 			for (Locus locus : loci) {
 				sb.append(getAlleles(locus));
@@ -0,0 +1,271 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid.imgt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.ZipInputStream;
+
+import org.dash.valid.gl.GLStringConstants;
+
+/**
+ * Local cache of data extracted from the IMGT/HLA XML releases, one directory per hladb version.
+ * Extracted maps are stored in a compact binary form; the release zip files may also be placed
+ * (seeded) in a version's directory, in which case they are used instead of downloading.
+ */
+public class IMGTDataCache {
+	public static final String AMBIGS_ZIP = "hla_ambigs.xml.zip";
+	public static final String HLA_ZIP = "hla.xml.zip";
+
+	private static final String IMGT_URL = "https://raw.githubusercontent.com/ANHIG/IMGTHLA/";
+	private static final String XML_PATH = "/xml/";
+	private static final String DEFAULT_DIRECTORY = ".hlahapv" + File.separator + "imgt";
+	private static final String BINARY_EXTENSION = ".bin";
+	private static final int MAGIC = 0x494d4754;
+	private static final int FORMAT_VERSION = 1;
+
+	// the latest release changes over time, so cached extracts of it expire
+	private static final long LATEST_MAX_AGE = 24L * 60 * 60 * 1000;
+
+	private static final Logger LOGGER = Logger.getLogger(IMGTDataCache.class.getName());
+
+	private final File directory;
+
+	public IMGTDataCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @return the cache in the directory specified by the cache system property, or in the
+	 * user's home directory
+	 */
+	public static IMGTDataCache getInstance() {
+		String directory = System.getProperty(GLStringConstants.IMGT_CACHE_PROPERTY);
+
+		return new IMGTDataCache(directory != null ? new File(directory) : new File(System.getProperty("user.home"), DEFAULT_DIRECTORY));
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public File getDirectory(String hladb) {
+		return new File(directory, version(hladb));
+	}
+
+	/**
+	 * Opens the XML document in the specified release zip file, from the cache if seeded, otherwise
+	 * from IMGT.
+	 */
+	public InputStream openXml(String hladb, String zipName) throws IOException {
+		File seeded = new File(getDirectory(hladb), zipName);
+		InputStream inputStream;
+
+		if (seeded.isFile()) {
+			inputStream = new FileInputStream(seeded);
+		}
+		else {
+			URL url = new URL(IMGT_URL + version(hladb) + XML_PATH + zipName);
+			LOGGER.info("Downloading " + url);
+			inputStream = url.openStream();
+		}
+
+		ZipInputStream zipStream = new ZipInputStream(new BufferedInputStream(inputStream));
+		if (zipStream.getNextEntry() == null) {
+			zipStream.close();
+			throw new IOException("Empty zip file: " + zipName + " for hladb: " + hladb);
+		}
+
+		return zipStream;
+	}
+
+	/**
+	 * Copies a release zip file into the cache, for use instead of downloading it.  Data previously
+	 * extracted from the release must be extracted again by the caller.
+	 */
+	public void seed(String hladb, File zipFile, String zipName) throws IOException {
+		File versionDirectory = getDirectory(hladb);
+		Files.createDirectories(versionDirectory.toPath());
+
+		File tempFile = new File(versionDirectory, zipName + ".tmp");
+		Files.copy(zipFile.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.move(tempFile.toPath(), new File(versionDirectory, zipName).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return the cached map, or null if it has not been extracted or has expired
+	 */
+	public HashMap<String, HashSet<String>> readSetMap(String hladb, String name) throws IOException {
+		DataInputStream in = openBinary(hladb, name);
+		if (in == null) {
+			return null;
+		}
+
+		try {
+			int size = in.readInt();
+			HashMap<String, HashSet<String>> map = new HashMap<String, HashSet<String>>(capacity(size));
+			for (int i=0;i<size;i++) {
+				String key = in.readUTF();
+				int values = in.readInt();
+				HashSet<String> set = new HashSet<String>(capacity(values));
+				for (int j=0;j<values;j++) {
+					set.add(in.readUTF());
+				}
+				map.put(key, set);
+			}
+
+			return map;
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	public void writeSetMap(String hladb, String name, Map<String, ? extends Set<String>> map) throws IOException {
+		File file = binaryFile(hladb, name);
+		File tempFile = new File(file.getPath() + ".tmp");
+
+		try (DataOutputStream out = createBinary(tempFile)) {
+			out.writeInt(map.size());
+			for (Map.Entry<String, ? extends Set<String>> entry : map.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().size());
+				for (String value : entry.getValue()) {
+					out.writeUTF(value);
+				}
+			}
+		}
+
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return the cached map, or null if it has not been extracted or has expired
+	 */
+	public HashMap<String, String> readMap(String hladb, String name) throws IOException {
+		DataInputStream in = openBinary(hladb, name);
+		if (in == null) {
+			return null;
+		}
+
+		try {
+			int size = in.readInt();
+			HashMap<String, String> map = new HashMap<String, String>(capacity(size));
+			for (int i=0;i<size;i++) {
+				map.put(in.readUTF(), in.readUTF());
+			}
+
+			return map;
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	public void writeMap(String hladb, String name, Map<String, String> map) throws IOException {
+		File file = binaryFile(hladb, name);
+		File tempFile = new File(file.getPath() + ".tmp");
+
+		try (DataOutputStream out = createBinary(tempFile)) {
+			out.writeInt(map.size());
+			for (Map.Entry<String, String> entry : map.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeUTF(entry.getValue());
+			}
+		}
+
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private DataInputStream openBinary(String hladb, String name) throws IOException {
+		File file = binaryFile(hladb, name);
+
+		if (!file.isFile()) {
+			return null;
+		}
+
+		if (isLatest(hladb) && System.currentTimeMillis() - file.lastModified() > LATEST_MAX_AGE) {
+			LOGGER.info("Cached " + name + " for hladb: " + hladb + " has expired");
+			return null;
+		}
+
+		DataInputStream in;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		}
+		catch (FileNotFoundException e) {
+			return null;
+		}
+
+		if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+			LOGGER.info("Ignoring cached " + name + " for hladb: " + hladb + " in an unsupported format");
+			in.close();
+			return null;
+		}
+
+		return in;
+	}
+
+	private DataOutputStream createBinary(File file) throws IOException {
+		Files.createDirectories(file.getParentFile().toPath());
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+
+		return out;
+	}
+
+	private File binaryFile(String hladb, String name) {
+		return new File(getDirectory(hladb), name + BINARY_EXTENSION);
+	}
+
+	private static String version(String hladb) {
+		if (hladb == null) hladb = GLStringConstants.LATEST_HLADB;
+
+		return hladb.replace(GLStringConstants.PERIOD, GLStringConstants.EMPTY_STRING);
+	}
+
+	private static boolean isLatest(String hladb) {
+		return hladb == null || GLStringConstants.LATEST_HLADB.equals(hladb);
+	}
+
+	private static int capacity(int size) {
+		return Math.max(16, (int) (size / 0.75f) + 1);
+	}
+}
@@ -34,15 +34,16 @@ import org.dash.valid.gl.GLStringConstants;
 
 @XmlRootElement(name="linkage")
 public class DisequilibriumElementByRace extends CoreDisequilibriumElement {
-	private List<FrequencyByRace> frequenciesByRace = new ArrayList<FrequencyByRace>();
+	private List<FrequencyByRace> frequenciesByRace;
 	
 	public DisequilibriumElementByRace() {
 		super();
+		this.frequenciesByRace = new ArrayList<FrequencyByRace>();
 	}
 	
 	public DisequilibriumElementByRace (HashMap<Locus, List<String>> hlaElementMap, List<FrequencyByRace> frequenciesByRace) {
-		setHlaElementMap(hlaElementMap);
-		setFrequenciesByRace(frequenciesByRace);
+		super(hlaElementMap, null);
+		this.frequenciesByRace = frequenciesByRace;
 	}
 	
 	@XmlElement(name="hap-frequencies")
@@ -54,11 +55,15 @@ public class DisequilibriumElementByRace extends CoreDisequilibriumElement {
 		this.frequenciesByRace = frequenciesByRace;
 	}
 	
+	public int getFrequencyCount() {
+		return frequenciesByRace.size();
+	}
+	
 	@Override
 	public String getFrequencyInfo() {
 		StringBuffer sb = new StringBuffer();
 		
-		for (FrequencyByRace freqsByRace : this.frequenciesByRace) {
+		for (FrequencyByRace freqsByRace : getFrequenciesByRace()) {
 			sb.append(freqsByRace + GLStringConstants.NEWLINE);
 		}
 		
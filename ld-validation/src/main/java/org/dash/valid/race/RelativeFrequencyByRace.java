@@ -21,11 +21,15 @@
 */
 package org.dash.valid.race;
 
+import java.io.IOException;
+
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
+import org.dash.valid.report.ReportBuffer;
+
 @XmlRootElement(name="linkage")
 @XmlType(propOrder={"frequency", "relativeFrequency", "hap1Frequency", "hap1Rank", "hap2Frequency", "hap2Rank"})
 public class RelativeFrequencyByRace implements RaceFrequency {
@@ -108,7 +112,13 @@ public class RelativeFrequencyByRace implements RaceFrequency {
 		return BroadRace.contains(getRace()) ? "Broad" : "Detailed";
 	}
 	
+	public void appendTo(Appendable appendable) throws IOException {
+		appendable.append(getRaceType()).append(" Race: ").append(getRace())
+			.append(", Freq: + ").append(String.valueOf(getFrequency()))
+			.append(", Relative Freq (%): + ").append(getRelativeFrequencyString());
+	}
+	
 	public String toString() {
-		return getRaceType() + " Race: " + getRace() + ", Freq: + " + getFrequency() + ", Relative Freq (%): + " + getRelativeFrequencyString();
+		return ReportBuffer.toString(this::appendTo);
 	}
 }
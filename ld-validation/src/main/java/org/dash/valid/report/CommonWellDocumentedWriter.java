@@ -59,16 +59,23 @@ public class CommonWellDocumentedWriter {
 			return GLStringConstants.EMPTY_STRING;
 		}
 		
-		StringBuffer sb = new StringBuffer("Id: " + findings.getGLId() + GLStringConstants.NEWLINE + "GL String: " + findings.getGLString());
-		sb.append(GLStringConstants.NEWLINE + GLStringConstants.NEWLINE + "HLA DB Version: " + findings.getHladb() + GLStringConstants.NEWLINE);
+		return ReportBuffer.format(appendable -> formatCommonWellDocumented(findings, appendable));
+	}
+
+	public static void formatCommonWellDocumented(
+			DetectedLinkageFindings findings, Appendable out) throws IOException {
+		if (findings.getNonCWDAlleles() == null || findings.getNonCWDAlleles().size() == 0) {
+			return;
+		}
+		
+		out.append("Id: ").append(findings.getGLId()).append(GLStringConstants.NEWLINE).append("GL String: ").append(findings.getGLString());
+		out.append(GLStringConstants.NEWLINE).append(GLStringConstants.NEWLINE).append("HLA DB Version: ").append(findings.getHladb()).append(GLStringConstants.NEWLINE);
 		
 		for (String allele : findings.getNonCWDAlleles()) {
-			sb.append("WARNING - Allele: " + allele + " not in the CWD list. ");
-			sb.append(GLStringConstants.NEWLINE);
+			out.append("WARNING - Allele: ").append(allele).append(" not in the CWD list. ");
+			out.append(GLStringConstants.NEWLINE);
 		}
 		
-		sb.append(GLStringConstants.NEWLINE);
-		
-		return sb.toString();
+		out.append(GLStringConstants.NEWLINE);
 	}
 }
@@ -21,6 +21,7 @@
 */
 package org.dash.valid.report;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -98,26 +99,33 @@ public class DetectedDisequilibriumElement {
 		this.disequilibriumElement = disequilibriumElement;
 	}
 	
-	public String toString() {		
-		StringBuffer sb = new StringBuffer();
-		
+	/**
+	 * Writes the same representation as toString() directly to the appendable.
+	 */
+	public void appendTo(Appendable appendable) throws IOException {
 		Set<Locus> loci = new LocusSet(new LocusComparator());
 		loci.addAll(getDisequilibriumElement().getLoci());
 		
+		boolean first = true;
 		for (Locus locus : loci) {
+			if (!first) {
+				appendable.append(GLStringConstants.GENE_PHASE_DELIMITER);
+			}
+			first = false;
+			
 			// TODO:  Make less clumsy to get rid of brackets?
-
-			//sb.append(locus.getShortName() + " Locus: " + getDisequilibriumElement().getHlaElement(locus) + GLStringConstants.NEWLINE);
 			if (getDisequilibriumElement().getHlaElement(locus).size() == 1) {
-				sb.append(getDisequilibriumElement().getHlaElement(locus).get(0));
+				appendable.append(getDisequilibriumElement().getHlaElement(locus).get(0));
 			} else {
-				sb.append(getDisequilibriumElement().getHlaElement(locus));
+				appendable.append(getDisequilibriumElement().getHlaElement(locus).toString());
 			}
-			
-			sb.append(GLStringConstants.GENE_PHASE_DELIMITER);
 		}
-			
-		return sb.substring(0, sb.length() - 1) + GLStringConstants.NEWLINE + ((CoreDisequilibriumElement) getDisequilibriumElement()).getFrequencyInfo();
+		
+		appendable.append(GLStringConstants.NEWLINE).append(((CoreDisequilibriumElement) getDisequilibriumElement()).getFrequencyInfo());
+	}
+	
+	public String toString() {		
+		return ReportBuffer.toString(this::appendTo);
 	}
 	
 	@Override
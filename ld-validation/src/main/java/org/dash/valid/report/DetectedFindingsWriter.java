@@ -51,6 +51,7 @@ public class DetectedFindingsWriter {
 	public static final String DETECTED_FINDINGS_XLSX = "detectedFindings.xlsx";
 	private static final String DEFAULT_PATH = "./";
 	public static final String DETECTED_FINDINGS_SHEET_NAME = "Detected Findings";
+	private static final Locus[] ALLELE_COUNT_LOCI = new Locus[] { Locus.HLA_A, Locus.HLA_B, Locus.HLA_C, Locus.HLA_DRB1, Locus.HLA_DRB345, Locus.HLA_DQB1 };
 
 	static {
 		try {			
@@ -147,19 +148,18 @@ public class DetectedFindingsWriter {
 	}
 
 	public static String formatDetectedFindings(DetectedLinkageFindings findings) {
-		StringBuffer sb = new StringBuffer();
-			sb.append(findings.getGLId() + GLStringConstants.COMMA);
-			sb.append(findings.getAlleleCount(Locus.HLA_A) + GLStringConstants.COMMA);
-			sb.append(findings.getAlleleCount(Locus.HLA_B) + GLStringConstants.COMMA);
-			sb.append(findings.getAlleleCount(Locus.HLA_C) + GLStringConstants.COMMA);
-			sb.append(findings.getAlleleCount(Locus.HLA_DRB1) + GLStringConstants.COMMA);
-			sb.append(findings.getAlleleCount(Locus.HLA_DRB345) + GLStringConstants.COMMA);
-			sb.append(findings.getAlleleCount(Locus.HLA_DQB1) + GLStringConstants.COMMA);
-			for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
-				sb.append(findings.getLinkageCount(linkage.getLoci()) + GLStringConstants.COMMA);
-				sb.append(findings.getMinimumDifference(linkage.getLoci()) + GLStringConstants.COMMA);
-			}
-			sb.append(GLStringConstants.NEWLINE);
-		return sb.toString();
+		return ReportBuffer.format(appendable -> formatDetectedFindings(findings, appendable));
+	}
+
+	public static void formatDetectedFindings(DetectedLinkageFindings findings, Appendable out) throws IOException {
+		out.append(findings.getGLId()).append(GLStringConstants.COMMA);
+		for (Locus locus : ALLELE_COUNT_LOCI) {
+			out.append(Integer.toString(findings.getAlleleCount(locus))).append(GLStringConstants.COMMA);
+		}
+		for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
+			out.append(Integer.toString(findings.getLinkageCount(linkage.getLoci()))).append(GLStringConstants.COMMA);
+			out.append(String.valueOf(findings.getMinimumDifference(linkage.getLoci()))).append(GLStringConstants.COMMA);
+		}
+		out.append(GLStringConstants.NEWLINE);
 	}
 }
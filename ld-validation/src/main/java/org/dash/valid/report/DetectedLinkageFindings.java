@@ -25,10 +25,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.bind.annotation.XmlAttribute;
@@ -71,6 +73,13 @@ public class DetectedLinkageFindings {
 	
 	private HashMap<EnumSet<Locus>, HashMap<String, List<Float>>> minimumDifferenceMapOfMaps = new HashMap<EnumSet<Locus>, HashMap<String, List<Float>>>();
 	
+	// derived values, populated by finish()
+	private volatile boolean finished = false;
+	private boolean anomalies;
+	private List<String> warnings;
+	private Map<Locus, Integer> alleleCounts;
+	private Map<EnumSet<Locus>, Float> minimumDifferences;
+	
 	public DetectedLinkageFindings() {
 		
 	}
@@ -79,10 +88,65 @@ public class DetectedLinkageFindings {
 		this.frequencies = frequencies;
 	}
 	
+	/**
+	 * Precomputes every derived value and makes the findings immutable, so they can be
+	 * shared by any number of report writers, including on other threads.
+	 */
+	public DetectedLinkageFindings finish() {
+		if (finished) {
+			return this;
+		}
+		
+		for (EnumSet<Locus> loci : findingsSought) {
+			getFirstPair(loci);
+		}
+		for (EnumSet<Locus> loci : linkedPairsMap.keySet()) {
+			getFirstPair(loci);
+		}
+		
+		Map<EnumSet<Locus>, Float> minimumDifferences = new HashMap<EnumSet<Locus>, Float>();
+		for (EnumSet<Locus> loci : minimumDifferenceMapOfMaps.keySet()) {
+			minimumDifferences.put(loci, getMinimumDifference(minimumDifferenceMapOfMaps.get(loci)));
+		}
+		this.minimumDifferences = minimumDifferences;
+		
+		if (genotypeList != null) {
+			Map<Locus, Integer> alleleCounts = new EnumMap<Locus, Integer>(Locus.class);
+			for (Locus locus : Locus.values()) {
+				alleleCounts.put(locus, genotypeList.getAlleleCount(locus));
+			}
+			this.alleleCounts = alleleCounts;
+		}
+		
+		this.warnings = Collections.unmodifiableList(getWarnings());
+		this.anomalies = hasAnomalies();
+		
+		this.linkages = Collections.unmodifiableSet(linkages);
+		this.linkedPairs = Collections.unmodifiableSet(linkedPairs);
+		this.findingsSought = Collections.unmodifiableSet(findingsSought);
+		if (nonCWDAlleles != null) {
+			this.nonCWDAlleles = Collections.unmodifiableSet(nonCWDAlleles);
+		}
+		
+		finished = true;
+		
+		return this;
+	}
+	
+	public boolean isFinished() {
+		return finished;
+	}
+	
+	private void checkNotFinished() {
+		if (finished) {
+			throw new IllegalStateException("Findings have been finished and can no longer be modified");
+		}
+	}
+	
 	private Float getMinimumDifference(HashMap<String, List<Float>> minimumDifferenceMap) {
 		List<Float> mins = new ArrayList<Float>();
 		
-		if (minimumDifferenceMap == null) {
+		if (minimumDifferenceMap == null || minimumDifferenceMap.isEmpty()) {
 			return null;
 		}
 		
@@ -111,11 +175,16 @@ public class DetectedLinkageFindings {
 		return mins.get(0);
 	}
 	
-	public Float getMinimumDifference(EnumSet<Locus> loci) {		
+	public Float getMinimumDifference(EnumSet<Locus> loci) {
+		if (finished) {
+			return minimumDifferences.get(loci);
+		}
+		
 		return getMinimumDifference(minimumDifferenceMapOfMaps.get(loci));
 	}
 	
 	public void addFindingSought(EnumSet<Locus> findingSought) {
+		checkNotFinished();
 		this.findingsSought.add(findingSought);
 	}
 	
@@ -132,11 +201,12 @@ public class DetectedLinkageFindings {
 	}
 	
 	public void setLinkedPairs(EnumSet<Locus> loci, boolean linkedPairs) {
+		checkNotFinished();
 		linkedPairsMap.put(loci, linkedPairs);
 	}
 	
 	public HaplotypePair getFirstPair(EnumSet<Locus> loci) {
-		if (firstPairsMap.containsKey(loci)) {
+		if (finished || firstPairsMap.containsKey(loci)) {
 			return firstPairsMap.get(loci);
 		}
 		else {
@@ -153,6 +223,10 @@ public class DetectedLinkageFindings {
 	
 	@XmlTransient
 	public Collection<HaplotypePair> getFirstPairs() {
+		if (finished) {
+			return Collections.unmodifiableCollection(firstPairsMap.values());
+		}
+		
 		return firstPairsMap.values();
 	}
 	
@@ -162,6 +236,7 @@ public class DetectedLinkageFindings {
 	}
 	
 	public void setLinkedPairs(Set<HaplotypePair> linkedPairs) {	
+		checkNotFinished();
 		EnumSet<Locus> loci = null;
 		
 		if (linkedPairs.iterator().hasNext() && linkedPairs.iterator().next().isByRace()) {
@@ -295,6 +370,7 @@ public class DetectedLinkageFindings {
 	}
 	
 	public void setHladb(String hladb) {
+		checkNotFinished();
 		this.hladb = hladb;
 	}
 	
@@ -304,6 +380,7 @@ public class DetectedLinkageFindings {
 	}
 	
 	public void setNonCWDAlleles(Set<String> nonCWDAlleles) {
+		checkNotFinished();
 		this.nonCWDAlleles = nonCWDAlleles;
 	}
 	
@@ -319,6 +396,10 @@ public class DetectedLinkageFindings {
 	
 	
 	public int getAlleleCount(Locus locus) {
+		if (finished && alleleCounts != null) {
+			return alleleCounts.get(locus);
+		}
+		
 		return getGenotypeList().getAlleleCount(locus);
 	}
 	
@@ -327,6 +408,7 @@ public class DetectedLinkageFindings {
 	}
 	
 	public void setGenotypeList(LinkageDisequilibriumGenotypeList genotypeList) {
+		checkNotFinished();
 		this.genotypeList = genotypeList;
 	}
 	
@@ -342,11 +424,13 @@ public class DetectedLinkageFindings {
 	}
 	
 	public void addLinkage(DetectedDisequilibriumElement linkage) {
+		checkNotFinished();
 		this.linkages.add(linkage);
 		incrementLinkageCount(linkage);
 	}
 	
 	public void addLinkages(Set<DetectedDisequilibriumElement> linkages) {
+		checkNotFinished();
 		this.linkages.addAll(linkages);
 		
 		for (DetectedDisequilibriumElement linkage : this.linkages) {
@@ -366,6 +450,10 @@ public class DetectedLinkageFindings {
 	
 	@XmlElement(name="warning")
 	public List<String> getWarnings() {
+		if (finished) {
+			return this.warnings;
+		}
+		
 		List<String> warnings = new ArrayList<String>();
 		if (!hasLinkages()) {
 			warnings.add("No linkages found.");
@@ -381,6 +469,10 @@ public class DetectedLinkageFindings {
 	}
 	
 	public boolean hasAnomalies() {
+		if (finished) {
+			return anomalies;
+		}
+		
 		if (!hasLinkages()) {
 			return true;
 		}
@@ -22,6 +22,7 @@
 package org.dash.valid.report;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.logging.Logger;
 
@@ -34,6 +35,7 @@ import org.dash.valid.handler.HaplotypePairWarningFileHandler;
 public class HaplotypePairWriter {	
 	private static HaplotypePairWriter instance = null;
 	private static Logger FILE_LOGGER = Logger.getLogger(HaplotypePairWriter.class.getName());
+	static final String REPORT_SEPARATOR = "***************************************";
 	
 	private HaplotypePairWriter() {
 		try {
@@ -67,31 +69,38 @@ public class HaplotypePairWriter {
 	}
 
 	public static String formatDetectedLinkages(DetectedLinkageFindings findings) {
-		StringBuffer sb = new StringBuffer("Id: " + findings.getGLId() + GLStringConstants.NEWLINE + "GL String: " + findings.getGLString());
-		sb.append(GLStringConstants.NEWLINE + GLStringConstants.NEWLINE + "HLA DB Version: " + findings.getHladb() + GLStringConstants.NEWLINE);
+		return ReportBuffer.format(appendable -> formatDetectedLinkages(findings, appendable));
+	}
+	
+	public static void formatDetectedLinkages(DetectedLinkageFindings findings, Appendable out) throws IOException {
+		out.append("Id: ").append(findings.getGLId()).append(GLStringConstants.NEWLINE).append("GL String: ").append(findings.getGLString());
+		out.append(GLStringConstants.NEWLINE).append(GLStringConstants.NEWLINE).append("HLA DB Version: ").append(findings.getHladb()).append(GLStringConstants.NEWLINE);
 		
-		sb.append(GLStringConstants.NEWLINE + "Frequencies:  " + findings.getFrequencies() + GLStringConstants.NEWLINE);
+		out.append(GLStringConstants.NEWLINE).append("Frequencies:  ").append(findings.getFrequencies()).append(GLStringConstants.NEWLINE);
 		
+		HaplotypePair firstPair;
 		for (EnumSet<Locus> findingSought : findings.getFindingsSought()) {
-			if (findings.hasLinkedPairs(findingSought) && findings.getFirstPair(findingSought) != null) {
-				sb.append(GLStringConstants.NEWLINE + "First " + findingSought + " Haplotype pair:" + GLStringConstants.NEWLINE + findings.getFirstPair(findingSought));
+			firstPair = findings.hasLinkedPairs(findingSought) ? findings.getFirstPair(findingSought) : null;
+			
+			if (firstPair != null) {
+				out.append(GLStringConstants.NEWLINE).append("First ").append(findingSought.toString()).append(" Haplotype pair:").append(GLStringConstants.NEWLINE);
+				firstPair.appendTo(out);
 			}
 			else {
-				sb.append(GLStringConstants.NEWLINE + "WARNING - No " + findingSought + " haplotype pairs detected." + GLStringConstants.NEWLINE);
+				out.append(GLStringConstants.NEWLINE).append("WARNING - No ").append(findingSought.toString()).append(" haplotype pairs detected.").append(GLStringConstants.NEWLINE);
 			}
 		}
 		
+		Collection<HaplotypePair> firstPairs = findings.getFirstPairs();
 		for (HaplotypePair pair : findings.getLinkedPairs()) {
-			if (findings.getFirstPairs().contains(pair)) {
+			if (firstPairs.contains(pair)) {
 				continue;
 			}
-			else {
-				sb.append(GLStringConstants.NEWLINE + "Possible " + pair.getLoci() + " Haplotype Pair:" + GLStringConstants.NEWLINE);
-			}
-			sb.append(pair);
+			
+			out.append(GLStringConstants.NEWLINE).append("Possible ").append(pair.getLoci().toString()).append(" Haplotype Pair:").append(GLStringConstants.NEWLINE);
+			pair.appendTo(out);
 		}
 		
-		sb.append(GLStringConstants.NEWLINE + "***************************************" + GLStringConstants.NEWLINE);
-		return sb.toString();
+		out.append(GLStringConstants.NEWLINE).append(REPORT_SEPARATOR).append(GLStringConstants.NEWLINE);
 	}
 }
@@ -64,22 +64,25 @@ public class LinkageDisequilibriumWriter {
 	}
 
 	public static String formatDetectedLinkages(DetectedLinkageFindings findings) {
-		StringBuffer sb = new StringBuffer("Id: " + findings.getGLId() + GLStringConstants.NEWLINE + "GL String: " + findings.getGLString());
-		sb.append(GLStringConstants.NEWLINE + GLStringConstants.NEWLINE + "HLA DB Version: " + findings.getHladb() + GLStringConstants.NEWLINE);
+		return ReportBuffer.format(appendable -> formatDetectedLinkages(findings, appendable));
+	}
+	
+	public static void formatDetectedLinkages(DetectedLinkageFindings findings, Appendable out) throws IOException {
+		out.append("Id: ").append(findings.getGLId()).append(GLStringConstants.NEWLINE).append("GL String: ").append(findings.getGLString());
+		out.append(GLStringConstants.NEWLINE).append(GLStringConstants.NEWLINE).append("HLA DB Version: ").append(findings.getHladb()).append(GLStringConstants.NEWLINE);
 		
-		sb.append(GLStringConstants.NEWLINE + "Frequencies:  " + findings.getFrequencies() + GLStringConstants.NEWLINE);
+		out.append(GLStringConstants.NEWLINE).append("Frequencies:  ").append(findings.getFrequencies()).append(GLStringConstants.NEWLINE);
 				
 		if (!findings.hasLinkages()) {
-			sb.append(GLStringConstants.NEWLINE + "WARNING - NO LINKAGES FOUND" + GLStringConstants.NEWLINE);
+			out.append(GLStringConstants.NEWLINE).append("WARNING - NO LINKAGES FOUND").append(GLStringConstants.NEWLINE);
 		}
 				
 		for (DetectedDisequilibriumElement linkage : findings.getLinkages()) {
-			sb.append(GLStringConstants.NEWLINE);
-			sb.append("We found linkages:" + GLStringConstants.NEWLINE);
-			sb.append(linkage.toString());
+			out.append(GLStringConstants.NEWLINE);
+			out.append("We found linkages:").append(GLStringConstants.NEWLINE);
+			linkage.appendTo(out);
 		}
 		
-		sb.append(GLStringConstants.NEWLINE + "***************************************" + GLStringConstants.NEWLINE);
-		return sb.toString();
+		out.append(GLStringConstants.NEWLINE).append(HaplotypePairWriter.REPORT_SEPARATOR).append(GLStringConstants.NEWLINE);
 	}
 }
@@ -0,0 +1,88 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid.report;
+
+import java.io.IOException;
+
+/**
+ * Builds the Strings of the report formatters, and of the toString() of what they format, from the
+ * Appendable they write.  The formatters reuse a per-thread StringBuilder.
+ */
+public final class ReportBuffer {
+	private static final int INITIAL_CAPACITY = 4096;
+	private static final int MAXIMUM_RETAINED_CAPACITY = 1024 * 1024;
+	
+	private static final ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(INITIAL_CAPACITY);
+		}
+	};
+	
+	/**
+	 * Writes text to an Appendable.
+	 */
+	@FunctionalInterface
+	public interface Formatter {
+		void appendTo(Appendable appendable) throws IOException;
+	}
+	
+	private ReportBuffer() {
+		
+	}
+	
+	/**
+	 * @return the text written by the formatter, built in the per-thread StringBuilder, so not for
+	 * formatters that format with it themselves
+	 */
+	static String format(Formatter formatter) {
+		StringBuilder sb = BUILDER.get();
+		
+		if (sb.capacity() > MAXIMUM_RETAINED_CAPACITY) {
+			sb = new StringBuilder(INITIAL_CAPACITY);
+			BUILDER.set(sb);
+		}
+		
+		sb.setLength(0);
+		return build(sb, formatter);
+	}
+	
+	/**
+	 * @return the text written by the formatter, built in a StringBuilder of its own, as for toString()
+	 * which may be called while a report is being formatted
+	 */
+	public static String toString(Formatter formatter) {
+		return build(new StringBuilder(), formatter);
+	}
+	
+	private static String build(StringBuilder sb, Formatter formatter) {
+		try {
+			formatter.appendTo(sb);
+		}
+		catch (IOException e) {
+			// StringBuilder does not throw
+			throw new IllegalStateException(e);
+		}
+		
+		return sb.toString();
+	}
+}
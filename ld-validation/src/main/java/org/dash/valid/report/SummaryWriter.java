@@ -25,6 +25,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URL;
 import java.util.logging.Logger;
 
@@ -35,6 +36,8 @@ import javax.xml.bind.Marshaller;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
+import org.dash.valid.Sample;
+import org.dash.valid.gl.GLStringConstants;
 import org.xml.sax.SAXException;
 
 public class SummaryWriter {	
@@ -45,6 +48,12 @@ public class SummaryWriter {
 	public static final String SUMMARY_XML_FILE = "summary.xml";
 	public static final String LINKAGE_FINDINGS_SCHEMA = "schema/LinkageFindings.xsd";
 	private static final String DEFAULT_PATH = "./";
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+	private static final String SAMPLES_START_TAG = "<samples>";
+	private static final String SAMPLES_END_TAG = "</samples>";
+	
+	private static JAXBContext context;
+	private static Schema schema;
 	
 	private FileWriter fileWriter;
 	private PrintWriter printWriter;
@@ -84,22 +93,9 @@ public class SummaryWriter {
 
 	public static String formatDetectedLinkages(SamplesList findings) {
         StringWriter writer = new StringWriter();
-        SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI); 
-        
-        JAXBContext context;
-        Marshaller m;
         
         try {
-        	URL url = SummaryWriter.class.getClassLoader().getResource(LINKAGE_FINDINGS_SCHEMA);
-        	Schema schema = sf.newSchema(url);
-        	context = JAXBContext.newInstance(SamplesList.class);
-
-	        m = context.createMarshaller();
-	        //for pretty-print XML in JAXB
-	        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-	        
-	        m.setSchema(schema);
-	        
+	        Marshaller m = createMarshaller();
 			m.marshal(findings, writer);
         }
         catch (JAXBException | SAXException e) {
@@ -108,4 +104,60 @@ public class SummaryWriter {
         
         return writer.toString();
 	}
+	
+	/**
+	 * Writes the opening of a summary document, to be followed by any number of 
+	 * formatSample(Sample) fragments and closed with writeSamplesEnd(Writer).
+	 */
+	public static void writeSamplesStart(Writer writer) throws IOException {
+		writer.write(XML_DECLARATION + GLStringConstants.NEWLINE);
+		writer.write(SAMPLES_START_TAG + GLStringConstants.NEWLINE);
+	}
+	
+	public static void writeSamplesEnd(Writer writer) throws IOException {
+		writer.write(SAMPLES_END_TAG + GLStringConstants.NEWLINE);
+	}
+	
+	public static String formatSample(Sample sample) {
+        StringWriter writer = new StringWriter();
+        
+        try {
+        	writeSample(sample, writer);
+        }
+        catch (IOException e) {
+        	// StringWriter does not throw
+        }
+        
+        return writer.toString();
+	}
+	
+	public static void writeSample(Sample sample, Writer writer) throws IOException {
+        try {
+	        Marshaller m = createMarshaller();
+	        m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+			m.marshal(sample, writer);
+        }
+        catch (JAXBException | SAXException e) {
+        	e.printStackTrace();
+        }
+        
+        writer.write(GLStringConstants.NEWLINE);
+	}
+	
+	private static synchronized Marshaller createMarshaller() throws JAXBException, SAXException {
+		if (context == null) {
+	        SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI); 
+        	URL url = SummaryWriter.class.getClassLoader().getResource(LINKAGE_FINDINGS_SCHEMA);
+        	schema = sf.newSchema(url);
+        	context = JAXBContext.newInstance(SamplesList.class);
+		}
+
+        Marshaller m = context.createMarshaller();
+        //for pretty-print XML in JAXB
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        
+        m.setSchema(schema);
+        
+        return m;
+	}
 }
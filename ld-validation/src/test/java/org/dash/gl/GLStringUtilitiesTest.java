@@ -22,10 +22,13 @@
 package org.dash.gl;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
 import org.dash.valid.Locus;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.freq.Frequencies;
 import org.dash.valid.freq.HLAFrequenciesLoader;
 import org.dash.valid.gl.GLStringConstants;
 import org.dash.valid.gl.GLStringUtilities;
@@ -44,6 +47,11 @@ public class GLStringUtilitiesTest extends TestCase {
 	private static final String A0101 = "01:01";
 	private static final String HLA_A01010101 = "HLA-A*01:01:01:01";
 	private static final String HLA_A010101 = "HLA-A*01:01:01";
+	private static final String HLA_A0101g = "HLA-A*01:01g";
+	private static final String HLA_A260101 = "HLA-A*26:01:01";
+	private static final String HLA_A2601g = "HLA-A*26:01g";
+	private static final String HLA_B380101 = "HLA-B*38:01:01";
+	private static final String HLA_B440301 = "HLA-B*44:03:01";
 	private static final String HLA_B1501 = "HLA-B*15:01";
 	private static final String HLA_B1501g = "HLA-B*15:01g";
 	private static final String HLA_C0702g = "HLA-C*07:02g";
@@ -176,6 +184,30 @@ public class GLStringUtilitiesTest extends TestCase {
 		assertFalse(notCommon.contains(HLA_A01010101));
 	}
 	
+	@Test
+	public void testCommonWellDocumentedParsedAlleles() throws IOException {
+		// the CWD alleles of the test resources, and the individual allele frequencies of nmdp-2007
+		ReferenceDataSnapshot referenceData = ReferenceDataSnapshot.load(Frequencies.NMDP_2007.getShortName(), "3.25.0");
+		String glString = HLA_A01010101 + GLStringConstants.GENE_COPY_DELIMITER + HLA_A260101 + GLStringConstants.ALLELE_AMBIGUITY_DELIMITER + BOGUS_ALLELE
+				+ GLStringConstants.GENE_DELIMITER + HLA_B380101 + GLStringConstants.GENE_COPY_DELIMITER + HLA_B440301;
+		
+		referenceData.call(() -> {
+			LinkageDisequilibriumGenotypeList genotypeList = new LinkageDisequilibriumGenotypeList("CommonWellDocumented", glString);
+			
+			// the bogus allele has no frequency, and the others are substituted with those that do
+			assertEquals(Arrays.asList(Arrays.asList(HLA_A0101g), Arrays.asList(HLA_A2601g)), genotypeList.getAlleles(Locus.HLA_A));
+			
+			Set<String> notCommon = GLStringUtilities.checkCommonWellDocumented(genotypeList);
+			assertEquals(GLStringUtilities.checkCommonWellDocumented(glString), notCommon);
+			assertTrue(notCommon.contains(BOGUS_ALLELE));
+			assertTrue(notCommon.contains(HLA_A260101));
+			assertTrue(notCommon.contains(HLA_B440301));
+			assertFalse(notCommon.contains(HLA_A01010101));
+			assertFalse(notCommon.contains(HLA_A0101g));
+			return null;
+		});
+	}
+	
 	@Test
 	public void testDecodeMAC() throws IOException {
 		String result = GLStringUtilities.decodeMAC("HLA-A*01:AB");
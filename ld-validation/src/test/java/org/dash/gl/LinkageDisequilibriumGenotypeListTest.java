@@ -22,6 +22,7 @@
 package org.dash.gl;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -93,4 +94,19 @@ public class LinkageDisequilibriumGenotypeListTest extends TestCase {
 			assertFalse(haplotype1.getAlleles(Locus.HLA_C).contains(C1203) && haplotype2.getAlleles(Locus.HLA_C).contains(C1203));
 		}
 	}
+
+	@Test
+	public void testParsedAlleles() {
+		LinkageDisequilibriumGenotypeList genotypeList = new LinkageDisequilibriumGenotypeList("ParsedAlleles", TEST_BC_PAIRS);
+		
+		assertEquals(new HashSet<String>(Arrays.asList(B0704, B4403, C0702, C1203)), genotypeList.getParsedAlleles());
+		
+		try {
+			genotypeList.getParsedAlleles().clear();
+			fail("Parsed alleles should not be modifiable");
+		}
+		catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
 }
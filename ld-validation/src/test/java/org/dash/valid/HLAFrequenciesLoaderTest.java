@@ -22,13 +22,29 @@
 */
 package org.dash.valid;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.dash.valid.ars.AntigenRecognitionSiteLoader;
+import org.dash.valid.freq.Frequencies;
 import org.dash.valid.freq.HLAFrequenciesLoader;
+import org.dash.valid.gl.GLStringUtilities;
+import org.dash.valid.race.DisequilibriumElementByRace;
+import org.dash.valid.race.FrequencyByRace;
 import org.junit.Test;
 
 import junit.framework.TestCase;
@@ -50,4 +66,113 @@ public class HLAFrequenciesLoaderTest extends TestCase {
 		List<DisequilibriumElement> disElements = HLAFrequenciesLoader.getInstance(noRankFreqs, null).getDisequilibriumElements(Linkages.FIVE_LOCUS.getLoci());
 		assertTrue(disElements != null && disElements.size() > 0);
 	}
+	
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testLoadStandardReferenceDataMatchesReader() throws Exception {
+		String filename = HLAFrequenciesLoader.NMDP_2007_STD_FIVELOCUS_FREQUENCIES;
+		List<DisequilibriumElement> expected = HLAFrequenciesLoader.loadStandardReferenceData(
+				new BufferedReader(new InputStreamReader(HLAFrequenciesLoaderTest.class.getClassLoader().getResourceAsStream(filename))));
+		List<DisequilibriumElement> actual = HLAFrequenciesLoader.loadStandardReferenceData(
+				HLAFrequenciesLoaderTest.class.getClassLoader().getResourceAsStream(filename));
+		
+		assertEquals(expected.size(), actual.size());
+		for (int i=0;i<expected.size();i++) {
+			DisequilibriumElementByRace expectedElement = (DisequilibriumElementByRace) expected.get(i);
+			DisequilibriumElementByRace actualElement = (DisequilibriumElementByRace) actual.get(i);
+			
+			for (Locus locus : HLAFrequenciesLoader.NMDP_FIVE_LOCUS_POS) {
+				assertEquals(expectedElement.getHlaElement(locus), actualElement.getHlaElement(locus));
+			}
+			
+			assertEquals(expectedElement.getFrequenciesByRace().size(), actualElement.getFrequenciesByRace().size());
+			for (int j=0;j<expectedElement.getFrequenciesByRace().size();j++) {
+				FrequencyByRace expectedFrequency = expectedElement.getFrequenciesByRace().get(j);
+				FrequencyByRace actualFrequency = actualElement.getFrequenciesByRace().get(j);
+				assertEquals(expectedFrequency.getRace(), actualFrequency.getRace());
+				assertEquals(expectedFrequency.getRank(), actualFrequency.getRank());
+				assertEquals(expectedFrequency.getFrequency(), actualFrequency.getFrequency());
+			}
+		}
+	}
+	
+	@Test
+	public void testLoadNMDPLinkageReferenceDataStreaming() throws Exception {
+		// .xlsx packages are spooled to temporary files to be read
+		File tempDirectory = new File(System.getProperty("java.io.tmpdir"));
+		int tempFiles = tempDirectory.list().length;
+		
+		for (Workbook workbook : new Workbook[] { new XSSFWorkbook(), new HSSFWorkbook() }) {
+			Sheet sheet = workbook.createSheet();
+			Row header = sheet.createRow(0);
+			String[] headers = new String[] { "A", "C", "B", "AFA_freq", "AFA_rank", "CAU_freq", "CAU_rank" };
+			for (int i=0;i<headers.length;i++) {
+				header.createCell(i).setCellValue(headers[i]);
+			}
+			
+			Row row = sheet.createRow(1);
+			row.createCell(0).setCellValue("0101");
+			row.createCell(1).setCellValue("C*07:01");
+			row.createCell(2).setCellValue("0801");
+			row.createCell(3).setCellValue(1.2E-4);
+			row.createCell(4).setCellValue(1812);
+			row.createCell(5).setCellValue(0.0123);
+			row.createCell(6).setCellValue(3);
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			workbook.write(out);
+			workbook.close();
+			
+			List<DisequilibriumElement> disElements = HLAFrequenciesLoader.loadNMDPLinkageReferenceData(new ByteArrayInputStream(out.toByteArray()), HLAFrequenciesLoader.NMDP_ABC_LOCI_POS);
+			assertEquals(1, disElements.size());
+			
+			DisequilibriumElementByRace disElement = (DisequilibriumElementByRace) disElements.get(0);
+			assertEquals("HLA-A*01:01", disElement.getHlaElement(Locus.HLA_A).get(0));
+			assertEquals("HLA-C*07:01", disElement.getHlaElement(Locus.HLA_C).get(0));
+			assertEquals("HLA-B*08:01", disElement.getHlaElement(Locus.HLA_B).get(0));
+			
+			List<FrequencyByRace> frequencies = disElement.getFrequenciesByRace();
+			assertEquals(2, frequencies.size());
+			assertEquals("AFA", frequencies.get(0).getRace());
+			assertEquals(1.2E-4, frequencies.get(0).getFrequency());
+			assertEquals("1812.0", frequencies.get(0).getRank());
+			assertEquals("CAU", frequencies.get(1).getRace());
+			assertEquals(0.0123, frequencies.get(1).getFrequency());
+			assertEquals("3.0", frequencies.get(1).getRank());
+		}
+		
+		assertEquals(tempFiles, tempDirectory.list().length);
+	}
+	
+	@Test
+	public void testHasFrequencyMatchesScan() throws Exception {
+		HLAFrequenciesLoader loader = HLAFrequenciesLoader.load(Frequencies.NMDP_2007, EnumSet.of(Linkages.FIVE_LOCUS));
+		HashMap<String, HashSet<String>> arsMap = AntigenRecognitionSiteLoader.getInstance().getArsMap();
+		
+		for (Locus locus : loader.getIndividualLocusFrequencies().keySet()) {
+			List<String> alleles = loader.getIndividualLocusFrequencies().get(locus);
+			
+			Set<String> queries = new HashSet<String>();
+			for (String allele : alleles) {
+				queries.add(allele);
+				queries.add(allele + ":01:01");
+				queries.add(allele.split(GLStringUtilities.COLON)[0] + ":99");
+				if (arsMap.containsKey(allele)) {
+					queries.addAll(arsMap.get(allele));
+				}
+			}
+			
+			for (String query : queries) {
+				String expected = null;
+				for (String allele : alleles) {
+					if (GLStringUtilities.fieldLevelComparison(query, allele) || GLStringUtilities.checkAntigenRecognitionSite(query, allele)) {
+						expected = allele;
+						break;
+					}
+				}
+				
+				assertEquals(query, expected, loader.hasFrequency(locus, query));
+			}
+		}
+	}
 }
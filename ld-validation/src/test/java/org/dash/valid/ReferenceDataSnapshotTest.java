@@ -0,0 +1,121 @@
+/*
+
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.dash.valid.freq.Frequencies;
+import org.dash.valid.gl.GLStringConstants;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class ReferenceDataSnapshotTest extends TestCase {
+
+	@Test
+	public void testLoadIsNotPublished() throws Exception {
+		ReferenceDataSnapshot first = ReferenceDataSnapshot.load(Frequencies.NMDP_2007_STD.getShortName(), null);
+		ReferenceDataSnapshot second = ReferenceDataSnapshot.load(Frequencies.NMDP_2007_STD.getShortName(), null);
+		
+		assertEquals(Frequencies.NMDP_2007_STD, first.getFrequencies());
+		assertEquals(GLStringConstants.LATEST_HLADB, first.getHladb());
+		assertTrue(second.getVersion() > first.getVersion());
+		assertNotSame(first.getFrequenciesLoader(), second.getFrequenciesLoader());
+		
+		assertFalse(first.getFrequenciesLoader().getLoci().isEmpty());
+		
+		assertNull(ReferenceDataSnapshot.getLive());
+		assertNull(ReferenceDataSnapshot.pin());
+		assertNull(ReferenceDataSnapshot.getCurrent());
+	}
+	
+	@Test
+	public void testLoadSharesReferenceData() throws Exception {
+		AnalysisConfig config = AnalysisConfig.builder().frequencies(Frequencies.NMDP_2007_STD).build();
+		ReferenceDataSnapshot first = ReferenceDataSnapshot.load(config);
+		ReferenceDataSnapshot second = ReferenceDataSnapshot.load(config.toBuilder().frequencies(Frequencies.WIKIVERSITY).build(),
+				Collections.singletonList(first));
+		ReferenceDataSnapshot third = ReferenceDataSnapshot.load(config, Arrays.asList(first, second));
+		
+		assertSame(first.getArsLoader(), second.getArsLoader());
+		assertSame(first.getCwdLoader(), second.getCwdLoader());
+		assertNotSame(first.getFrequenciesLoader(), second.getFrequenciesLoader());
+		assertSame(first.getFrequenciesLoader(), third.getFrequenciesLoader());
+		assertEquals(config, third.getConfig());
+		
+		AnalysisEngine engine = new AnalysisEngine(second);
+		assertSame(second, engine.call(() -> ReferenceDataSnapshot.getCurrent()));
+		assertEquals(Frequencies.WIKIVERSITY.getShortName(), engine.call(() -> ReferenceDataSnapshot.currentFrequencies()));
+		assertNull(ReferenceDataSnapshot.getCurrent());
+	}
+	
+	@Test
+	public void testPinnedSnapshotSurvivesPublish() throws Exception {
+		ReferenceDataSnapshot first = ReferenceDataSnapshot.load(Frequencies.NMDP_2007_STD.getShortName(), null);
+		ReferenceDataSnapshot second = ReferenceDataSnapshot.load(Frequencies.NMDP_2007_STD.getShortName(), null);
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			ReferenceDataSnapshot.publish(first);
+			
+			CountDownLatch pinned = new CountDownLatch(1);
+			CountDownLatch published = new CountDownLatch(1);
+			Future<ReferenceDataSnapshot[]> seen = executor.submit(() -> {
+				ReferenceDataSnapshot pin = ReferenceDataSnapshot.pin();
+				pinned.countDown();
+				published.await();
+				
+				ReferenceDataSnapshot current = ReferenceDataSnapshot.getCurrent();
+				ReferenceDataSnapshot.unpin();
+				
+				return new ReferenceDataSnapshot[] { pin, current, ReferenceDataSnapshot.getCurrent() };
+			});
+			
+			assertTrue(pinned.await(10, TimeUnit.SECONDS));
+			ReferenceDataSnapshot.publish(second);
+			published.countDown();
+			
+			ReferenceDataSnapshot[] snapshots = seen.get(10, TimeUnit.SECONDS);
+			assertSame(first, snapshots[0]);
+			// still the version pinned after the next is published, until unpinned
+			assertSame(first, snapshots[1]);
+			assertSame(second, snapshots[2]);
+			
+			assertSame(second, ReferenceDataSnapshot.getLive());
+			assertSame(second, ReferenceDataSnapshot.pin());
+			assertSame(second, ReferenceDataSnapshot.getCurrent());
+			assertTrue(second.getVersion() > first.getVersion());
+		}
+		finally {
+			ReferenceDataSnapshot.unpin();
+			ReferenceDataSnapshot.withdraw();
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid;
+
+import java.util.List;
+
+import org.dash.valid.freq.ReferenceTable;
+import org.dash.valid.race.DisequilibriumElementByRace;
+import org.dash.valid.race.FrequencyByRace;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class ReferenceTableTest extends TestCase {
+
+	@Test
+	public void testRows() {
+		ReferenceTable.Builder builder = new ReferenceTable.Builder();
+		int first = builder.addRow();
+		builder.setAllele(first, Locus.HLA_C, "HLA-C*07:01");
+		builder.setAllele(first, Locus.HLA_B, "HLA-B*08:01");
+		int second = builder.addRow();
+		builder.setAllele(second, Locus.HLA_B, "HLA-B*08:01");
+		
+		builder.addFrequency(second, "AFA", 0.5, null);
+		builder.addFrequency(first, "CAU", 0.25, "1");
+		builder.addFrequency(first, "AFA", 0.125, "2");
+		
+		List<DisequilibriumElement> rows = builder.build(new int[] { second, first }).getRows();
+		assertEquals(2, rows.size());
+		
+		DisequilibriumElementByRace row = (DisequilibriumElementByRace) rows.get(1);
+		assertEquals("HLA-C*07:01", row.getHlaElement(Locus.HLA_C).get(0));
+		assertSame(row.getHlaElement(Locus.HLA_B), rows.get(0).getHlaElement(Locus.HLA_B));
+		assertEquals(2, row.getLoci().size());
+		
+		List<FrequencyByRace> frequencies = row.getFrequenciesByRace();
+		assertEquals(2, row.getFrequencyCount());
+		assertEquals("CAU", frequencies.get(0).getRace());
+		assertEquals("1", frequencies.get(0).getRank());
+		assertEquals(0.125, frequencies.get(1).getFrequency());
+		
+		assertNull(rows.get(0).getHlaElement(Locus.HLA_C));
+		assertEquals(1, rows.get(0).getLoci().size());
+		assertNull(((DisequilibriumElementByRace) rows.get(0)).getFrequenciesByRace().get(0).getRank());
+	}
+}
@@ -0,0 +1,70 @@
+/*
+
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.dash.valid.StageMetrics.Count;
+import org.dash.valid.StageMetrics.SampleCounts;
+import org.dash.valid.StageMetrics.Stage;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class StageMetricsTest extends TestCase {
+
+	@Test
+	public void testRecord() {
+		StageMetrics metrics = StageMetrics.getInstance();
+		metrics.reset();
+		
+		metrics.record(Stage.MATCHING, StageMetrics.start());
+		metrics.record(Stage.MATCHING, StageMetrics.start());
+		assertEquals(2, metrics.getTimer(Stage.MATCHING).getCount());
+		assertEquals(0, metrics.getTimer(Stage.PAIRS).getCount());
+		
+		SampleCounts first = new SampleCounts();
+		first.add(Count.CANDIDATES, 3);
+		first.add(Count.CANDIDATES, 5);
+		metrics.record(first);
+		
+		SampleCounts second = new SampleCounts();
+		second.add(Count.CANDIDATES, 2);
+		metrics.record(second);
+		
+		assertEquals(2, metrics.getSamples());
+		assertEquals(10, metrics.getTally(Count.CANDIDATES).getTotal());
+		assertEquals(8, metrics.getTally(Count.CANDIDATES).getMax());
+		assertEquals(5.0, metrics.getTally(Count.CANDIDATES).getMean());
+		assertEquals(0, metrics.getTally(Count.PAIRS).getTotal());
+		
+		StringWriter table = new StringWriter();
+		metrics.print(new PrintWriter(table));
+		assertTrue(table.toString().contains(Stage.MATCHING.getLabel()));
+		
+		metrics.reset();
+		assertEquals(0, metrics.getTimer(Stage.MATCHING).getCount());
+		assertEquals(0, metrics.getSamples());
+	}
+}
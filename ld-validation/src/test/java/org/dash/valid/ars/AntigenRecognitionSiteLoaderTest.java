@@ -21,13 +21,18 @@
 */
 package org.dash.valid.ars;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.HashSet;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.dash.valid.imgt.IMGTDataCache;
 import org.junit.Test;
 import org.xml.sax.SAXException;
 
@@ -47,4 +52,40 @@ public class AntigenRecognitionSiteLoaderTest extends TestCase {
 		assertNotNull(gAllelesMap);
 		assertTrue(gAllelesMap.keySet().size() > 0);
 	}
+	
+	@Test
+	public void testParseGGroupsCached() throws IOException {
+		String xml = "<tns:ambiguityData xmlns:tns=\"http://hla.alleles.org/xml\"><tns:gene name=\"HLA-C\">"
+				+ "<tns:gGroup name=\"C*02:10:01G\"><tns:gGroupAllele name=\"HLA-C*02:10:01\"/><tns:gGroupAllele name=\"C*02:10:02:01N\"/></tns:gGroup>"
+				+ "<tns:gGroup name=\"C*03\"><tns:gGroupAllele name=\"C*03:01:01\"/></tns:gGroup>"
+				+ "</tns:gene></tns:ambiguityData>";
+		
+		HashMap<String, HashSet<String>> gAllelesMap = AntigenRecognitionSiteLoader.parseGGroups(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+		
+		assertEquals(1, gAllelesMap.size());
+		assertTrue(gAllelesMap.get("HLA-C*02:02g").contains("HLA-C*02:10"));
+		assertTrue(gAllelesMap.get("HLA-C*02:02g").contains("HLA-C*02:10N"));
+		
+		File directory = Files.createTempDirectory("imgt").toFile();
+		try {
+			IMGTDataCache cache = new IMGTDataCache(directory);
+			cache.writeSetMap("3.20.0", "gGroups", gAllelesMap);
+			
+			assertEquals(gAllelesMap, cache.readSetMap("3.20.0", "gGroups"));
+			assertNull(cache.readSetMap("3.21.0", "gGroups"));
+		}
+		finally {
+			delete(directory);
+		}
+	}
+	
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
 }
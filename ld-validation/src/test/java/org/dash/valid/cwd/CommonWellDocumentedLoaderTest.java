@@ -49,4 +49,33 @@ public class CommonWellDocumentedLoaderTest extends TestCase {
 		assertTrue(cwdLoader.getAccessionMap().containsKey(DQA10111));
 		assertTrue(cwdLoader.getAccessionMap().get(DQA10111).equals(HLA08433));
 	}
+	
+	@Test
+	public void testLoadFailsWithoutCWD() throws IOException {
+		try {
+			CommonWellDocumentedLoader.load("3.25.0", "reference/missing.txt");
+			fail("Loaded without a CWD reference file");
+		}
+		catch (FileNotFoundException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testLoadFailsWithNoCWDAlleles() {
+		try {
+			CommonWellDocumentedLoader.load("3.25.0", "reference/CWD-empty.txt");
+			fail("Loaded without any CWD alleles");
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage().contains("No CWD alleles"));
+		}
+	}
+	
+	@Test
+	public void testLoad() throws IOException {
+		CommonWellDocumentedLoader cwdLoader = CommonWellDocumentedLoader.load("3.25.0");
+		
+		assertTrue(cwdLoader.getCwdAlleles().contains(HLA08433));
+	}
 }
@@ -0,0 +1,68 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid.report;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.dash.valid.Locus;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class DetectedLinkageFindingsTest extends TestCase {
+
+	@Test
+	public void testFinish() {
+		DetectedLinkageFindings findings = new DetectedLinkageFindings("nmdp-2007");
+		findings.addFindingSought(Locus.C_B_LOCI);
+		
+		Set<String> nonCWDAlleles = new HashSet<String>();
+		nonCWDAlleles.add("HLA-B*07:01:01:50");
+		findings.setNonCWDAlleles(nonCWDAlleles);
+		
+		assertFalse(findings.isFinished());
+		assertSame(findings, findings.finish());
+		assertTrue(findings.isFinished());
+		
+		assertTrue(findings.hasAnomalies());
+		assertEquals(2, findings.getWarnings().size());
+		assertNull(findings.getFirstPair(Locus.C_B_LOCI));
+		assertNull(findings.getMinimumDifference(Locus.C_B_LOCI));
+		
+		try {
+			findings.addFindingSought(Locus.DRB1_DQB1_LOCI);
+			fail("Finished findings should not be modifiable");
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+		
+		try {
+			findings.getNonCWDAlleles().clear();
+			fail("Finished findings should not be modifiable");
+		}
+		catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
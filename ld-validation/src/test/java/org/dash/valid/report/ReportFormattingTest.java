@@ -0,0 +1,231 @@
+/*
+
+    Copyright (c) 2014-2015 National Marrow Donor Program (NMDP)
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.gnu.org/licenses/lgpl.html
+
+*/
+package org.dash.valid.report;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.dash.valid.CoreDisequilibriumElement;
+import org.dash.valid.LinkageDisequilibriumAnalyzer;
+import org.dash.valid.Linkages;
+import org.dash.valid.LinkagesLoader;
+import org.dash.valid.Locus;
+import org.dash.valid.LocusComparator;
+import org.dash.valid.LocusSet;
+import org.dash.valid.ReferenceDataSnapshot;
+import org.dash.valid.freq.Frequencies;
+import org.dash.valid.gl.GLStringConstants;
+import org.dash.valid.gl.GLStringUtilities;
+import org.dash.valid.gl.LinkageDisequilibriumGenotypeList;
+import org.dash.valid.gl.haplo.HaplotypePair;
+import org.dash.valid.race.RelativeFrequencyByRace;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * The reports written to an Appendable, and the Strings built from them, are the same as those of the
+ * writers as they were when they built Strings, kept here as they were.
+ */
+public class ReportFormattingTest extends TestCase {
+	private static final String[] EXAMPLES = new String[] { "strictExample.txt", "fullyQualifiedExample.txt" };
+
+	@Test
+	public void testReportsByRace() throws IOException {
+		assertReports(Frequencies.NMDP_2007);
+	}
+
+	@Test
+	public void testReports() throws IOException {
+		assertReports(Frequencies.NMDP_2007_STD);
+	}
+
+	private static void assertReports(Frequencies frequencies) throws IOException {
+		ReferenceDataSnapshot referenceData = ReferenceDataSnapshot.load(frequencies.getShortName(), null);
+
+		for (String example : EXAMPLES) {
+			for (LinkageDisequilibriumGenotypeList glString : GLStringUtilities.readGLStringFile(example)) {
+				DetectedLinkageFindings findings = referenceData.call(() -> LinkageDisequilibriumAnalyzer.detectLinkages(glString)).getFindings();
+				assertTrue(findings.hasLinkages());
+
+				String expected = formatHaplotypePairs(findings);
+				assertEquals(expected, HaplotypePairWriter.formatDetectedLinkages(findings));
+				StringWriter appended = new StringWriter();
+				HaplotypePairWriter.formatDetectedLinkages(findings, appended);
+				assertEquals(expected, appended.toString());
+
+				expected = formatLinkages(findings);
+				assertEquals(expected, LinkageDisequilibriumWriter.formatDetectedLinkages(findings));
+				appended = new StringWriter();
+				LinkageDisequilibriumWriter.formatDetectedLinkages(findings, appended);
+				assertEquals(expected, appended.toString());
+
+				expected = formatCommonWellDocumented(findings);
+				assertEquals(expected, CommonWellDocumentedWriter.formatCommonWellDocumented(findings));
+				appended = new StringWriter();
+				CommonWellDocumentedWriter.formatCommonWellDocumented(findings, appended);
+				assertEquals(expected, appended.toString());
+
+				expected = formatDetectedFindings(findings);
+				assertEquals(expected, DetectedFindingsWriter.formatDetectedFindings(findings));
+				appended = new StringWriter();
+				DetectedFindingsWriter.formatDetectedFindings(findings, appended);
+				assertEquals(expected, appended.toString());
+
+				for (HaplotypePair pair : findings.getLinkedPairs()) {
+					assertEquals(toString(pair), pair.toString());
+					for (RelativeFrequencyByRace frequency : pair.getFrequencies()) {
+						assertEquals(toString(frequency), frequency.toString());
+					}
+				}
+				for (DetectedDisequilibriumElement linkage : findings.getLinkages()) {
+					assertEquals(toString(linkage), linkage.toString());
+				}
+			}
+		}
+	}
+
+	private static String formatHaplotypePairs(DetectedLinkageFindings findings) {
+		StringBuffer sb = new StringBuffer("Id: " + findings.getGLId() + GLStringConstants.NEWLINE + "GL String: " + findings.getGLString());
+		sb.append(GLStringConstants.NEWLINE + GLStringConstants.NEWLINE + "HLA DB Version: " + findings.getHladb() + GLStringConstants.NEWLINE);
+		
+		sb.append(GLStringConstants.NEWLINE + "Frequencies:  " + findings.getFrequencies() + GLStringConstants.NEWLINE);
+		
+		for (EnumSet<Locus> findingSought : findings.getFindingsSought()) {
+			if (findings.hasLinkedPairs(findingSought) && findings.getFirstPair(findingSought) != null) {
+				sb.append(GLStringConstants.NEWLINE + "First " + findingSought + " Haplotype pair:" + GLStringConstants.NEWLINE + toString(findings.getFirstPair(findingSought)));
+			}
+			else {
+				sb.append(GLStringConstants.NEWLINE + "WARNING - No " + findingSought + " haplotype pairs detected." + GLStringConstants.NEWLINE);
+			}
+		}
+		
+		for (HaplotypePair pair : findings.getLinkedPairs()) {
+			if (findings.getFirstPairs().contains(pair)) {
+				continue;
+			}
+			else {
+				sb.append(GLStringConstants.NEWLINE + "Possible " + pair.getLoci() + " Haplotype Pair:" + GLStringConstants.NEWLINE);
+			}
+			sb.append(toString(pair));
+		}
+		
+		sb.append(GLStringConstants.NEWLINE + "***************************************" + GLStringConstants.NEWLINE);
+		return sb.toString();
+	}
+
+	private static String formatLinkages(DetectedLinkageFindings findings) {
+		StringBuffer sb = new StringBuffer("Id: " + findings.getGLId() + GLStringConstants.NEWLINE + "GL String: " + findings.getGLString());
+		sb.append(GLStringConstants.NEWLINE + GLStringConstants.NEWLINE + "HLA DB Version: " + findings.getHladb() + GLStringConstants.NEWLINE);
+		
+		sb.append(GLStringConstants.NEWLINE + "Frequencies:  " + findings.getFrequencies() + GLStringConstants.NEWLINE);
+				
+		if (!findings.hasLinkages()) {
+			sb.append(GLStringConstants.NEWLINE + "WARNING - NO LINKAGES FOUND" + GLStringConstants.NEWLINE);
+		}
+				
+		for (DetectedDisequilibriumElement linkage : findings.getLinkages()) {
+			sb.append(GLStringConstants.NEWLINE);
+			sb.append("We found linkages:" + GLStringConstants.NEWLINE);
+			sb.append(toString(linkage));
+		}
+		
+		sb.append(GLStringConstants.NEWLINE + "***************************************" + GLStringConstants.NEWLINE);
+		return sb.toString();
+	}
+
+	private static String formatCommonWellDocumented(DetectedLinkageFindings findings) {
+		if (findings.getNonCWDAlleles() == null || findings.getNonCWDAlleles().size() == 0) {
+			return GLStringConstants.EMPTY_STRING;
+		}
+		
+		StringBuffer sb = new StringBuffer("Id: " + findings.getGLId() + GLStringConstants.NEWLINE + "GL String: " + findings.getGLString());
+		sb.append(GLStringConstants.NEWLINE + GLStringConstants.NEWLINE + "HLA DB Version: " + findings.getHladb() + GLStringConstants.NEWLINE);
+		
+		for (String allele : findings.getNonCWDAlleles()) {
+			sb.append("WARNING - Allele: " + allele + " not in the CWD list. ");
+			sb.append(GLStringConstants.NEWLINE);
+		}
+		
+		sb.append(GLStringConstants.NEWLINE);
+		
+		return sb.toString();
+	}
+
+	private static String formatDetectedFindings(DetectedLinkageFindings findings) {
+		StringBuffer sb = new StringBuffer();
+		sb.append(findings.getGLId() + GLStringConstants.COMMA);
+		sb.append(findings.getAlleleCount(Locus.HLA_A) + GLStringConstants.COMMA);
+		sb.append(findings.getAlleleCount(Locus.HLA_B) + GLStringConstants.COMMA);
+		sb.append(findings.getAlleleCount(Locus.HLA_C) + GLStringConstants.COMMA);
+		sb.append(findings.getAlleleCount(Locus.HLA_DRB1) + GLStringConstants.COMMA);
+		sb.append(findings.getAlleleCount(Locus.HLA_DRB345) + GLStringConstants.COMMA);
+		sb.append(findings.getAlleleCount(Locus.HLA_DQB1) + GLStringConstants.COMMA);
+		for (Linkages linkage : LinkagesLoader.getInstance().getLinkages()) {
+			sb.append(findings.getLinkageCount(linkage.getLoci()) + GLStringConstants.COMMA);
+			sb.append(findings.getMinimumDifference(linkage.getLoci()) + GLStringConstants.COMMA);
+		}
+		sb.append(GLStringConstants.NEWLINE);
+		return sb.toString();
+	}
+
+	private static String toString(HaplotypePair pair) {
+		StringBuffer sb = new StringBuffer(pair.getHaplotypes().get(0).getHaplotypeString() + GLStringConstants.NEWLINE +
+				pair.getHaplotypes().get(1).getHaplotypeString() + GLStringConstants.NEWLINE);
+		
+		if (pair.getFrequencies() != null && pair.getFrequencies().size() > 0) {
+			for (RelativeFrequencyByRace relativeFrequency : pair.getFrequencies()) {
+				sb.append(toString(relativeFrequency) + GLStringConstants.NEWLINE);
+			}
+		}
+		else {
+			sb.append(pair.getFrequency());
+		}
+		
+		return sb.toString();
+	}
+
+	private static String toString(RelativeFrequencyByRace frequency) {
+		return frequency.getRaceType() + " Race: " + frequency.getRace() + ", Freq: + " + frequency.getFrequency() + ", Relative Freq (%): + " + String.format("%.02f", frequency.getRelativeFrequency());
+	}
+
+	private static String toString(DetectedDisequilibriumElement linkage) {
+		StringBuffer sb = new StringBuffer();
+		
+		Set<Locus> loci = new LocusSet(new LocusComparator());
+		loci.addAll(linkage.getDisequilibriumElement().getLoci());
+		
+		for (Locus locus : loci) {
+			if (linkage.getDisequilibriumElement().getHlaElement(locus).size() == 1) {
+				sb.append(linkage.getDisequilibriumElement().getHlaElement(locus).get(0));
+			} else {
+				sb.append(linkage.getDisequilibriumElement().getHlaElement(locus));
+			}
+			
+			sb.append(GLStringConstants.GENE_PHASE_DELIMITER);
+		}
+			
+		return sb.substring(0, sb.length() - 1) + GLStringConstants.NEWLINE + ((CoreDisequilibriumElement) linkage.getDisequilibriumElement()).getFrequencyInfo();
+	}
+}